@@ -0,0 +1,139 @@
+package com.lordsofmidnight.server.telemeters;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.maps.MapGenerator;
+import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.server.snapshot.SnapshotAcks;
+import com.lordsofmidnight.utils.Methods;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one physics tick of a headless match, and each stage of it on its own, on generated
+ * maps of increasing size with more agents than a real game has. Each operation is one tick, so
+ * the score is ns/tick, and {@code gc.alloc.rate.norm} from the gc profiler the build turns on is
+ * the bytes allocated per tick. Run with {@code gradlew jmh}, {@code -PjmhInclude=physicsTick} runs
+ * one benchmark and the jar it builds takes other sizes, such as {@code -p agentCount=40}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhysicsBenchmark {
+
+  private static final long SEED = 42;
+  private static final Direction[] MOVES = {
+    Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT
+  };
+  private static final GameListener LISTENER =
+      new GameListener() {
+        @Override
+        public void collisionDetected(Entity newMipsman) {}
+
+        @Override
+        public void finishGame() {}
+      };
+
+  /**
+   * The width and height of the map, 14 is the size played in game. The generator takes minutes
+   * to find a valid map much beyond 20.
+   */
+  @Param({"14", "17", "20"})
+  public int mapSize;
+
+  /** The number of agents, 5 is the number in a standard game */
+  @Param({"5", "32", "64"})
+  public int agentCount;
+
+  private HostTelemetry telemetry;
+  private Map map;
+  private Entity[] agents;
+  private Random steering;
+
+  /** Sets up a bot match, without its AI, with the agents spread over the map */
+  @Setup(Level.Trial)
+  public void setUp() {
+    map = new Map(MapGenerator.generateNewMap(mapSize, mapSize, new Random(SEED)));
+    telemetry =
+        new HostTelemetry(
+            map,
+            agentCount,
+            0,
+            new LinkedBlockingQueue<>(),
+            new LinkedBlockingQueue<>(),
+            new SnapshotAcks(0),
+            LISTENER,
+            SEED);
+    agents = telemetry.agents;
+    steering = new Random(SEED);
+  }
+
+  /**
+   * Stands in for the AI, turning every agent that has stopped against a wall so agents keep
+   * moving through the benchmark
+   */
+  private void steer() {
+    for (Entity agent : agents) {
+      if (agent.getDirection() == Direction.STOP) {
+        Direction move = MOVES[steering.nextInt(MOVES.length)];
+        if (Methods.validateDirection(move, agent.getLocation(), map)) {
+          agent.setDirection(move);
+        }
+      }
+    }
+  }
+
+  /** The whole of {@link Telemetry#processPhysics} */
+  @Benchmark
+  public void physicsTick() {
+    steer();
+    telemetry.processPhysics(agents, map, null, telemetry.pellets, telemetry.activePowerUps);
+  }
+
+  /** Movement and respawning dead agents */
+  @Benchmark
+  public void moveAgents() {
+    steer();
+    telemetry.moveAgents(agents, map);
+  }
+
+  /** Collision between agents near each other */
+  @Benchmark
+  public void entityCollisions() {
+    telemetry.detectEntityCollisions(agents);
+  }
+
+  /** Agents eating the pellets under them */
+  @Benchmark
+  public void pelletCollision() {
+    telemetry.pelletCollision(agents, telemetry.pellets, telemetry.activePowerUps);
+  }
+
+  /** Counting down the respawn of eaten pellets */
+  @Benchmark
+  public void respawnPellets() {
+    telemetry.respawnPellets(telemetry.pellets);
+  }
+
+  /** Counting down the power ups in use */
+  @Benchmark
+  public void updatePowerUps() {
+    telemetry.updatePowerUps(telemetry.activePowerUps);
+  }
+}
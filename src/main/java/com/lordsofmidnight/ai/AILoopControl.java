@@ -1,6 +1,9 @@
 package com.lordsofmidnight.ai;
 
+import com.lordsofmidnight.ai.mapping.InfluenceMap;
+import com.lordsofmidnight.ai.mapping.InfluenceMap.Layer;
 import com.lordsofmidnight.ai.mapping.Mapping;
+import com.lordsofmidnight.ai.mapping.NavigationGraph;
 import com.lordsofmidnight.ai.routefinding.RouteFinder;
 import com.lordsofmidnight.ai.routefinding.SampleSearch;
 import com.lordsofmidnight.ai.routefinding.routefinders.AStarRouteFinder;
@@ -8,29 +11,39 @@ import com.lordsofmidnight.ai.routefinding.routefinders.MipsManRouteFinder;
 import com.lordsofmidnight.ai.routefinding.routefinders.NextJunctionRouteFinder;
 import com.lordsofmidnight.ai.routefinding.routefinders.PowerUpBoxPatrolRouteFinder;
 import com.lordsofmidnight.ai.routefinding.routefinders.RandomRouteFinder;
+import com.lordsofmidnight.gamestate.WorldSnapshot;
 import com.lordsofmidnight.gamestate.maps.Map;
 import com.lordsofmidnight.gamestate.points.Point;
 import com.lordsofmidnight.gamestate.points.PointMap;
-import com.lordsofmidnight.gamestate.points.PointSet;
 import com.lordsofmidnight.objects.Entity;
 import com.lordsofmidnight.objects.Pellet;
-import com.lordsofmidnight.objects.powerUps.PowerUp;
 import com.lordsofmidnight.utils.Input;
 import com.lordsofmidnight.utils.Methods;
 import com.lordsofmidnight.utils.enums.Direction;
 import com.lordsofmidnight.utils.enums.PowerUps;
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
+import java.util.IdentityHashMap;
 import java.util.Random;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Control class for all AI.
  *
+ * <p>Each {@link #step(WorldSnapshot)} decides from the state of the game the tick published, so
+ * every agent sees the same game however long deciding takes. It decides for every agent that
+ * needs a new direction at once, each agent
+ * on a task of its own run on a pool shared by every game. An agent makes its random choices from
+ * a source of its own, and the inputs decided are only queued once every agent is done, in the
+ * order of the agents, so a seeded game plays out the same however the tasks were scheduled.
+ *
  * @author Lewis Ackroyd
  */
-public class AILoopControl extends Thread {
+public class AILoopControl {
 
   private static final int POWER_UP_USE_PROBABILITY = 10; // chance that a powerUp is used
   private static final int SPEED_POWER_UP_ACTIVATE_DEPTH =
@@ -42,18 +55,36 @@ public class AILoopControl extends Thread {
   private static final int OPPOSITE_DIRECTION_DIVISOR =
       4; // the probability as 1/OPPOSITE_DIRECTION_DIVISOR of travelling in the opposite direction
   // to previous direciton of travel
-  private static final long SLEEP_TIME = 1; // how long to sleep between full AI agent cycle
+  private static final int PARALLEL_DECISIONS =
+      4; // the fewest decisions handed to the pool, fewer are quicker made on the calling thread
+  private static final ForkJoinPool DECISIONS =
+      new ForkJoinPool(
+          Runtime.getRuntime().availableProcessors(),
+          pool -> {
+            ForkJoinWorkerThread thread =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("AIDecision-" + thread.getPoolIndex());
+            return thread;
+          },
+          null,
+          false); // the agents of every game decide on these threads, never more than the cores
 
   private final ArrayList<Entity> controlAgents; // agents controlled by AI
-  private final PointSet
-      junctions; // all the junctions on the map, including 90 degree corners and dead ends
-  private final PointMap<PointSet>
-      edges; // all connedtions between directly adjacent junctions on the map, not uncluding loops
-  // around the map boundaries
+  private final NavigationGraph
+      graph; // the junctions on the map, including 90 degree corners, and the edges between them
   private final BlockingQueue<Input> directionsOut; // output queue for game instructions
   private final Map map; // the map being played on
+  private final SampleSearch sampleSearch; // the searches around agents on the map
+  private final InfluenceMap influence; // where agents and power up boxes are, shared each cycle
   private final Entity[] gameAgents; // all agents present in the game
-  private final PointMap<Pellet> pellets; // the locations of all pellets in the game
+  private final Random random; // the source of every random choice the AI makes
+  private final IdentityHashMap<Entity, Integer>
+      indices; // the index of each agent in the gameAgents array, and so in the world
+  private final Point location; // reused for the location of each agent checked in a cycle
+  private final Point mipsmanLocation; // where the agent treated as mipsman is this cycle
+  private final IdentityHashMap<Entity, Decision>
+      decisions; // the decision of each agent, made the first time it is controlled
+  private final ArrayList<Decision> pending; // the decisions to make this cycle, in agent order
 
   private ArrayList<Entity>
       newClient; // list of clients to be given AI control when the current full AI agent cycle
@@ -62,8 +93,9 @@ public class AILoopControl extends Thread {
       removeClient; // list of clients to have AI control removed when the current full AI agent
   // cycle completes
 
-  private boolean runAILoop; // will run the AI loop until false
+  private volatile boolean runAILoop; // decides for the agents each step until false
   private Entity mipsman; // the index of mipsmanID in the gameAgents array
+  private WorldSnapshot world; // the state of the game this cycle is deciding from
 
   /**
    * Initialises the object prior to the AI loop being executed.
@@ -87,16 +119,51 @@ public class AILoopControl extends Thread {
       Map map,
       BlockingQueue<Input> directionsOut,
       PointMap<Pellet> pellets) {
+    this(gameAgents, controlIds, map, directionsOut, pellets, new Random());
+  }
+
+  /**
+   * Initialises the object prior to the AI loop being executed, making every random choice from
+   * the given source so that a seeded game plays out the same way every time.
+   *
+   * @param gameAgents The complete set of all entities that are controlled (by AI or players) in
+   * the game.
+   * @param controlIds The set of main Ids that the AI will control.
+   * @param map The map the game is being played on.
+   * @param directionsOut The {@link BlockingQueue}<{@link Input}> That processes all agent
+   * direction instructions.
+   * @param pellets The {@link PointMap}<{@link Pellet}> that will hold all pellets in the current
+   * game.
+   * @param random The random source of the game.
+   * @throws IllegalArgumentException gameAgent array contains duplicate main IDs.
+   * @throws IllegalStateException Cannot have more than one mipsman.
+   * @throws IllegalStateException The control ID does not match an agent main ID.
+   */
+  public AILoopControl(
+      Entity[] gameAgents,
+      int[] controlIds,
+      Map map,
+      BlockingQueue<Input> directionsOut,
+      PointMap<Pellet> pellets,
+      Random random) {
     validateAgents(gameAgents);
-    this.setDaemon(true);
+    this.random = random;
     this.runAILoop = true;
     this.gameAgents = gameAgents;
     this.controlAgents = new ArrayList<>();
-    this.junctions = Mapping.getJunctions(map);
-    this.edges = Mapping.getEdges(map, junctions);
+    this.decisions = new IdentityHashMap<>();
+    this.pending = new ArrayList<>();
+    this.indices = new IdentityHashMap<>();
+    for (int i = 0; i < gameAgents.length; i++) {
+      indices.put(gameAgents[i], i);
+    }
+    this.location = new Point(0, 0, map);
+    this.mipsmanLocation = new Point(0, 0, map);
+    this.graph = NavigationGraph.of(map);
     this.directionsOut = directionsOut;
     this.map = map;
-    this.pellets = pellets;
+    this.sampleSearch = SampleSearch.of(map);
+    this.influence = new InfluenceMap(map);
     this.newClient = new ArrayList<>();
     this.removeClient = new ArrayList<>();
     assignControlEntities(controlIds);
@@ -134,57 +201,89 @@ public class AILoopControl extends Thread {
   }
 
   /**
-   * The AI execution loop
+   * Runs one full AI agent cycle, choosing new directions for every controlled agent that needs
+   * one. Games call this from their tick, nothing is decided once the AI has been killed.
    *
-   * @author Lewis Ackroyd
+   * @param world The state of the game published by the tick, with the agents in the same order
+   * as the gameAgents array
    */
-  @Override
-  public void run() {
-    System.out.println("Starting AI loop...");
-
-    while (runAILoop) {
-      for (Entity ent : controlAgents) { // for all game agents
-        Point currentLocation = ent.getLocation().getCopy();
-        Point currentGridLocation = currentLocation.getGridCoord();
-        if (currentLocation.isCentered()
-            || !ent.getDirection()
-            .isMovementDirection()) { // only when in the centre of a grid square or if
-          // direction is not a movement direction
-          boolean atLastCoord = atPreviousCoordinate(ent, currentGridLocation);
-          if (!ent.getDirection().isMovementDirection() // direction is not a movement direction
-              || !Methods.validateDirection(ent.getDirection(), currentLocation, map)
-              || // movement direction is no longer valid
-              (junctions.contains(currentGridLocation)
-                  && !atLastCoord)) { // at a junction, but not the last coordinate
-            generateNewDirection(ent, currentLocation, currentGridLocation, atLastCoord);
-          }
-          if (!atLastCoord) {
-            processPowerUps(ent, currentGridLocation);
-          }
+  public void step(WorldSnapshot world) {
+    if (!runAILoop) {
+      return;
+    }
+    this.world = world;
+    int mipID = mipsman == null ? WorldSnapshot.NO_AGENT : indices.get(mipsman);
+    influence.nextTick(world, mipID);
+    if (mipID != WorldSnapshot.NO_AGENT) {
+      world.getLocation(mipID, mipsmanLocation);
+    }
+    pending.clear();
+    for (int c = 0; c < controlAgents.size(); c++) { // for all game agents
+      Entity ent = controlAgents.get(c);
+      int index = indices.get(ent);
+      if (world.getLocation(index, location).isCentered()
+          || !world.getDirection(index)
+          .isMovementDirection()) { // only when in the centre of a grid square or if
+        // direction is not a movement direction
+        Decision decision = decisions.get(ent);
+        if (decision == null) {
+          decision = new Decision(ent, index, random.nextLong());
+          decisions.put(ent, decision);
         }
+        decision.reinitialize();
+        pending.add(decision);
       }
+    }
+    if (pending.size() >= PARALLEL_DECISIONS && DECISIONS.getParallelism() > 1) {
+      DECISIONS.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(pending)));
+    } else {
+      for (int i = 0; i < pending.size(); i++) {
+        pending.get(i).invoke(); // not worth handing to the pool
+      }
+    }
+    for (int d = 0; d < pending.size(); d++) {
+      Decision decision = pending.get(d);
+      for (int i = 0; i < decision.inputs.size(); i++) {
+        directionsOut.add(decision.inputs.get(i));
+      }
+      decision.inputs.clear();
+    }
 
-      correctMipsmanRouteFinder();
+    correctMipsmanRouteFinder();
 
-      updateControlList();
+    updateControlList();
+  }
 
-      try {
-        Thread.sleep(SLEEP_TIME);
-      } catch (InterruptedException e) {
-        runAILoop = false;
-      }
+  /**
+   * Decides what a controlled agent does next, if it needs a new direction.
+   *
+   * @param decision The decision being made.
+   */
+  private void decide(Decision decision) {
+    Entity ent = decision.ent;
+    Point currentLocation = world.getLocation(decision.index);
+    Point currentGridLocation = currentLocation.getGridCoord();
+    Direction direction = world.getDirection(decision.index);
+    boolean atLastCoord = atPreviousCoordinate(ent, currentGridLocation);
+    if (!direction.isMovementDirection() // direction is not a movement direction
+        || !Methods.validateDirection(direction, currentLocation, map)
+        || // movement direction is no longer valid
+        (graph.isJunction(currentGridLocation)
+            && !atLastCoord)) { // at a junction, but not the last coordinate
+      generateNewDirection(decision, currentLocation, currentGridLocation, atLastCoord);
+    }
+    if (!atLastCoord) {
+      processPowerUps(decision, currentGridLocation);
     }
-    System.out.println("AI safely terminated.");
   }
 
   /**
-   * Terminates the AI loop
+   * Stops the AI, no more decisions are made after the step in progress
    *
    * @author Lewis Ackroyd
    */
-  public boolean killAI() {
+  public void killAI() {
     runAILoop = false;
-    return isAlive();
   }
 
   /**
@@ -280,7 +379,7 @@ public class AILoopControl extends Thread {
    * Produces a new {@link Direction} for the specified entity and outputs this to the inputs
    * queue.
    *
-   * @param ent The entity currently being processed
+   * @param decision The decision of the entity currently being processed
    * @param currentLocation The absolute position of the given {@link Entity} at the start of
    * processing
    * @param currentGridLocation The grid position of the given {@link Entity} at the start of
@@ -290,27 +389,33 @@ public class AILoopControl extends Thread {
    * @author Lewis Ackroyd
    */
   private void generateNewDirection(
-      Entity ent, Point currentLocation, Point currentGridLocation, boolean atLastCoord) {
+      Decision decision, Point currentLocation, Point currentGridLocation, boolean atLastCoord) {
+    Entity ent = decision.ent;
     if (atLastCoord
-        || !junctions.contains(
+        || !graph.isJunction(
         currentGridLocation)) { // direction invalid, produce a random valid direction
       // instruction
-      Point nearestJunction = Mapping.findNearestJunction(currentLocation, map, junctions);
+      Point nearestJunction = graph.findNearestJunction(currentLocation);
       Direction dir;
       if (!nearestJunction.equals(currentGridLocation)) { // go to nearest junction
         dir = Mapping.directionBetweenPoints(currentLocation, nearestJunction);
       } else { // generate random direction to travel in from current location
-        dir = new RandomRouteFinder().getRoute(currentLocation, mipsman.getLocation());
+        dir =
+            new RandomRouteFinder(decision.random).getRoute(currentLocation, mipsmanLocation);
       }
       dir =
-          confirmOrReplaceDirection(ent.getDirection(), currentLocation, dir); // validate direction
-      setDirection(dir, ent);
+          confirmOrReplaceDirection(
+              decision,
+              world.getDirection(decision.index),
+              currentLocation,
+              dir); // validate direction
+      setDirection(dir, decision);
 
     } else {
       ent.setLastGridCoord(
           currentGridLocation); // prevents multiple directions being produced for the same grid
       // coordinate
-      executeRoute(ent, currentLocation);
+      executeRoute(decision, currentLocation);
     }
   }
 
@@ -353,23 +458,23 @@ public class AILoopControl extends Thread {
       RouteFinder routeFinder;
       switch (i) {
         case 0: {
-          routeFinder = new MipsManRouteFinder(pellets, gameAgents, map);
+          routeFinder = new MipsManRouteFinder(influence, map);
           break;
         }
         case 1: {
-          routeFinder = new AStarRouteFinder(junctions, edges, map);
+          routeFinder = new AStarRouteFinder(map);
           break;
         }
         case 2: {
-          routeFinder = new NextJunctionRouteFinder(gameAgents, map, junctions, edges);
+          routeFinder = new NextJunctionRouteFinder(influence, map);
           break;
         }
         case 3: {
-          routeFinder = new PowerUpBoxPatrolRouteFinder(map, pellets);
+          routeFinder = new PowerUpBoxPatrolRouteFinder(map, influence);
           break;
         }
         default: {
-          routeFinder = new RandomRouteFinder();
+          routeFinder = new RandomRouteFinder(new Random(random.nextLong()));
           break;
         }
       }
@@ -385,7 +490,7 @@ public class AILoopControl extends Thread {
    */
   private void generateEasyRouteFinders() {
     for (int i = 0; i < gameAgents.length; i++) {
-      gameAgents[i].setRouteFinder(new RandomRouteFinder());
+      gameAgents[i].setRouteFinder(new RandomRouteFinder(new Random(random.nextLong())));
     }
   }
 
@@ -401,11 +506,11 @@ public class AILoopControl extends Thread {
       RouteFinder routeFinder;
       switch (i) {
         case 0: {
-          routeFinder = new MipsManRouteFinder(pellets, gameAgents, map);
+          routeFinder = new MipsManRouteFinder(influence, map);
           break;
         }
         default: {
-          routeFinder = new AStarRouteFinder(junctions, edges, map);
+          routeFinder = new AStarRouteFinder(map);
           break;
         }
       }
@@ -467,31 +572,34 @@ public class AILoopControl extends Thread {
    * Executes the {@link RouteFinder} associated with the given {@link Entity}. Validates the {@link
    * Direction} produced and then outputs a valid {@link Direction}.
    *
-   * @param ent The current {@link Entity} who's route is being calculated.
+   * @param decision The decision of the current {@link Entity} who's route is being calculated.
    * @param currentLocation The current location of this {@link Entity} when it began being
    * processed.
    * @author Lewis Ackroyd
    */
-  private void executeRoute(Entity ent, Point currentLocation) {
+  private void executeRoute(Decision decision, Point currentLocation) {
+    Entity ent = decision.ent;
     RouteFinder r = ent.getRouteFinder();
-    Point mipsManLoc = mipsman.getLocation();
-    Direction direction = r.getRoute(currentLocation, mipsManLoc);
-    direction = accountForPowerUps(currentLocation, direction);
-    direction = confirmOrReplaceDirection(ent.getDirection(), currentLocation, direction);
-    setDirection(direction, ent);
+    Direction direction = r.getRoute(currentLocation, mipsmanLocation);
+    direction = accountForPowerUps(decision, currentLocation, direction);
+    direction =
+        confirmOrReplaceDirection(
+            decision, world.getDirection(decision.index), currentLocation, direction);
+    setDirection(direction, decision);
   }
 
   /**
    * Adjusts the given {@link Direction} to allow the entity to account for any active {@link
    * PowerUps PowerUps}s that warrant a course adjustment.
    *
+   * @param decision The decision being made.
    * @param position The position of the {@link Entity}.
    * @param direction The current direction of travel.
    * @return The corrected direction.
    * @author Lewis Ackroyd
    */
-  private Direction accountForPowerUps(Point position, Direction direction) {
-    direction = invincibilityAdjust(position, direction);
+  private Direction accountForPowerUps(Decision decision, Point position, Direction direction) {
+    direction = invincibilityAdjust(decision, position, direction);
     return direction;
   }
 
@@ -499,51 +607,41 @@ public class AILoopControl extends Thread {
    * Determines if any of the agents in the near vicinity have invincibility powerup active and will
    * try to avoid them.
    *
+   * @param decision The decision being made
    * @param position The current position
    * @param direction The direction that will be travelled in next currently
    * @return The adjusted direction.
    * @author Lewis Ackroyd
    */
-  private Direction invincibilityAdjust(Point position, Direction direction) {
-    class InvincibleAgentCondition implements SampleSearch.ConditionalInterface {
-
-      @Override
-      public boolean condition(Point position) {
-        for (Entity ent : gameAgents) {
-          if (ent.getLocation().getGridCoord().equals(position.getGridCoord())) {
-            if (ent.isInvincible()) {
-              return true;
-            }
-          }
-        }
-        return false;
-      }
+  private Direction invincibilityAdjust(Decision decision, Point position, Direction direction) {
+    InfluenceMap.Field invincible = influence.get(Layer.INVINCIBLE);
+    if (invincible.getDistance(position) > INVINCIBILITY_AVOID_DISTANCE) {
+      return direction; // none close enough to be found
     }
     int[] directionValues =
-        new SampleSearch(INVINCIBILITY_AVOID_DISTANCE, map)
-            .getDirectionCounts(position, new InvincibleAgentCondition());
-    Random r = new Random();
+        sampleSearch.getDirectionCounts(
+            position, INVINCIBILITY_AVOID_DISTANCE, invincible::contains);
     int total = 0;
     for (int i : directionValues) {
       total += i;
     }
     if (total > 0) {
-      int probability = r.nextInt(total);
+      int probability = decision.random.nextInt(total);
       probability -= directionValues[Direction.UP.toInt()];
       if (probability <= 0) {
-        direction = reRoll(Direction.UP, direction, position);
+        direction = reRoll(decision, Direction.UP, direction, position);
       }
       probability -= directionValues[Direction.DOWN.toInt()];
       if (probability <= 0) {
-        direction = reRoll(Direction.DOWN, direction, position);
+        direction = reRoll(decision, Direction.DOWN, direction, position);
       }
       probability -= directionValues[Direction.LEFT.toInt()];
       if (probability <= 0) {
-        direction = reRoll(Direction.LEFT, direction, position);
+        direction = reRoll(decision, Direction.LEFT, direction, position);
       }
       probability -= directionValues[Direction.RIGHT.toInt()];
       if (probability <= 0) {
-        direction = reRoll(Direction.RIGHT, direction, position);
+        direction = reRoll(decision, Direction.RIGHT, direction, position);
       }
     }
     return direction;
@@ -553,6 +651,7 @@ public class AILoopControl extends Thread {
    * Regenerates the direction to be travelled based on all possible directions, but not
    * avoidDirection (if alternatives are available) and weighted towards preferDirection.
    *
+   * @param decision The decision being made.
    * @param avoidDirection The direction that will not be travelled in unless no other alternatives
    * are available.
    * @param preferDirection The direction which will have the highest weight of being chosen.
@@ -560,7 +659,8 @@ public class AILoopControl extends Thread {
    * @return The re-rolled direction.
    * @author Lewis Ackroyd
    */
-  private Direction reRoll(Direction avoidDirection, Direction preferDirection, Point currentLoc) {
+  private Direction reRoll(
+      Decision decision, Direction avoidDirection, Direction preferDirection, Point currentLoc) {
     ArrayList<Direction> validDirections = getValidDirections(currentLoc, map);
     if (validDirections.contains(avoidDirection) && validDirections.size() > 1) {
       validDirections.remove(avoidDirection);
@@ -570,8 +670,7 @@ public class AILoopControl extends Thread {
         validDirections.add(preferDirection);
       }
     }
-    Random r = new Random();
-    int val = r.nextInt(validDirections.size());
+    int val = decision.random.nextInt(validDirections.size());
     return validDirections.get(val);
   }
 
@@ -581,61 +680,62 @@ public class AILoopControl extends Thread {
    * Will use {@link PowerUps#SPEED Speed PowerUps} regardless if within {@link
    * #SPEED_POWER_UP_ACTIVATE_DEPTH} squares of MIPsman.
    *
-   * @param ent The current entity who's {@link PowerUps PowerUps} is being processed.
+   * @param decision The decision of the current entity who's {@link PowerUps PowerUps} is being
+   * processed.
    * @param currentLocation The current location.
    * @author Lewis Ackroyd
    */
-  private void processPowerUps(Entity ent, Point currentLocation) {
-    List<PowerUp> powerUpList = ent.getItems();
-    if (!powerUpList.isEmpty() && !ent.isPowerUpUsed()) {
-      Random r = new Random();
-      if (r.nextInt(POWER_UP_USE_PROBABILITY) > ent.powerUpUseAttempts()) {
+  private void processPowerUps(Decision decision, Point currentLocation) {
+    Entity ent = decision.ent;
+    int firstItem = world.getFirstItem(decision.index);
+    if (firstItem != WorldSnapshot.NO_ITEM && !ent.isPowerUpUsed()) {
+      if (decision.random.nextInt(POWER_UP_USE_PROBABILITY) > ent.powerUpUseAttempts()) {
         ent.setPowerUpUsedFlag(true);
-        setDirection(Direction.USE, ent);
+        setDirection(Direction.USE, decision);
       } else {
-        try {
-          if (powerUpList.get(0).getType() == PowerUps.SPEED) {
-            class MipsmanProximityCondition implements SampleSearch.ConditionalInterface {
-
-              @Override
-              public boolean condition(Point position) {
-                return position.equals(mipsman.getLocation());
-              }
-            }
-            SampleSearch sampleSearch = new SampleSearch(SPEED_POWER_UP_ACTIVATE_DEPTH, map);
-            int[] mipsmanProximities =
-                sampleSearch.getDirectionCounts(currentLocation, new MipsmanProximityCondition());
-            for (int i : mipsmanProximities) {
-              if (i > 0) {
-                ent.setPowerUpUsedFlag(true);
-                setDirection(Direction.USE, ent);
-                break;
-              }
+        if (firstItem == PowerUps.SPEED.toInt()
+            && influence.get(Layer.MIPSMAN).getDistance(currentLocation)
+            <= SPEED_POWER_UP_ACTIVATE_DEPTH) {
+          class MipsmanProximityCondition implements SampleSearch.ConditionalInterface {
+
+            @Override
+            public boolean condition(Point position) {
+              return position.equals(mipsmanLocation);
             }
           }
-          if (!ent.isPowerUpUsed()) {
-            ent.incrementPowerUpUseChance();
+          int[] mipsmanProximities =
+              sampleSearch.getDirectionCounts(
+                  currentLocation, SPEED_POWER_UP_ACTIVATE_DEPTH, new MipsmanProximityCondition());
+          for (int i : mipsmanProximities) {
+            if (i > 0) {
+              ent.setPowerUpUsedFlag(true);
+              setDirection(Direction.USE, decision);
+              break;
+            }
           }
-        } catch (NullPointerException | IndexOutOfBoundsException e) {
-        } // PowerUp removed whilst processing. Skip this cycle
+        }
+        if (!ent.isPowerUpUsed()) {
+          ent.incrementPowerUpUseChance();
+        }
       }
     }
   }
 
   /**
-   * Adds the specified direction to be processed by the server.
+   * Adds the specified direction to be processed by the server, once every agent has decided.
    *
    * @param direction The direction to be moved in.
-   * @param ent The entity the direction is associated with.
+   * @param decision The decision of the entity the direction is associated with.
    * @author Lewis Ackroyd
    */
-  private void setDirection(Direction direction, Entity ent) {
+  private void setDirection(Direction direction, Decision decision) {
+    Entity ent = decision.ent;
     if (direction == null) {
       return;
     }
-    if (direction != ent.getDirection() && !ent.isDirectionSet()) {
+    if (direction != world.getDirection(decision.index) && !ent.isDirectionSet()) {
       ent.setDirectionSetFlag(true);
-      directionsOut.add(new Input(ent.getClientId(), direction));
+      decision.inputs.add(new Input(ent.getClientId(), direction));
     }
   }
 
@@ -661,6 +761,7 @@ public class AILoopControl extends Thread {
    * Also reduces the liklihood of choosing a direction that would result in a 180 by the current
    * agent.
    *
+   * @param decision The decision being made.
    * @param oldDirection The direction previously travelled by this {@link Entity}.
    * @param currentLocation The location of this {@link Entity} at the start of this AI process
    * iteration.
@@ -669,26 +770,25 @@ public class AILoopControl extends Thread {
    * @author Lewis Ackroyd
    */
   private Direction confirmOrReplaceDirection(
-      Direction oldDirection, Point currentLocation, Direction dir) {
+      Decision decision, Direction oldDirection, Point currentLocation, Direction dir) {
     ArrayList<Direction> validDirections = getValidDirections(currentLocation, map);
-    Random r = new Random();
     if (validDirections.size() <= 0) {
       System.err.println("No directions can be travelled in.");
       return Direction.STOP;
     }
     if (!Methods.validateDirection(dir, currentLocation, map)) {
       if (validDirections.size() > 0) {
-        int randI = r.nextInt(validDirections.size());
+        int randI = decision.random.nextInt(validDirections.size());
         dir = validDirections.get(randI);
       }
     }
     if ((oldDirection == null || oldDirection.getInverse() == dir) && validDirections.size() > 1) {
-      int randI = r.nextInt(OPPOSITE_DIRECTION_DIVISOR);
+      int randI = decision.random.nextInt(OPPOSITE_DIRECTION_DIVISOR);
       if (randI == 0) {
         return dir;
       }
       validDirections.remove(dir);
-      randI = r.nextInt(validDirections.size());
+      randI = decision.random.nextInt(validDirections.size());
       dir = validDirections.get(randI);
     }
     if (!Methods.validateDirection(dir, currentLocation, map)) {
@@ -696,4 +796,34 @@ public class AILoopControl extends Thread {
     }
     return dir;
   }
+
+  /**
+   * What one agent does next, worked out on a task of its own. The inputs decided are held until
+   * every agent is done.
+   */
+  private final class Decision extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Entity ent; // the agent deciding
+    private final int index; // the index of the agent in the world
+    private final Random random; // the source of the agent's random choices
+    private final ArrayList<Input> inputs = new ArrayList<>(2); // the inputs decided this cycle
+
+    /**
+     * @param ent The agent deciding
+     * @param index The index of the agent in the world
+     * @param seed The seed of the agent's random choices
+     */
+    private Decision(Entity ent, int index, long seed) {
+      this.ent = ent;
+      this.index = index;
+      this.random = new Random(seed);
+    }
+
+    @Override
+    protected void compute() {
+      decide(this);
+    }
+  }
 }
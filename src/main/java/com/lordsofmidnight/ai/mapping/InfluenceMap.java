@@ -0,0 +1,210 @@
+package com.lordsofmidnight.ai.mapping;
+
+import com.lordsofmidnight.gamestate.WorldSnapshot;
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.objects.Pellet;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+
+/**
+ * Where the things the AI looks out for are on a {@link Map}, and how far every square is from the
+ * nearest of each, shared by all the agents the AI controls. Each {@link Layer} is worked out at
+ * most once a tick, the first time it is asked for after {@link #nextTick(WorldSnapshot, int)},
+ * from the {@link WorldSnapshot} of the tick, with one search out from every square the things are
+ * in at once.
+ *
+ * <p>A layer that has been asked for isn't changed until the next tick, so it can be read from any
+ * thread.
+ */
+public final class InfluenceMap {
+
+  /** The distance to squares no source can reach */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private final Map map;
+  private final EnumMap<Layer, Field> fields = new EnumMap<>(Layer.class);
+  private volatile int tick;
+  private volatile WorldSnapshot world;
+  private volatile int mipsman = WorldSnapshot.NO_AGENT;
+
+  /** @param map The map being played on */
+  public InfluenceMap(Map map) {
+    this.map = map;
+    for (Layer layer : Layer.values()) {
+      fields.put(layer, new Field(layer));
+    }
+  }
+
+  /**
+   * Moves on to the next tick, so every layer is worked out again when it is next asked for.
+   *
+   * @param world The state of the game this tick
+   * @param mipsman The index of the agent the AI treats as MIPSman, or {@link
+   *     WorldSnapshot#NO_AGENT} if there is none
+   */
+  public void nextTick(WorldSnapshot world, int mipsman) {
+    this.world = world;
+    this.mipsman = mipsman;
+    tick++;
+  }
+
+  /** @return The state of the game the layers are worked out from this tick */
+  public WorldSnapshot getWorld() {
+    return world;
+  }
+
+  /**
+   * @param layer The layer
+   * @return The layer as of this tick, the same {@link Field} every tick
+   */
+  public Field get(Layer layer) {
+    Field field = fields.get(layer);
+    field.update();
+    return field;
+  }
+
+  /** The things the AI looks out for */
+  public enum Layer {
+    /** The agent the AI treats as MIPSman */
+    MIPSMAN,
+    /** Every agent that isn't MIPSman */
+    GHOULS,
+    /** Every agent that is invincible */
+    INVINCIBLE,
+    /** Every {@link Pellet} that is a power up box */
+    POWER_UP_BOXES
+  }
+
+  /** The squares one layer is in, and the distance to the nearest of them from every square */
+  public final class Field {
+
+    private final Layer layer;
+    private final BitSet sources = new BitSet();
+    private final int[] distance; // by cell
+    private final int[] queue; // the cells reached, in order of distance
+    private volatile int updatedTick = -1;
+
+    /** @param layer The layer this is the field of */
+    private Field(Layer layer) {
+      this.layer = layer;
+      this.distance = new int[map.getMaxX() * map.getMaxY()];
+      this.queue = new int[distance.length];
+    }
+
+    /**
+     * @param position The position
+     * @return True if something in this layer is in the square of the position
+     */
+    public boolean contains(Point position) {
+      return sources.get(map.cell(position));
+    }
+
+    /**
+     * @param cell The cell
+     * @return True if something in this layer is in the cell
+     */
+    public boolean contains(int cell) {
+      return sources.get(cell);
+    }
+
+    /**
+     * @param position The position
+     * @return The number of steps from the square of the position to the nearest square something
+     *     in this layer is in, or {@link #UNREACHABLE}
+     */
+    public int getDistance(Point position) {
+      return distance[map.cell(position)];
+    }
+
+    /**
+     * @param cell The cell
+     * @return The number of steps from the cell to the nearest cell something in this layer is in,
+     *     or {@link #UNREACHABLE}
+     */
+    public int getDistance(int cell) {
+      return distance[cell];
+    }
+
+    /** Works the field out again if it hasn't been this tick */
+    private void update() {
+      if (updatedTick == tick) {
+        return;
+      }
+      synchronized (this) {
+        int current = tick;
+        if (updatedTick != current) {
+          findSources();
+          spread();
+          updatedTick = current;
+        }
+      }
+    }
+
+    /** Marks the squares the things in this layer are in */
+    private void findSources() {
+      sources.clear();
+      WorldSnapshot current = world;
+      if (current == null) {
+        return; // nothing to find before the first tick
+      }
+      switch (layer) {
+        case MIPSMAN: {
+          if (mipsman != WorldSnapshot.NO_AGENT) {
+            sources.set(current.getCell(mipsman));
+          }
+          break;
+        }
+        case GHOULS: {
+          for (int i = 0; i < current.getAgentCount(); i++) {
+            if (!current.isMipsman(i)) {
+              sources.set(current.getCell(i));
+            }
+          }
+          break;
+        }
+        case INVINCIBLE: {
+          for (int i = 0; i < current.getAgentCount(); i++) {
+            if (current.isInvincible(i)) {
+              sources.set(current.getCell(i));
+            }
+          }
+          break;
+        }
+        case POWER_UP_BOXES: {
+          current.getPowerUpBoxes(sources);
+          break;
+        }
+        default:
+          throw new IllegalArgumentException("Unknown layer " + layer);
+      }
+    }
+
+    /** Fills in the distances with a breadth first search out from every source at once */
+    private void spread() {
+      Arrays.fill(distance, UNREACHABLE);
+      int head = 0;
+      int tail = 0;
+      for (int cell = sources.nextSetBit(0); cell >= 0; cell = sources.nextSetBit(cell + 1)) {
+        distance[cell] = 0;
+        queue[tail++] = cell;
+      }
+      while (head < tail) {
+        int cell = queue[head++];
+        int exits = map.exits(cell);
+        for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
+          if ((exits & Map.exit(d)) == 0) {
+            continue;
+          }
+          int next = map.step(cell, d);
+          if (distance[next] == UNREACHABLE) {
+            distance[next] = distance[cell] + 1;
+            queue[tail++] = next;
+          }
+        }
+      }
+    }
+  }
+}
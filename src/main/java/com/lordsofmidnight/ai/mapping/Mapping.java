@@ -28,43 +28,21 @@ public abstract class Mapping {
   public static PointSet getJunctions(Map map) {
 
     PointSet junctions = new PointSet(map);
-    Point testPoint = new Point(0, 0);
     for (int x = 0; x < map.getMaxX(); x++) { // for all points on the map
       for (int y = 0; y < map.getMaxY(); y++) {
-        // left right down up
-        boolean[] isPath = {false, false, false, false};
-        testPoint.setLocation(x, y);
-        if (!map.isWall(testPoint)) { // assumption that anything that is not a wall is moveable
-          if (x > 0) { // left
-            if (!map.isWall(testPoint.moveInDirection(1, Direction.LEFT))) {
-              isPath[0] = true;
-            }
-          }
-          testPoint.setLocation(x, y);
-          if (x < (map.getMaxX() - 1)) { // right
-            if (!map.isWall(testPoint.moveInDirection(1, Direction.RIGHT))) {
-              isPath[1] = true;
-            }
-          }
-          testPoint.setLocation(x, y);
-          if (y > 0) { // down
-            if (!map.isWall(testPoint.moveInDirection(1, Direction.DOWN))) {
-              isPath[2] = true;
-            }
-          }
-          testPoint.setLocation(x, y);
-          if (y < (map.getMaxY() - 1)) { // up
-            if (!map.isWall(testPoint.moveInDirection(1, Direction.UP))) {
-              isPath[3] = true;
-            }
-          }
+        if (!map.isWall(x, y)) { // assumption that anything that is not a wall is moveable
+          // left right down up
+          int exits = map.exits(map.cell(x, y));
+          boolean left = x > 0 && (exits & Map.exit(Direction.LEFT)) != 0;
+          boolean right = x < (map.getMaxX() - 1) && (exits & Map.exit(Direction.RIGHT)) != 0;
+          boolean down = y > 0 && (exits & Map.exit(Direction.DOWN)) != 0;
+          boolean up = y < (map.getMaxY() - 1) && (exits & Map.exit(Direction.UP)) != 0;
 
-          testPoint.setLocation(x, y);
           // a point is classified as a junction if there are at least 2 adjacent path
           // points to the current one that between them do not share a common x or y
           // coordinate (i.e. they are diagonal to each other)
-          if ((isPath[0] || isPath[1]) && (isPath[2] || isPath[3])) {
-            junctions.add(testPoint.getCopy());
+          if ((left || right) && (down || up)) {
+            junctions.add(new Point(x, y));
           }
         }
       }
@@ -242,14 +220,14 @@ public abstract class Mapping {
     while ((Map.withinBounds(map, up) && !map.isWall(up))
         || (Map.withinBounds(map, down) && !map.isWall(down))) {
       if (!map.isWall(up) && !upWall) {
-        if (junctions.contains(up.getGridCoord())) {
+        if (junctions.contains(up)) {
           return up.getY() - position.getY();
         }
       } else {
         upWall = true;
       }
       if (!map.isWall(down) && !downWall) {
-        if (junctions.contains(down.getGridCoord())) {
+        if (junctions.contains(down)) {
           return down.getY() - position.getY();
         }
       } else {
@@ -279,14 +257,14 @@ public abstract class Mapping {
     while ((Map.withinBounds(map, left) && !map.isWall(left))
         || (Map.withinBounds(map, right) && !map.isWall(right))) {
       if (!map.isWall(left) && !leftWall) {
-        if (junctions.contains(left.getGridCoord())) {
+        if (junctions.contains(left)) {
           return left.getY() - position.getY();
         }
       } else {
         leftWall = true;
       }
       if (!map.isWall(right) && !rightWall) {
-        if (junctions.contains(right.getGridCoord())) {
+        if (junctions.contains(right)) {
           return right.getY() - position.getY();
         }
       } else {
@@ -0,0 +1,331 @@
+package com.lordsofmidnight.ai.mapping;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.gamestate.points.PointMap;
+import com.lordsofmidnight.gamestate.points.PointSet;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.WeakHashMap;
+
+/**
+ * The junctions of a {@link Map} and the edges between them, as found by {@link Mapping}, worked
+ * out once per map and shared by every {@link com.lordsofmidnight.ai.routefinding.RouteFinder
+ * RouteFinder} and AI in the game. Junctions are numbered in the order a {@link PointSet} of them
+ * iterates in, and the edges of each junction are held compressed, in ascending order of the
+ * junction they lead to, in arrays indexed from {@link #getEdgeStart(int)} to {@link
+ * #getEdgeEnd(int)}.
+ *
+ * <p>The nearest junction and the next junction in each direction are also worked out for every
+ * square of the map, so finding them is a lookup rather than a walk along the corridors. Squares
+ * are numbered as {@link Map#cell(int, int)} numbers them.
+ *
+ * <p>A graph never changes once made, so it can be read from any thread.
+ */
+public final class NavigationGraph {
+
+  /** The junction id of a square that isn't a junction */
+  public static final int NONE = -1;
+
+  private static final int FOREVER = -2; // a scan that would never stop
+  private static final java.util.Map<Map, NavigationGraph> GRAPHS =
+      Collections.synchronizedMap(new WeakHashMap<>()); // doesn't keep a map alive
+
+  private final int maxX;
+  private final int maxY;
+  private final int[] junctionOf; // by cell, the id of the junction there
+  private final int[] junctionCell; // by id, the cell of the junction
+  private final int[] edgeStart; // by id, the first edge of the junction, and one past the last
+  private final int[] edgeTarget; // by edge, the id of the junction it leads to
+  private final int[] edgeLength; // by edge, the number of squares it covers
+  private final byte[] edgeDirection; // by edge, the direction it leaves its junction in
+  private final int[] nearest; // by cell, the cell found by findNearestJunction
+  private final int[] next; // by cell * 4 + direction, the cell found by findNextJunction
+
+  /**
+   * Works out the graph of a map.
+   *
+   * @param map The map
+   */
+  private NavigationGraph(Map map) {
+    maxX = map.getMaxX();
+    maxY = map.getMaxY();
+    PointSet junctions = Mapping.getJunctions(map);
+    PointMap<PointSet> edges = Mapping.getEdges(map, junctions);
+
+    junctionOf = new int[maxX * maxY];
+    Arrays.fill(junctionOf, NONE);
+    junctionCell = new int[junctions.size()];
+    int id = 0;
+    for (Point junction : junctions) {
+      int cell = map.cell(junction);
+      junctionOf[cell] = id;
+      junctionCell[id] = cell;
+      id++;
+    }
+
+    edgeStart = new int[junctionCell.length + 1];
+    int edgeCount = 0;
+    for (Point junction : junctions) {
+      edgeCount += edges.get(junction).size();
+    }
+    edgeTarget = new int[edgeCount];
+    edgeLength = new int[edgeCount];
+    edgeDirection = new byte[edgeCount];
+    int edge = 0;
+    id = 0;
+    for (Point junction : junctions) {
+      edgeStart[id] = edge;
+      for (Point target : edges.get(junction)) {
+        edgeTarget[edge] = junctionOf[map.cell(target)];
+        edgeLength[edge] = (int) (Math.abs(target.getX() - junction.getX())
+            + Math.abs(target.getY() - junction.getY()));
+        edgeDirection[edge] = (byte) Mapping.directionBetweenPoints(junction, target).toInt();
+        edge++;
+      }
+      id++;
+    }
+    edgeStart[id] = edge;
+
+    nearest = new int[maxX * maxY];
+    next = new int[maxX * maxY * 4];
+    for (int cell = 0; cell < nearest.length; cell++) {
+      nearest[cell] = nearestCell(map, cell);
+      for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
+        next[cell * 4 + d.toInt()] = nextCell(map, cell, d);
+      }
+    }
+  }
+
+  /**
+   * The graph of a map, only worked out the first time it is asked for.
+   *
+   * @param map The map
+   * @return The graph of the map
+   */
+  public static NavigationGraph of(Map map) {
+    return GRAPHS.computeIfAbsent(map, NavigationGraph::new);
+  }
+
+  /**
+   * @return The number of junctions
+   */
+  public int getJunctionCount() {
+    return junctionCell.length;
+  }
+
+  /**
+   * @param x The x coordinate of the square
+   * @param y The y coordinate of the square
+   * @return The id of the junction on the square, or {@link #NONE}
+   */
+  public int getJunction(int x, int y) {
+    return junctionOf[cell(x, y)];
+  }
+
+  /**
+   * @param position The position
+   * @return The id of the junction on the square the position is in, or {@link #NONE}
+   */
+  public int getJunction(Point position) {
+    return getJunction((int) position.getX(), (int) position.getY());
+  }
+
+  /**
+   * @param position The position
+   * @return True if the square the position is in is a junction
+   */
+  public boolean isJunction(Point position) {
+    return getJunction(position) != NONE;
+  }
+
+  /**
+   * @param junction The id of a junction
+   * @return The x coordinate of the junction
+   */
+  public int getJunctionX(int junction) {
+    return junctionCell[junction] / maxY;
+  }
+
+  /**
+   * @param junction The id of a junction
+   * @return The y coordinate of the junction
+   */
+  public int getJunctionY(int junction) {
+    return junctionCell[junction] % maxY;
+  }
+
+  /**
+   * @param junction The id of a junction
+   * @return The first edge of the junction
+   */
+  public int getEdgeStart(int junction) {
+    return edgeStart[junction];
+  }
+
+  /**
+   * @param junction The id of a junction
+   * @return One past the last edge of the junction
+   */
+  public int getEdgeEnd(int junction) {
+    return edgeStart[junction + 1];
+  }
+
+  /**
+   * @param edge An edge
+   * @return The id of the junction the edge leads to
+   */
+  public int getEdgeTarget(int edge) {
+    return edgeTarget[edge];
+  }
+
+  /**
+   * @param edge An edge
+   * @return The number of squares travelled along the edge
+   */
+  public int getEdgeLength(int edge) {
+    return edgeLength[edge];
+  }
+
+  /**
+   * @param edge An edge
+   * @return The direction the edge leaves its junction in
+   */
+  public Direction getEdgeDirection(int edge) {
+    return Direction.fromInt(edgeDirection[edge]);
+  }
+
+  /**
+   * Finds the nearest junction to a position on the map, as {@link
+   * Mapping#findNearestJunction(Point, Map, PointSet)} finds it.
+   *
+   * @param position The position to start from
+   * @return The grid coordinate of the junction found
+   */
+  public Point findNearestJunction(Point position) {
+    int cell = nearest[cell((int) position.getX(), (int) position.getY())];
+    Point junction = position.getGridCoord();
+    junction.setLocation(cell / maxY, cell % maxY);
+    return junction;
+  }
+
+  /**
+   * Finds the next junction from a position on the map in a direction, as {@link
+   * Mapping#findNextJunction(Point, Direction, Map, PointSet)} finds it.
+   *
+   * @param position The position to start from
+   * @param direction The direction to search in
+   * @return The grid coordinate of the next junction, or of the given position if no junction can
+   *     be reached
+   */
+  public Point findNextJunction(Point position, Direction direction) {
+    Point junction = position.getGridCoord();
+    if (direction == null || !direction.isMovementDirection()) {
+      return junction;
+    }
+    int cell = next[cell((int) position.getX(), (int) position.getY()) * 4 + direction.toInt()];
+    junction.setLocation(cell / maxY, cell % maxY);
+    return junction;
+  }
+
+  /**
+   * @param x The x coordinate of a square, wrapping round if off the edge
+   * @param y The y coordinate of a square, wrapping round if off the edge
+   * @return The cell of the square
+   */
+  private int cell(int x, int y) {
+    return Math.floorMod(x, maxX) * maxY + Math.floorMod(y, maxY);
+  }
+
+  /**
+   * Works out the nearest junction to a square as {@link Mapping#findNearestJunction(Point, Map,
+   * PointSet)} does for a point on the map, which wraps round the edges. A junction along the
+   * horizontal axis leaves the point where it is, and a square with a junction along neither axis
+   * is moved by {@link Double#MAX_VALUE} along the horizontal axis. Where the search would go round
+   * the map forever the square is its own nearest junction.
+   *
+   * @param map The map
+   * @param cell The square
+   * @return The cell found
+   */
+  private int nearestCell(Map map, int cell) {
+    int x = map.cellX(cell);
+    int y = map.cellY(cell);
+    int vertical = scanAxis(map, x, y, 0, 1, maxY);
+    if (vertical == FOREVER) {
+      return cell;
+    }
+    int horizontal = scanAxis(map, x, y, 1, 0, maxX);
+    if (horizontal != NONE) {
+      return cell;
+    }
+    if (vertical != NONE) {
+      return vertical;
+    }
+    return map.cell((int) Point.wrap(x + Double.MAX_VALUE, maxX), y);
+  }
+
+  /**
+   * Walks both ways along an axis from a square at once, as the scans of {@link Mapping} do, until
+   * a junction is found or both ways reach a wall at the same distance. Once one way has reached a
+   * wall it isn't checked for junctions again.
+   *
+   * @param map The map
+   * @param x The x coordinate of the square
+   * @param y The y coordinate of the square
+   * @param dx The x step of the axis
+   * @param dy The y step of the axis
+   * @param length The length of the map along the axis
+   * @return The cell of the junction found, {@link #NONE} if the walk stops without finding one, or
+   *     {@link #FOREVER} if it would never stop
+   */
+  private int scanAxis(Map map, int x, int y, int dx, int dy, int length) {
+    boolean backWall = false;
+    boolean forwardWall = false;
+    // the walk repeats itself once both have gone round the map, and each wall seen adds a lap
+    for (int k = 0; k <= length * 3; k++) {
+      int back = map.cell(x - k * dx, y - k * dy);
+      int forward = map.cell(x + k * dx, y + k * dy);
+      if (!map.isWalkable(back) && !map.isWalkable(forward)) {
+        return NONE;
+      }
+      if (map.isWalkable(back) && !backWall) {
+        if (junctionOf[back] != NONE) {
+          return back;
+        }
+      } else {
+        backWall = true;
+      }
+      if (map.isWalkable(forward) && !forwardWall) {
+        if (junctionOf[forward] != NONE) {
+          return forward;
+        }
+      } else {
+        forwardWall = true;
+      }
+    }
+    return FOREVER;
+  }
+
+  /**
+   * Works out the next junction from a square in a direction as {@link
+   * Mapping#findNextJunction(Point, Direction, Map, PointSet)} does for a point on the map, which
+   * wraps round the edges.
+   *
+   * @param map The map
+   * @param cell The square
+   * @param direction The movement direction
+   * @return The cell of the junction, or the square itself if none can be reached
+   */
+  private int nextCell(Map map, int cell, Direction direction) {
+    int test = cell;
+    for (int k = 0; k < maxX * maxY && map.isWalkable(test); k++) {
+      if (junctionOf[test] != NONE) {
+        return test;
+      }
+      test = map.step(test, direction);
+    }
+    return cell;
+  }
+}
@@ -0,0 +1,121 @@
+package com.lordsofmidnight.ai.mapping;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.WeakHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * The shortest distance between every pair of junctions of a {@link Map}, and the direction to
+ * leave the first in to follow it, so routing between junctions is a lookup. The table is worked
+ * out once per map by a search from each junction over its {@link NavigationGraph}, the searches
+ * running in parallel as each only fills its own row.
+ *
+ * <p>Where routes tie the first one found is kept, junctions the same distance away being done in
+ * order of id, so the table is the same however the searches were scheduled. A table never
+ * changes once made, so it can be read from any thread.
+ */
+public final class RouteTable {
+
+  /** The distance between junctions that have no route between them */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private static final java.util.Map<Map, RouteTable> TABLES =
+      Collections.synchronizedMap(new WeakHashMap<>()); // doesn't keep a map alive
+
+  private final NavigationGraph graph;
+  private final int junctionCount;
+  private final int[] distance; // by source * junctionCount + target
+  private final int[] firstEdge; // by source * junctionCount + target, NONE if there is no route
+
+  /**
+   * Works out the table of a graph.
+   *
+   * @param graph The graph
+   */
+  private RouteTable(NavigationGraph graph) {
+    this.graph = graph;
+    this.junctionCount = graph.getJunctionCount();
+    this.distance = new int[junctionCount * junctionCount];
+    this.firstEdge = new int[junctionCount * junctionCount];
+    IntStream.range(0, junctionCount).parallel().forEach(this::fillRow);
+  }
+
+  /**
+   * The table of a map, only worked out the first time it is asked for.
+   *
+   * @param map The map
+   * @return The table of the map
+   */
+  public static RouteTable of(Map map) {
+    return TABLES.computeIfAbsent(map, m -> new RouteTable(NavigationGraph.of(m)));
+  }
+
+  /**
+   * @param source The id of the junction to start from
+   * @param target The id of the junction to reach
+   * @return The length of the shortest route, or {@link #UNREACHABLE}
+   */
+  public int getDistance(int source, int target) {
+    return distance[source * junctionCount + target];
+  }
+
+  /**
+   * @param source The id of the junction to start from
+   * @param target The id of the junction to reach
+   * @return The id of the junction the shortest route reaches next, or {@link NavigationGraph#NONE}
+   *     if there is no route or the source is the target
+   */
+  public int getNextJunction(int source, int target) {
+    int edge = firstEdge[source * junctionCount + target];
+    return edge == NavigationGraph.NONE ? NavigationGraph.NONE : graph.getEdgeTarget(edge);
+  }
+
+  /**
+   * @param source The id of the junction to start from
+   * @param target The id of the junction to reach
+   * @return The direction to leave the source in to follow the shortest route, or {@link
+   *     Direction#STOP} if there is no route or the source is the target
+   */
+  public Direction getDirection(int source, int target) {
+    int edge = firstEdge[source * junctionCount + target];
+    return edge == NavigationGraph.NONE ? Direction.STOP : graph.getEdgeDirection(edge);
+  }
+
+  /**
+   * Fills in the routes from one junction with Dijkstra's algorithm, taking the closest junction
+   * not yet done by scanning, which suits graphs of the size maps have.
+   *
+   * @param source The id of the junction
+   */
+  private void fillRow(int source) {
+    int row = source * junctionCount;
+    Arrays.fill(distance, row, row + junctionCount, UNREACHABLE);
+    Arrays.fill(firstEdge, row, row + junctionCount, NavigationGraph.NONE);
+    boolean[] done = new boolean[junctionCount];
+    distance[row + source] = 0;
+    while (true) {
+      int current = NavigationGraph.NONE;
+      for (int j = 0; j < junctionCount; j++) {
+        if (!done[j] && distance[row + j] != UNREACHABLE
+            && (current == NavigationGraph.NONE || distance[row + j] < distance[row + current])) {
+          current = j;
+        }
+      }
+      if (current == NavigationGraph.NONE) {
+        return;
+      }
+      done[current] = true;
+      for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+        int next = graph.getEdgeTarget(edge);
+        int cost = distance[row + current] + graph.getEdgeLength(edge);
+        if (!done[next] && cost < distance[row + next]) {
+          distance[row + next] = cost;
+          firstEdge[row + next] = current == source ? edge : firstEdge[row + current];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package com.lordsofmidnight.ai.routefinding;
+
+import com.lordsofmidnight.ai.mapping.NavigationGraph;
+import com.lordsofmidnight.ai.mapping.RouteTable;
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.WeakHashMap;
+
+/**
+ * A* search over the junctions of a {@link NavigationGraph}, shared by everything routing on the
+ * same {@link Map}. Junctions are searched by id with an indexed binary heap, and each thread
+ * searching keeps one workspace of costs, parents and heap slots that is reset by moving on a
+ * generation count rather than clearing it, so a search doesn't allocate.
+ *
+ * <p>Routes between two junctions are looked up in the {@link RouteTable} of the map instead, so
+ * only routes to squares that aren't junctions are searched.
+ */
+public final class AStarSearch {
+
+  private static final java.util.Map<Map, AStarSearch> SEARCHES =
+      Collections.synchronizedMap(new WeakHashMap<>()); // doesn't keep a map alive
+
+  private final NavigationGraph graph;
+  private final RouteTable table;
+  private final int junctionCount;
+  private final ThreadLocal<Workspace> workspaces;
+
+  /**
+   * Creates a search over a graph.
+   *
+   * @param graph The graph to search
+   * @param table The routes between the junctions of the graph
+   */
+  private AStarSearch(NavigationGraph graph, RouteTable table) {
+    this.graph = graph;
+    this.table = table;
+    int junctions = graph.getJunctionCount();
+    this.junctionCount = junctions;
+    this.workspaces = ThreadLocal.withInitial(() -> new Workspace(junctions));
+  }
+
+  /**
+   * The search for a map, only made the first time it is asked for.
+   *
+   * @param map The map
+   * @return The search over the {@link NavigationGraph} of the map
+   */
+  public static AStarSearch of(Map map) {
+    return SEARCHES.computeIfAbsent(
+        map, m -> new AStarSearch(NavigationGraph.of(m), RouteTable.of(m)));
+  }
+
+  /**
+   * Returns the direction to leave a junction in to follow the shortest route to a target. If the
+   * target isn't a junction every junction is searched, and the route is to the last one reached.
+   *
+   * @param source The id of the junction to start from
+   * @param targetX The x coordinate of the target square
+   * @param targetY The y coordinate of the target square
+   * @return The direction to travel in, or {@link RouteFinder#DEFAULT} if there is no route or
+   *     the source is the target
+   */
+  public Direction getDirection(int source, int targetX, int targetY) {
+    int target = graph.getJunction(targetX, targetY);
+    if (target != NavigationGraph.NONE) {
+      return table.getDirection(source, target);
+    }
+    return search(source, target, targetX, targetY);
+  }
+
+  /**
+   * Searches from a junction until the target is reached or no junctions are left.
+   *
+   * @param source The id of the junction to start from
+   * @param target The id of the target junction, or {@link NavigationGraph#NONE}
+   * @param targetX The x coordinate of the target square
+   * @param targetY The y coordinate of the target square
+   * @return The first direction of the route found
+   */
+  private Direction search(int source, int target, int targetX, int targetY) {
+    Workspace w = workspaces.get();
+    w.reset();
+    w.open(source, 0, heuristicCost(source, targetX, targetY), NavigationGraph.NONE, -1);
+    int last = NavigationGraph.NONE;
+    int closed = 0;
+    while (w.size > 0) {
+      int current = w.poll();
+      last = current;
+      closed++;
+      if (current == target) {
+        break;
+      }
+      for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+        int next = graph.getEdgeTarget(edge);
+        if (w.isClosed(next)) {
+          continue;
+        }
+        double cost = w.cost[current] + graph.getEdgeLength(edge);
+        if (!w.isSeen(next) || cost < w.cost[next]) {
+          w.open(next, cost, cost + heuristicCost(next, targetX, targetY), current, edge);
+        }
+      }
+    }
+    if (last != target && (target != NavigationGraph.NONE || closed < junctionCount)) {
+      return RouteFinder.DEFAULT; // the target is not reachable
+    }
+    if (last == source) {
+      return RouteFinder.DEFAULT; // already there
+    }
+    while (w.parent[last] != source) {
+      last = w.parent[last];
+    }
+    return graph.getEdgeDirection(w.parentEdge[last]);
+  }
+
+  /**
+   * The estimated cost to move from a junction to the target
+   *
+   * @param junction The id of the junction
+   * @param targetX The x coordinate of the target square
+   * @param targetY The y coordinate of the target square
+   * @return The straight line distance between them
+   */
+  private double heuristicCost(int junction, int targetX, int targetY) {
+    double dx = graph.getJunctionX(junction) - targetX;
+    double dy = graph.getJunctionY(junction) - targetY;
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  /**
+   * The state of one search, kept by each thread and reused. A junction's entries only hold for
+   * the current search if its stamp is the current generation.
+   */
+  private static final class Workspace {
+
+    private final double[] cost; // by junction, the cost of the best route found to it
+    private final double[] estimate; // by junction, that cost plus the heuristic
+    private final int[] parent; // by junction, the junction the best route arrives from
+    private final int[] parentEdge; // by junction, the edge the best route arrives along
+    private final int[] seen; // by junction, the generation it was last reached in
+    private final int[] closed; // by junction, the generation it was last taken from the heap in
+    private final int[] heap; // the open junctions, by cheapest estimate then lowest id
+    private final int[] slot; // by junction, its index in the heap
+    private int size;
+    private int generation;
+
+    /** @param junctionCount The number of junctions on the map */
+    private Workspace(int junctionCount) {
+      cost = new double[junctionCount];
+      estimate = new double[junctionCount];
+      parent = new int[junctionCount];
+      parentEdge = new int[junctionCount];
+      seen = new int[junctionCount];
+      closed = new int[junctionCount];
+      heap = new int[junctionCount];
+      slot = new int[junctionCount];
+    }
+
+    /** Forgets the last search */
+    private void reset() {
+      size = 0;
+      if (++generation == 0) { // wrapped round, the stamps could match by chance
+        Arrays.fill(seen, 0);
+        Arrays.fill(closed, 0);
+        generation = 1;
+      }
+    }
+
+    private boolean isSeen(int junction) {
+      return seen[junction] == generation;
+    }
+
+    private boolean isClosed(int junction) {
+      return closed[junction] == generation;
+    }
+
+    /**
+     * Adds a junction to the heap, or moves it if it is already there
+     *
+     * @param junction The id of the junction
+     * @param cost The cost of the route to it
+     * @param estimate The cost plus the heuristic
+     * @param from The junction the route arrives from
+     * @param edge The edge the route arrives along
+     */
+    private void open(int junction, double cost, double estimate, int from, int edge) {
+      this.cost[junction] = cost;
+      this.estimate[junction] = estimate;
+      parent[junction] = from;
+      parentEdge[junction] = edge;
+      if (!isSeen(junction)) {
+        seen[junction] = generation;
+        slot[junction] = size;
+        heap[size++] = junction;
+      }
+      siftUp(slot[junction]);
+    }
+
+    /** @return The open junction with the cheapest estimate, taken off the heap */
+    private int poll() {
+      int junction = heap[0];
+      closed[junction] = generation;
+      size--;
+      if (size > 0) {
+        place(heap[size], 0);
+        siftDown(0);
+      }
+      return junction;
+    }
+
+    private boolean before(int a, int b) {
+      return estimate[a] < estimate[b] || (estimate[a] == estimate[b] && a < b);
+    }
+
+    private void place(int junction, int index) {
+      heap[index] = junction;
+      slot[junction] = index;
+    }
+
+    private void siftUp(int index) {
+      int junction = heap[index];
+      while (index > 0) {
+        int parent = (index - 1) >>> 1;
+        if (!before(junction, heap[parent])) {
+          break;
+        }
+        place(heap[parent], index);
+        index = parent;
+      }
+      place(junction, index);
+    }
+
+    private void siftDown(int index) {
+      int junction = heap[index];
+      while (true) {
+        int child = index * 2 + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && before(heap[child + 1], heap[child])) {
+          child++;
+        }
+        if (!before(heap[child], junction)) {
+          break;
+        }
+        place(heap[child], index);
+        index = child;
+      }
+      place(junction, index);
+    }
+  }
+}
@@ -2,117 +2,178 @@ package com.lordsofmidnight.ai.routefinding;
 
 import com.lordsofmidnight.gamestate.maps.Map;
 import com.lordsofmidnight.gamestate.points.Point;
-import com.lordsofmidnight.gamestate.points.PointSet;
 import com.lordsofmidnight.utils.enums.Direction;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.WeakHashMap;
 
 /**
- * Class that carries out a sample search up to the specified depth on the specified {@link Map}.
+ * Class that carries out sample searches on the specified {@link Map}, shared by everything
+ * sampling the same map. One breadth first search out from a position scores any number of {@link
+ * Sample Samples} at once, each to its own depth.
+ *
+ * <p>The search runs over the cells of the map, and each thread searching keeps one workspace of
+ * distances and a queue of cells that is reset by moving on a generation count rather than
+ * clearing it, so a search doesn't allocate. The search keeps its own copy of the exits and steps
+ * of every cell rather than the map, so the map it is cached by can still be collected.
  *
  * @author Lewis Ackroyd
  */
-public class SampleSearch {
+public final class SampleSearch {
+
+  private static final java.util.Map<Map, SampleSearch> SEARCHES =
+      Collections.synchronizedMap(new WeakHashMap<>()); // a search holds no map, so maps can go
 
-  private final int sampleDepth;
-  private final Map map;
+  private final int maxX;
+  private final int maxY;
+  private final byte[] exits; // by cell, as Map#exits(int)
+  private final int[] steps; // by cell * 4 + direction, as Map#step(int, Direction)
+  private final ThreadLocal<Workspace> workspaces;
 
   /**
-   * Initialises the sample search to the specified {@link Map} and depth of search.
+   * Initialises the sample search to the specified {@link Map}.
    *
-   * @param sampleDepth The depth to perform the searches to
    * @param map The map to perform the searches on
-   * @author Lewis Ackroyd
    */
-  public SampleSearch(int sampleDepth, Map map) {
-    this.sampleDepth = sampleDepth;
-    this.map = map;
+  private SampleSearch(Map map) {
+    int maxX = map.getMaxX();
+    int maxY = map.getMaxY();
+    int cellCount = maxX * maxY;
+    this.maxX = maxX;
+    this.maxY = maxY;
+    this.exits = new byte[cellCount];
+    this.steps = new int[cellCount * 4];
+    for (int cell = 0; cell < cellCount; cell++) {
+      exits[cell] = (byte) map.exits(cell);
+      for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
+        steps[cell * 4 + d.toInt()] = map.step(cell, d);
+      }
+    }
+    this.workspaces = ThreadLocal.withInitial(() -> new Workspace(cellCount, maxX, maxY));
+  }
+
+  /**
+   * The search for a map, only made the first time it is asked for.
+   *
+   * @param map The map
+   * @return The search over the map
+   */
+  public static SampleSearch of(Map map) {
+    return SEARCHES.computeIfAbsent(map, SampleSearch::new);
   }
 
   /**
-   * Produces an array of size 4, with each index being represented by its corresponding {@link
-   * Direction#toInt()} value. The values produced are the sum of the value of each position in the
-   * search where the condition was met. The value at any given position is {@link #sampleDepth} -
-   * the distance from the start to that position. Hence, at the start position the value will be
-   * {@link #sampleDepth} and at {@link #sampleDepth} the value will be 0.
+   * Fills a row of 4 values for each sample, with each index being represented by its
+   * corresponding {@link Direction#toInt()} value. The values produced are the sum of the value of
+   * each position in the search where the sample's condition was met, for every direction a
+   * shortest route to that position can start in. The value at a position is the sample's weight
+   * times its depth + 1 - the distance from the start to that position. Hence, a position next to
+   * the start has the value of the depth, and positions further away than the depth are not
+   * counted. The start position is never counted, and routes don't pass back through it.
+   *
+   * <p>The {@link Point} given to the conditions is reused for every position, so must not be
+   * kept.
    *
    * @param position The start position for the search
-   * @param condition The condition of the search
-   * @return An array with the values representing the sum of the distances to all instances of the
-   * condition being met. A higher value is closer to the start postion
-   * @author Lewis Ackroyd
+   * @param samples The samples to take
+   * @param counts The array to fill, with a row of at least 4 values for each sample. A higher
+   * value is closer to the start position
+   * @throws IllegalArgumentException There are fewer rows than samples.
    * @see ConditionalInterface
    */
-  public int[] getDirectionCounts(Point position, ConditionalInterface condition) {
-    position = position.getGridCoord();
-    PointSet visited = new PointSet(map);
-    Queue<SampleSearchData> unVisited = new LinkedList<>();
-    SampleSearchData data = new SampleSearchData(position, 0, Direction.STOP);
-
-    visited.add(position); // add start position to visited
-    int[] outArray = {0, 0, 0, 0};
-    for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
-      addSingleDirection(position, condition, visited, unVisited, data, outArray, d, d);
+  public void getDirectionCounts(Point position, Sample[] samples, int[][] counts) {
+    if (counts.length < samples.length) {
+      throw new IllegalArgumentException("A row of counts is needed for every sample");
     }
-
-    if (unVisited.size() > 0) { // there are positions to travel to, start on first position
-      data = unVisited.poll();
-      position = data.getMyPosition();
-      visited.add(position);
+    int maxDepth = 0;
+    for (int i = 0; i < samples.length; i++) {
+      Arrays.fill(counts[i], 0, 4, 0);
+      maxDepth = Math.max(maxDepth, samples[i].depth);
     }
-
-    while ((unVisited.size() > 0)
-        && (data.getCost()
-        <= sampleDepth)) { // search until there is nowhere else to search or max depth has been
-      // reached
+    Workspace w = workspaces.get();
+    w.reset();
+    int start =
+        (int) Point.wrap(position.getX(), maxX) * maxY + (int) Point.wrap(position.getY(), maxY);
+    w.visit(start, 0, 0);
+    int exits = this.exits[start];
+    for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
+      int next = steps[start * 4 + d.toInt()];
+      if ((exits & Map.exit(d)) != 0 && !w.isVisited(next)) {
+        w.visit(next, 1, Map.exit(d));
+        w.queue[w.tail++] = next;
+      }
+    }
+    while (w.head < w.tail) {
+      int cell = w.queue[w.head++];
+      int distance = w.distance[cell];
+      if (distance > maxDepth) {
+        break; // every position left is further away
+      }
+      score(w, cell, distance, samples, counts);
+      if (distance == maxDepth) {
+        continue;
+      }
+      exits = this.exits[cell];
       for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
-        addSingleDirection(
-            position,
-            condition,
-            visited,
-            unVisited,
-            data,
-            outArray,
-            d,
-            data.getOriginalDirection());
+        if ((exits & Map.exit(d)) == 0) {
+          continue;
+        }
+        int next = steps[cell * 4 + d.toInt()];
+        if (!w.isVisited(next)) {
+          w.visit(next, distance + 1, w.firstSteps[cell]);
+          w.queue[w.tail++] = next;
+        } else if (w.distance[next] == distance + 1) {
+          w.firstSteps[next] |= w.firstSteps[cell]; // another shortest route reaches it
+        }
       }
-      data = unVisited.poll();
-      position = data.getMyPosition();
-      visited.add(position);
     }
-    return outArray;
   }
 
   /**
-   * Moves from the given point to the next in the direction specified, and if it is not a wall,
-   * adds it to the queue. If the condition specified is met at this point then increases the output
-   * value for the original direction travelled to reach this point.
+   * Produces an array of size 4 for a single condition, as {@link #getDirectionCounts(Point,
+   * Sample[], int[][])} does for a sample of weight 1.
    *
-   * @param position The original position, before being moved.
-   * @param condition The condition for the search
-   * @param visited The set of all points that have already been expanded by the search
-   * @param unVisited The set of all points that have been reached, but not expanded by the search
-   * @param data The data of the original position
-   * @param outArray The array containing all the output values of the search
-   * @param d The direction to travel in to generate the next position
-   * @param d2 The direction travelled in at the start of the search that resulted in reaching this
-   * point
-   * @author Lewis Ackroyd
+   * @param position The start position for the search
+   * @param sampleDepth The depth to perform the search to
+   * @param condition The condition of the search
+   * @return An array with the values representing the sum of the distances to all instances of the
+   * condition being met. A higher value is closer to the start position
    */
-  private void addSingleDirection(
-      Point position,
-      ConditionalInterface condition,
-      PointSet visited,
-      Queue<SampleSearchData> unVisited,
-      SampleSearchData data,
-      int[] outArray,
-      Direction d,
-      Direction d2) {
-    Point nextPos = position.getCopy().moveInDirection(1, d).getGridCoord();
-    if (!map.isWall(nextPos) && !visited.contains(nextPos)) {
-      unVisited.add(new SampleSearchData(nextPos, data.getCost() + 1, d2));
-      if (condition.condition(nextPos)) {
-        outArray[d2.toInt()] += (sampleDepth - data.getCost());
+  public int[] getDirectionCounts(Point position, int sampleDepth, ConditionalInterface condition) {
+    int[][] counts = new int[1][4];
+    getDirectionCounts(position, new Sample[] {new Sample(condition, sampleDepth, 1)}, counts);
+    return counts[0];
+  }
+
+  /**
+   * Adds the value of a position to every sample whose condition is met there, for every direction
+   * it can be reached by from the start.
+   *
+   * @param w The workspace of the search
+   * @param cell The cell of the position
+   * @param distance The distance from the start to the position
+   * @param samples The samples being taken
+   * @param counts The counts of the samples
+   */
+  private void score(Workspace w, int cell, int distance, Sample[] samples, int[][] counts) {
+    boolean located = false;
+    for (int i = 0; i < samples.length; i++) {
+      Sample sample = samples[i];
+      if (distance > sample.depth) {
+        continue;
+      }
+      if (!located) {
+        w.probe.setLocation(cell / maxY, cell % maxY);
+        located = true;
+      }
+      if (!sample.condition.condition(w.probe)) {
+        continue;
+      }
+      int value = sample.weight * (sample.depth + 1 - distance);
+      for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
+        if ((w.firstSteps[cell] & Map.exit(d)) != 0) {
+          counts[i][d.toInt()] += value;
+        }
       }
     }
   }
@@ -134,54 +195,75 @@ public class SampleSearch {
     boolean condition(Point position);
   }
 
-  /**
-   * Class that stores data on each point that is required to carry out the sample search
-   *
-   * @author Lewis Ackroyd
-   */
-  private final class SampleSearchData {
+  /** A condition to look for, how far away to look for it and how much each instance counts. */
+  public static final class Sample {
 
-    private final Point myPosition;
-    private final int moveCost;
-    private final Direction originalDirection;
+    private final ConditionalInterface condition;
+    private final int depth;
+    private final int weight;
 
     /**
-     * Stores the specified data.
-     *
-     * @param myPosition The point of which the data is about
-     * @param moveCost The cost to reach this {@link Point} from the start position
-     * @param originalDirection The direction travelled from the start position to reach this {@link
-     * Point}
-     * @author Lewis Ackroyd
+     * @param condition The condition to look for
+     * @param depth The distance from the start to look up to
+     * @param weight What the value of each position the condition is met at is multiplied by
+     * @throws IllegalArgumentException The depth is negative.
      */
-    public SampleSearchData(Point myPosition, int moveCost, Direction originalDirection) {
-      this.myPosition = myPosition;
-      this.moveCost = moveCost;
-      this.originalDirection = originalDirection;
+    public Sample(ConditionalInterface condition, int depth, int weight) {
+      if (depth < 0) {
+        throw new IllegalArgumentException("Sample depth cannot be negative");
+      }
+      this.condition = condition;
+      this.depth = depth;
+      this.weight = weight;
     }
+  }
+
+  /**
+   * The state of one search, kept by each thread and reused. A cell's entries only hold for the
+   * current search if its stamp is the current generation.
+   */
+  private static final class Workspace {
+
+    private final int[] distance; // by cell, the distance from the start
+    private final byte[] firstSteps; // by cell, the exits of the start shortest routes begin with
+    private final int[] visited; // by cell, the generation it was last reached in
+    private final int[] queue; // the cells reached, in order of distance
+    private final Point probe; // handed to the conditions for the position being looked at
+    private int head;
+    private int tail;
+    private int generation;
 
     /**
-     * @return The point of which this data is about
-     * @author Lewis Ackroyd
+     * @param cellCount The number of cells on the map
+     * @param maxX The width of the map
+     * @param maxY The height of the map
      */
-    public Point getMyPosition() {
-      return myPosition;
+    private Workspace(int cellCount, int maxX, int maxY) {
+      distance = new int[cellCount];
+      firstSteps = new byte[cellCount];
+      visited = new int[cellCount];
+      queue = new int[cellCount];
+      probe = new Point(0, 0, maxX, maxY);
     }
 
-    /**
-     * @return The cost to reach this {@link Point} from the start position
-     * @author Lewis Ackroyd
-     */
-    public int getCost() {
-      return moveCost;
+    /** Forgets the last search */
+    private void reset() {
+      head = 0;
+      tail = 0;
+      if (++generation == 0) { // wrapped round, the stamps could match by chance
+        Arrays.fill(visited, 0);
+        generation = 1;
+      }
     }
 
-    /**
-     * @return The direction travelled from the start position to reach this {@link Point}
-     * @author Lewis Ackroyd
-     */
-    public Direction getOriginalDirection() {
-      return originalDirection;
+    private boolean isVisited(int cell) {
+      return visited[cell] == generation;
+    }
+
+    private void visit(int cell, int distance, int firstSteps) {
+      visited[cell] = generation;
+      this.distance[cell] = distance;
+      this.firstSteps[cell] = (byte) firstSteps;
     }
   }
 }
@@ -1,13 +1,14 @@
 package com.lordsofmidnight.ai.routefinding.routefinders;
 
+import com.lordsofmidnight.ai.mapping.InfluenceMap;
+import com.lordsofmidnight.ai.mapping.InfluenceMap.Layer;
 import com.lordsofmidnight.ai.routefinding.RouteFinder;
 import com.lordsofmidnight.ai.routefinding.SampleSearch;
 import com.lordsofmidnight.gamestate.maps.Map;
 import com.lordsofmidnight.gamestate.points.Point;
-import com.lordsofmidnight.gamestate.points.PointMap;
 import com.lordsofmidnight.objects.Entity;
-import com.lordsofmidnight.objects.Pellet;
 import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Arrays;
 
 /**
  * Route finding algorithm that controls Mipsman. Will aim to reach the nearest pellet whilst
@@ -20,28 +21,36 @@ public class MipsManRouteFinder implements RouteFinder {
   private static final int GHOUL_NEGATIVE_MULTIPLIER = 2;
   private static final int PELLET_SEARCH_DEPTH = 25;
   private static final int GHOUL_SEARCH_DEPTH = 8;
-  private final Map map;
-  private PointMap<Pellet> pellets;
-  private Entity[] gameAgents;
+  private final SampleSearch sampleSearch;
+  private final SampleSearch.Sample[] samples; // ghouls to avoid, then boxes to head for
+  private final int[][] counts = new int[2][4];
+  private final InfluenceMap influence;
+  private InfluenceMap.Field ghouls;
+  private InfluenceMap.Field powerUpBoxes;
 
   /**
    * Initialises this {@link RouteFinder} with the current {@link Map} and objects on it.
    *
-   * @param pellets A mapping from every point containing a pellet, to that pellet
-   * @param gameAgents The array containing all entities in the game
+   * @param influence Where the ghouls and power up boxes are on the map
    * @param map The map being used
    * @author Lewis Ackroyd
    */
-  public MipsManRouteFinder(PointMap<Pellet> pellets, Entity[] gameAgents, Map map) {
-    this.pellets = pellets;
-    this.gameAgents = gameAgents;
-    this.map = map;
+  public MipsManRouteFinder(InfluenceMap influence, Map map) {
+    this.influence = influence;
+    this.sampleSearch = SampleSearch.of(map);
+    this.samples =
+        new SampleSearch.Sample[] {
+          new SampleSearch.Sample(
+              this::isGhoul, PELLET_SEARCH_DEPTH, -GHOUL_NEGATIVE_MULTIPLIER),
+          new SampleSearch.Sample(this::isPowerUpBox, GHOUL_SEARCH_DEPTH, 1)
+        };
   }
 
   /**
    * Returns the direction to travel in until the next junction is reached such that the direction
    * avoids other {@link Entity Entities} whilst also travelling towards the nearest {@link
-   * com.lordsofmidnight.objects.PowerUpBox PowerUpBox}.
+   * com.lordsofmidnight.objects.PowerUpBox PowerUpBox}. Both are looked for in the same search,
+   * which is skipped if neither is close enough to be found.
    *
    * @param myLocation The start point.
    * @param targetLocation The target point.
@@ -50,46 +59,40 @@ public class MipsManRouteFinder implements RouteFinder {
    */
   @Override
   public Direction getRoute(Point myLocation, Point targetLocation) {
-    SampleSearch sampleSearch = new SampleSearch(PELLET_SEARCH_DEPTH, map);
-    class GhoulCountCondition implements SampleSearch.ConditionalInterface {
-      @Override
-      public boolean condition(Point position) {
-        for (Entity entity : gameAgents) {
-          if (entity.getLocation().getGridCoord().equals(position)) {
-            if (!entity.isMipsman()) {
-              return true;
-            }
-          }
-        }
-        return false;
-      }
-    }
-    int[] ghoulCounts = sampleSearch.getDirectionCounts(myLocation, new GhoulCountCondition());
-
-    class PowerUpBoxCountCondition implements SampleSearch.ConditionalInterface {
-      @Override
-      public boolean condition(Point position) {
-        if (pellets.containsKey(position)) {
-          Pellet pellet = pellets.get(position);
-          if (pellet.isPowerUpBox()) {
-            return true;
-          }
-        }
-        return false;
+    ghouls = influence.get(Layer.GHOULS);
+    powerUpBoxes = influence.get(Layer.POWER_UP_BOXES);
+    if (ghouls.getDistance(myLocation) <= PELLET_SEARCH_DEPTH
+        || powerUpBoxes.getDistance(myLocation) <= GHOUL_SEARCH_DEPTH) {
+      sampleSearch.getDirectionCounts(myLocation, samples, counts);
+    } else {
+      for (int[] row : counts) {
+        Arrays.fill(row, 0);
       }
     }
-    sampleSearch = new SampleSearch(GHOUL_SEARCH_DEPTH, map);
-    int[] powerUpBoxCounts =
-        sampleSearch.getDirectionCounts(myLocation, new PowerUpBoxCountCondition());
-
     int[] totals = {1, 1, 1, 1};
     for (int i = 0; i < totals.length; i++) {
-      totals[i] += powerUpBoxCounts[i] - (ghoulCounts[i] * GHOUL_NEGATIVE_MULTIPLIER);
+      totals[i] += counts[0][i] + counts[1][i];
     }
 
     return maxDirection(totals);
   }
 
+  /**
+   * @param position The position being checked
+   * @return True if a ghoul is at the position
+   */
+  private boolean isGhoul(Point position) {
+    return ghouls.contains(position);
+  }
+
+  /**
+   * @param position The position being checked
+   * @return True if a {@link com.lordsofmidnight.objects.PowerUpBox PowerUpBox} is at the position
+   */
+  private boolean isPowerUpBox(Point position) {
+    return powerUpBoxes.contains(position);
+  }
+
   /**
    * Determines which direction has the highest preference and returns it.
    *
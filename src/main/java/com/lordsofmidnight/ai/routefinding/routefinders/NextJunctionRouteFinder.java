@@ -1,12 +1,11 @@
 package com.lordsofmidnight.ai.routefinding.routefinders;
 
-import com.lordsofmidnight.ai.mapping.Mapping;
+import com.lordsofmidnight.ai.mapping.InfluenceMap;
+import com.lordsofmidnight.ai.mapping.NavigationGraph;
 import com.lordsofmidnight.ai.routefinding.RouteFinder;
+import com.lordsofmidnight.gamestate.WorldSnapshot;
 import com.lordsofmidnight.gamestate.maps.Map;
 import com.lordsofmidnight.gamestate.points.Point;
-import com.lordsofmidnight.gamestate.points.PointMap;
-import com.lordsofmidnight.gamestate.points.PointSet;
-import com.lordsofmidnight.objects.Entity;
 import com.lordsofmidnight.utils.enums.Direction;
 
 /**
@@ -16,41 +15,21 @@ import com.lordsofmidnight.utils.enums.Direction;
  */
 public class NextJunctionRouteFinder implements RouteFinder {
 
-  private final Entity[] allAgents;
-  private final Map map;
-  private final PointSet junctions;
-  private final PointMap<PointSet> edges;
-
-  /**
-   * Initialises this {@link RouteFinder} for the specified {@link Map} and corresponding junction
-   * set and edge mapping.
-   *
-   * @param allAgents The array of all {@link Entity Entities} in the game
-   * @param map The map being searched
-   * @param junctions The set of junctions for the specified {@link Map}
-   * @param edges The map of edged for the specified {@link Map}
-   * @author Lewis Ackroyd
-   */
-  public NextJunctionRouteFinder(
-      Entity[] allAgents, Map map, PointSet junctions, PointMap<PointSet> edges) {
-    this.allAgents = allAgents;
-    this.map = map;
-    this.junctions = junctions;
-    this.edges = edges;
-  }
+  private final InfluenceMap influence;
+  private final NavigationGraph graph;
+  private final AStarRouteFinder aStar;
 
   /**
    * Initialises this {@link RouteFinder} for the specified {@link Map}.
    *
-   * @param allAgents The array of all {@link Entity Entities} in the game
+   * @param influence The influence map of the AI, holding the state of the game this tick
    * @param map The map being searched
    * @author Lewis Ackroyd
    */
-  public NextJunctionRouteFinder(Entity[] allAgents, Map map) {
-    this.allAgents = allAgents;
-    this.map = map;
-    this.junctions = Mapping.getJunctions(map);
-    this.edges = Mapping.getEdges(map, junctions);
+  public NextJunctionRouteFinder(InfluenceMap influence, Map map) {
+    this.influence = influence;
+    this.graph = NavigationGraph.of(map);
+    this.aStar = new AStarRouteFinder(map);
   }
 
   /**
@@ -64,21 +43,16 @@ public class NextJunctionRouteFinder implements RouteFinder {
    */
   @Override
   public Direction getRoute(Point myLocation, Point targetLocation) {
-    Point mipsmanLocation = null;
-    Direction mipsmanDirection = null;
-    for (Entity entity : allAgents) {
-      if (entity.isMipsman()) {
-        mipsmanLocation = entity.getLocation().getCopy();
-        mipsmanDirection = entity.getDirection();
-        break;
-      }
-    }
-    if (mipsmanLocation == null || mipsmanDirection == null) {
+    WorldSnapshot world = influence.getWorld();
+    int mipID = world == null ? WorldSnapshot.NO_AGENT : world.getMipID();
+    if (mipID == WorldSnapshot.NO_AGENT || world.getDirection(mipID) == null) {
       return DEFAULT;
     }
+    Point mipsmanLocation = world.getLocation(mipID);
+    Direction mipsmanDirection = world.getDirection(mipID);
     if (mipsmanDirection.isMovementDirection()) {
-      targetLocation = Mapping.findNextJunction(mipsmanLocation, mipsmanDirection, map, junctions);
+      targetLocation = graph.findNextJunction(mipsmanLocation, mipsmanDirection);
     }
-    return new AStarRouteFinder(junctions, edges, map).getRoute(myLocation, targetLocation);
+    return aStar.getRoute(myLocation, targetLocation);
   }
 }
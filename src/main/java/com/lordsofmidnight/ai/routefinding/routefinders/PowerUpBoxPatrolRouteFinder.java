@@ -1,12 +1,14 @@
 package com.lordsofmidnight.ai.routefinding.routefinders;
 
+import com.lordsofmidnight.ai.mapping.InfluenceMap;
+import com.lordsofmidnight.ai.mapping.InfluenceMap.Layer;
 import com.lordsofmidnight.ai.routefinding.RouteFinder;
 import com.lordsofmidnight.ai.routefinding.SampleSearch;
 import com.lordsofmidnight.gamestate.maps.Map;
 import com.lordsofmidnight.gamestate.points.Point;
-import com.lordsofmidnight.gamestate.points.PointMap;
 import com.lordsofmidnight.objects.Pellet;
 import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Arrays;
 
 /**
  * Route finding algorithm that will locate the nearest power pellet and patrol around it, but not
@@ -17,25 +19,34 @@ import com.lordsofmidnight.utils.enums.Direction;
 public class PowerUpBoxPatrolRouteFinder implements RouteFinder {
   private static final int SEARCH_DEPTH = 20;
   private static final int AVOID_DEPTH = 5;
-  private final Map map;
-  private final PointMap<Pellet> pellets;
+  private final InfluenceMap influence;
+  private final SampleSearch sampleSearch;
+  private final SampleSearch.Sample[] samples; // boxes to patrol round, then boxes too close
+  private final int[][] counts = new int[2][4];
+  private InfluenceMap.Field powerUpBoxes;
 
   /**
    * Initialises this {@link RouteFinder} with the current {@link Map} and {@link Pellet}s on it.
    *
    * @param map The map being used
-   * @param pellets A mapping from every point containing a pellet, to that pellet
+   * @param influence Where the power up boxes are on the map
    * @author Lewis Ackroyd
    */
-  public PowerUpBoxPatrolRouteFinder(Map map, PointMap<Pellet> pellets) {
-    this.map = map;
-    this.pellets = pellets;
+  public PowerUpBoxPatrolRouteFinder(Map map, InfluenceMap influence) {
+    this.influence = influence;
+    this.sampleSearch = SampleSearch.of(map);
+    this.samples =
+        new SampleSearch.Sample[] {
+          new SampleSearch.Sample(this::isPowerUpBox, SEARCH_DEPTH, 1),
+          new SampleSearch.Sample(this::isPowerUpBox, AVOID_DEPTH, 1)
+        };
   }
 
   /**
    * Returns the direction to travel in until the next junction is reached such that the direction
    * avoids collecting any {@link com.lordsofmidnight.objects.PowerUpBox} whilst also travelling
-   * towards the nearest {@link com.lordsofmidnight.objects.PowerUpBox PowerUpBox}.
+   * towards the nearest {@link com.lordsofmidnight.objects.PowerUpBox PowerUpBox}. Both are
+   * looked for in the same search, which is skipped if there are none close enough to be found.
    *
    * @param myLocation The start point.
    * @param targetLocation The target point.
@@ -44,34 +55,30 @@ public class PowerUpBoxPatrolRouteFinder implements RouteFinder {
    */
   @Override
   public Direction getRoute(Point myLocation, Point targetLocation) {
-    SampleSearch sampleSearch = new SampleSearch(SEARCH_DEPTH, map);
-
-    class PowerUpBoxCountCondition implements SampleSearch.ConditionalInterface {
-      @Override
-      public boolean condition(Point position) {
-        if (pellets.containsKey(position)) {
-          Pellet pellet = pellets.get(position);
-          if (pellet.isPowerUpBox()) {
-            return true;
-          }
-        }
-        return false;
+    powerUpBoxes = influence.get(Layer.POWER_UP_BOXES);
+    if (powerUpBoxes.getDistance(myLocation) <= SEARCH_DEPTH) {
+      sampleSearch.getDirectionCounts(myLocation, samples, counts);
+    } else {
+      for (int[] row : counts) {
+        Arrays.fill(row, 0);
       }
     }
-    int[] powerUpBoxAllCounts =
-        sampleSearch.getDirectionCounts(myLocation, new PowerUpBoxCountCondition());
-    sampleSearch = new SampleSearch(AVOID_DEPTH, map);
-    int[] powerUpBoxAvoidCounts =
-        sampleSearch.getDirectionCounts(myLocation, new PowerUpBoxCountCondition());
-
     int[] totals = {0, 0, 0, 0};
-    for (int i = 0; i < powerUpBoxAllCounts.length; i++) {
-      totals[i] = (powerUpBoxAvoidCounts[i] == 0) ? powerUpBoxAllCounts[i] : 0;
+    for (int i = 0; i < totals.length; i++) {
+      totals[i] = (counts[1][i] == 0) ? counts[0][i] : 0;
     }
 
     return maxDirection(totals);
   }
 
+  /**
+   * @param position The position being checked
+   * @return True if a {@link com.lordsofmidnight.objects.PowerUpBox PowerUpBox} is at the position
+   */
+  private boolean isPowerUpBox(Point position) {
+    return powerUpBoxes.contains(position);
+  }
+
   /**
    * Determines which direction has the highest preference and returns it.
    *
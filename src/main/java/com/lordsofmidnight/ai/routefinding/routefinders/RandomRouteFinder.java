@@ -15,12 +15,24 @@ public class RandomRouteFinder implements RouteFinder {
 
   private static final Random R = new Random();
 
+  private final Random random;
+
   /**
    * Creates an instance of this {@link RouteFinder}.
    *
    * @author Lewis Ackroyd
    */
   public RandomRouteFinder() {
+    this(R);
+  }
+
+  /**
+   * Creates an instance of this {@link RouteFinder} that makes its choices from the given source.
+   *
+   * @param random The random source of the game being played
+   */
+  public RandomRouteFinder(Random random) {
+    this.random = random;
   }
 
   /**
@@ -37,7 +49,7 @@ public class RandomRouteFinder implements RouteFinder {
       return DEFAULT;
     }
     Direction dir = DEFAULT;
-    int dirValue = R.nextInt(6);
+    int dirValue = random.nextInt(6);
     switch (dirValue) {
       case 0: {
         dir = Direction.UP;
@@ -19,6 +19,7 @@ public class AudioController {
   private MediaPlayer mediaPlayer;
   private MediaPlayer menuPlayer;
   private MediaPlayer gamePlayer;
+  private boolean silent;
 
   /**
    * @param clientId The ID of the client, this is used to know what sounds to play
@@ -29,6 +30,17 @@ public class AudioController {
     clips = loadClips();
   }
 
+  /** Creates a controller that loads nothing and plays nothing, for games run without a client */
+  private AudioController() {
+    client = -1;
+    silent = true;
+  }
+
+  /** @return An audio controller that never plays anything, for headless games */
+  public static AudioController silent() {
+    return new AudioController();
+  }
+
   /**
    * Stops all music players
    */
@@ -90,7 +102,7 @@ public class AudioController {
    * @param sound the sound to play
    */
   public void playSound(Sounds sound, int... id) {
-    if (Settings.getMute() || (id.length > 0 && id[0] != client)) {
+    if (silent || Settings.getMute() || (id.length > 0 && id[0] != client)) {
       return; // IF the com.lordsofmidnight.main has muted its audio nothing will be played
     }
     try {
@@ -106,6 +118,9 @@ public class AudioController {
 
   /** Plays the game music intro the after the looping music */
   public void gameIntro() {
+    if (silent) {
+      return;
+    }
     stopPlayers();
     playMusic(Sounds.GAMEINTRO);
     new Thread() {
@@ -127,6 +142,9 @@ public class AudioController {
    * @param sound file for the music
    */
   public void playMusic(Sounds sound) {
+    if (silent) {
+      return;
+    }
     try {
       stopPlayers();
       MediaPlayer current;
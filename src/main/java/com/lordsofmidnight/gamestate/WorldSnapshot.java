@@ -0,0 +1,394 @@
+package com.lordsofmidnight.gamestate;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.gamestate.points.PointMap;
+import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.objects.EntityStore;
+import com.lordsofmidnight.objects.Pellet;
+import com.lordsofmidnight.server.snapshot.Snapshot;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The state of a game at the end of one tick: where every agent is, which way it is going, what
+ * it is, its score and what it holds, and which pellets are active. A snapshot never changes once
+ * it is made, so the game publishes one a tick and anything reading the game, such as the AI or
+ * the replication to clients, reads that rather than the entities the physics is moving.
+ *
+ * <p>Agents are held by their index in the agents array of the game, each piece of state in an
+ * array of its own. Arrays that didn't change since the last snapshot of a {@link Recorder} are
+ * shared with it rather than copied.
+ */
+public final class WorldSnapshot {
+
+  /** The index of the MIPSman of a game without one */
+  public static final int NO_AGENT = -1;
+  /** The first item of an agent holding nothing */
+  public static final int NO_ITEM = -1;
+  /** The flag of an agent that is MIPSman, the flags are those of the {@link EntityStore} */
+  public static final int MIPSMAN = EntityStore.MIPSMAN;
+  /** The flag of an agent that is dead */
+  public static final int DEAD = EntityStore.DEAD;
+  /** The flag of an agent that is invincible */
+  public static final int INVINCIBLE = EntityStore.INVINCIBLE;
+  /** The flag of an agent that is stunned */
+  public static final int STUNNED = EntityStore.STUNNED;
+
+  private final Map map;
+  private final int tick;
+  private final int gameTime;
+  private final int mipID;
+  private final double[] x;
+  private final double[] y;
+  private final int[] cell;
+  private final byte[] direction;
+  private final int[] flags;
+  private final int[] score;
+  private final byte[] inventory;
+  private final BitSet pellets; // by cell, the active pellets
+  private final BitSet powerUpBoxes; // by cell, the power up boxes, active or not
+
+  /**
+   * @param map The map the game is played on
+   * @param tick The tick of the snapshot
+   * @param gameTime The game timer
+   * @param mipID The index of the agent that is MIPSman
+   * @param x The x coordinate of each agent
+   * @param y The y coordinate of each agent
+   * @param cell The cell of each agent
+   * @param direction The id of the direction of each agent
+   * @param flags The flags of each agent
+   * @param score The score of each agent
+   * @param inventory The packed inventory of each agent
+   * @param pellets The active pellets
+   * @param powerUpBoxes The power up boxes
+   */
+  private WorldSnapshot(
+      Map map,
+      int tick,
+      int gameTime,
+      int mipID,
+      double[] x,
+      double[] y,
+      int[] cell,
+      byte[] direction,
+      int[] flags,
+      int[] score,
+      byte[] inventory,
+      BitSet pellets,
+      BitSet powerUpBoxes) {
+    this.map = map;
+    this.tick = tick;
+    this.gameTime = gameTime;
+    this.mipID = mipID;
+    this.x = x;
+    this.y = y;
+    this.cell = cell;
+    this.direction = direction;
+    this.flags = flags;
+    this.score = score;
+    this.inventory = inventory;
+    this.pellets = pellets;
+    this.powerUpBoxes = powerUpBoxes;
+  }
+
+  /** @return The map the game is played on */
+  public Map getMap() {
+    return map;
+  }
+
+  /** @return The number of snapshots the recorder made before this one */
+  public int getTick() {
+    return tick;
+  }
+
+  /** @return The game timer */
+  public int getGameTime() {
+    return gameTime;
+  }
+
+  /** @return The number of agents */
+  public int getAgentCount() {
+    return x.length;
+  }
+
+  /** @return The index of the agent that is MIPSman, {@link #NO_AGENT} if none is */
+  public int getMipID() {
+    return mipID;
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return The x coordinate of the agent
+   */
+  public double getX(int agent) {
+    return x[agent];
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return The y coordinate of the agent
+   */
+  public double getY(int agent) {
+    return y[agent];
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return A new point at the location of the agent
+   */
+  public Point getLocation(int agent) {
+    return new Point(x[agent], y[agent], map);
+  }
+
+  /**
+   * Moves a point to the location of an agent, so a point can be reused rather than made
+   *
+   * @param agent The index of an agent
+   * @param into The point to move
+   * @return The point
+   */
+  public Point getLocation(int agent, Point into) {
+    into.setLocation(x[agent], y[agent]);
+    return into;
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return The cell of the square the agent is in
+   */
+  public int getCell(int agent) {
+    return cell[agent];
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return The direction the agent is going in, null if it has none
+   */
+  public Direction getDirection(int agent) {
+    byte id = direction[agent];
+    return id == EntityStore.NO_DIRECTION ? null : Direction.fromInt(id);
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return The flags of the agent, such as {@link #MIPSMAN}
+   */
+  public int getFlags(int agent) {
+    return flags[agent];
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return True if the agent is MIPSman
+   */
+  public boolean isMipsman(int agent) {
+    return (flags[agent] & MIPSMAN) != 0;
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return True if the agent is dead
+   */
+  public boolean isDead(int agent) {
+    return (flags[agent] & DEAD) != 0;
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return True if the agent is invincible
+   */
+  public boolean isInvincible(int agent) {
+    return (flags[agent] & INVINCIBLE) != 0;
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return The score of the agent
+   */
+  public int getScore(int agent) {
+    return score[agent];
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return The first two items the agent holds, packed by {@link Snapshot#packInventory(Entity)}
+   */
+  public int getInventory(int agent) {
+    return inventory[agent] & 0xFF;
+  }
+
+  /**
+   * @param agent The index of an agent
+   * @return The id of the first item the agent holds, {@link #NO_ITEM} if it holds nothing
+   */
+  public int getFirstItem(int agent) {
+    return ((inventory[agent] >> 4) & 0xF) - 1;
+  }
+
+  /**
+   * @param cell A cell
+   * @return True if there is an active pellet in the cell
+   */
+  public boolean hasPellet(int cell) {
+    return pellets.get(cell);
+  }
+
+  /**
+   * @param cell A cell
+   * @return True if there is a power up box in the cell, whether it is active or not
+   */
+  public boolean hasPowerUpBox(int cell) {
+    return powerUpBoxes.get(cell);
+  }
+
+  /**
+   * Sets the cells that have an active pellet in a set, after clearing it
+   *
+   * @param into The set
+   */
+  public void getPellets(BitSet into) {
+    into.clear();
+    into.or(pellets);
+  }
+
+  /**
+   * Sets the cells that have a power up box in a set, after clearing it
+   *
+   * @param into The set
+   */
+  public void getPowerUpBoxes(BitSet into) {
+    into.clear();
+    into.or(powerUpBoxes);
+  }
+
+  /**
+   * Makes the snapshots of one game, sharing what didn't change with the last snapshot it made.
+   * The state of the agents is copied from the arrays of their {@link EntityStore}. Only one
+   * thread records at a time.
+   */
+  public static final class Recorder {
+
+    private final Map map;
+    private final BitSet pellets = new BitSet(); // the state being recorded, copied if it changed
+    private final BitSet powerUpBoxes = new BitSet();
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private int[] cell = new int[0];
+    private byte[] direction = new byte[0];
+    private int[] flags = new int[0];
+    private int[] score = new int[0];
+    private byte[] inventory = new byte[0];
+    private WorldSnapshot last;
+
+    /** @param map The map the game is played on */
+    public Recorder(Map map) {
+      this.map = map;
+    }
+
+    /**
+     * Makes a snapshot of the game as it is now
+     *
+     * @param store The store holding the agents, each in the slot of its index
+     * @param agents The agents of the game, only read for what they hold
+     * @param pelletMap The pellets on the map
+     * @param gameTime The game timer
+     * @return The snapshot
+     * @throws IllegalArgumentException If the store doesn't hold one slot for each agent
+     */
+    public WorldSnapshot record(
+        EntityStore store, Entity[] agents, PointMap<Pellet> pelletMap, int gameTime) {
+      int count = agents.length;
+      if (store.getCapacity() != count) {
+        throw new IllegalArgumentException(
+            "A store of " + store.getCapacity() + " agents recorded with " + count);
+      }
+      if (x.length != count) {
+        x = new double[count];
+        y = new double[count];
+        cell = new int[count];
+        direction = new byte[count];
+        flags = new int[count];
+        score = new int[count];
+        inventory = new byte[count];
+      }
+      store.copyX(x);
+      store.copyY(y);
+      store.copyDirections(direction);
+      store.copyScores(score);
+      store.copyFlags(flags);
+      int mipID = NO_AGENT;
+      for (int i = 0; i < count; i++) {
+        cell[i] = map.cell(x[i], y[i]);
+        inventory[i] = (byte) Snapshot.packInventory(agents[i]);
+        if (mipID == NO_AGENT && (flags[i] & MIPSMAN) != 0) {
+          mipID = i;
+        }
+      }
+      pellets.clear();
+      powerUpBoxes.clear();
+      for (int px = 0; px < map.getMaxX(); px++) {
+        for (int py = 0; py < map.getMaxY(); py++) {
+          Pellet pellet = pelletMap.get(px, py);
+          if (pellet == null) {
+            continue;
+          }
+          if (pellet.isActive()) {
+            pellets.set(map.cell(px, py));
+          }
+          if (pellet.isPowerUpBox()) {
+            powerUpBoxes.set(map.cell(px, py));
+          }
+        }
+      }
+      WorldSnapshot previous = last != null && last.getAgentCount() == count ? last : null;
+      if (previous == null) {
+        last =
+            new WorldSnapshot(
+                map,
+                last == null ? 0 : last.tick + 1,
+                gameTime,
+                mipID,
+                x.clone(),
+                y.clone(),
+                cell.clone(),
+                direction.clone(),
+                flags.clone(),
+                score.clone(),
+                inventory.clone(),
+                (BitSet) pellets.clone(),
+                (BitSet) powerUpBoxes.clone());
+      } else { // only copy what changed, the rest is shared
+        last =
+            new WorldSnapshot(
+                map,
+                previous.tick + 1,
+                gameTime,
+                mipID,
+                Arrays.equals(x, previous.x) ? previous.x : x.clone(),
+                Arrays.equals(y, previous.y) ? previous.y : y.clone(),
+                Arrays.equals(cell, previous.cell) ? previous.cell : cell.clone(),
+                Arrays.equals(direction, previous.direction)
+                    ? previous.direction
+                    : direction.clone(),
+                Arrays.equals(flags, previous.flags) ? previous.flags : flags.clone(),
+                Arrays.equals(score, previous.score) ? previous.score : score.clone(),
+                Arrays.equals(inventory, previous.inventory)
+                    ? previous.inventory
+                    : inventory.clone(),
+                pellets.equals(previous.pellets) ? previous.pellets : (BitSet) pellets.clone(),
+                powerUpBoxes.equals(previous.powerUpBoxes)
+                    ? previous.powerUpBoxes
+                    : (BitSet) powerUpBoxes.clone());
+      }
+      return last;
+    }
+
+    /** @return The last snapshot made, null if none has been */
+    public WorldSnapshot getLast() {
+      return last;
+    }
+  }
+}
@@ -3,14 +3,21 @@ package com.lordsofmidnight.gamestate.maps;
 import com.lordsofmidnight.gamestate.points.Point;
 import com.lordsofmidnight.objects.Entity;
 import com.lordsofmidnight.renderer.ResourceLoader;
+import com.lordsofmidnight.utils.enums.Direction;
 import com.lordsofmidnight.utils.enums.MapElement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Random;
 
 /**
  * Encapsulates map with utilities methods
  *
+ * <p>Squares can also be addressed as cells, ints numbered {@code x * maxY + y}. Which cells can
+ * be walked on, which of their neighbours can be walked to and where a step from each one lands
+ * are worked out once when the map is made, wrapping round the edges as movement does, so
+ * checking a move is a lookup.
+ *
  * @author Alex Banks
  */
 public class Map {
@@ -19,6 +26,9 @@ public class Map {
   private final int MAX_Y;
 
   private final int[][] MAP;
+  private final BitSet WALKABLE; // by cell
+  private final byte[] EXITS; // by cell, the bit of each direction whose neighbour is walkable
+  private final int[] STEPS; // by cell * 4 + direction, the cell a step lands on
   private final ArrayList<Point> SPAWN_POINTS;
 
   private final Random SPAWN_RANDOM;
@@ -34,6 +44,10 @@ public class Map {
     MAP = map_;
     MAX_X = MAP.length;
     MAX_Y = MAP[0].length;
+    WALKABLE = new BitSet(MAX_X * MAX_Y);
+    EXITS = new byte[MAX_X * MAX_Y];
+    STEPS = new int[MAX_X * MAX_Y * 4];
+    loadNeighbours();
     SPAWN_POINTS = loadSpawnPoints();
     SPAWN_RANDOM = new Random();
   }
@@ -106,6 +120,45 @@ public class Map {
     return new Map(deserialisedMap);
   }
 
+  /**
+   * @param d A movement direction
+   * @return The bit of the direction in {@link #exits(int)}
+   */
+  public static int exit(Direction d) {
+    return 1 << d.toInt();
+  }
+
+  /**
+   * called on construction to fill in the walkable cells, then the steps and exits of every cell
+   *
+   * @see this#Map(int[][])
+   */
+  private void loadNeighbours() {
+    for (int x = 0; x < MAX_X; x++) {
+      for (int y = 0; y < MAX_Y; y++) {
+        if (MAP[x][y] != MapElement.WALL.toInt()) {
+          WALKABLE.set(cell(x, y));
+        }
+      }
+    }
+    for (int x = 0; x < MAX_X; x++) {
+      for (int y = 0; y < MAX_Y; y++) {
+        int cell = cell(x, y);
+        STEPS[cell * 4 + Direction.UP.toInt()] = cell(x, y - 1);
+        STEPS[cell * 4 + Direction.DOWN.toInt()] = cell(x, y + 1);
+        STEPS[cell * 4 + Direction.LEFT.toInt()] = cell(x - 1, y);
+        STEPS[cell * 4 + Direction.RIGHT.toInt()] = cell(x + 1, y);
+        int exits = 0;
+        for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
+          if (WALKABLE.get(step(cell, d))) {
+            exits |= exit(d);
+          }
+        }
+        EXITS[cell] = (byte) exits;
+      }
+    }
+  }
+
   /**
    * called on construction to find and load spawn point TODO: convert back to SPAWNPOINT.toInt()
    *
@@ -145,9 +198,103 @@ public class Map {
    * @return true if wall, false otherwise
    */
   public boolean isWall(Point point) {
-    Point p =
-        new Point(point.getX(), point.getY(), this); // TODO remove line once all points use mod
-    return MAP[(int) p.getX()][(int) p.getY()] == MapElement.WALL.toInt();
+    int x = (int) Point.wrap(point.getX(), MAX_X);
+    int y = (int) Point.wrap(point.getY(), MAX_Y);
+    return !WALKABLE.get(x * MAX_Y + y);
+  }
+
+  /**
+   * calculates if a grid square is a wall, squares off the edge wrap round as points do
+   *
+   * @param x The x coordinate of the square
+   * @param y The y coordinate of the square
+   * @return true if wall, false otherwise
+   */
+  public boolean isWall(int x, int y) {
+    return !WALKABLE.get(cell(x, y));
+  }
+
+  /**
+   * calculates if a grid square is a wall
+   *
+   * @param cell The square, packed by {@link Point#pack(int, int)}
+   * @return true if wall, false otherwise
+   */
+  public boolean isWall(long cell) {
+    return isWall(Point.unpackX(cell), Point.unpackY(cell));
+  }
+
+  /**
+   * @param cell The cell
+   * @return true if the cell is not a wall
+   */
+  public boolean isWalkable(int cell) {
+    return WALKABLE.get(cell);
+  }
+
+  /**
+   * @param x The x coordinate of the square, wrapping round if off the edge
+   * @param y The y coordinate of the square, wrapping round if off the edge
+   * @return The cell of the square
+   */
+  public int cell(int x, int y) {
+    return Math.floorMod(x, MAX_X) * MAX_Y + Math.floorMod(y, MAX_Y);
+  }
+
+  /**
+   * @param point The point, wrapping round if off the edge
+   * @return The cell of the square the point is in
+   */
+  public int cell(Point point) {
+    return cell(point.getX(), point.getY());
+  }
+
+  /**
+   * @param x The x coordinate of a position, wrapping round if off the edge
+   * @param y The y coordinate of a position, wrapping round if off the edge
+   * @return The cell of the square the position is in
+   */
+  public int cell(double x, double y) {
+    return (int) Point.wrap(x, MAX_X) * MAX_Y + (int) Point.wrap(y, MAX_Y);
+  }
+
+  /**
+   * @param cell The cell
+   * @return The x coordinate of the cell
+   */
+  public int cellX(int cell) {
+    return cell / MAX_Y;
+  }
+
+  /**
+   * @param cell The cell
+   * @return The y coordinate of the cell
+   */
+  public int cellY(int cell) {
+    return cell % MAX_Y;
+  }
+
+  /**
+   * The neighbours of a cell that can be walked to, as bits set by {@link #exit(Direction)}
+   *
+   * @param cell The cell
+   * @return The mask of the directions that can be moved in from the cell
+   */
+  public int exits(int cell) {
+    return EXITS[cell];
+  }
+
+  /**
+   * @param cell The cell
+   * @param d The direction to step in
+   * @return The neighbouring cell in the direction, wrapping round the edges, or the cell itself
+   *     if the direction isn't a movement direction
+   */
+  public int step(int cell, Direction d) {
+    if (d == null || !d.isMovementDirection()) {
+      return cell;
+    }
+    return STEPS[cell * 4 + d.toInt()];
   }
 
   /**
@@ -166,11 +313,25 @@ public class Map {
    * @author Alex Banks
    */
   public Point getRandomSpawnPoint(Entity[] agents) {
+    return getRandomSpawnPoint(agents, SPAWN_RANDOM);
+  }
+
+  /**
+   * Returns random spawnpoint that's not near any other entities, chosen by the given source so
+   * that a seeded game spawns the same way every time. If the map is too crowded for one to be
+   * found, after a number of tries the last one tried is used anyway.
+   *
+   * @param agents The entities to keep away from
+   * @param random The source of the choice
+   * @return random Point to position entities upon respawn
+   */
+  public Point getRandomSpawnPoint(Entity[] agents, Random random) {
     final int MIN_DIST = 2;
+    final int MAX_TRIES = SPAWN_POINTS.size() * 4;
     boolean found = false;
     Point p = null;
-    while (!found) {
-      p = SPAWN_POINTS.get(SPAWN_RANDOM.nextInt(SPAWN_POINTS.size()));
+    for (int tries = 0; !found && tries < MAX_TRIES; tries++) {
+      p = SPAWN_POINTS.get(random.nextInt(SPAWN_POINTS.size()));
       found = true;
       for (Entity agent : agents) {
         if (agent == null) {
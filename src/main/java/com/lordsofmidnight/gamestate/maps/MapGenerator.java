@@ -113,10 +113,21 @@ public class MapGenerator {
    * @return the map
    */
   public static int[][] generateNewMap(int x, int y) {
+    return generateNewMap(x, y, new Random());
+  }
+
+  /**
+   * Generates a new map, the same map every time for the same source
+   *
+   * @param x the x dimension of the map
+   * @param y the y dimension of the map
+   * @param r the source of the random choices
+   * @return the map
+   */
+  public static int[][] generateNewMap(int x, int y, Random r) {
     int[][] map = null;
     int c = 0;
     int half = (y + 1) / 2;
-    Random r = new Random();
     while (!validateMap(map)) {
       // System.out.println("attempt " + c++);
       map = new int[x][y];
@@ -17,12 +17,12 @@ public class Point {
   private static int defaultMaxY = -1;
   private static boolean hasDefault = false;
 
-  private final double EQUALITY_TOLERANCE = 0.001;
-  private final double CENTER_TOLERANCE = 0.2;
-  private final double CENTER = 0.5;
-  private final int MAX_X;
-  private final int MAX_Y;
-  private final boolean MAPPED;
+  private static final double EQUALITY_TOLERANCE = 0.001;
+  private static final double CENTER_TOLERANCE = 0.2;
+  private static final double CENTER = 0.5;
+  private int maxX;
+  private int maxY;
+  private boolean mapped;
   private double x;
   private double y;
 
@@ -37,14 +37,14 @@ public class Point {
     this.y = y;
 
     if (hasDefault) {
-      this.MAX_X = defaultMaxX;
-      this.MAX_Y = defaultMaxY;
-      this.MAPPED = true;
+      this.maxX = defaultMaxX;
+      this.maxY = defaultMaxY;
+      this.mapped = true;
     } else {
       // System.err.println("Warning: Point has no reference to map");
-      this.MAX_X = 0;
-      this.MAX_Y = 0;
-      this.MAPPED = false;
+      this.maxX = 0;
+      this.maxY = 0;
+      this.mapped = false;
     }
 
     mod();
@@ -60,9 +60,9 @@ public class Point {
   public Point(double x, double y, Map map) {
     this.x = x;
     this.y = y;
-    this.MAX_X = map.getMaxX();
-    this.MAX_Y = map.getMaxY();
-    this.MAPPED = true;
+    this.maxX = map.getMaxX();
+    this.maxY = map.getMaxY();
+    this.mapped = true;
     mod();
   }
 
@@ -77,9 +77,9 @@ public class Point {
   public Point(double x, double y, int max_x, int max_y) {
     this.x = x;
     this.y = y;
-    this.MAX_X = max_x;
-    this.MAX_Y = max_y;
-    this.MAPPED = MAX_X > 0 && MAX_Y > 0;
+    this.maxX = max_x;
+    this.maxY = max_y;
+    this.mapped = maxX > 0 && maxY > 0;
 
     mod();
   }
@@ -96,9 +96,56 @@ public class Point {
   public Point(double x, double y, int max_x, int max_y, boolean mapped) {
     this.x = x;
     this.y = y;
-    this.MAX_X = max_x;
-    this.MAX_Y = max_y;
-    this.MAPPED = mapped;
+    this.maxX = max_x;
+    this.maxY = max_y;
+    this.mapped = mapped;
+  }
+
+  /**
+   * Packs a grid square into a single long, so it can be held and compared without a point
+   *
+   * @param x The x coordinate of the square
+   * @param y The y coordinate of the square
+   * @return The packed square
+   * @see #unpackX(long)
+   * @see #unpackY(long)
+   */
+  public static long pack(int x, int y) {
+    return ((long) x << 32) | (y & 0xFFFFFFFFL);
+  }
+
+  /**
+   * @param cell A square packed by {@link #pack(int, int)}
+   * @return The x coordinate of the square
+   */
+  public static int unpackX(long cell) {
+    return (int) (cell >> 32);
+  }
+
+  /**
+   * @param cell A square packed by {@link #pack(int, int)}
+   * @return The y coordinate of the square
+   */
+  public static int unpackY(long cell) {
+    return (int) cell;
+  }
+
+  /**
+   * Wraps a coordinate onto an axis of the map, as the point's own coordinates are wrapped
+   *
+   * @param value The coordinate
+   * @param max The length of the axis
+   * @return The coordinate, from 0 up to but not including max
+   */
+  public static double wrap(double value, int max) {
+    if (value >= 0 && value < max) {
+      return value;
+    }
+    value %= max;
+    if (value < 0) {
+      value = (value + max) % max;
+    }
+    return value;
   }
 
   /**
@@ -120,7 +167,22 @@ public class Point {
    * @return new instance which is exact duplicate.
    */
   public Point getCopy() {
-    return new Point(this.x, this.y, this.MAX_X, this.MAX_Y, this.MAPPED);
+    return new Point(this.x, this.y, this.maxX, this.maxY, this.mapped);
+  }
+
+  /**
+   * Makes this point an exact duplicate of another, so a point can be reused rather than copied
+   *
+   * @param p The point to duplicate
+   * @return this point
+   */
+  public Point set(Point p) {
+    this.x = p.x;
+    this.y = p.y;
+    this.maxX = p.maxX;
+    this.maxY = p.maxY;
+    this.mapped = p.mapped;
+    return this;
   }
 
   /**
@@ -137,6 +199,21 @@ public class Point {
     return y;
   }
 
+  /** @return The x coordinate of the grid square the point is in */
+  public int getGridX() {
+    return (int) x;
+  }
+
+  /** @return The y coordinate of the grid square the point is in */
+  public int getGridY() {
+    return (int) y;
+  }
+
+  /** @return The grid square the point is in, packed by {@link #pack(int, int)} */
+  public long pack() {
+    return pack((int) x, (int) y);
+  }
+
   /**
    * sets new com.lordsofmidnight.gamestate, check modularity.
    *
@@ -237,8 +314,13 @@ public class Point {
    * @author Alex Banks
    */
   public boolean inRange(Point p) {
-    Point temp = new Point(this.x - p.getX(), this.y - p.getY(), this.MAX_X, this.MAX_Y);
-    return (abs(temp.getX()) <= 0.5 && abs(temp.getY()) <= 0.5);
+    double dx = this.x - p.getX();
+    double dy = this.y - p.getY();
+    if (maxX > 0 && maxY > 0) { // the difference wraps as a point on this point's map would
+      dx = wrap(dx, maxX);
+      dy = wrap(dy, maxY);
+    }
+    return (abs(dx) <= 0.5 && abs(dy) <= 0.5);
   }
 
   /** @return The point in string form */
@@ -249,11 +331,11 @@ public class Point {
         + ","
         + y
         + "), max = ("
-        + MAX_X
+        + maxX
         + ","
-        + MAX_Y
+        + maxY
         + "), "
-        + (MAPPED ? "mapped" : "unmapped");
+        + (mapped ? "mapped" : "unmapped");
   }
 
   /**
@@ -275,22 +357,16 @@ public class Point {
    * @author Alex Banks
    */
   private void mod() {
-    if (MAPPED) {
-      if (MAX_Y <= 0 && MAX_X <= 0) {
+    if (mapped) {
+      if (maxY <= 0 && maxX <= 0) {
         System.err.println("  You're using a method that could cause Point to go off the map,");
         System.err.println("  but haven't constructed with enough information to stop this.");
         System.err.println("  Please consider using a different constructor.");
         System.err.println(this.toString());
         return;
       }
-      while (this.x < 0) {
-        x += MAX_X;
-      }
-      while (this.y < 0) {
-        y += MAX_Y;
-      }
-      x = x % MAX_X;
-      y = y % MAX_Y;
+      x = wrap(x, maxX);
+      y = wrap(y, maxY);
     }
   }
 
@@ -1,11 +1,15 @@
 package com.lordsofmidnight.gamestate.points;
 
 import java.io.Serializable;
+import java.util.AbstractCollection;
 import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -14,13 +18,23 @@ import java.util.Set;
  * This will treat each {@link Point} as the grid coordinate {@link Point} as given by {@link
  * Point#getGridCoord()}.
  *
+ * <p>Values are held in an array with a slot for every square of the map, so lookups are an index
+ * into the array and never allocate. The views returned by {@link #keySet()}, {@link #values()}
+ * and {@link #entrySet()} are backed by this map and iterate in grid order, row by row.
+ *
  * @author Lewis Ackroyd
  */
 public class PointMap<V> extends AbstractMap<Point, V>
     implements Map<Point, V>, Cloneable, Serializable {
   private final int MAX_X;
-  private final HashMap<Integer, V> map;
-  private final HashMap<Integer, Point> keyMappings;
+  private final int MAX_Y;
+  private final BitSet present; // the squares that have a mapping
+  private final Point[] keys; // the point each square was put with
+  private final Object[] values;
+  private int size;
+  private transient Set<Point> keySet;
+  private transient Collection<V> valueCollection;
+  private transient Set<Entry<Point, V>> entrySet;
 
   /**
    * Initialises this Map according to the paramaters of the {@link
@@ -30,21 +44,22 @@ public class PointMap<V> extends AbstractMap<Point, V>
    * @author Lewis Ackroyd
    */
   public PointMap(com.lordsofmidnight.gamestate.maps.Map map) {
-    this.MAX_X = map.getMaxX();
-    this.map = new HashMap<>();
-    this.keyMappings = new HashMap<>();
+    this(map.getMaxX(), map.getMaxY());
   }
 
   /**
-   * Initialises this Map by using the specified value as the size of the x-axis.
+   * Initialises this Map by using the specified values as the size of each axis.
    *
    * @param maxX The maximum xValue of any points being passed to this map
+   * @param maxY The maximum yValue of any points being passed to this map
    * @author Lewis Ackroyd
    */
-  private PointMap(int maxX) {
+  private PointMap(int maxX, int maxY) {
     this.MAX_X = maxX;
-    this.map = new HashMap<>();
-    this.keyMappings = new HashMap<>();
+    this.MAX_Y = maxY;
+    this.present = new BitSet(maxX * maxY);
+    this.keys = new Point[maxX * maxY];
+    this.values = new Object[maxX * maxY];
   }
 
   /**
@@ -53,13 +68,15 @@ public class PointMap<V> extends AbstractMap<Point, V>
    * @author Lewis Ackroyd
    */
   public PointMap<V> getShallowClone() {
-    return new PointMap<V>(MAX_X);
+    return new PointMap<V>(MAX_X, MAX_Y);
   }
 
   @Override
   public void clear() {
-    map.clear();
-    keyMappings.clear();
+    present.clear();
+    Arrays.fill(keys, null);
+    Arrays.fill(values, null);
+    size = 0;
   }
 
   @Override
@@ -68,13 +85,27 @@ public class PointMap<V> extends AbstractMap<Point, V>
       return false;
     }
     Point p = (Point) key;
-    int value = getKeyValue(p);
-    return map.containsKey(value);
+    return containsKey((int) p.getX(), (int) p.getY());
+  }
+
+  /**
+   * @param x The x coordinate of the square
+   * @param y The y coordinate of the square
+   * @return If the square has a mapping
+   */
+  public boolean containsKey(int x, int y) {
+    int value = getKeyValue(x, y);
+    return value >= 0 && present.get(value);
   }
 
   @Override
   public boolean containsValue(Object value) {
-    return map.containsValue(value);
+    for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+      if (value == null ? values[i] == null : value.equals(values[i])) {
+        return true;
+      }
+    }
+    return false;
   }
 
   @Override
@@ -83,8 +114,17 @@ public class PointMap<V> extends AbstractMap<Point, V>
       return null;
     }
     Point p = (Point) key;
-    int value = getKeyValue(p);
-    return map.get(value);
+    return get((int) p.getX(), (int) p.getY());
+  }
+
+  /**
+   * @param x The x coordinate of the square
+   * @param y The y coordinate of the square
+   * @return The value mapped to by the square, or null if there is none
+   */
+  public V get(int x, int y) {
+    int value = getKeyValue(x, y);
+    return value < 0 ? null : valueAt(value);
   }
 
   @Override
@@ -93,30 +133,37 @@ public class PointMap<V> extends AbstractMap<Point, V>
       return defaultValue;
     }
     Point p = (Point) key;
-    int value = getKeyValue(p);
-    return map.getOrDefault(value, defaultValue);
+    int value = getKeyValue((int) p.getX(), (int) p.getY());
+    return value >= 0 && present.get(value) ? valueAt(value) : defaultValue;
   }
 
   @Override
   public boolean isEmpty() {
-    return map.isEmpty();
+    return size == 0;
   }
 
   @Override
   public Set<Point> keySet() {
-    Set<Integer> valueSet = map.keySet();
-    Set<Point> pointSet = new HashSet<>();
-    for (int value : valueSet) {
-      pointSet.add(getPointFromKey(value));
+    if (keySet == null) {
+      keySet = new KeySet();
     }
-    return pointSet;
+    return keySet;
   }
 
   @Override
   public V put(Point p, V data) {
-    int keyValue = getKeyValue(p);
-    keyMappings.put(keyValue, p);
-    return map.put(keyValue, data);
+    int keyValue = getKeyValue((int) p.getX(), (int) p.getY());
+    if (keyValue < 0) {
+      throw new IllegalArgumentException("point is not on the map: " + p);
+    }
+    V previous = valueAt(keyValue);
+    if (!present.get(keyValue)) {
+      present.set(keyValue);
+      size++;
+    }
+    keys[keyValue] = p;
+    values[keyValue] = data;
+    return previous;
   }
 
   @Override
@@ -125,54 +172,34 @@ public class PointMap<V> extends AbstractMap<Point, V>
       return null;
     }
     Point p = (Point) o;
-    int key = getKeyValue(p);
-    keyMappings.remove(key);
-    return map.remove(key);
+    int key = getKeyValue((int) p.getX(), (int) p.getY());
+    if (key < 0 || !present.get(key)) {
+      return null;
+    }
+    V previous = valueAt(key);
+    removeKey(key);
+    return previous;
   }
 
   @Override
   public int size() {
-    return map.size();
+    return size;
   }
 
   @Override
   public Collection<V> values() {
-    return map.values();
+    if (valueCollection == null) {
+      valueCollection = new Values();
+    }
+    return valueCollection;
   }
 
   @Override
   public Set<Entry<Point, V>> entrySet() {
-    class PointMapEntry implements Map.Entry<Point, V> {
-      private final Point key;
-      private V value;
-
-      public PointMapEntry(Point point, V value) {
-        this.key = point;
-        this.value = value;
-      }
-
-      @Override
-      public Point getKey() {
-        return key;
-      }
-
-      @Override
-      public V getValue() {
-        return value;
-      }
-
-      @Override
-      public V setValue(V value) {
-        V oldValue = value;
-        this.value = value;
-        return oldValue;
-      }
+    if (entrySet == null) {
+      entrySet = new EntrySet();
     }
-    Set<Entry<Point, V>> returnSet = new HashSet<>();
-    for (Point p : keySet()) {
-      returnSet.add(new PointMapEntry(p, get(p)));
-    }
-    return returnSet;
+    return entrySet;
   }
 
   /*@Override
@@ -188,25 +215,183 @@ public class PointMap<V> extends AbstractMap<Point, V>
   }*/
 
   /**
-   * Calculates the key value that will be used for a given point within the map.
+   * Calculates the key value that will be used for a given square within the map.
    *
-   * @param p The point being used as a key
-   * @return The key value to be used by the internal map
+   * @param x The x coordinate of the square
+   * @param y The y coordinate of the square
+   * @return The index of the square in the internal arrays, or -1 if it isn't on the map
    * @author Lewis Ackroyd
    */
-  private int getKeyValue(Point p) {
-    p = p.getGridCoord();
-    return (((int) p.getY()) * MAX_X) + (int) p.getX();
+  private int getKeyValue(int x, int y) {
+    if (x < 0 || y < 0 || x >= MAX_X || y >= MAX_Y) {
+      return -1;
+    }
+    return (y * MAX_X) + x;
+  }
+
+  /**
+   * @param key The index of a square
+   * @return The value held for the square
+   */
+  @SuppressWarnings("unchecked")
+  private V valueAt(int key) {
+    return (V) values[key];
   }
 
   /**
-   * Calculates the point that generates the given key.
+   * Removes the mapping of a square
    *
-   * @param key The key used for the internal map
-   * @return The point that generated this key
-   * @author Lewis Ackroyd
+   * @param key The index of a square that has a mapping
    */
-  private Point getPointFromKey(int key) {
-    return keyMappings.get(key);
+  private void removeKey(int key) {
+    present.clear(key);
+    keys[key] = null;
+    values[key] = null;
+    size--;
+  }
+
+  /** Walks the squares that have a mapping in grid order, allowing removal as it goes */
+  private abstract class MappingIterator<T> implements Iterator<T> {
+
+    private int next = present.nextSetBit(0);
+    private int last = -1;
+
+    @Override
+    public boolean hasNext() {
+      return next >= 0;
+    }
+
+    /** @return The index of the next square */
+    int nextKey() {
+      if (next < 0) {
+        throw new NoSuchElementException();
+      }
+      last = next;
+      next = present.nextSetBit(next + 1);
+      return last;
+    }
+
+    @Override
+    public void remove() {
+      if (last < 0 || !present.get(last)) {
+        throw new IllegalStateException();
+      }
+      removeKey(last);
+    }
+  }
+
+  /** The keys of the map */
+  private class KeySet extends AbstractSet<Point> {
+
+    @Override
+    public Iterator<Point> iterator() {
+      return new MappingIterator<Point>() {
+        @Override
+        public Point next() {
+          return keys[nextKey()];
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return containsKey(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      int before = size;
+      PointMap.this.remove(o);
+      return size != before;
+    }
+
+    @Override
+    public void clear() {
+      PointMap.this.clear();
+    }
+  }
+
+  /** The values of the map */
+  private class Values extends AbstractCollection<V> {
+
+    @Override
+    public Iterator<V> iterator() {
+      return new MappingIterator<V>() {
+        @Override
+        public V next() {
+          return valueAt(nextKey());
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return containsValue(o);
+    }
+
+    @Override
+    public void clear() {
+      PointMap.this.clear();
+    }
+  }
+
+  /** The mappings of the map */
+  private class EntrySet extends AbstractSet<Entry<Point, V>> {
+
+    @Override
+    public Iterator<Entry<Point, V>> iterator() {
+      return new MappingIterator<Entry<Point, V>>() {
+        @Override
+        public Entry<Point, V> next() {
+          return new PointMapEntry(nextKey());
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public void clear() {
+      PointMap.this.clear();
+    }
+  }
+
+  /** A mapping of the map, setting its value writes through to the map */
+  private class PointMapEntry implements Map.Entry<Point, V> {
+    private final int key;
+
+    public PointMapEntry(int key) {
+      this.key = key;
+    }
+
+    @Override
+    public Point getKey() {
+      return keys[key];
+    }
+
+    @Override
+    public V getValue() {
+      return valueAt(key);
+    }
+
+    @Override
+    public V setValue(V value) {
+      V oldValue = valueAt(key);
+      values[key] = value;
+      return oldValue;
+    }
   }
 }
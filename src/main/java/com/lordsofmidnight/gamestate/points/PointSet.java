@@ -3,10 +3,11 @@ package com.lordsofmidnight.gamestate.points;
 import com.lordsofmidnight.gamestate.maps.Map;
 import java.io.Serializable;
 import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -14,13 +15,18 @@ import java.util.Set;
  * java.util.Set Set}<{@link Point}>. This will treat each {@link Point} as the grid coordinate
  * {@link Point} as given by {@link Point#getGridCoord()}.
  *
+ * <p>Membership is a bit for every square of the map, so lookups never allocate, and iteration is
+ * in grid order, row by row.
+ *
  * @author Lewis Ackroyd
  */
 public class PointSet extends AbstractSet<Point> implements Set<Point>, Cloneable, Serializable {
 
-  private final HashSet<Integer> points;
-  private final HashMap<Integer, Point> keyMappings;
+  private final BitSet points;
+  private final Point[] keyMappings; // the point each square was added with
   private final int MAX_X;
+  private final int MAX_Y;
+  private int size;
 
   /**
    * Initialises this Map according to the paramaters of the {@link Map}.
@@ -29,21 +35,21 @@ public class PointSet extends AbstractSet<Point> implements Set<Point>, Cloneabl
    * @author Lewis Ackroyd
    */
   public PointSet(Map map) {
-    this.MAX_X = map.getMaxX();
-    this.points = new HashSet<>();
-    this.keyMappings = new HashMap<>();
+    this(map.getMaxX(), map.getMaxY());
   }
 
   /**
-   * Initialises this Map by using the specified value as the size of the x-axis.
+   * Initialises this Map by using the specified values as the size of each axis.
    *
    * @param maxX The maximum xValue of any points being passed to this map
+   * @param maxY The maximum yValue of any points being passed to this map
    * @author Lewis Ackroyd
    */
-  private PointSet(int maxX) {
+  private PointSet(int maxX, int maxY) {
     this.MAX_X = maxX;
-    this.points = new HashSet<>();
-    this.keyMappings = new HashMap<>();
+    this.MAX_Y = maxY;
+    this.points = new BitSet(maxX * maxY);
+    this.keyMappings = new Point[maxX * maxY];
   }
 
   /**
@@ -52,32 +58,53 @@ public class PointSet extends AbstractSet<Point> implements Set<Point>, Cloneabl
    * @author Lewis Ackroyd
    */
   public PointSet getShallowClone() {
-    return new PointSet(MAX_X);
+    return new PointSet(MAX_X, MAX_Y);
   }
 
   @Override
   public boolean contains(Object o) {
     if (o instanceof Point) {
       Point p = (Point) o;
-      return points.contains(getKeyValue(p));
+      return contains((int) p.getX(), (int) p.getY());
     }
     return false;
   }
 
+  /**
+   * @param x The x coordinate of the square
+   * @param y The y coordinate of the square
+   * @return If the square is in the set
+   */
+  public boolean contains(int x, int y) {
+    int key = getKeyValue(x, y);
+    return key >= 0 && points.get(key);
+  }
+
   @Override
   public boolean add(Point p) {
-    int key = getKeyValue(p);
-    keyMappings.put(key, p);
-    return points.add(key);
+    int key = getKeyValue((int) p.getX(), (int) p.getY());
+    if (key < 0) {
+      throw new IllegalArgumentException("point is not on the map: " + p);
+    }
+    keyMappings[key] = p;
+    if (points.get(key)) {
+      return false;
+    }
+    points.set(key);
+    size++;
+    return true;
   }
 
   @Override
   public boolean remove(Object o) {
     if (o instanceof Point) {
       Point p = (Point) o;
-      int key = getKeyValue(p);
-      keyMappings.remove(key);
-      return points.remove(key);
+      int key = getKeyValue((int) p.getX(), (int) p.getY());
+      if (key < 0 || !points.get(key)) {
+        return false;
+      }
+      removeKey(key);
+      return true;
     }
     return false;
   }
@@ -118,9 +145,9 @@ public class PointSet extends AbstractSet<Point> implements Set<Point>, Cloneabl
       return false;
     }
     boolean changed = false;
-    for (Point p : this) {
-      if (!collection.contains(p)) {
-        remove(p);
+    for (int key = points.nextSetBit(0); key >= 0; key = points.nextSetBit(key + 1)) {
+      if (!collection.contains(keyMappings[key])) {
+        removeKey(key);
         changed = true;
       }
     }
@@ -152,10 +179,10 @@ public class PointSet extends AbstractSet<Point> implements Set<Point>, Cloneabl
 
   @Override
   public Point[] toArray() {
-    Point[] pointsArray = new Point[points.size()];
+    Point[] pointsArray = new Point[size];
     int index = 0;
-    for (int key : points) {
-      pointsArray[index] = getPointFromKey(key);
+    for (int key = points.nextSetBit(0); key >= 0; key = points.nextSetBit(key + 1)) {
+      pointsArray[index] = keyMappings[key];
       index++;
     }
     return pointsArray;
@@ -163,54 +190,61 @@ public class PointSet extends AbstractSet<Point> implements Set<Point>, Cloneabl
 
   @Override
   public int size() {
-    return points.size();
+    return size;
   }
 
   @Override
   public void clear() {
-    keyMappings.clear();
+    Arrays.fill(keyMappings, null);
     points.clear();
+    size = 0;
   }
 
   @Override
   public boolean isEmpty() {
-    return points.isEmpty();
+    return size == 0;
   }
 
   @Override
   public PointSet clone() {
-    PointSet outSet = new PointSet(MAX_X);
-    for (int key : points) {
-      outSet.add(getPointFromKey(key));
-    }
+    PointSet outSet = new PointSet(MAX_X, MAX_Y);
+    outSet.points.or(points);
+    System.arraycopy(keyMappings, 0, outSet.keyMappings, 0, keyMappings.length);
+    outSet.size = size;
     return outSet;
   }
 
   @Override
-  public Iterator iterator() {
-    class PointSetIterator implements Iterator {
+  public Iterator<Point> iterator() {
+    class PointSetIterator implements Iterator<Point> {
 
-      private final Point[] points;
-      private int currentIndex;
-
-      public PointSetIterator(PointSet ps) {
-        points = ps.toArray();
-        currentIndex = 0;
-      }
+      private int next = points.nextSetBit(0);
+      private int last = -1;
 
       @Override
       public boolean hasNext() {
-        return currentIndex < points.length;
+        return next >= 0;
       }
 
       @Override
       public Point next() {
-        Point nextPoint = points[currentIndex];
-        currentIndex++;
-        return nextPoint;
+        if (next < 0) {
+          throw new NoSuchElementException();
+        }
+        last = next;
+        next = points.nextSetBit(next + 1);
+        return keyMappings[last];
+      }
+
+      @Override
+      public void remove() {
+        if (last < 0 || !points.get(last)) {
+          throw new IllegalStateException();
+        }
+        removeKey(last);
       }
     }
-    return new PointSetIterator(this);
+    return new PointSetIterator();
   }
 
   /*@Override
@@ -226,25 +260,28 @@ public class PointSet extends AbstractSet<Point> implements Set<Point>, Cloneabl
   }*/
 
   /**
-   * Calculates the key value that will be used for a given point within the map.
+   * Calculates the key value that will be used for a given square within the map.
    *
-   * @param p The point being used as a key
-   * @return The key value to be used by the internal map
+   * @param x The x coordinate of the square
+   * @param y The y coordinate of the square
+   * @return The index of the square, or -1 if it isn't on the map
    * @author Lewis Ackroyd
    */
-  private int getKeyValue(Point p) {
-    p = p.getGridCoord();
-    return (((int) p.getY()) * MAX_X) + (int) p.getX();
+  private int getKeyValue(int x, int y) {
+    if (x < 0 || y < 0 || x >= MAX_X || y >= MAX_Y) {
+      return -1;
+    }
+    return (y * MAX_X) + x;
   }
 
   /**
-   * Calculates the point that generates the given key.
+   * Removes a square from the set
    *
-   * @param key The key used for the internal map
-   * @return The point that generated this key
-   * @author Lewis Ackroyd
+   * @param key The index of a square in the set
    */
-  private Point getPointFromKey(int key) {
-    return keyMappings.get(key);
+  private void removeKey(int key) {
+    points.clear(key);
+    keyMappings[key] = null;
+    size--;
   }
 }
@@ -13,6 +13,7 @@ import com.lordsofmidnight.server.ClientLobbySession;
 import com.lordsofmidnight.server.ServerGameplayHandler;
 import com.lordsofmidnight.server.ServerLobby;
 import com.lordsofmidnight.server.telemeters.DumbTelemetry;
+import com.lordsofmidnight.server.telemeters.GameListener;
 import com.lordsofmidnight.server.telemeters.HostTelemetry;
 import com.lordsofmidnight.server.telemeters.Telemetry;
 import com.lordsofmidnight.ui.GameSceneController;
@@ -25,16 +26,19 @@ import java.io.IOException;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
-public class Client extends Application {
+public class Client extends Application implements GameListener {
 
   public boolean isHost;
   public boolean hostGone = false;
@@ -55,7 +59,7 @@ public class Client extends Application {
   private ServerGameplayHandler serverGameplayHandler;
   private MenuController menuController;
   private ClientLobbySession clientLobbySession;
-  private Queue<String> clientIn;
+  private Queue<byte[]> clientIn;
   private Queue<Input> keypressQueue;
   private boolean singlePlayer = false;
   private BlockingQueue<Input> incomingQueue; // only used in single player
@@ -101,8 +105,36 @@ public class Client extends Application {
     Settings.loadSettings();
     audioController = new AudioController(id);
     keyController = new KeyController();
-    resourceLoader = new ResourceLoader("src/main/resources/");
     this.primaryStage = primaryStage;
+    primaryStage.setScene(createLoadingScene());
+    primaryStage.setMinWidth(1366);
+    primaryStage.setMinHeight(768);
+    primaryStage.show();
+    primaryStage.setOnCloseRequest(e -> System.exit(0));
+    CompletableFuture.supplyAsync(() -> new ResourceLoader("src/main/resources/"))
+        .thenAccept(loader -> Platform.runLater(() -> showMainMenu(loader)))
+        .exceptionally(
+            e -> {
+              e.printStackTrace();
+              return null;
+            });
+  }
+
+  /** @return The scene shown while the assets are loaded for the first time */
+  private Scene createLoadingScene() {
+    StackPane root = new StackPane(new Label("Loading..."));
+    root.getStylesheets().add(getClass().getResource("/ui/stylesheet.css").toExternalForm());
+    return new Scene(root, Settings.getxResolution(), Settings.getyResolution());
+  }
+
+  /**
+   * Builds the menus and the game scene once the assets have been loaded, then shows the main menu
+   *
+   * @param loader The resource loader with the assets loaded
+   */
+  private void showMainMenu(ResourceLoader loader) {
+    resourceLoader = loader;
+    System.out.println(resourceLoader.getLoadTimings());
     menuController = new MenuController(audioController, primaryStage, this, resourceLoader);
     StackPane menuController = (StackPane) this.menuController.createMainMenu();
     menuController
@@ -120,16 +152,12 @@ public class Client extends Application {
         new Renderer(gc, Settings.getxResolution(), Settings.getyResolution(), resourceLoader);
     endGameScreen = new EndGameScreen(gc, resourceLoader);
     primaryStage.setScene(mainMenu);
-    primaryStage.setMinWidth(1366);
-    primaryStage.setMinHeight(768);
     primaryStage
         .widthProperty()
         .addListener(
             (obs, oldVal, newVal) ->
                 this.menuController.scaleImages((double) newVal, (double) oldVal));
 
-    primaryStage.show();
-    primaryStage.setOnCloseRequest(e -> System.exit(0));
     this.menuController.scaleImages(1100, 1920);
     updateResolution();
   }
@@ -212,18 +240,29 @@ public class Client extends Application {
     if (isHost) {
       System.out.println("Starting multiplayer for host");
       BlockingQueue<Input> inputQueue = new LinkedBlockingQueue<>();
-      BlockingQueue<String> outputQueue = new LinkedBlockingQueue<>();
+      BlockingQueue<byte[]> outputQueue = new LinkedBlockingQueue<>();
       serverGameplayHandler = server.gameStart(inputQueue, outputQueue);
       // map = resourceLoader.getMap();
       int playerCount = server.getPlayerCount();
       System.out.println("PLAYER COUNT IS: " + playerCount);
       this.telemetry =
-          new HostTelemetry(playerCount, inputQueue, outputQueue, this, audioController);
+          new HostTelemetry(
+              playerCount,
+              inputQueue,
+              outputQueue,
+              serverGameplayHandler.getSnapshotAcks(),
+              this,
+              audioController);
       this.telemetry.setMipID(MIPID);
       gameScene.setOnKeyPressed(keyController);
       startGame();
     } else {
-      this.telemetry = new DumbTelemetry(clientIn, this, audioController);
+      this.telemetry =
+          new DumbTelemetry(
+              clientIn,
+              clientLobbySession.getGameplayHandler().outgoingQueue,
+              this,
+              audioController);
       this.telemetry.setMipID(MIPID);
       System.out.println("Starting multiplayer for non-host");
       this.primaryStage.setScene(gameScene);
@@ -232,20 +271,41 @@ public class Client extends Application {
     }
   }
 
-  /** Updates the current screen resolution */
-  public void updateResolution() {
+  /**
+   * Updates the current screen resolution, the assets for it being loaded in the background
+   *
+   * @return Completes once the renderer has the assets for the resolution
+   */
+  public CompletableFuture<Void> updateResolution() {
     primaryStage.setWidth(Settings.getxResolution());
     primaryStage.setHeight(Settings.getyResolution());
 
     canvas.setWidth(Settings.getxResolution());
     canvas.setHeight(Settings.getyResolution());
-    renderer.refreshSettings();
+    return refreshAssets();
   }
 
-  /** Updates the current theme used by the client */
-  public void updateTheme(String themeName) {
+  /**
+   * Updates the current theme used by the client, the assets of it being loaded in the background
+   *
+   * @param themeName The name of the theme
+   * @return Completes once the renderer has the assets of the theme
+   */
+  public CompletableFuture<Void> updateTheme(String themeName) {
     Settings.setTheme(themeName);
-    renderer.refreshSettings();
+    return refreshAssets();
+  }
+
+  /**
+   * Reloads the assets of the renderer for the current settings off the JavaFX thread, no frames
+   * are drawn until they are loaded. The time each stage of the load took is logged.
+   *
+   * @return Completes once the renderer has the assets
+   */
+  private CompletableFuture<Void> refreshAssets() {
+    return renderer
+        .refreshSettingsInBackground()
+        .thenRun(() -> System.out.println(resourceLoader.getLoadTimings()));
   }
 
   /**
@@ -272,9 +332,25 @@ public class Client extends Application {
     this.MIPID = id;
   }
 
-  /** Handles starting the game for all clients */
+  /**
+   * Handles starting the game for all clients. The game scene is shown straight away, and the game
+   * is started on the JavaFX thread once the assets for the resolution have been loaded.
+   */
   private void startGame() {
-    updateResolution();
+    this.primaryStage.setScene(gameScene);
+    Telemetry starting = telemetry;
+    updateResolution().thenRun(() -> Platform.runLater(() -> playGame(starting)));
+  }
+
+  /**
+   * Starts the game and its render loop, unless it was closed while its assets were loading
+   *
+   * @param starting The telemetry of the game
+   */
+  private void playGame(Telemetry starting) {
+    if (telemetry != starting || primaryStage.getScene() != gameScene) {
+      return;
+    }
     if (telemetry != null) {
       agents = telemetry.getAgents();
       // map = telemetry.getMap();
@@ -316,7 +392,6 @@ public class Client extends Application {
     renderer.setClientID(id);
     renderer.initMapTraversal(map);
     // map = resourceLoader.getMap();
-    this.primaryStage.setScene(gameScene);
   }
 
   /** Handles the closing down of the game session in single player and multiplayer */
@@ -325,8 +400,11 @@ public class Client extends Application {
       informServer(new Input(this.id, Direction.STOP));
     }
     gameScene.setOnKeyPressed(null);
-    this.telemetry.stopGame();
-    inputRenderLoop.stop();
+    if (inputRenderLoop != null) { // null if closed before the game had loaded
+      this.telemetry.stopGame();
+      inputRenderLoop.stop();
+      inputRenderLoop = null;
+    }
 
     this.endGameScreen.StopEndScreen();
     menuController.reset();
@@ -352,6 +430,7 @@ public class Client extends Application {
   /**
    * Handles the final sequence of events when the game ends.
    */
+  @Override
   public void finishGame() {
     this.telemetry.stopGame();
     inputRenderLoop.stop();
@@ -397,9 +476,8 @@ public class Client extends Application {
     if (singlePlayer) {
       incomingQueue.add(input);
     } else {
-      if (getId() == 0) {
-        this.telemetry.addInput(input);
-      } else {
+      this.telemetry.addInput(input); // the host processes it, other clients number and predict it
+      if (getId() != 0) {
         keypressQueue.add(input);
       }
     }
@@ -410,11 +488,12 @@ public class Client extends Application {
    *
    * @param newMipsman the new MIPs man
    */
+  @Override
   public void collisionDetected(Entity newMipsman) {
     inputRenderLoop.stop();
-    telemetry.getInputProcessor().pause();
+    telemetry.getScheduler().pause();
     renderer.renderCollisionAnimation(
-        newMipsman, agents, map, inputRenderLoop, telemetry.getInputProcessor());
+        newMipsman, agents, map, inputRenderLoop, telemetry.getScheduler());
   }
 
   /**
@@ -454,7 +533,7 @@ public class Client extends Application {
     this.map = m;
     Point.setMap(m);
     renderer.setRefreshMap(true);
-    renderer.refreshSettings();
+    refreshAssets();
   }
 
   /**
@@ -467,7 +546,7 @@ public class Client extends Application {
     this.map = resourceLoader.getMap();
     Point.setMap(map);
     renderer.setRefreshMap(true);
-    renderer.refreshSettings();
+    refreshAssets();
   }
 
   /**
@@ -17,6 +17,10 @@ import javafx.scene.image.Image;
  * Encapsulation of agent on map Represents both MIPS and Ghouls, as they are interchangeable. Can
  * be user or AI controlled
  *
+ * <p>The state the physics runs on, such as the location, direction, velocity, score and flags,
+ * is held in one slot of an {@link EntityStore}, shared by every agent of a game. An entity made
+ * on its own has a store of its own.
+ *
  * @see Renderable
  */
 public class Entity implements Renderable {
@@ -26,15 +30,11 @@ public class Entity implements Renderable {
   // animation variables
   private final int animationSpeed = 5;
   private final int DEATHTIME = 400;
-  private Point location;
-  private double velocity; // The velocity of the entity currently
-  private double bonusSpeed;
-  private Direction direction;
+  private final EntityStore store; // holds the simulation state of the entity
+  private final int slot; // the slot of the entity in the store
   private Direction oldDirection;
-  private int score;
   private int clientId;
   private String name;
-  private Boolean mipsman;
   private ArrayList<ArrayList<Image>> images;
   private ArrayList<Image> currentImage;
   private RouteFinder routeFinder;
@@ -42,14 +42,7 @@ public class Entity implements Renderable {
   private LinkedList<PowerUp> items;
   private long timeSinceLastFrame = 0;
   private int currentFrame = 0;
-  private boolean directionSet;
-  private boolean powerUpUsed;
   private int powerUpUseAttempts = 0;
-  private boolean stunned;
-  private boolean dead;
-  private int deathCounter;
-  private boolean invincible;
-  private boolean hidden;
   private String killedBy = "";
 
   private StatsTracker statsTracker;
@@ -63,23 +56,45 @@ public class Entity implements Renderable {
    * @param location starting position of entity
    */
   public Entity(Boolean mipsman, int clientId, Point location) {
-    this.mipsman = mipsman;
+    this(new EntityStore(1), 0, mipsman, clientId, location);
+  }
+
+  /**
+   * Constructor for an entity held in a store shared with the other agents of its game
+   *
+   * @param store The store holding the agents of the game
+   * @param slot The slot of the store the entity is held in
+   * @param mipsman true if Entity should be MIPS upon creation
+   * @param clientId id of client (user or AI) controlling this entity
+   * @param location starting position of entity
+   */
+  public Entity(EntityStore store, int slot, Boolean mipsman, int clientId, Point location) {
+    this.store = store;
+    this.slot = slot;
+    store.setFlag(slot, EntityStore.MIPSMAN, mipsman);
     this.clientId = clientId;
-    this.location = location;
-    this.score = 0;
+    store.setLocation(slot, location == null ? null : location.getCopy()); // moved in place
+    store.setScore(slot, 0);
     resetVelocity();
-    this.direction = Direction.UP;
+    store.setDirection(slot, Direction.UP);
     this.oldDirection = Direction.UP;
     this.items = new LinkedList<>();
-    this.directionSet = false;
-    this.powerUpUsed = false;
     this.powerUpUseAttempts = 0;
     this.name = "Player" + clientId;
-    this.bonusSpeed = 0;
     this.statsTracker = new StatsTracker();
     // updateImages();
   }
 
+  /** @return The store holding the simulation state of the entity */
+  public EntityStore getStore() {
+    return store;
+  }
+
+  /** @return The slot of the store the entity is held in */
+  public int getSlot() {
+    return slot;
+  }
+
   /**
    * @return The Stats Tracker for the entity
    */
@@ -91,12 +106,12 @@ public class Entity implements Renderable {
    * @return If the entity is effected by a bonus speed
    */
   public boolean isSpeeding() {
-    return bonusSpeed > 0;
+    return store.getBonusSpeed(slot) > 0;
   }
 
   /** @return If the entity is invincible or not */
   public boolean isInvincible() {
-    return invincible;
+    return store.hasFlag(slot, EntityStore.INVINCIBLE);
   }
   /**
    * Sets if the entity is invincible or not and sets values accordingly
@@ -104,12 +119,12 @@ public class Entity implements Renderable {
    * @param invincible If the entity is invincible or not
    */
   public void setInvincible(boolean invincible) {
-    this.invincible = invincible;
+    store.setFlag(slot, EntityStore.INVINCIBLE, invincible);
   }
 
   /** @return If the entity is stunned or not */
   public boolean isStunned() {
-    return stunned;
+    return store.hasFlag(slot, EntityStore.STUNNED);
   }
 
   /**
@@ -118,9 +133,9 @@ public class Entity implements Renderable {
    * @param stunned If the entity is stunned or not
    */
   public void setStunned(boolean stunned) {
-    this.stunned = stunned;
+    store.setFlag(slot, EntityStore.STUNNED, stunned);
     if (stunned) {
-      velocity = 0;
+      store.setVelocity(slot, 0);
     } else {
       resetVelocity();
     }
@@ -128,7 +143,7 @@ public class Entity implements Renderable {
 
   /** @return If the entity is dead or not */
   public boolean isDead() {
-    return dead;
+    return store.hasFlag(slot, EntityStore.DEAD);
   }
 
   /**
@@ -137,12 +152,12 @@ public class Entity implements Renderable {
    * @param dead If the entity is dead or not
    */
   public void setDead(boolean dead) {
-    this.dead = dead;
+    store.setFlag(slot, EntityStore.DEAD, dead);
     if (dead) {
       statsTracker.increaseDeaths();
-      deathLocation = location.getCopy();
-      velocity = 0;
-      deathCounter = 0;
+      deathLocation = getLocation().getCopy();
+      store.setVelocity(slot, 0);
+      store.setDeathCounter(slot, 0);
     } else {
       resetVelocity();
     }
@@ -164,7 +179,7 @@ public class Entity implements Renderable {
    * @param i the amount to change the speed by
    */
   public void changeBonusSpeed(double i) {
-    bonusSpeed += i;
+    store.setBonusSpeed(slot, store.getBonusSpeed(slot) + i);
     resetVelocity();
   }
 
@@ -241,7 +256,7 @@ public class Entity implements Renderable {
    * @author Matty Jones, Alex Banks
    */
   public Point getLocation() {
-    return location;
+    return store.getLocation(slot);
   }
 
   /**
@@ -250,7 +265,7 @@ public class Entity implements Renderable {
    * @author Matty Jones, Alex Banks
    */
   public void setLocation(Point location) {
-    this.location = location;
+    store.setLocation(slot, location == null ? null : location.getCopy());
   }
 
   /**
@@ -259,13 +274,21 @@ public class Entity implements Renderable {
    * @author Matty Jones, Alex Banks
    */
   public void setLocation(double x, double y) {
-    if (this.location == null) {
-      this.location = new Point(x, y);
+    Point location = store.getLocation(slot);
+    if (location == null) {
+      store.setLocation(slot, new Point(x, y));
     } else {
-      this.location.setLocation(x, y);
+      location.setLocation(x, y);
+      store.locationMoved(slot);
     }
   }
 
+  /** Puts the entity in the centre of the square it is in */
+  public void centralise() {
+    store.getLocation(slot).centralise();
+    store.locationMoved(slot);
+  }
+
   /**
    * return where center com.lordsofmidnight.gamestate would be if agent moved in certain motion.
    * Uses util.Point to ensure modularity (wraping around map)
@@ -277,8 +300,8 @@ public class Entity implements Renderable {
    * @see Point#moveInDirection(double, Direction)
    */
   public Point getMoveInDirection(double offset, Direction... d) {
-    Point loc = this.location.getCopy();
-    Direction direction = d.length > 0 ? d[0] : this.direction;
+    Point loc = getLocation().getCopy();
+    Direction direction = d.length > 0 ? d[0] : getDirection();
 
     return loc.moveInDirection(offset, direction);
   }
@@ -291,9 +314,7 @@ public class Entity implements Renderable {
    * @see #getMoveInDirection(double, Direction...)
    */
   public void move() {
-    if (!stunned && !dead) {
-      this.location = getMoveInDirection(this.velocity);
-    }
+    store.move(slot);
   }
 
   /**
@@ -308,6 +329,17 @@ public class Entity implements Renderable {
     return getMoveInDirection(0.5);
   }
 
+  /**
+   * Finds the FaceLocation without creating a point
+   *
+   * @param face The point to set to the FaceLocation
+   * @return face
+   * @see #getFaceLocation()
+   */
+  public Point getFaceLocation(Point face) {
+    return face.set(getLocation()).moveInDirection(0.5, getDirection());
+  }
+
   /** @return current com.lordsofmidnight.gamestate fixed to a 0.5 offset grid */
   public Point getLastGridCoord() {
     return lastGridCoord;
@@ -325,6 +357,7 @@ public class Entity implements Renderable {
    */
   @Override
   public ArrayList<Image> getImage() {
+    Direction direction = getDirection();
     if (direction.toInt() < 4) {
       return images.get(direction.toInt());
     }
@@ -333,17 +366,17 @@ public class Entity implements Renderable {
 
   /** @return velocity */
   public double getVelocity() {
-    return velocity;
+    return store.getVelocity(slot);
   }
 
   /** @param velocity new velocity */
   public void setVelocity(double velocity) {
-    this.velocity = velocity;
+    store.setVelocity(slot, velocity);
   }
 
   /** @return direction */
   public Direction getDirection() {
-    return direction;
+    return store.getDirection(slot);
   }
 
   /**
@@ -353,12 +386,13 @@ public class Entity implements Renderable {
    * @author Tim Cheung, Matty Jones, Alex Banks
    */
   public void setDirection(Direction direction) {
-    if (this.direction != direction) {
+    Direction current = getDirection();
+    if (current != direction) {
       if (direction != Direction.STOP) {
       } else {
-        oldDirection = this.direction;
+        oldDirection = current;
       }
-      this.direction = direction;
+      store.setDirection(slot, direction);
     }
   }
 
@@ -369,6 +403,7 @@ public class Entity implements Renderable {
    *     set to stop
    */
   public Direction getFacing() {
+    Direction direction = getDirection();
     if (direction == null || direction == Direction.STOP || direction == Direction.USE) {
       return oldDirection;
     }
@@ -380,7 +415,7 @@ public class Entity implements Renderable {
    * @author Matthew Jones
    */
   public int getScore() {
-    return score;
+    return store.getScore(slot);
   }
 
   /**
@@ -388,7 +423,7 @@ public class Entity implements Renderable {
    * @author Matthew Jones
    */
   public void setScore(int score) {
-    this.score = score;
+    store.setScore(slot, score);
   }
 
   /**
@@ -399,14 +434,14 @@ public class Entity implements Renderable {
    */
   public void incrementScore(int... i) {
     if (i.length > 0) {
-      score = score + i[0];
+      store.setScore(slot, store.getScore(slot) + i[0]);
       if (i[0] > 0) {
         statsTracker.increasePointsGained(i[0]);
       } else {
         statsTracker.increasePointsLost(-i[0]);
       }
     } else {
-      score++;
+      store.setScore(slot, store.getScore(slot) + 1);
       statsTracker.increasePointsGained();
     }
   }
@@ -422,13 +457,13 @@ public class Entity implements Renderable {
 
   /** @return true if MIPS */
   public Boolean isMipsman() {
-    return mipsman;
+    return store.hasFlag(slot, EntityStore.MIPSMAN);
   }
 
   /** @param mips if true then now MIPS, if false then Ghoul */
   public void setMipsman(Boolean mips) {
     this.currentFrame = 0;
-    this.mipsman = mips;
+    store.setFlag(slot, EntityStore.MIPSMAN, mips);
     resetVelocity();
   }
 
@@ -440,7 +475,7 @@ public class Entity implements Renderable {
   public void updateImages(ResourceLoader resourceLoader) {
     currentFrame = 0;
     images =
-        mipsman
+        isMipsman()
             ? resourceLoader.getPlayableMip(clientId)
             : resourceLoader.getPlayableGhoul(clientId);
   }
@@ -449,7 +484,7 @@ public class Entity implements Renderable {
   @Override
   public String toString() {
     String outStr = "";
-    if (this.mipsman) {
+    if (isMipsman()) {
       outStr += "mip" + clientId;
     } else {
       outStr += "ghoul" + clientId;
@@ -480,12 +515,13 @@ public class Entity implements Renderable {
    * @return If the entity has re-spawned
    */
   public boolean countRespawn() {
+    int deathCounter = store.getDeathCounter(slot);
     if (deathCounter == DEATHTIME) {
-      deathCounter = 0;
+      store.setDeathCounter(slot, 0);
       setDead(false);
       return true;
     }
-    deathCounter++;
+    store.setDeathCounter(slot, deathCounter + 1);
     return false;
   }
 
@@ -514,7 +550,7 @@ public class Entity implements Renderable {
    * @author Lewis Ackroyd
    */
   public boolean isDirectionSet() {
-    return directionSet;
+    return store.hasFlag(slot, EntityStore.DIRECTION_SET);
   }
 
   /**
@@ -524,7 +560,7 @@ public class Entity implements Renderable {
    * @author Lewis Ackroyd
    */
   public void setDirectionSetFlag(boolean b) {
-    this.directionSet = b;
+    store.setFlag(slot, EntityStore.DIRECTION_SET, b);
   }
 
   /**
@@ -533,7 +569,7 @@ public class Entity implements Renderable {
    * @author Lewis Ackroyd
    */
   public boolean isPowerUpUsed() {
-    return powerUpUsed;
+    return store.hasFlag(slot, EntityStore.POWER_UP_USED);
   }
 
   /**
@@ -543,7 +579,7 @@ public class Entity implements Renderable {
    * @author Lewis Ackroyd
    */
   public void setPowerUpUsedFlag(boolean b) {
-    this.powerUpUsed = b;
+    store.setFlag(slot, EntityStore.POWER_UP_USED, b);
     this.powerUpUseAttempts = 0;
   }
 
@@ -566,12 +602,13 @@ public class Entity implements Renderable {
 
   /** Resets the velocity depending on the type of entity */
   public void resetVelocity() {
-    this.velocity = (mipsman ? MIPS_SPEED : GHOUL_SPEED) + bonusSpeed;
+    store.setVelocity(
+        slot, (isMipsman() ? MIPS_SPEED : GHOUL_SPEED) + store.getBonusSpeed(slot));
   }
 
   /** @return the entities death counter */
   public int getDeathCounter() {
-    return this.deathCounter;
+    return store.getDeathCounter(slot);
   }
 
   /** @return how long the entity stays dead for */
@@ -581,12 +618,12 @@ public class Entity implements Renderable {
 
   /** Toggles if this entity is hidden from players */
   public void toggleHidden() {
-    hidden = !hidden;
+    store.setFlag(slot, EntityStore.HIDDEN, !getHidden());
   }
 
   /** @return true if the entity is to be hidden from players */
   public boolean getHidden() {
-    return hidden;
+    return store.hasFlag(slot, EntityStore.HIDDEN);
   }
 
   /** @return The name of the player who killed the entity */
@@ -0,0 +1,276 @@
+package com.lordsofmidnight.objects;
+
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.utils.enums.Direction;
+
+/**
+ * The simulation state of the agents of a game, held as one array per piece of state with an
+ * agent in each slot, so that the physics and anything recording the game loop over arrays rather
+ * than following every {@link Entity}. An {@link Entity} is a view of one slot, with what is only
+ * needed to draw or control the agent kept on the entity itself.
+ *
+ * <p>The location of each agent is also kept as a {@link Point}, the one {@link
+ * Entity#getLocation()} gives, which is moved in place along with the coordinates in the arrays.
+ */
+public final class EntityStore {
+
+  /** The flag of an agent that is MIPSman */
+  public static final int MIPSMAN = 1;
+  /** The flag of an agent that is dead */
+  public static final int DEAD = 1 << 1;
+  /** The flag of an agent that is stunned */
+  public static final int STUNNED = 1 << 2;
+  /** The flag of an agent that is invincible */
+  public static final int INVINCIBLE = 1 << 3;
+  /** The flag of an agent whose direction has been set by the AI but not processed */
+  public static final int DIRECTION_SET = 1 << 4;
+  /** The flag of an agent whose power up has been used by the AI but not processed */
+  public static final int POWER_UP_USED = 1 << 5;
+  /** The flag of an agent hidden from players */
+  public static final int HIDDEN = 1 << 6;
+  /** The id of the direction of an agent that has none */
+  public static final byte NO_DIRECTION = -1;
+
+  private final Point[] location;
+  private final double[] x;
+  private final double[] y;
+  private final byte[] direction;
+  private final double[] velocity;
+  private final double[] bonusSpeed;
+  private final int[] score;
+  private final int[] flags;
+  private final int[] deathCounter;
+
+  /**
+   * @param capacity The number of agents the store holds
+   * @throws IllegalArgumentException The capacity is negative.
+   */
+  public EntityStore(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("A store cannot hold a negative number of agents");
+    }
+    location = new Point[capacity];
+    x = new double[capacity];
+    y = new double[capacity];
+    direction = new byte[capacity];
+    velocity = new double[capacity];
+    bonusSpeed = new double[capacity];
+    score = new int[capacity];
+    flags = new int[capacity];
+    deathCounter = new int[capacity];
+  }
+
+  /** @return The number of agents the store holds */
+  public int getCapacity() {
+    return x.length;
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @return The x coordinate of the agent
+   */
+  public double getX(int slot) {
+    return x[slot];
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @return The y coordinate of the agent
+   */
+  public double getY(int slot) {
+    return y[slot];
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @return The direction of the agent, null if it has none
+   */
+  public Direction getDirection(int slot) {
+    return direction[slot] == NO_DIRECTION ? null : Direction.fromInt(direction[slot]);
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @return The velocity of the agent
+   */
+  public double getVelocity(int slot) {
+    return velocity[slot];
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @return The score of the agent
+   */
+  public int getScore(int slot) {
+    return score[slot];
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @return The flags of the agent, such as {@link #MIPSMAN}
+   */
+  public int getFlags(int slot) {
+    return flags[slot];
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @param flag The flag
+   * @return True if the agent has the flag
+   */
+  public boolean hasFlag(int slot, int flag) {
+    return (flags[slot] & flag) != 0;
+  }
+
+  /**
+   * Copies the x coordinate of every agent into an array, by slot
+   *
+   * @param into An array at least as long as the capacity
+   */
+  public void copyX(double[] into) {
+    System.arraycopy(x, 0, into, 0, x.length);
+  }
+
+  /**
+   * Copies the y coordinate of every agent into an array, by slot
+   *
+   * @param into An array at least as long as the capacity
+   */
+  public void copyY(double[] into) {
+    System.arraycopy(y, 0, into, 0, y.length);
+  }
+
+  /**
+   * Copies the id of the direction of every agent into an array, by slot, {@link #NO_DIRECTION}
+   * for an agent without one
+   *
+   * @param into An array at least as long as the capacity
+   */
+  public void copyDirections(byte[] into) {
+    System.arraycopy(direction, 0, into, 0, direction.length);
+  }
+
+  /**
+   * Copies the score of every agent into an array, by slot
+   *
+   * @param into An array at least as long as the capacity
+   */
+  public void copyScores(int[] into) {
+    System.arraycopy(score, 0, into, 0, score.length);
+  }
+
+  /**
+   * Copies the flags of every agent into an array, by slot
+   *
+   * @param into An array at least as long as the capacity
+   */
+  public void copyFlags(int[] into) {
+    System.arraycopy(flags, 0, into, 0, flags.length);
+  }
+
+  /**
+   * Moves an agent its velocity in its direction, unless it is stunned or dead
+   *
+   * @param slot The slot of the agent
+   */
+  public void move(int slot) {
+    if ((flags[slot] & (STUNNED | DEAD)) == 0) {
+      Point p = location[slot].moveInDirection(velocity[slot], getDirection(slot));
+      x[slot] = p.getX();
+      y[slot] = p.getY();
+    }
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @return The point the agent is at, moved in place
+   */
+  Point getLocation(int slot) {
+    return location[slot];
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @param location The point the agent is at, kept by the store
+   */
+  void setLocation(int slot, Point location) {
+    this.location[slot] = location;
+    locationMoved(slot);
+  }
+
+  /**
+   * Brings the coordinates of an agent up to date after its point was moved
+   *
+   * @param slot The slot of the agent
+   */
+  void locationMoved(int slot) {
+    Point p = location[slot];
+    x[slot] = p == null ? 0 : p.getX();
+    y[slot] = p == null ? 0 : p.getY();
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @param direction The direction of the agent, can be null
+   */
+  void setDirection(int slot, Direction direction) {
+    this.direction[slot] = direction == null ? NO_DIRECTION : (byte) direction.toInt();
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @param velocity The velocity of the agent
+   */
+  void setVelocity(int slot, double velocity) {
+    this.velocity[slot] = velocity;
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @return The speed added to the agent by power ups
+   */
+  double getBonusSpeed(int slot) {
+    return bonusSpeed[slot];
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @param bonusSpeed The speed added to the agent by power ups
+   */
+  void setBonusSpeed(int slot, double bonusSpeed) {
+    this.bonusSpeed[slot] = bonusSpeed;
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @param score The score of the agent
+   */
+  void setScore(int slot, int score) {
+    this.score[slot] = score;
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @param flag The flag
+   * @param set True to give the agent the flag, false to take it away
+   */
+  void setFlag(int slot, int flag, boolean set) {
+    flags[slot] = set ? flags[slot] | flag : flags[slot] & ~flag;
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @return The ticks the agent has been dead for
+   */
+  int getDeathCounter(int slot) {
+    return deathCounter[slot];
+  }
+
+  /**
+   * @param slot The slot of an agent
+   * @param deathCounter The ticks the agent has been dead for
+   */
+  void setDeathCounter(int slot, int deathCounter) {
+    this.deathCounter[slot] = deathCounter;
+  }
+}
@@ -69,4 +69,26 @@ public class MinePellet extends Pellet {
       this.hidden = true;
     }
   }
+
+  @Override
+  public void incrementRespawn(int updates) {
+    if (detonated) {
+      return;
+    }
+    if (respawnCount < hidden_timer && respawnCount + updates >= hidden_timer) {
+      this.hidden = true;
+    }
+    respawnCount += updates;
+  }
+
+  @Override
+  public int getUpdatesUntilChange() {
+    if (replace()) {
+      return 0;
+    }
+    if (respawnCount < hidden_timer) {
+      return hidden_timer - respawnCount;
+    }
+    return -1;
+  }
 }
@@ -21,6 +21,7 @@ import javafx.scene.image.Image;
 public class Pellet implements Renderable {
 
   static Random r = new Random();
+  protected Random random = r; // the source of the game the pellet is in
   protected Point location;
   protected ArrayList<Image> currentImage;
   protected int respawntime = 2000;
@@ -41,9 +42,18 @@ public class Pellet implements Renderable {
   }
 
   public Pellet(Point p) {
+    this(p, r);
+  }
+
+  /**
+   * @param p The location of the pellet
+   * @param random The random source of the game the pellet is in
+   */
+  public Pellet(Point p, Random random) {
     this.location = p;
+    this.random = random;
     active = true;
-    respawntime += r.nextInt(500);
+    respawntime += random.nextInt(500);
   }
 
   /**
@@ -147,6 +157,38 @@ public class Pellet implements Renderable {
     }
   }
 
+  /**
+   * Counts the respawn on by a number of physics updates at once, as calling {@link
+   * #incrementRespawn()} that many times would
+   *
+   * @param updates The number of physics updates
+   */
+  public void incrementRespawn(int updates) {
+    if (active) {
+      return;
+    }
+    if (respawnCount < respawntime && respawnCount + updates >= respawntime) {
+      respawnCount = respawntime;
+      this.active = true;
+    } else {
+      respawnCount += updates;
+    }
+  }
+
+  /**
+   * @return The number of physics updates until counting the respawn changes the pellet, 0 if it
+   *     needs replacing, or -1 if counting won't change it until something else happens to it
+   */
+  public int getUpdatesUntilChange() {
+    if (replace()) {
+      return 0;
+    }
+    if (!active && respawnCount < respawntime) {
+      return respawntime - respawnCount;
+    }
+    return -1;
+  }
+
   /** @return If the pellet needs to be replaced */
   public boolean replace() {
     return false;
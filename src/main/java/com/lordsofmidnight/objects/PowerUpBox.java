@@ -10,9 +10,11 @@ import com.lordsofmidnight.objects.powerUps.Rocket;
 import com.lordsofmidnight.objects.powerUps.Speed;
 import com.lordsofmidnight.objects.powerUps.Web;
 import com.lordsofmidnight.renderer.ResourceLoader;
+import com.lordsofmidnight.utils.GameRandom;
 import com.lordsofmidnight.utils.enums.PowerUps;
 import java.util.HashMap;
 import java.util.Map.Entry;
+import java.util.Random;
 import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -43,6 +45,15 @@ public class PowerUpBox extends Pellet {
     init();
   }
 
+  /**
+   * @param p The location of the powerup
+   * @param random The random source of the game the powerup is in
+   */
+  public PowerUpBox(Point p, Random random) {
+    super(p, random);
+    init();
+  }
+
   /** initialises everything */
   private void init() {
     this.respawntime = 300;
@@ -116,7 +127,8 @@ public class PowerUpBox extends Pellet {
    * @author Matthew Jones
    */
   public PowerUp getPowerUp(Entity entity, Entity[] agents) {
-    int rank = getRank(entity, agents);
+    // games with more agents than ranks weighted share the weights of the lowest rank
+    int rank = Math.min(getRank(entity, agents), mipsmanWeights.length - 1);
     HashMap<Integer, PowerUps> baseWeights = mipsmanWeights[rank];
     //   entity.isMipsman() ? mipsmanWeights[rank] : ghoulWeights[rank];
     int totalWeights = 0;
@@ -125,22 +137,31 @@ public class PowerUpBox extends Pellet {
       weights.put(totalWeights, entry.getValue());
       totalWeights += entry.getKey();
     }
-    int i = (int) ((1 - r.nextDouble()) * totalWeights);
+    int i = (int) ((1 - random.nextDouble()) * totalWeights);
     this.setActive(false);
+    PowerUp powerUp;
     switch (weights.floorEntry(i).getValue()) {
       case INVINCIBLE:
-        return new Invincible();
+        powerUp = new Invincible();
+        break;
       case SPEED:
-        return new Speed();
+        powerUp = new Speed();
+        break;
       case WEB:
-        return new Web();
+        powerUp = new Web();
+        break;
       case ROCKET:
-        return new Rocket();
+        powerUp = new Rocket();
+        break;
       case MINE:
-        return new Mine();
+        powerUp = new Mine();
+        break;
       default:
         return null;
     }
+    // ids order the active power ups, so they come from the game's source too
+    powerUp.id = GameRandom.nextUUID(random);
+    return powerUp;
   }
 
   @Override
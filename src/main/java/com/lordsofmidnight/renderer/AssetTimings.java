@@ -0,0 +1,92 @@
+package com.lordsofmidnight.renderer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The time spent in each stage of loading the assets of a theme, added up over every thread that
+ * worked on it, and the time the whole load took. Stages of different assets run at once, so the
+ * stages can add up to more than the whole load.
+ */
+public final class AssetTimings {
+
+  /** A stage of loading the assets */
+  public enum Stage {
+    DECODE("decode"),
+    EXTRACT_COLOUR("extract colour"),
+    SPLIT("split sheet"),
+    RESIZE("resize"),
+    RECOLOUR("recolour"),
+    ATLAS("atlas cache");
+
+    private final String name;
+
+    Stage(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  private final long start = System.nanoTime();
+  private final AtomicLongArray nanos = new AtomicLongArray(Stage.values().length);
+  private final AtomicLongArray counts = new AtomicLongArray(Stage.values().length);
+  private volatile long total = -1;
+
+  /**
+   * Adds the time from when a piece of work started until now to a stage
+   *
+   * @param stage The stage the work is part of
+   * @param startNanos The value of {@link System#nanoTime()} when the work started
+   */
+  public void add(Stage stage, long startNanos) {
+    nanos.addAndGet(stage.ordinal(), System.nanoTime() - startNanos);
+    counts.incrementAndGet(stage.ordinal());
+  }
+
+  /** Marks the load finished */
+  public void finish() {
+    total = System.nanoTime() - start;
+  }
+
+  /**
+   * @param stage A stage
+   * @return The nanoseconds spent in the stage, over every thread
+   */
+  public long getNanos(Stage stage) {
+    return nanos.get(stage.ordinal());
+  }
+
+  /**
+   * @param stage A stage
+   * @return The number of pieces of work done in the stage
+   */
+  public long getCount(Stage stage) {
+    return counts.get(stage.ordinal());
+  }
+
+  /** @return The nanoseconds the whole load took, or has taken so far if it isn't finished */
+  public long getTotalNanos() {
+    return total < 0 ? System.nanoTime() - start : total;
+  }
+
+  /** @return A line for each stage that did any work, and the time of the whole load */
+  @Override
+  public String toString() {
+    StringBuilder report = new StringBuilder("Assets loaded in ");
+    report.append(getTotalNanos() / 1000000).append(" ms");
+    for (Stage stage : Stage.values()) {
+      if (getCount(stage) > 0) {
+        report
+            .append(String.format("%n  %-15s", stage))
+            .append(getNanos(stage) / 1000000)
+            .append(" ms over ")
+            .append(getCount(stage))
+            .append(getCount(stage) == 1 ? " task" : " tasks");
+      }
+    }
+    return report.toString();
+  }
+}
@@ -9,8 +9,8 @@ import com.lordsofmidnight.objects.MinePellet;
 import com.lordsofmidnight.objects.Pellet;
 import com.lordsofmidnight.objects.PowerUpBox;
 import com.lordsofmidnight.objects.powerUps.PowerUp;
-import com.lordsofmidnight.utils.GameLoop;
 import com.lordsofmidnight.utils.Settings;
+import com.lordsofmidnight.utils.TickScheduler;
 import com.lordsofmidnight.utils.UpDownIterator;
 import com.lordsofmidnight.utils.enums.MapElement;
 import com.lordsofmidnight.utils.enums.PowerUps;
@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import javafx.animation.AnimationTimer;
 import javafx.scene.canvas.GraphicsContext;
@@ -69,6 +70,7 @@ public class Renderer {
   private int currentAnimationFrame = 0;
   private ArrayList<Point> traversalOrder = new ArrayList<>();
   private boolean refreshMap;
+  private volatile CompletableFuture<Void> assetRefresh = CompletableFuture.completedFuture(null);
   // multiple use variables to render the game
   // (uses less memory than re-creating these objects every time)
   private Pellet currentPellet;
@@ -126,6 +128,10 @@ public class Renderer {
       ConcurrentHashMap<UUID, PowerUp> activePowerUps,
       int gameTime) {
 
+    if (!isReady()) {
+      return; // skip the frame rather than draw assets that are half loaded
+    }
+
     if (refreshMap) {
       this.map = r.getMap();
       this.rawMap = map.raw();
@@ -361,14 +367,14 @@ public class Renderer {
    * @param entities entities in the game
    * @param map Game map
    * @param renderingLoop loop to render Game (used to pause current rendering)
-   * @param inputProcessor loop to process inputs (used to pause input processing)
+   * @param scheduler scheduler running the game's ticks (used to pause the game)
    */
   public void renderCollisionAnimation(
       Entity newMipsMan,
       Entity[] entities,
       Map map,
       AnimationTimer renderingLoop,
-      GameLoop inputProcessor) {
+      TickScheduler scheduler) {
     java.lang.Double[] num = {1.0, 1.0, 1.1, 1.25, 1.4};
     UpDownIterator<java.lang.Double> entitySize = new UpDownIterator<>(num);
 
@@ -393,7 +399,7 @@ public class Renderer {
       public void handle(long now) {
         if (now - startTime > renderAnimationTime) {
           renderingLoop.start();
-          inputProcessor.unpause();
+          scheduler.unpause();
           this.stop();
         } else {
           if (System.nanoTime() - currentTime > frameTime) {
@@ -422,6 +428,9 @@ public class Renderer {
       double sizeMultiplier,
       double backgroundOpacity,
       Image currentSprite) {
+    if (!isReady()) {
+      return;
+    }
     gc.setTextAlign(TextAlignment.CENTER);
     gc.setFont(geoLarge);
     renderBackground(map);
@@ -715,6 +724,38 @@ public class Renderer {
     this.explosionManager.refreshSettings();
   }
 
+  /**
+   * Refreshes the fields of the renderer for changes in the Settings class off the JavaFX thread,
+   * once any refresh already started has finished. No frames are drawn until it has finished, so
+   * the render loop never reads assets that are half loaded. Call it on the JavaFX thread, or while
+   * the game isn't being drawn, so that no frame is part drawn when the refresh starts.
+   *
+   * @return Completes once the renderer has the assets
+   */
+  public synchronized CompletableFuture<Void> refreshSettingsInBackground() {
+    CompletableFuture<Void> previous = assetRefresh;
+    CompletableFuture<Void> queued = new CompletableFuture<>();
+    // frames stop before the refresh can start, as the refresh is only queued once this is set
+    assetRefresh =
+        queued
+            .thenRunAsync(this::refreshSettings)
+            .exceptionally(
+                e -> {
+                  e.printStackTrace();
+                  return null;
+                });
+    previous.thenRun(() -> queued.complete(null));
+    return assetRefresh;
+  }
+
+  /**
+   * @return If no refresh of the assets is running, so that frames can be drawn. Everything the
+   *     last refresh loaded is seen by the thread this returned true on
+   */
+  public boolean isReady() {
+    return assetRefresh.isDone();
+  }
+
   /** refresh fields of renderer based on changes in Settings class */
   public void refreshSettings() {
     r.refreshSettings();
@@ -1,6 +1,7 @@
 package com.lordsofmidnight.renderer;
 
 import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.renderer.AssetTimings.Stage;
 import com.lordsofmidnight.renderer.SpriteSheetData.SpriteDimensions;
 import com.lordsofmidnight.utils.Settings;
 import com.lordsofmidnight.utils.enums.MapElement;
@@ -18,6 +19,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
 import javax.imageio.ImageIO;
@@ -27,7 +32,24 @@ import javax.imageio.ImageIO;
  */
 public class ResourceLoader {
 
+  private static final int ATLAS_VERSION = 1; // change when the way sprites are baked changes
+  private static final ForkJoinPool ASSETS =
+      new ForkJoinPool(
+          Runtime.getRuntime().availableProcessors(),
+          pool -> {
+            ForkJoinWorkerThread thread =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("AssetLoader-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+          },
+          null,
+          false); // sheets are decoded, resized and recoloured on these threads
+
   private final String BASE_DIR;
+  private final SpriteAtlasCache atlasCache;
+  private final boolean parallel;
+  private volatile AssetTimings timings = new AssetTimings();
   private RenderingMode renderingMode = Settings.getRenderingMode();
   private int xResolution = Settings.getxResolution();
   private int yResolution = Settings.getyResolution();
@@ -36,11 +58,13 @@ public class ResourceLoader {
   private Map map;
   private ArrayList<ArrayList<BufferedImage>> mipColourSprites;
   private ArrayList<ArrayList<BufferedImage>> mipOutlineSprites;
+  private ArrayList<ArrayList<ArrayList<BufferedImage>>> mipRecolouredSprites = null;
   private ArrayList<ArrayList<ArrayList<Image>>> mipSprites = null;
   private BufferedImage mipPalette;
 
   private ArrayList<ArrayList<BufferedImage>> ghoulColourSprites;
   private ArrayList<ArrayList<BufferedImage>> ghoulOutlineSprites;
+  private ArrayList<ArrayList<ArrayList<BufferedImage>>> ghoulRecolouredSprites = null;
   private ArrayList<ArrayList<ArrayList<Image>>> ghoulSprites = null;
   private BufferedImage ghoulPalette;
 
@@ -80,9 +104,21 @@ public class ResourceLoader {
 
   /** @param baseDir path to the resources folder */
   public ResourceLoader(String baseDir) {
+    this(baseDir, SpriteAtlasCache.inUserHome(), true);
+  }
+
+  /**
+   * @param baseDir path to the resources folder
+   * @param atlasCache where to keep the baked assets
+   * @param parallel false to load every asset one after another on the calling thread
+   */
+  ResourceLoader(String baseDir, SpriteAtlasCache atlasCache, boolean parallel) {
     BASE_DIR = baseDir;
+    this.atlasCache = atlasCache;
+    this.parallel = parallel;
     this.loadMap("default");
     this.init();
+    this.timings.finish();
   }
 
   /**
@@ -103,20 +139,46 @@ public class ResourceLoader {
     return newImage;
   }
 
+  /** loads every asset of the current theme, the assets at the same time as each other */
   private void init() {
-    this.loadPlayableMip();
-    this.loadPlayableGhoul();
-    this.loadMapTiles();
-    this.loadBackground();
-    this.loadClientMarker();
-    this.loadMipMarker();
-    this.loadPellet();
-    this.loadInventory();
-    this.loadPowerUpIcons();
-    this.loadPowerUps();
-    this.loadExplosion();
-    this.loadRocketImages();
-    this.loadMine();
+    inParallel(
+        Arrays.asList(
+            ForkJoinTask.adapt(this::loadPlayableMip),
+            ForkJoinTask.adapt(this::loadPlayableGhoul),
+            ForkJoinTask.adapt(this::loadMapTiles),
+            ForkJoinTask.adapt(this::loadBackground),
+            ForkJoinTask.adapt(this::loadClientMarker),
+            ForkJoinTask.adapt(this::loadMipMarker),
+            ForkJoinTask.adapt(this::loadPellet),
+            ForkJoinTask.adapt(this::loadInventory),
+            ForkJoinTask.adapt(this::loadPowerUpIcons),
+            ForkJoinTask.adapt(this::loadPowerUps),
+            ForkJoinTask.adapt(this::loadExplosion),
+            ForkJoinTask.adapt(this::loadRocketImages),
+            ForkJoinTask.adapt(this::loadMine)));
+  }
+
+  /**
+   * runs loading work on the asset threads and waits for all of it to finish, or runs it in order
+   * on the calling thread if the loader isn't parallel
+   *
+   * @param tasks the work, each of which can be done at the same time as the others
+   */
+  private void inParallel(List<? extends ForkJoinTask<?>> tasks) {
+    if (!parallel) {
+      for (ForkJoinTask<?> task : tasks) {
+        task.invoke();
+      }
+    } else if (ForkJoinTask.getPool() == ASSETS) {
+      ForkJoinTask.invokeAll(tasks);
+    } else {
+      ASSETS.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+  }
+
+  /** @return how long each stage of the last load of the assets took */
+  public AssetTimings getLoadTimings() {
+    return this.timings;
   }
 
   /**
@@ -210,6 +272,7 @@ public class ResourceLoader {
     BufferedImage temp;
 
     for (int i = 0; i < sprites.size(); i++) {
+      long start = System.nanoTime();
       temp = sprites.get(i);
       int newWidth = (int) (temp.getWidth() * ratio);
       int newHeight = (int) (temp.getHeight() * ratio);
@@ -226,6 +289,7 @@ public class ResourceLoader {
       g.dispose();
 
       sprites.set(i, resizedSprite);
+      timings.add(Stage.RESIZE, start);
     }
   }
 
@@ -236,6 +300,7 @@ public class ResourceLoader {
    * @param ratio how much to resize by
    */
   private BufferedImage resizeSpriteSmooth(BufferedImage sprite, double ratio) {
+    long start = System.nanoTime();
     int newWidth = (int) (sprite.getWidth() * ratio);
     int newHeight = (int) (sprite.getHeight() * ratio);
     BufferedImage resizedSprite =
@@ -248,6 +313,7 @@ public class ResourceLoader {
     g.drawImage(sprite, 0, 0, newWidth, newHeight, null);
     g.dispose();
 
+    timings.add(Stage.RESIZE, start);
     return resizedSprite;
   }
 
@@ -256,9 +322,6 @@ public class ResourceLoader {
    * @param ratio
    */
   private void resizeSpritesSmooth(ArrayList<BufferedImage> sprites, double ratio) {
-    for (BufferedImage s : sprites) {
-      resizeSpriteSmooth(s, ratio);
-    }
     for (int i = 0; i < sprites.size(); i++) {
       sprites.set(i, resizeSpriteSmooth(sprites.get(i), ratio));
     }
@@ -271,6 +334,7 @@ public class ResourceLoader {
    * @param ratio how much to resize by
    */
   private BufferedImage resizeSprite(BufferedImage sprite, double ratio) {
+    long start = System.nanoTime();
     int newWidth = (int) (sprite.getWidth() * ratio);
     int newHeight = (int) (sprite.getHeight() * ratio);
     BufferedImage resizedSprite =
@@ -285,6 +349,7 @@ public class ResourceLoader {
     g.drawImage(sprite, 0, 0, newWidth, newHeight, null);
     g.dispose();
 
+    timings.add(Stage.RESIZE, start);
     return resizedSprite;
   }
 
@@ -293,6 +358,7 @@ public class ResourceLoader {
    * resolution/theme is changed)
    */
   public void refreshSettings() {
+    this.timings = new AssetTimings();
     this.xResolution = Settings.getxResolution();
     this.yResolution = Settings.getyResolution();
     this.renderingMode = Settings.getRenderingMode();
@@ -300,6 +366,7 @@ public class ResourceLoader {
     SpriteSheetData.updateSpriteDimensions(
         new File(BASE_DIR + "sprites/" + theme + "/SHEET_DATA.txt"));
     setResolution();
+    this.timings.finish();
   }
 
   /**
@@ -311,6 +378,7 @@ public class ResourceLoader {
    * @param theme theme to switch to
    */
   public void refreshSettings(int x, int y, RenderingMode r, String theme) {
+    this.timings = new AssetTimings();
     this.xResolution = x;
     this.yResolution = y;
     this.renderingMode = r;
@@ -318,11 +386,46 @@ public class ResourceLoader {
     SpriteSheetData.updateSpriteDimensions(
         new File(BASE_DIR + "sprites/" + theme + "/SHEET_DATA.txt"));
     setResolution();
+    this.timings.finish();
   }
 
-  /** resizes all assets to the correct size to fill the screen */
+  /**
+   * resizes all assets to the correct size to fill the screen, taking them from the atlas baked
+   * for the same sprites and settings if there is one, or baking the atlas if not
+   */
   private void setResolution() {
+    long start = System.nanoTime();
+    Map map = this.map; // the map can be changed by another thread while the assets load
+    String key =
+        SpriteAtlasCache.keyOf(
+            new File(BASE_DIR + "sprites/" + theme),
+            ATLAS_VERSION,
+            theme,
+            xResolution,
+            yResolution,
+            renderingMode,
+            map.getMaxX(),
+            map.getMaxY());
+    SpriteAtlas atlas = atlasCache.load(key);
+    timings.add(Stage.ATLAS, start);
+    if (atlas != null) {
+      unpackAtlas(atlas);
+      return;
+    }
     init();
+    scaleSprites(map);
+    atlas = packAtlas();
+    start = System.nanoTime();
+    atlasCache.store(key, atlas);
+    timings.add(Stage.ATLAS, start);
+  }
+
+  /**
+   * resizes the loaded assets to the correct size to fill the screen
+   *
+   * @param map the map the assets are drawn for
+   */
+  private void scaleSprites(Map map) {
     double mapToScreenRatio = 0.7;
     int x = this.xResolution;
     int y = this.yResolution;
@@ -364,59 +467,45 @@ public class ResourceLoader {
         return;
       }
     }
-    this.inventory = resizeSprite(inventory, hudRatio);
-    resizeSprites(this.powerUpIcons, hudRatio);
+    // every list of sprites is resized at the same time as the others
+    double scale = ratio;
+    ArrayList<ForkJoinTask<?>> resizes = new ArrayList<>();
+    resizes.add(ForkJoinTask.adapt(() -> this.inventory = resizeSprite(inventory, hudRatio)));
+    resizes.add(ForkJoinTask.adapt(() -> resizeSprites(this.powerUpIcons, hudRatio)));
     for (ArrayList<BufferedImage> mipSprite : mipColourSprites) {
-      resizeSprites(mipSprite, ratio);
+      resizes.add(ForkJoinTask.adapt(() -> resizeSprites(mipSprite, scale)));
     }
     for (ArrayList<BufferedImage> ghoulSprite : ghoulColourSprites) {
-      resizeSprites(ghoulSprite, ratio);
+      resizes.add(ForkJoinTask.adapt(() -> resizeSprites(ghoulSprite, scale)));
+    }
+    for (ArrayList<BufferedImage> mipOutline : mipOutlineSprites) {
+      resizes.add(ForkJoinTask.adapt(() -> resizeSpritesSmooth(mipOutline, scale)));
     }
+    for (ArrayList<BufferedImage> ghoulOutline : ghoulOutlineSprites) {
+      resizes.add(ForkJoinTask.adapt(() -> resizeSpritesSmooth(ghoulOutline, scale)));
+    }
+    ArrayList<ArrayList<BufferedImage>> others =
+        new ArrayList<>(
+            Arrays.asList(
+                pellets, powerUpBox, translucentPellets, explosions, upRockets, downRockets, mine,
+                mapTiles));
+    others.addAll(powerUps.values());
 
     if (smoothEdges) {
-
-      for (ArrayList<BufferedImage> mipOutline : mipOutlineSprites) {
-        resizeSpritesSmooth(mipOutline, ratio);
+      for (ArrayList<BufferedImage> sprites : others) {
+        resizes.add(ForkJoinTask.adapt(() -> resizeSpritesSmooth(sprites, scale)));
       }
-
-      for (ArrayList<BufferedImage> ghoulOutline : ghoulOutlineSprites) {
-        resizeSpritesSmooth(ghoulOutline, ratio);
-      }
-      resizeSpritesSmooth(pellets, ratio);
-      resizeSpritesSmooth(powerUpBox, ratio);
-      resizeSpritesSmooth(translucentPellets, ratio);
-      resizeSpritesSmooth(explosions, ratio);
-      resizeSpritesSmooth(upRockets, ratio);
-      resizeSpritesSmooth(downRockets, ratio);
-      resizeSpritesSmooth(mine, ratio);
-      for (ArrayList<BufferedImage> powerUp : powerUps.values()) {
-        resizeSpritesSmooth(powerUp, ratio);
-      }
-      resizeSpritesSmooth(mapTiles, ratio);
-      mipMarker = resizeSpriteSmooth(mipMarker, ratio);
-      clientMarker = resizeSpriteSmooth(clientMarker, ratio);
+      resizes.add(ForkJoinTask.adapt(() -> mipMarker = resizeSpriteSmooth(mipMarker, scale)));
+      resizes.add(
+          ForkJoinTask.adapt(() -> clientMarker = resizeSpriteSmooth(clientMarker, scale)));
     } else {
-      for (ArrayList<BufferedImage> mipOutline : mipOutlineSprites) {
-        resizeSpritesSmooth(mipOutline, ratio);
+      for (ArrayList<BufferedImage> sprites : others) {
+        resizes.add(ForkJoinTask.adapt(() -> resizeSprites(sprites, scale)));
       }
-
-      for (ArrayList<BufferedImage> ghoulOutline : ghoulOutlineSprites) {
-        resizeSpritesSmooth(ghoulOutline, ratio);
-      }
-      resizeSprites(pellets, ratio);
-      resizeSprites(powerUpBox, ratio);
-      resizeSprites(translucentPellets, ratio);
-      resizeSprites(explosions, ratio);
-      resizeSprites(upRockets, ratio);
-      resizeSprites(downRockets, ratio);
-      resizeSprites(mine, ratio);
-      for (ArrayList<BufferedImage> powerUp : powerUps.values()) {
-        resizeSprites(powerUp, ratio);
-      }
-      resizeSprites(mapTiles, ratio);
-      mipMarker = resizeSprite(mipMarker, ratio);
-      clientMarker = resizeSprite(clientMarker, ratio);
+      resizes.add(ForkJoinTask.adapt(() -> mipMarker = resizeSprite(mipMarker, scale)));
+      resizes.add(ForkJoinTask.adapt(() -> clientMarker = resizeSprite(clientMarker, scale)));
     }
+    inParallel(resizes);
   }
 
   /**
@@ -427,21 +516,28 @@ public class ResourceLoader {
    *     frame
    */
   public ArrayList<ArrayList<Image>> getPlayableMip(int _colourID) {
-    if (this.mipSprites == null || this.mipSprites.size() < this.mipColourSprites.size()) {
+    if (this.mipSprites == null) {
       this.mipSprites = new ArrayList<>();
-      for (int i = 0; i < this.mipPalette.getHeight(); i++) {
-        this.mipSprites.add(
-            bufferedToJavaFxImage2D(
-                recolourPlayableSprites(
-                    i, this.mipColourSprites, this.mipOutlineSprites, this.mipPalette)));
+      for (ArrayList<ArrayList<BufferedImage>> sprites : getRecolouredMip()) {
+        this.mipSprites.add(bufferedToJavaFxImage2D(sprites));
       }
     }
     return this.mipSprites.get(_colourID);
   }
 
+  /** @return MIPSman recoloured to every row of the palette */
+  private ArrayList<ArrayList<ArrayList<BufferedImage>>> getRecolouredMip() {
+    if (this.mipRecolouredSprites == null) {
+      this.mipRecolouredSprites =
+          recolourEveryRow(this.mipColourSprites, this.mipOutlineSprites, this.mipPalette);
+    }
+    return this.mipRecolouredSprites;
+  }
+
   /** load MIPSman into the resource loader */
   public void loadPlayableMip() {
     this.mipSprites = null;
+    this.mipRecolouredSprites = null;
     BufferedImage spriteSheet = loadImageFile("sprites/" + theme + "/playable/", "mip");
     BufferedImage sprites = extractColour(spriteSheet, getOutlineColour(spriteSheet), true);
     BufferedImage outlineSprites = extractColour(spriteSheet, getOutlineColour(spriteSheet), false);
@@ -452,6 +548,31 @@ public class ResourceLoader {
     this.mipPalette = loadImageFile("sprites/" + theme + "/playable/", "mip_palette");
   }
 
+  /**
+   * @param colourSprites image with colours to be recoloured
+   * @param outlineSprites outline to overlay to recoloured sprite
+   * @param palette pallette sheet
+   * @return the sprites recoloured to each row of the palette
+   */
+  private ArrayList<ArrayList<ArrayList<BufferedImage>>> recolourEveryRow(
+      ArrayList<ArrayList<BufferedImage>> colourSprites,
+      ArrayList<ArrayList<BufferedImage>> outlineSprites,
+      BufferedImage palette) {
+    ArrayList<ForkJoinTask<ArrayList<ArrayList<BufferedImage>>>> recolours = new ArrayList<>();
+    for (int i = 0; i < palette.getHeight(); i++) {
+      int row = i;
+      recolours.add(
+          ForkJoinTask.adapt(
+              () -> recolourPlayableSprites(row, colourSprites, outlineSprites, palette)));
+    }
+    inParallel(recolours);
+    ArrayList<ArrayList<ArrayList<BufferedImage>>> rows = new ArrayList<>();
+    for (ForkJoinTask<ArrayList<ArrayList<BufferedImage>>> recolour : recolours) {
+      rows.add(recolour.join());
+    }
+    return rows;
+  }
+
   /**
    * recolour MIPSman spritess
    *
@@ -465,6 +586,7 @@ public class ResourceLoader {
       ArrayList<ArrayList<BufferedImage>> colourSprites,
       ArrayList<ArrayList<BufferedImage>> outlineSprites,
       BufferedImage palette) {
+    long start = System.nanoTime();
     ArrayList<ArrayList<BufferedImage>> recolouredSprites = new ArrayList<>();
     for (int i = 0; i < colourSprites.size(); i++) {
       ArrayList<BufferedImage> tmp = new ArrayList<>();
@@ -476,6 +598,7 @@ public class ResourceLoader {
       }
       recolouredSprites.add(tmp);
     }
+    timings.add(Stage.RECOLOUR, start);
     return recolouredSprites;
   }
 
@@ -524,21 +647,28 @@ public class ResourceLoader {
    *     frame
    */
   public ArrayList<ArrayList<Image>> getPlayableGhoul(int _colourID) {
-    if (this.ghoulSprites == null || this.ghoulSprites.size() < this.ghoulColourSprites.size()) {
+    if (this.ghoulSprites == null) {
       this.ghoulSprites = new ArrayList<>();
-      for (int i = 0; i < this.ghoulPalette.getHeight(); i++) {
-        this.ghoulSprites.add(
-            bufferedToJavaFxImage2D(
-                recolourPlayableSprites(
-                    i, this.ghoulColourSprites, this.ghoulOutlineSprites, this.ghoulPalette)));
+      for (ArrayList<ArrayList<BufferedImage>> sprites : getRecolouredGhoul()) {
+        this.ghoulSprites.add(bufferedToJavaFxImage2D(sprites));
       }
     }
     return this.ghoulSprites.get(_colourID);
   }
 
+  /** @return ghouls recoloured to every row of the palette */
+  private ArrayList<ArrayList<ArrayList<BufferedImage>>> getRecolouredGhoul() {
+    if (this.ghoulRecolouredSprites == null) {
+      this.ghoulRecolouredSprites =
+          recolourEveryRow(this.ghoulColourSprites, this.ghoulOutlineSprites, this.ghoulPalette);
+    }
+    return this.ghoulRecolouredSprites;
+  }
+
   /** get ghoul sprites */
   public void loadPlayableGhoul() {
     this.ghoulSprites = null;
+    this.ghoulRecolouredSprites = null;
     BufferedImage spriteSheet = loadImageFile("sprites/" + theme + "/playable/", "ghoul");
     BufferedImage sprites = extractColour(spriteSheet, getOutlineColour(spriteSheet), true);
     BufferedImage outlineSprites = extractColour(spriteSheet, getOutlineColour(spriteSheet), false);
@@ -802,6 +932,135 @@ public class ResourceLoader {
     this.mineImages = null;
   }
 
+  /**
+   * packs the resized assets, with MIPSman and the ghouls recoloured to every row of their
+   * palettes, into one atlas
+   *
+   * @return the atlas
+   */
+  private SpriteAtlas packAtlas() {
+    inParallel(
+        Arrays.asList(
+            ForkJoinTask.adapt(this::getRecolouredMip),
+            ForkJoinTask.adapt(this::getRecolouredGhoul)));
+    SpriteAtlas.Builder atlas = new SpriteAtlas.Builder();
+    addFrames(atlas, "mip", getRecolouredMip());
+    addFrames(atlas, "ghoul", getRecolouredGhoul());
+    atlas.add("mipPalette", Collections.singletonList(this.mipPalette));
+    atlas.add("ghoulPalette", Collections.singletonList(this.ghoulPalette));
+    atlas.add("pellets", this.pellets);
+    atlas.add("translucentPellets", this.translucentPellets);
+    atlas.add("powerUpBox", this.powerUpBox);
+    atlas.add("mapTiles", this.mapTiles);
+    atlas.add("background", Collections.singletonList(this.background));
+    atlas.add("backgroundPalette", Collections.singletonList(this.backgroundPalette));
+    atlas.add("mipMarker", Collections.singletonList(this.mipMarker));
+    atlas.add("clientMarker", Collections.singletonList(this.clientMarker));
+    atlas.add("inventory", Collections.singletonList(this.inventory));
+    atlas.add("powerUpIcons", this.powerUpIcons);
+    for (PowerUps powerUp : this.powerUps.keySet()) {
+      atlas.add("powerUps." + powerUp.name(), this.powerUps.get(powerUp));
+    }
+    atlas.add("explosions", this.explosions);
+    atlas.add("upRockets", this.upRockets);
+    atlas.add("downRockets", this.downRockets);
+    atlas.add("mine", this.mine);
+    return atlas.build();
+  }
+
+  /**
+   * takes every asset from an atlas made by {@link #packAtlas()} instead of loading them
+   *
+   * @param atlas the atlas
+   */
+  private void unpackAtlas(SpriteAtlas atlas) {
+    this.mipRecolouredSprites = getFrames(atlas, "mip");
+    this.ghoulRecolouredSprites = getFrames(atlas, "ghoul");
+    this.mipColourSprites = null;
+    this.mipOutlineSprites = null;
+    this.ghoulColourSprites = null;
+    this.ghoulOutlineSprites = null;
+    this.mipPalette = atlas.get("mipPalette").get(0);
+    this.ghoulPalette = atlas.get("ghoulPalette").get(0);
+    this.pellets = atlas.get("pellets");
+    this.translucentPellets = atlas.get("translucentPellets");
+    this.powerUpBox = atlas.get("powerUpBox");
+    this.mapTiles = atlas.get("mapTiles");
+    this.background = atlas.get("background").get(0);
+    this.backgroundPalette = atlas.get("backgroundPalette").get(0);
+    this.mipMarker = atlas.get("mipMarker").get(0);
+    this.clientMarker = atlas.get("clientMarker").get(0);
+    this.inventory = atlas.get("inventory").get(0);
+    this.inventoryColourID = 0;
+    this.powerUpIcons = atlas.get("powerUpIcons");
+    this.powerUps = new HashMap<>();
+    for (PowerUps powerUp : PowerUps.values()) {
+      ArrayList<BufferedImage> frames = atlas.get("powerUps." + powerUp.name());
+      if (frames != null) {
+        this.powerUps.put(powerUp, frames);
+      }
+    }
+    this.explosions = atlas.get("explosions");
+    this.upRockets = atlas.get("upRockets");
+    this.downRockets = atlas.get("downRockets");
+    this.mine = atlas.get("mine");
+
+    this.mipSprites = null;
+    this.ghoulSprites = null;
+    this.pelletImages = null;
+    this.translucentPelletImages = null;
+    this.powerUpBoxImages = null;
+    this.mapTilesImages = null;
+    this.mipMarkerImages = null;
+    this.clientMarkerImages = null;
+    this.inventoryImage = null;
+    this.powerUpIconImages = null;
+    this.powerUpImages = null;
+    this.explosionImages = null;
+    this.upRocketImages = null;
+    this.downRocketImages = null;
+    this.mineImages = null;
+  }
+
+  /**
+   * adds recoloured sprites to an atlas, a group for the frames of each direction of each colour
+   *
+   * @param atlas atlas being built
+   * @param name name of the sprites
+   * @param sprites first dimension is the colour, second the direction, third the frame
+   */
+  private static void addFrames(
+      SpriteAtlas.Builder atlas,
+      String name,
+      ArrayList<ArrayList<ArrayList<BufferedImage>>> sprites) {
+    for (int i = 0; i < sprites.size(); i++) {
+      for (int j = 0; j < sprites.get(i).size(); j++) {
+        atlas.add(name + "." + i + "." + j, sprites.get(i).get(j));
+      }
+    }
+  }
+
+  /**
+   * @param atlas atlas the sprites were added to by {@link #addFrames}
+   * @param name name of the sprites
+   * @return the sprites, first dimension is the colour, second the direction, third the frame
+   */
+  private static ArrayList<ArrayList<ArrayList<BufferedImage>>> getFrames(
+      SpriteAtlas atlas, String name) {
+    ArrayList<ArrayList<ArrayList<BufferedImage>>> sprites = new ArrayList<>();
+    for (int i = 0; ; i++) {
+      ArrayList<ArrayList<BufferedImage>> directions = new ArrayList<>();
+      ArrayList<BufferedImage> frames;
+      while ((frames = atlas.get(name + "." + i + "." + directions.size())) != null) {
+        directions.add(frames);
+      }
+      if (directions.isEmpty()) {
+        return sprites;
+      }
+      sprites.add(directions);
+    }
+  }
+
   /**
    * returns loads a png image in TYPE_4BYTE_ABGR
    *
@@ -810,6 +1069,7 @@ public class ResourceLoader {
    */
   private BufferedImage loadImageFile(String folderPath, String name) {
 
+    long start = System.nanoTime();
     String path = BASE_DIR + folderPath + name + ".png";
 
     File mapFile = new File(path);
@@ -829,6 +1089,7 @@ public class ResourceLoader {
     imgUnindexedColourModel.getGraphics().drawImage(image, 0, 0, null);
     // end code. Accessed on 29/01/2019
 
+    timings.add(Stage.DECODE, start);
     return imgUnindexedColourModel;
   }
 
@@ -840,6 +1101,7 @@ public class ResourceLoader {
    */
   private ArrayList<ArrayList<BufferedImage>> splitSpriteSheet(
       int spriteWidth, int spriteHeight, BufferedImage spriteSheet) {
+    long start = System.nanoTime();
     ArrayList<ArrayList<BufferedImage>> _mipSprites = new ArrayList<>();
 
     for (int i = 0; i < spriteSheet.getWidth() / spriteWidth; i++) {
@@ -850,6 +1112,7 @@ public class ResourceLoader {
       }
       _mipSprites.add(directionAnimation);
     }
+    timings.add(Stage.SPLIT, start);
     return _mipSprites;
   }
 
@@ -887,18 +1150,22 @@ public class ResourceLoader {
     //    if (newPaletteRow == oldPaletteRow) {
     //      return sprite;
     //    }
+    int width = sprite.getWidth();
+    int height = sprite.getHeight();
     BufferedImage recolouredSprite =
-        new BufferedImage(sprite.getWidth(), sprite.getHeight(), BufferedImage.TYPE_4BYTE_ABGR);
+        new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
+    // map each colour of the old row to the new row, later columns overriding earlier ones
+    HashMap<Integer, Integer> colours = new HashMap<>();
     for (int i = 0; i < palette.getWidth(); i++) {
-      // iterate through every pixel of sprite
-      for (int x = 0; x < sprite.getWidth(); x++) {
-        for (int y = 0; y < sprite.getHeight(); y++) {
-          if (sprite.getRGB(x, y) == palette.getRGB(i, oldPaletteRow)) {
-            recolouredSprite.setRGB(x, y, palette.getRGB(i, newPaletteRow));
-          }
-        }
-      }
+      colours.put(palette.getRGB(i, oldPaletteRow), palette.getRGB(i, newPaletteRow));
+    }
+    // iterate through every pixel of sprite once
+    int[] pixels = sprite.getRGB(0, 0, width, height, null, 0, width);
+    for (int i = 0; i < pixels.length; i++) {
+      Integer colour = colours.get(pixels[i]);
+      pixels[i] = colour == null ? 0 : colour;
     }
+    recolouredSprite.setRGB(0, 0, width, height, pixels, 0, width);
     return mergeImage(sprite, recolouredSprite);
   }
 
@@ -935,6 +1202,7 @@ public class ResourceLoader {
    * @return an extracted image including only the colour or excluding the colour
    */
   private BufferedImage extractColour(BufferedImage img, int colour, boolean subtract) {
+    long start = System.nanoTime();
     int currentColour;
     BufferedImage extractedImg =
         new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_4BYTE_ABGR);
@@ -952,6 +1220,7 @@ public class ResourceLoader {
       }
     }
 
+    timings.add(Stage.EXTRACT_COLOUR, start);
     return extractedImg;
   }
 
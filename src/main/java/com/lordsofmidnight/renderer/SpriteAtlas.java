@@ -0,0 +1,240 @@
+package com.lordsofmidnight.renderer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Named groups of sprite frames packed into one sheet, with an index of where each frame is. The
+ * frames of a group come back as views of the sheet in the order they were added, so unpacking an
+ * atlas copies no pixels.
+ *
+ * <p>An atlas is written as its index followed by the pixels of the sheet, deflated, so that it
+ * can be read back in one go by {@link #read(byte[])}.
+ */
+public final class SpriteAtlas {
+
+  private static final int MAGIC = 0x4c4d5341; // "LMSA"
+  private static final int VERSION = 1;
+  private static final int MAX_SHEET_WIDTH = 4096; // frames are put in rows no wider than this
+
+  private final BufferedImage sheet;
+  private final LinkedHashMap<String, int[]> groups; // by name, x y width height of every frame
+
+  /**
+   * @param sheet The sheet all the frames are in
+   * @param groups The place of every frame of every group in the sheet
+   */
+  private SpriteAtlas(BufferedImage sheet, LinkedHashMap<String, int[]> groups) {
+    this.sheet = sheet;
+    this.groups = groups;
+  }
+
+  /**
+   * @param name The name of a group
+   * @return The frames of the group, views of the sheet, or null if there is no such group
+   */
+  public ArrayList<BufferedImage> get(String name) {
+    int[] places = groups.get(name);
+    if (places == null) {
+      return null;
+    }
+    ArrayList<BufferedImage> frames = new ArrayList<>(places.length / 4);
+    for (int i = 0; i < places.length; i += 4) {
+      frames.add(sheet.getSubimage(places[i], places[i + 1], places[i + 2], places[i + 3]));
+    }
+    return frames;
+  }
+
+  /** @return The width of the sheet */
+  public int getWidth() {
+    return sheet.getWidth();
+  }
+
+  /** @return The height of the sheet */
+  public int getHeight() {
+    return sheet.getHeight();
+  }
+
+  /**
+   * Writes the atlas, to be read back by {@link #read(byte[])}
+   *
+   * @param out Where to write the atlas
+   * @throws IOException The atlas could not be written.
+   */
+  public void write(OutputStream out) throws IOException {
+    DataOutputStream data =
+        new DataOutputStream(new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED)));
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(sheet.getWidth());
+    data.writeInt(sheet.getHeight());
+    data.writeInt(groups.size());
+    for (Map.Entry<String, int[]> group : groups.entrySet()) {
+      data.writeUTF(group.getKey());
+      data.writeInt(group.getValue().length);
+      for (int value : group.getValue()) {
+        data.writeInt(value);
+      }
+    }
+    int[] pixels = ((DataBufferInt) sheet.getRaster().getDataBuffer()).getData();
+    ByteBuffer bytes = ByteBuffer.allocate(pixels.length * 4);
+    bytes.asIntBuffer().put(pixels);
+    data.write(bytes.array());
+    data.close();
+  }
+
+  /**
+   * Reads an atlas written by {@link #write(OutputStream)}
+   *
+   * @param written The bytes written
+   * @return The atlas
+   * @throws IOException The bytes are not an atlas of this version.
+   */
+  public static SpriteAtlas read(byte[] written) throws IOException {
+    byte[] raw = inflate(written);
+    DataInputStream data = new DataInputStream(new ByteArrayInputStream(raw));
+    if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+      throw new IOException("Not a sprite atlas of version " + VERSION);
+    }
+    int width = data.readInt();
+    int height = data.readInt();
+    int groupCount = data.readInt();
+    LinkedHashMap<String, int[]> groups = new LinkedHashMap<>();
+    for (int g = 0; g < groupCount; g++) {
+      String name = data.readUTF();
+      int[] places = new int[data.readInt()];
+      for (int i = 0; i < places.length; i++) {
+        places[i] = data.readInt();
+      }
+      groups.put(name, places);
+    }
+    int indexLength = raw.length - data.available();
+    if (data.available() != width * height * 4) {
+      throw new IOException("The sheet of the sprite atlas is cut short");
+    }
+    BufferedImage sheet = newSheet(width, height);
+    int[] pixels = ((DataBufferInt) sheet.getRaster().getDataBuffer()).getData();
+    ByteBuffer.wrap(raw, indexLength, pixels.length * 4).asIntBuffer().get(pixels);
+    return new SpriteAtlas(sheet, groups);
+  }
+
+  /**
+   * @param written Deflated bytes
+   * @return The bytes inflated
+   * @throws IOException The bytes are not deflated.
+   */
+  private static byte[] inflate(byte[] written) throws IOException {
+    Inflater inflater = new Inflater();
+    inflater.setInput(written);
+    ByteArrayOutputStream out = new ByteArrayOutputStream(written.length * 4);
+    byte[] buffer = new byte[1 << 16];
+    try {
+      while (!inflater.finished()) {
+        int count = inflater.inflate(buffer);
+        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IOException("The sprite atlas is cut short");
+        }
+        out.write(buffer, 0, count);
+      }
+    } catch (DataFormatException e) {
+      throw new IOException(e.getMessage());
+    } finally {
+      inflater.end();
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * @param width The width of the sheet
+   * @param height The height of the sheet
+   * @return An empty sheet, whose pixels are one int each
+   */
+  private static BufferedImage newSheet(int width, int height) {
+    return new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_ARGB);
+  }
+
+  /** Collects groups of frames and packs them into an atlas */
+  public static final class Builder {
+
+    private final LinkedHashMap<String, List<BufferedImage>> groups = new LinkedHashMap<>();
+
+    /**
+     * Adds a group of frames
+     *
+     * @param name The name of the group
+     * @param frames The frames, in order
+     * @return This builder
+     * @throws IllegalArgumentException There is already a group of the name.
+     */
+    public Builder add(String name, List<BufferedImage> frames) {
+      if (groups.containsKey(name)) {
+        throw new IllegalArgumentException("There is already a group called " + name);
+      }
+      groups.put(name, frames);
+      return this;
+    }
+
+    /**
+     * Packs the frames into rows of a sheet, each row as tall as its tallest frame
+     *
+     * @return The atlas
+     */
+    public SpriteAtlas build() {
+      LinkedHashMap<String, int[]> places = new LinkedHashMap<>();
+      int x = 0;
+      int y = 0;
+      int rowHeight = 0;
+      int width = 0;
+      for (Map.Entry<String, List<BufferedImage>> group : groups.entrySet()) {
+        List<BufferedImage> frames = group.getValue();
+        int[] place = new int[frames.size() * 4];
+        for (int i = 0; i < frames.size(); i++) {
+          BufferedImage frame = frames.get(i);
+          if (x > 0 && x + frame.getWidth() > MAX_SHEET_WIDTH) {
+            x = 0;
+            y += rowHeight;
+            rowHeight = 0;
+          }
+          place[i * 4] = x;
+          place[i * 4 + 1] = y;
+          place[i * 4 + 2] = frame.getWidth();
+          place[i * 4 + 3] = frame.getHeight();
+          x += frame.getWidth();
+          width = Math.max(width, x);
+          rowHeight = Math.max(rowHeight, frame.getHeight());
+        }
+        places.put(group.getKey(), place);
+      }
+      BufferedImage sheet = newSheet(width, y + rowHeight);
+      int[] pixels = ((DataBufferInt) sheet.getRaster().getDataBuffer()).getData();
+      for (Map.Entry<String, List<BufferedImage>> group : groups.entrySet()) {
+        List<BufferedImage> frames = group.getValue();
+        int[] place = places.get(group.getKey());
+        for (int i = 0; i < frames.size(); i++) {
+          int w = place[i * 4 + 2];
+          int h = place[i * 4 + 3];
+          if (w > 0 && h > 0) {
+            frames.get(i).getRGB(0, 0, w, h, pixels, place[i * 4 + 1] * sheet.getWidth()
+                + place[i * 4], sheet.getWidth());
+          }
+        }
+      }
+      return new SpriteAtlas(sheet, places);
+    }
+  }
+}
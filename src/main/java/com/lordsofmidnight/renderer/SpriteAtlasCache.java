@@ -0,0 +1,152 @@
+package com.lordsofmidnight.renderer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps baked {@link SpriteAtlas}es on disk, each in a file named by a hash of everything that
+ * went into it, so that an atlas is found again only if none of its sprites or settings changed.
+ * A sprite counts as changed if its size or the time it was last modified did, so finding an atlas
+ * never reads the sprites. Only the atlases used most recently are kept.
+ */
+public class SpriteAtlasCache {
+
+  private static final String SUFFIX = ".atlas";
+
+  private final File directory;
+  private final int capacity;
+
+  /**
+   * @param directory The folder to keep the atlases in, made when the first one is stored
+   * @param capacity The number of atlases to keep
+   * @throws IllegalArgumentException The capacity is not positive.
+   */
+  public SpriteAtlasCache(File directory, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("A cache must keep at least one atlas");
+    }
+    this.directory = directory;
+    this.capacity = capacity;
+  }
+
+  /** @return A cache in the home folder of the user, keeping the atlases of a few settings */
+  public static SpriteAtlasCache inUserHome() {
+    return new SpriteAtlasCache(
+        new File(System.getProperty("user.home"), ".lordsofmidnight" + File.separator + "atlas"),
+        8);
+  }
+
+  /**
+   * Hashes the path, size and last modified time of every file in a folder, and the settings an
+   * atlas is baked with
+   *
+   * @param sources The folder of the sprites the atlas is baked from
+   * @param settings The settings the atlas is baked with, in order
+   * @return The key of the atlas
+   */
+  public static String keyOf(File sources, Object... settings) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (Object setting : settings) {
+        digest.update(String.valueOf(setting).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+      }
+      Path root = sources.toPath();
+      List<Path> files;
+      try (Stream<Path> walk = Files.walk(root)) {
+        files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+      }
+      for (Path file : files) {
+        digest.update(
+            root.relativize(file).toString().replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        digest.update(
+            (attributes.size() + ":" + attributes.lastModifiedTime().toMillis())
+                .getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+      }
+      StringBuilder key = new StringBuilder();
+      for (byte b : digest.digest()) {
+        key.append(String.format("%02x", b));
+      }
+      return key.toString();
+    } catch (NoSuchAlgorithmException | IOException e) {
+      System.out.println(e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * @param key The key of an atlas, can be null
+   * @return The atlas stored with the key, or null if there is none or it can't be read
+   */
+  public SpriteAtlas load(String key) {
+    if (key == null) {
+      return null;
+    }
+    File file = new File(directory, key + SUFFIX);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      SpriteAtlas atlas = SpriteAtlas.read(Files.readAllBytes(file.toPath()));
+      file.setLastModified(System.currentTimeMillis());
+      return atlas;
+    } catch (IOException e) {
+      System.out.println(e.getMessage());
+      file.delete();
+      return null;
+    }
+  }
+
+  /**
+   * Stores an atlas, forgetting the atlases used least recently if there are too many
+   *
+   * @param key The key of the atlas, can be null in which case the atlas is not stored
+   * @param atlas The atlas
+   */
+  public void store(String key, SpriteAtlas atlas) {
+    if (key == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(directory.toPath());
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      atlas.write(bytes);
+      Path written = Files.createTempFile(directory.toPath(), key, ".tmp");
+      Files.write(written, bytes.toByteArray());
+      Files.move(
+          written,
+          new File(directory, key + SUFFIX).toPath(),
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      System.out.println(e.getMessage());
+      return;
+    }
+    String storedName = key + SUFFIX;
+    File[] others =
+        directory.listFiles((dir, name) -> name.endsWith(SUFFIX) && !name.equals(storedName));
+    if (others != null && others.length >= capacity) {
+      List<File> oldest = new ArrayList<>(Arrays.asList(others));
+      oldest.sort(Comparator.comparingLong(File::lastModified));
+      for (File file : oldest.subList(0, others.length - capacity + 1)) {
+        file.delete();
+      }
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.lordsofmidnight.server;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A small pool of direct {@link ByteBuffer}s of equal size, shared by the network transports so
+ * that sending and receiving datagrams does not allocate a new buffer each time.
+ */
+public class BufferPool {
+
+  private final ArrayBlockingQueue<ByteBuffer> buffers;
+  private final int bufferSize;
+
+  /**
+   * Creates the pool and allocates all of its buffers up front
+   *
+   * @param capacity The number of buffers to keep
+   * @param bufferSize The size in bytes of each buffer
+   */
+  public BufferPool(int capacity, int bufferSize) {
+    this.buffers = new ArrayBlockingQueue<>(capacity);
+    this.bufferSize = bufferSize;
+    for (int i = 0; i < capacity; i++) {
+      buffers.add(ByteBuffer.allocateDirect(bufferSize));
+    }
+  }
+
+  /**
+   * Takes a cleared buffer from the pool, allocating a new one if the pool is empty
+   *
+   * @return A buffer ready to be written to
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer buffer = buffers.poll();
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer to the pool. Buffers over the capacity of the pool are left to be collected.
+   *
+   * @param buffer The buffer, which must not be used by the caller afterwards
+   */
+  public void release(ByteBuffer buffer) {
+    buffers.offer(buffer);
+  }
+
+  /** @return The size in bytes of each buffer */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+}
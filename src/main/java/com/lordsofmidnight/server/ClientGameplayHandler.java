@@ -1,119 +1,129 @@
 package com.lordsofmidnight.server;
 
+import com.lordsofmidnight.server.codec.BinaryPacketCodec;
+import com.lordsofmidnight.server.codec.PacketType;
 import com.lordsofmidnight.utils.Input;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
- * ClientGameplayHandler class which creates the appropriate senders and recievers and starts them.
- * The sender turns {@link Input} into strings. they feed into telemetry.
+ * ClientGameplayHandler class which creates the transport and outgoing packet manager and starts
+ * them. The manager turns {@link Input} into frames, and frames received feed into telemetry.
  */
 public class ClientGameplayHandler {
 
-  public Queue<String> outgoingQueue;
-  private Queue<String> incomingQueue;
+  private static final int KEYPRESS_BATCH = 8;
+
+  public BlockingQueue<byte[]> outgoingQueue;
 
   private BlockingQueue<Input> keypressQueue;
-  private Queue<String> clientIn;
+  private Queue<byte[]> clientIn;
+  private BinaryPacketCodec codec = new BinaryPacketCodec();
 
   private Thread outgoingPacketManager;
-  private Thread incomingPacketManager;
 
-  private PacketSender sender;
-  private PacketReceiver receiver;
+  private DatagramTransport transport;
 
   private ArrayList<InetAddress> serverIP;
 
-  private boolean running = true;
+  private volatile boolean running = true;
 
-  // clientIn gets recievedStrings
+  // clientIn gets recieved frames
+  public ClientGameplayHandler(
+      InetAddress serverIP, Queue<Input> keypressQueue, Queue<byte[]> clientIn) throws IOException {
+    this(serverIP, keypressQueue, clientIn, NetworkUtility.GAMEPLAY_THREADS);
+  }
+
+  /**
+   * Creates the transport and outgoing packet manager and starts them.
+   *
+   * @param serverIP The IP of the server
+   * @param keypressQueue The queue of inputs to send to the server
+   * @param clientIn The queue that frames from the server are added to
+   * @param threads The number of threads the transport may use
+   * @throws IOException if the transport could not be created
+   */
   public ClientGameplayHandler(
-      InetAddress serverIP, Queue<Input> keypressQueue, Queue<String> clientIn) throws IOException {
-    outgoingQueue = new ConcurrentLinkedQueue<>();
-    incomingQueue = new ConcurrentLinkedQueue<>();
+      InetAddress serverIP, Queue<Input> keypressQueue, Queue<byte[]> clientIn, int threads)
+      throws IOException {
+    outgoingQueue = new LinkedBlockingQueue<>();
     this.keypressQueue = (BlockingQueue<Input>) keypressQueue;
     this.clientIn = clientIn;
 
     this.serverIP = new ArrayList<>();
     this.serverIP.add(serverIP);
 
-    initialisePacketManagers();
+    initialisePacketManager();
 
-    this.sender =
-        new PacketSender(NetworkUtility.SERVER_DGRAM_PORT, this.outgoingQueue, this.serverIP);
-    this.receiver = new PacketReceiver(NetworkUtility.CLIENT_DGRAM_PORT, incomingQueue);
-    this.incomingPacketManager.start();
+    this.transport =
+        new DatagramTransport(
+            NetworkUtility.CLIENT_DGRAM_PORT,
+            NetworkUtility.SERVER_DGRAM_PORT,
+            this.serverIP,
+            this.outgoingQueue,
+            this::handleFrame,
+            threads);
     this.outgoingPacketManager.start();
-    this.receiver.start();
-    this.sender.start();
+    this.transport.start();
   }
 
   /**
-   * Initialises the incoming and outgoing packet managers
+   * Initialises the outgoing packet manager
    */
-  private void initialisePacketManagers() {
-    // puts inputs from queues into the outgoing queue as strings
+  private void initialisePacketManager() {
+    // puts inputs from queues into the outgoing queue as frames
     this.outgoingPacketManager =
         new Thread() {
           public void run() {
-            Input key;
+            ArrayList<Input> keys = new ArrayList<>(KEYPRESS_BATCH);
             while (!isInterrupted() && running) {
               try {
-                key = keypressQueue.take();
-                // sends inputs as strings, which are converted back by ServerGameplay handler
-                outgoingQueue.add(key.toString());
-                Thread.sleep(1);
+                keys.add(keypressQueue.take());
+                keypressQueue.drainTo(keys, KEYPRESS_BATCH - 1);
+                // sends inputs as frames, which are converted back by ServerGameplay handler
+                for (Input key : keys) {
+                  outgoingQueue.add(codec.input(key));
+                }
+                keys.clear();
               } catch (InterruptedException e) {
-                e.printStackTrace();
+                return; // closed while waiting for a keypress
               }
             }
           }
         };
+    this.outgoingPacketManager.setDaemon(true);
+  }
 
-    // reads inputs from the incoming queue into the relevant queue - position queue or collision
-    // queue
-    this.incomingPacketManager =
-        new Thread() {
-          public void run() {
-            while (!isInterrupted() && running) {
-              try {
-                if (incomingQueue.isEmpty()) {
-                  continue;
-                }
-                String data = incomingQueue.poll();
-
-                if (data.startsWith(NetworkUtility.POSITION_CODE)
-                    || data.startsWith(NetworkUtility.POWERUP_CODE)
-                    || data.startsWith(NetworkUtility.COLLISIONS_CODE)
-                    || data.startsWith(NetworkUtility.SCORE_CODE)) {
-                  clientIn.add(data);
-                } else if (data.startsWith(NetworkUtility.STOP_CODE)) {
-                  clientIn.add(data);
-                  close();
-                } else {
-                  System.out.println("Dodgy string " + data);
-                  throw new Exception();
-                }
-                Thread.sleep(1);
-              } catch (Exception e) {
-                e.printStackTrace();
-                System.out.println("Argument in incoming queue had invalid code");
-              }
-            }
-          }
-        };
+  /**
+   * Passes frames from the server on to telemetry, closing the handler when the game stops
+   *
+   * @param frame The frame received
+   */
+  private void handleFrame(ByteBuffer frame) {
+    PacketType type = codec.typeOf(frame);
+    if (type == null || type == PacketType.INPUT) {
+      System.out.println("Dodgy packet of type " + type);
+      return;
+    }
+    byte[] data = new byte[frame.remaining()];
+    frame.get(data);
+    clientIn.add(data);
+    if (type == PacketType.STOP) {
+      close();
+    }
   }
 
   /**
    * Closes the class' threads
    */
   public void close() {
-    receiver.shutdown();
-    sender.shutdown();
     running = false;
+    outgoingPacketManager.interrupt();
+    transport.shutdown();
   }
 }
@@ -23,7 +23,7 @@ import javafx.application.Platform;
  */
 public class ClientLobbySession {
 
-  private Queue<String> clientIn;
+  private Queue<byte[]> clientIn;
   private Queue<Input> keypressQueue;
   private InetAddress serverIP;
   private ClientGameplayHandler handler;
@@ -171,7 +171,7 @@ public class ClientLobbySession {
    * @param clientName The name of the client
    */
   public ClientLobbySession(
-      Queue<String> clientIn, Queue<Input> keypressQueue, Client client, String clientName)
+      Queue<byte[]> clientIn, Queue<Input> keypressQueue, Client client, String clientName)
       throws IOException {
 
     this.clientIn = clientIn;
@@ -199,6 +199,11 @@ public class ClientLobbySession {
     }
   }
 
+  /** @return The gameplay handler, or null if the game has not started */
+  public ClientGameplayHandler getGameplayHandler() {
+    return handler;
+  }
+
   /**
    * Handles shutting down TCP connections in the client lobby
    */
@@ -0,0 +1,221 @@
+package com.lordsofmidnight.server;
+
+import com.lordsofmidnight.server.codec.BinaryPacketCodec;
+import com.lordsofmidnight.server.codec.PacketDecoder;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Sends and receives the frames of a running game over a single {@link DatagramChannel} bound to
+ * the local port of this endpoint. All datagrams pass through buffers taken from a {@link
+ * BufferPool} shared between every transport in the process.
+ *
+ * <p>The endpoint uses a fixed budget of threads, all of which park while there is no work. One
+ * thread waits on the selector and passes each valid frame received to a {@link FrameHandler},
+ * the rest wait on the outgoing queue and send frames to every recipient in batches.
+ */
+public class DatagramTransport {
+
+  /** The fewest threads a transport can run on, one receiving and one sending */
+  public static final int MIN_THREADS = 2;
+
+  private static final int POOL_SIZE = 8;
+  private static final int SEND_BATCH = 16;
+  private static final BufferPool POOL = new BufferPool(POOL_SIZE, NetworkUtility.FRAME_LIMIT);
+
+  private final DatagramChannel channel;
+  private final Selector selector;
+  private final InetSocketAddress[] recipients;
+  private final BlockingQueue<byte[]> outgoing;
+  private final FrameHandler handler;
+  private final PacketDecoder decoder = new BinaryPacketCodec();
+  private final Thread receiver;
+  private final Thread[] senders;
+  private volatile boolean running = true;
+
+  /** Receives the frames read by a transport. */
+  public interface FrameHandler {
+
+    /**
+     * Called on the receiving thread for every valid frame. The buffer is reused once this
+     * returns, so the frame must be copied if it is needed later.
+     *
+     * @param frame The frame, positioned at its first byte
+     */
+    void onFrame(ByteBuffer frame);
+  }
+
+  /**
+   * Opens and binds the channel for this endpoint
+   *
+   * @param localPort The port this endpoint receives on, and sends from
+   * @param remotePort The port the recipients are listening on
+   * @param ips The IP addresses of the recipients, fixed once the game has started
+   * @param outgoing The queue of frames to send to every recipient
+   * @param handler Handles the valid frames received
+   * @param threads The number of threads the endpoint may use, at least {@link #MIN_THREADS}
+   * @throws IOException if the channel could not be opened or bound
+   */
+  public DatagramTransport(
+      int localPort,
+      int remotePort,
+      List<InetAddress> ips,
+      BlockingQueue<byte[]> outgoing,
+      FrameHandler handler,
+      int threads)
+      throws IOException {
+    if (threads < MIN_THREADS) {
+      throw new IllegalArgumentException("A transport needs at least " + MIN_THREADS + " threads");
+    }
+    this.outgoing = outgoing;
+    this.handler = handler;
+    this.recipients = new InetSocketAddress[ips.size()];
+    for (int i = 0; i < recipients.length; i++) {
+      recipients[i] = new InetSocketAddress(ips.get(i), remotePort);
+    }
+    this.channel = DatagramChannel.open();
+    channel.bind(new InetSocketAddress(localPort));
+    channel.configureBlocking(false);
+    this.selector = Selector.open();
+    channel.register(selector, SelectionKey.OP_READ);
+
+    this.receiver = new Thread(this::receiveLoop, "transport-receiver-" + localPort);
+    receiver.setDaemon(true);
+    this.senders = new Thread[threads - 1];
+    for (int i = 0; i < senders.length; i++) {
+      senders[i] = new Thread(this::sendLoop, "transport-sender-" + localPort + "-" + i);
+      senders[i].setDaemon(true);
+    }
+  }
+
+  /** Starts the receiving and sending threads. */
+  public void start() {
+    receiver.start();
+    for (Thread sender : senders) {
+      sender.start();
+    }
+  }
+
+  /** Waits on the selector for datagrams until shut down. */
+  private void receiveLoop() {
+    ByteBuffer buffer = POOL.acquire();
+    try {
+      while (running) {
+        if (selector.select() > 0) {
+          selector.selectedKeys().clear();
+          receiveAll(buffer);
+        }
+      }
+    } catch (IOException e) {
+      if (running) {
+        e.printStackTrace();
+      }
+    } finally {
+      POOL.release(buffer);
+      close();
+    }
+  }
+
+  /**
+   * Reads every datagram waiting on the channel, passing those that are valid frames to the
+   * handler. A frame the handler throws on is dropped, so one bad frame can't stop the receiver.
+   *
+   * @param buffer The buffer to read datagrams into
+   * @throws IOException caused by the channel
+   */
+  private void receiveAll(ByteBuffer buffer) throws IOException {
+    buffer.clear();
+    while (channel.receive(buffer) != null) {
+      buffer.flip();
+      if (decoder.typeOf(buffer) != null) { // drops unversioned packets
+        try {
+          handler.onFrame(buffer);
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+        }
+      }
+      buffer.clear();
+    }
+  }
+
+  /** Waits for frames on the outgoing queue and sends them in batches until shut down. */
+  private void sendLoop() {
+    ByteBuffer buffer = POOL.acquire();
+    ArrayList<byte[]> batch = new ArrayList<>(SEND_BATCH);
+    try {
+      while (running) {
+        batch.add(outgoing.take());
+        outgoing.drainTo(batch, SEND_BATCH - 1);
+        for (byte[] frame : batch) {
+          send(buffer, frame);
+        }
+        batch.clear();
+      }
+    } catch (InterruptedException | ClosedChannelException e) {
+      // shut down while waiting or sending
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      POOL.release(buffer);
+    }
+  }
+
+  /**
+   * Sends a frame to each of the recipients.
+   *
+   * @param buffer The buffer to send the frame from
+   * @param frame The frame to send
+   * @throws IOException caused by the channel
+   */
+  private void send(ByteBuffer buffer, byte[] frame) throws IOException {
+    buffer.clear();
+    buffer.put(frame).flip();
+    for (InetSocketAddress recipient : recipients) {
+      // a full send buffer drops the datagram, as the network may have anyway
+      channel.send(buffer, recipient);
+      buffer.rewind();
+    }
+  }
+
+  /**
+   * Sends any frames still queued, such as the stop frame, then stops the transport, waking its
+   * threads, and closes its channel.
+   */
+  public void shutdown() {
+    ByteBuffer buffer = POOL.acquire();
+    try {
+      byte[] frame;
+      while ((frame = outgoing.poll()) != null) {
+        send(buffer, frame);
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      POOL.release(buffer);
+    }
+    running = false;
+    selector.wakeup();
+    for (Thread sender : senders) {
+      sender.interrupt();
+    }
+  }
+
+  /** Closes the selector and channel once the receiving thread has stopped. */
+  private void close() {
+    try {
+      selector.close();
+      channel.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
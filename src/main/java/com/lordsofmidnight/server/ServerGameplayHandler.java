@@ -1,84 +1,143 @@
 package com.lordsofmidnight.server;
 
+import com.lordsofmidnight.server.codec.BinaryPacketCodec;
+import com.lordsofmidnight.server.codec.PacketDecoder;
+import com.lordsofmidnight.server.codec.PacketListener;
+import com.lordsofmidnight.server.snapshot.SnapshotAcks;
 import com.lordsofmidnight.utils.Input;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.BufferUnderflowException;
 import java.util.ArrayList;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.BlockingQueue;
 
-// input switched from string to input form in this stage
+// input switched from frame to input form in this stage
 public class ServerGameplayHandler {
 
   private Queue<Input> inputQueue;
-  private Queue<String> outgoingQueue;
-  private Queue<String> incomingQueue;
+  private BlockingQueue<byte[]> outgoingQueue;
+  private PacketDecoder decoder = new BinaryPacketCodec();
+  private SnapshotAcks snapshotAcks;
 
-  private Thread incomingPacketManager;
-
-  private PacketSender sender;
-  private PacketReceiver receiver;
+  private DatagramTransport transport;
 
   private ArrayList<InetAddress> ipStore;
 
   private int playerCount;
-  private boolean running = true;
 
   /**
-   * Creates the appropriate senders and recievers for the running of the game and starts them. the
-   * reciever turns strings recieved into {@link Input}s the queues feed into telemetry.
+   * Creates the transport for the running of the game and starts it, using the default number of
+   * threads. Frames received are turned into {@link Input}s for telemetry.
+   */
+  public ServerGameplayHandler(
+      ArrayList<InetAddress> ips,
+      int numPlayers,
+      Queue<Input> inputQueue,
+      BlockingQueue<byte[]> outputQueue)
+      throws IOException {
+    this(ips, numPlayers, inputQueue, outputQueue, NetworkUtility.GAMEPLAY_THREADS);
+  }
+
+  /**
+   * Creates the transport for the running of the game and starts it. Frames received are turned
+   * into {@link Input}s for telemetry.
+   *
+   * @param threads The number of threads the transport may use
+   */
+  public ServerGameplayHandler(
+      ArrayList<InetAddress> ips,
+      int numPlayers,
+      Queue<Input> inputQueue,
+      BlockingQueue<byte[]> outputQueue,
+      int threads)
+      throws IOException {
+    this(
+        ips,
+        numPlayers,
+        inputQueue,
+        outputQueue,
+        threads,
+        NetworkUtility.SERVER_DGRAM_PORT,
+        NetworkUtility.CLIENT_DGRAM_PORT);
+  }
+
+  /**
+   * Creates the transport for the running of the game on the given ports and starts it, so that a
+   * dedicated server can run several games side by side. Frames received are turned into {@link
+   * Input}s for telemetry.
+   *
+   * @param threads The number of threads the transport may use
+   * @param serverPort The port to receive inputs on
+   * @param clientPort The port the clients receive the game on
    */
   public ServerGameplayHandler(
       ArrayList<InetAddress> ips,
       int numPlayers,
       Queue<Input> inputQueue,
-      Queue<String> outputQueue)
+      BlockingQueue<byte[]> outputQueue,
+      int threads,
+      int serverPort,
+      int clientPort)
       throws IOException {
 
     this.inputQueue = inputQueue;
     outgoingQueue = outputQueue;
-    incomingQueue = new ConcurrentLinkedQueue<>();
     this.playerCount = numPlayers;
-    initialisePacketManagers();
+    this.snapshotAcks = new SnapshotAcks(numPlayers);
 
     this.ipStore = ips;
-    this.sender = new PacketSender(NetworkUtility.CLIENT_DGRAM_PORT, this.outgoingQueue, ipStore);
-    this.receiver = new PacketReceiver(NetworkUtility.SERVER_DGRAM_PORT, this.incomingQueue);
-    this.incomingPacketManager.start();
-    this.sender.start();
-    this.receiver.start();
+    this.transport =
+        new DatagramTransport(
+            serverPort,
+            clientPort,
+            ipStore,
+            this.outgoingQueue,
+            createFrameHandler(),
+            threads);
+    this.transport.start();
   }
 
   /**
-   * Initialises the packet managers
+   * Creates the handler that decodes frames as they are received, adding the Inputs of players to
+   * the inputQueue and recording snapshot acknowledgements
+   *
+   * @return The frame handler
    */
-  private void initialisePacketManagers() {
-    // turns strings from incomingQueue into Inputs and adds them to the inputQueue
-    this.incomingPacketManager =
-        new Thread() {
-          public void run() {
-            while (!isInterrupted() && running) {
-              if (incomingQueue.isEmpty()) {
-                continue;
-              }
-              inputQueue.add(Input.fromString(incomingQueue.poll()));
-
-              try {
-                Thread.sleep(1);
-              } catch (InterruptedException e) {
-                e.printStackTrace();
-              }
+  private DatagramTransport.FrameHandler createFrameHandler() {
+    PacketListener inputListener =
+        new PacketListener() {
+          @Override
+          public void onInput(Input input) {
+            int id = input.getClientID();
+            if (id >= 0 && id < playerCount) { // ids of AI agents aren't taken from the network
+              inputQueue.add(input);
             }
           }
+
+          @Override
+          public void onSnapshotAck(int id, int tick) {
+            snapshotAcks.acknowledge(id, tick);
+          }
         };
+    return frame -> {
+      try {
+        decoder.decode(frame, inputListener);
+      } catch (IllegalArgumentException | BufferUnderflowException e) {
+        System.out.println("Dropped malformed input packet");
+      }
+    };
+  }
+
+  /** @return The snapshots acknowledged by each client */
+  public SnapshotAcks getSnapshotAcks() {
+    return snapshotAcks;
   }
 
   /**
    * Closes the threads.
    */
   public void close() {
-    receiver.shutdown();
-    sender.shutdown();
-    running = false; // shuts down incoming packet manager
+    transport.shutdown();
   }
 }
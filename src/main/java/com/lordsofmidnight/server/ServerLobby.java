@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -37,7 +38,7 @@ public class ServerLobby {
   private ArrayList<InetAddress> playerIPs;
   private ServerGameplayHandler s;
   private String[] names = new String[5];
-  private Queue<String> outputQueue;
+  private BlockingQueue<byte[]> outputQueue;
   private int MIPID;
   private boolean[] usedIDs = {false, false, false, false, false};
   private ArrayList<Socket> activeClientSockets = new ArrayList<>();
@@ -127,7 +128,8 @@ public class ServerLobby {
    *
    * @return The server gameplay handler which will be used by the client.
    */
-  public ServerGameplayHandler gameStart(Queue<Input> inputQueue, Queue<String> outputQueue) {
+  public ServerGameplayHandler gameStart(
+      Queue<Input> inputQueue, BlockingQueue<byte[]> outputQueue) {
     this.outputQueue = outputQueue;
     pinger.interrupt();
     acceptConnections.interrupt();
@@ -0,0 +1,448 @@
+package com.lordsofmidnight.server.codec;
+
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.objects.powerUps.PowerUp;
+import com.lordsofmidnight.server.NetworkUtility;
+import com.lordsofmidnight.server.snapshot.Snapshot;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Fixed layout binary encoding of the gameplay packets. Every frame starts with the protocol
+ * {@link #VERSION} and the {@link PacketType} id, each a single byte. Coordinates are unsigned
+ * fixed point shorts with {@link #FIXED_POINT_SCALE} steps per map square, and ticks, deltas and
+ * the game timer are zigzag varints. Snapshots only hold the fields of each entity that changed
+ * since their baseline, marked by a bit mask per entity.
+ *
+ * <p>Frames are written into a single reusable buffer, so the encoding methods are synchronized.
+ */
+public class BinaryPacketCodec implements PacketEncoder, PacketDecoder {
+
+  /** Protocol version, frames with any other version are rejected */
+  public static final int VERSION = 3;
+
+  static final int FIXED_POINT_SCALE = Snapshot.POSITION_SCALE;
+  private static final int HEADER_SIZE = 2;
+  private static final int CHANGED_POSITION = 1;
+  private static final int CHANGED_DIRECTION = 1 << 1;
+  private static final int CHANGED_SCORE = 1 << 2;
+  private static final int CHANGED_INVENTORY = 1 << 3;
+  private static final int CHANGED_LAST_INPUT = 1 << 4;
+  private static final int PELLET_FLIPS = 0;
+  private static final int PELLET_BITMAP = 1;
+
+  private final ByteBuffer out = ByteBuffer.allocate(NetworkUtility.FRAME_LIMIT);
+  private final BitSet flips = new BitSet();
+
+  /**
+   * The largest a snapshot frame can be, when every field of every agent changes by as much as it
+   * can and the pellets are sent as a bitmap
+   *
+   * @param agentCount The number of agents in the game
+   * @param maxX The width of the map
+   * @param maxY The height of the map
+   * @return The size of the frame in bytes
+   */
+  public static int maxSnapshotSize(int agentCount, int maxX, int maxY) {
+    int coord = varIntSize(Math.max(maxX, maxY) * FIXED_POINT_SCALE);
+    int delta = varIntSize(Integer.MIN_VALUE);
+    int header = HEADER_SIZE + 3 * delta + 2; // ticks, time, mipID, count
+    // mask, position, direction, score, inventory, last input
+    int agent = 1 + 2 * coord + 1 + delta + 1 + delta;
+    int pellets = 1 + (maxX * maxY + 7) / 8;
+    return header + agentCount * agent + pellets;
+  }
+
+  /**
+   * @throws IllegalArgumentException If the snapshot may not fit in a frame, checked before any of
+   *     it is written
+   */
+  @Override
+  public synchronized byte[] snapshot(Snapshot baseline, Snapshot current) {
+    int count = current.getAgentCount();
+    if (maxSnapshotSize(count, current.getMaxX(), current.getMaxY()) > out.capacity()) {
+      throw new IllegalArgumentException(
+          "a snapshot of " + count + " agents on this map may not fit in a frame");
+    }
+    // tick | baseline tick | mipID | time | count | change mask per agent | changes | pellets
+    begin(PacketType.SNAPSHOT);
+    putVarInt(current.getTick());
+    putVarInt(baseline == null ? Snapshot.NO_TICK : baseline.getTick());
+    out.put((byte) current.getMipID());
+    putVarInt(current.getGameTime());
+    out.put((byte) count);
+    int maskStart = out.position();
+    out.position(maskStart + count);
+    for (int i = 0; i < count; i++) {
+      int mask = 0;
+      int dx = current.getX(i) - (baseline == null ? 0 : baseline.getX(i));
+      int dy = current.getY(i) - (baseline == null ? 0 : baseline.getY(i));
+      if (dx != 0 || dy != 0) {
+        mask |= CHANGED_POSITION;
+        putVarInt(dx);
+        putVarInt(dy);
+      }
+      if (baseline == null || current.getDirection(i) != baseline.getDirection(i)) {
+        mask |= CHANGED_DIRECTION;
+        out.put((byte) current.getDirection(i));
+      }
+      int ds = current.getScore(i) - (baseline == null ? 0 : baseline.getScore(i));
+      if (ds != 0) {
+        mask |= CHANGED_SCORE;
+        putVarInt(ds);
+      }
+      if (baseline == null || current.getInventory(i) != baseline.getInventory(i)) {
+        mask |= CHANGED_INVENTORY;
+        out.put((byte) current.getInventory(i));
+      }
+      int dInput = current.getLastInput(i) - (baseline == null ? 0 : baseline.getLastInput(i));
+      if (dInput != 0) {
+        mask |= CHANGED_LAST_INPUT;
+        putVarInt(dInput);
+      }
+      out.put(maskStart + i, (byte) mask);
+    }
+    putPellets(baseline, current);
+    return finish();
+  }
+
+  @Override
+  public synchronized byte[] snapshotAck(int id, int tick) {
+    begin(PacketType.SNAPSHOT_ACK);
+    out.put((byte) id);
+    putVarInt(tick);
+    return finish();
+  }
+
+  @Override
+  public synchronized byte[] entityMovement(Input input, Point position, int mipID) {
+    begin(PacketType.ENTITY_MOVEMENT);
+    putInput(input);
+    putCoord(position.getX());
+    putCoord(position.getY());
+    out.put((byte) mipID);
+    return finish();
+  }
+
+  @Override
+  public synchronized byte[] powerUpUsed(int id, PowerUp powerUp, Point position) {
+    begin(PacketType.POWERUP_USED);
+    out.put((byte) id);
+    out.put((byte) powerUp.toInt());
+    putCoord(position.getX());
+    putCoord(position.getY());
+    return finish();
+  }
+
+  @Override
+  public synchronized byte[] powerUpBox(Point position) {
+    begin(PacketType.POWERUP_BOX);
+    putCoord(position.getX());
+    putCoord(position.getY());
+    return finish();
+  }
+
+  @Override
+  public synchronized byte[] input(Input input) {
+    begin(PacketType.INPUT);
+    putInput(input);
+    return finish();
+  }
+
+  @Override
+  public synchronized byte[] stop() {
+    begin(PacketType.STOP);
+    return finish();
+  }
+
+  @Override
+  public PacketType typeOf(ByteBuffer frame) {
+    if (frame.remaining() < HEADER_SIZE || frame.get(frame.position()) != VERSION) {
+      return null;
+    }
+    return PacketType.fromInt(frame.get(frame.position() + 1));
+  }
+
+  @Override
+  public void decode(ByteBuffer frame, PacketListener listener) {
+    PacketType type = typeOf(frame);
+    if (type == null) {
+      throw new IllegalArgumentException("Frame was not made by a version " + VERSION + " encoder");
+    }
+    frame.position(frame.position() + HEADER_SIZE);
+    switch (type) {
+      case SNAPSHOT:
+        {
+          int tick = getVarInt(frame);
+          Snapshot snapshot = listener.onSnapshotStart(tick, getVarInt(frame));
+          if (snapshot != null) {
+            getSnapshot(frame, tick, snapshot);
+            listener.onSnapshot(snapshot);
+          }
+          break;
+        }
+      case ENTITY_MOVEMENT:
+        {
+          Input input = getInput(frame);
+          double x = getCoord(frame);
+          double y = getCoord(frame);
+          listener.onEntityMovement(input, x, y, frame.get() & 0xFF);
+          break;
+        }
+      case SNAPSHOT_ACK:
+        {
+          int id = frame.get() & 0xFF;
+          listener.onSnapshotAck(id, getVarInt(frame));
+          break;
+        }
+      case POWERUP_USED:
+        {
+          int id = frame.get() & 0xFF;
+          int powerUp = frame.get() & 0xFF;
+          double x = getCoord(frame);
+          double y = getCoord(frame);
+          listener.onPowerUpUsed(id, powerUp, x, y);
+          break;
+        }
+      case POWERUP_BOX:
+        {
+          double x = getCoord(frame);
+          double y = getCoord(frame);
+          listener.onPowerUpBox(x, y);
+          break;
+        }
+      case INPUT:
+        listener.onInput(getInput(frame));
+        break;
+      case STOP:
+        listener.onStop();
+        break;
+    }
+  }
+
+  /**
+   * Reads the rest of a snapshot frame, applying the changes to a copy of its baseline
+   *
+   * @param frame The frame being read, positioned after the ticks
+   * @param tick The tick of the snapshot
+   * @param snapshot The copy of the baseline
+   */
+  private static void getSnapshot(ByteBuffer frame, int tick, Snapshot snapshot) {
+    snapshot.setTick(tick);
+    snapshot.setMipID(frame.get() & 0xFF);
+    snapshot.setGameTime(getVarInt(frame));
+    int count = frame.get() & 0xFF;
+    if (count != snapshot.getAgentCount()) {
+      throw new IllegalArgumentException("Snapshot of " + count + " entities");
+    }
+    int maskStart = frame.position();
+    frame.position(maskStart + count);
+    for (int i = 0; i < count; i++) {
+      int mask = frame.get(maskStart + i);
+      if ((mask & CHANGED_POSITION) != 0) {
+        int x = snapshot.getX(i) + getVarInt(frame);
+        snapshot.setPosition(i, x, snapshot.getY(i) + getVarInt(frame));
+      }
+      if ((mask & CHANGED_DIRECTION) != 0) {
+        snapshot.setDirection(i, frame.get());
+      }
+      if ((mask & CHANGED_SCORE) != 0) {
+        snapshot.setScore(i, snapshot.getScore(i) + getVarInt(frame));
+      }
+      if ((mask & CHANGED_INVENTORY) != 0) {
+        snapshot.setInventory(i, frame.get() & 0xFF);
+      }
+      if ((mask & CHANGED_LAST_INPUT) != 0) {
+        snapshot.setLastInput(i, snapshot.getLastInput(i) + getVarInt(frame));
+      }
+    }
+    getPellets(frame, snapshot);
+  }
+
+  /**
+   * Writes the pellets of a snapshot, either as the cells that changed since the baseline or as a
+   * bitmap of every cell, whichever is smaller
+   *
+   * @param baseline The baseline, or null if there is none
+   * @param current The snapshot being written
+   */
+  private void putPellets(Snapshot baseline, Snapshot current) {
+    flips.clear();
+    flips.or(current.getPellets());
+    if (baseline != null) {
+      flips.xor(baseline.getPellets());
+    }
+    int listSize = varIntSize(flips.cardinality());
+    int previous = -1;
+    for (int cell = flips.nextSetBit(0); cell >= 0; cell = flips.nextSetBit(cell + 1)) {
+      listSize += varIntSize(cell - previous);
+      previous = cell;
+    }
+    int bitmapSize = (current.getCellCount() + 7) / 8;
+    if (listSize <= bitmapSize) {
+      out.put((byte) PELLET_FLIPS);
+      putVarInt(flips.cardinality());
+      previous = -1;
+      for (int cell = flips.nextSetBit(0); cell >= 0; cell = flips.nextSetBit(cell + 1)) {
+        putVarInt(cell - previous);
+        previous = cell;
+      }
+    } else {
+      out.put((byte) PELLET_BITMAP);
+      BitSet pellets = current.getPellets();
+      for (int i = 0; i < bitmapSize; i++) {
+        int b = 0;
+        for (int bit = 0; bit < 8; bit++) {
+          if (pellets.get(i * 8 + bit)) {
+            b |= 1 << bit;
+          }
+        }
+        out.put((byte) b);
+      }
+    }
+  }
+
+  /**
+   * Reads the pellets written by {@link #putPellets(Snapshot, Snapshot)}
+   *
+   * @param frame The frame being read
+   * @param snapshot The snapshot to apply them to
+   */
+  private static void getPellets(ByteBuffer frame, Snapshot snapshot) {
+    BitSet pellets = snapshot.getPellets();
+    if (frame.get() == PELLET_FLIPS) {
+      int flipCount = getVarInt(frame);
+      int cell = -1;
+      for (int i = 0; i < flipCount; i++) {
+        cell += getVarInt(frame);
+        pellets.flip(cell);
+      }
+    } else {
+      int bitmapSize = (snapshot.getCellCount() + 7) / 8;
+      for (int i = 0; i < bitmapSize; i++) {
+        int b = frame.get();
+        for (int bit = 0; bit < 8; bit++) {
+          pellets.set(i * 8 + bit, (b & (1 << bit)) != 0);
+        }
+      }
+    }
+  }
+
+  /**
+   * Clears the reusable buffer and writes the frame header
+   *
+   * @param type The type of frame being written
+   */
+  private void begin(PacketType type) {
+    out.clear();
+    out.put((byte) VERSION);
+    out.put((byte) type.toInt());
+  }
+
+  /**
+   * @return A copy of the frame written since {@link #begin(PacketType)}, which is queued for
+   *     another thread to send while this buffer is reused for the next frame
+   */
+  private byte[] finish() {
+    return Arrays.copyOf(out.array(), out.position());
+  }
+
+  /**
+   * Writes a coordinate as an unsigned fixed point short
+   *
+   * @param value The coordinate to write
+   */
+  private void putCoord(double value) {
+    out.putShort((short) Math.round(value * FIXED_POINT_SCALE));
+  }
+
+  /**
+   * Reads a coordinate written by {@link #putCoord(double)}
+   *
+   * @param frame The frame being read
+   * @return The coordinate
+   */
+  private static double getCoord(ByteBuffer frame) {
+    return (frame.getShort() & 0xFFFF) / (double) FIXED_POINT_SCALE;
+  }
+
+  /**
+   * Writes an int as a zigzag varint, using one byte for every 7 bits needed
+   *
+   * @param value The value to write
+   */
+  private void putVarInt(int value) {
+    int zigzag = (value << 1) ^ (value >> 31);
+    while ((zigzag & ~0x7F) != 0) {
+      out.put((byte) ((zigzag & 0x7F) | 0x80));
+      zigzag >>>= 7;
+    }
+    out.put((byte) zigzag);
+  }
+
+  /**
+   * @param value An int
+   * @return The number of bytes {@link #putVarInt(int)} writes for it
+   */
+  private static int varIntSize(int value) {
+    int zigzag = (value << 1) ^ (value >> 31);
+    int size = 1;
+    while ((zigzag & ~0x7F) != 0) {
+      zigzag >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * Reads an int written by {@link #putVarInt(int)}
+   *
+   * @param frame The frame being read
+   * @return The value
+   */
+  private static int getVarInt(ByteBuffer frame) {
+    int zigzag = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = frame.get();
+      zigzag |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return (zigzag >>> 1) ^ -(zigzag & 1);
+  }
+
+  /**
+   * Writes the client id, direction and sequence number of an input, item usage is written as
+   * {@link Direction#USE}
+   *
+   * @param input The input to write
+   */
+  private void putInput(Input input) {
+    out.put((byte) input.getClientID());
+    out.put((byte) (input.isItemUsage() ? Direction.USE : input.getMove()).toInt());
+    putVarInt(input.getSequence());
+  }
+
+  /**
+   * Reads an input written by {@link #putInput(Input)}
+   *
+   * @param frame The frame being read
+   * @return The input
+   * @throws IllegalArgumentException If the direction is not one that exists
+   */
+  private static Input getInput(ByteBuffer frame) {
+    int id = frame.get() & 0xFF;
+    int move = frame.get();
+    Direction direction = Direction.fromInt(move);
+    if (direction == null) {
+      throw new IllegalArgumentException("Input with direction " + move);
+    }
+    Input input = new Input(id, direction);
+    input.setSequence(getVarInt(frame));
+    return input;
+  }
+}
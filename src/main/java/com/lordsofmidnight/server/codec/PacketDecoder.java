@@ -0,0 +1,27 @@
+package com.lordsofmidnight.server.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads frames made by a {@link PacketEncoder} and hands their contents to a {@link
+ * PacketListener}.
+ */
+public interface PacketDecoder {
+
+  /**
+   * Checks the header of a frame without consuming it.
+   *
+   * @param frame The frame, from its position to its limit
+   * @return The type of the frame, or null if it was not made by a compatible encoder
+   */
+  PacketType typeOf(ByteBuffer frame);
+
+  /**
+   * Reads a frame and calls the listener method for each part of its contents.
+   *
+   * @param frame The frame, from its position to its limit
+   * @param listener The listener to inform of the contents
+   * @throws IllegalArgumentException if the frame was not made by a compatible encoder
+   */
+  void decode(ByteBuffer frame, PacketListener listener);
+}
@@ -0,0 +1,71 @@
+package com.lordsofmidnight.server.codec;
+
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.objects.powerUps.PowerUp;
+import com.lordsofmidnight.server.snapshot.Snapshot;
+import com.lordsofmidnight.utils.Input;
+
+/**
+ * Turns game state into frames that can be sent over the network. Every method returns a complete
+ * frame, including the protocol version and {@link PacketType}, which can be read back by a {@link
+ * PacketDecoder}.
+ */
+public interface PacketEncoder {
+
+  /**
+   * Makes the frame for a snapshot of the game, holding only what has changed since the baseline.
+   *
+   * @param baseline The snapshot every client has, or null to send the whole snapshot
+   * @param current The snapshot to send
+   * @return The encoded frame.
+   */
+  byte[] snapshot(Snapshot baseline, Snapshot current);
+
+  /**
+   * Makes the frame for a client to acknowledge that it has a snapshot.
+   *
+   * @param id The id of the client
+   * @param tick The tick of the snapshot
+   * @return The encoded frame.
+   */
+  byte[] snapshotAck(int id, int tick);
+
+  /**
+   * Makes the frame to inform clients of the position and movement of a single entity.
+   *
+   * @param input The most recent valid input of the agent (includes ID)
+   * @param position The last known position of the entity
+   * @param mipID the id of the entity that is currently MIPS man
+   * @return The encoded frame.
+   */
+  byte[] entityMovement(Input input, Point position, int mipID);
+
+  /**
+   * Makes the frame to inform clients that a powerup has been used.
+   *
+   * @param id of the player that used the powerup
+   * @param powerUp which powerup was used
+   * @param position The last known position of the entity
+   * @return The encoded frame.
+   */
+  byte[] powerUpUsed(int id, PowerUp powerUp, Point position);
+
+  /**
+   * Makes the frame to inform clients that a powerup box exists somewhere.
+   *
+   * @param position the powerup box location
+   * @return The encoded frame.
+   */
+  byte[] powerUpBox(Point position);
+
+  /**
+   * Makes the frame for an input sent from a client to the host.
+   *
+   * @param input the input to send
+   * @return The encoded frame.
+   */
+  byte[] input(Input input);
+
+  /** @return The frame telling clients the game has ended. */
+  byte[] stop();
+}
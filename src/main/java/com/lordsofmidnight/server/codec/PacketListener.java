@@ -0,0 +1,79 @@
+package com.lordsofmidnight.server.codec;
+
+import com.lordsofmidnight.server.snapshot.Snapshot;
+import com.lordsofmidnight.utils.Input;
+
+/**
+ * Receives the contents of frames read by a {@link PacketDecoder}. Every method does nothing by
+ * default so that each end of the connection only needs to handle the frames it expects.
+ */
+public interface PacketListener {
+
+  /**
+   * Called at the start of a {@link PacketType#SNAPSHOT} frame to find where its changes should be
+   * applied.
+   *
+   * @param tick The tick of the snapshot
+   * @param baselineTick The tick of the snapshot the changes are from, {@link Snapshot#NO_TICK}
+   *     if the frame holds the whole snapshot
+   * @return A copy of the baseline to apply the changes to, or null to skip the frame if it is
+   *     stale or the baseline is not held
+   */
+  default Snapshot onSnapshotStart(int tick, int baselineTick) {
+    return null;
+  }
+
+  /**
+   * Called once the changes in a {@link PacketType#SNAPSHOT} frame have been applied.
+   *
+   * @param snapshot The snapshot given by {@link #onSnapshotStart(int, int)}, now holding the
+   *     state at its tick
+   */
+  default void onSnapshot(Snapshot snapshot) {}
+
+  /**
+   * Called for a {@link PacketType#SNAPSHOT_ACK} frame.
+   *
+   * @param id The id of the client
+   * @param tick The tick of the snapshot it has
+   */
+  default void onSnapshotAck(int id, int tick) {}
+
+  /**
+   * Called for an {@link PacketType#ENTITY_MOVEMENT} frame.
+   *
+   * @param input The input that moved the entity
+   * @param x The x coordinate the input took place at
+   * @param y The y coordinate the input took place at
+   * @param mipID The id of the entity that is MIPS man
+   */
+  default void onEntityMovement(Input input, double x, double y, int mipID) {}
+
+  /**
+   * Called for a {@link PacketType#POWERUP_USED} frame.
+   *
+   * @param id The id of the entity that used the powerup
+   * @param powerUp The id of the powerup used
+   * @param x The x coordinate it was used at
+   * @param y The y coordinate it was used at
+   */
+  default void onPowerUpUsed(int id, int powerUp, double x, double y) {}
+
+  /**
+   * Called for a {@link PacketType#POWERUP_BOX} frame.
+   *
+   * @param x The x coordinate of the box
+   * @param y The y coordinate of the box
+   */
+  default void onPowerUpBox(double x, double y) {}
+
+  /**
+   * Called for an {@link PacketType#INPUT} frame.
+   *
+   * @param input The input sent by the client
+   */
+  default void onInput(Input input) {}
+
+  /** Called for a {@link PacketType#STOP} frame. */
+  default void onStop() {}
+}
@@ -0,0 +1,42 @@
+package com.lordsofmidnight.server.codec;
+
+/**
+ * The different kinds of frame that can be sent between the host and clients during a game. The
+ * id of each type is the byte written directly after the protocol version in every frame.
+ */
+public enum PacketType {
+  SNAPSHOT(0),
+  ENTITY_MOVEMENT(1),
+  SNAPSHOT_ACK(2),
+  POWERUP_USED(3),
+  POWERUP_BOX(4),
+  INPUT(5),
+  STOP(6);
+
+  private static final PacketType[] TYPES = values();
+
+  private final int id;
+
+  /** @param id the id of the packet type to create */
+  PacketType(int id) {
+    this.id = id;
+  }
+
+  /**
+   * Returns a packet type from its id
+   *
+   * @param n The packet types id
+   * @return the packet type requested, or null if there is no type with that id
+   */
+  public static PacketType fromInt(int n) {
+    if (n < 0 || n >= TYPES.length) {
+      return null;
+    }
+    return TYPES[n];
+  }
+
+  /** @return The id of the packet type */
+  public int toInt() {
+    return id;
+  }
+}
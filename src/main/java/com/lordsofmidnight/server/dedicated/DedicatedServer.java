@@ -0,0 +1,211 @@
+package com.lordsofmidnight.server.dedicated;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.maps.MapGenerator;
+import com.lordsofmidnight.server.journal.InputJournal;
+import com.lordsofmidnight.server.journal.ReplayEngine;
+import com.lordsofmidnight.server.telemeters.Telemetry;
+import com.lordsofmidnight.utils.TickScheduler;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Hosts many matches in one process with no client. Matches are spread over a fixed set of worker
+ * threads, each a {@link TickScheduler} running every match given to it on the same tick, so the
+ * number of threads doesn't grow with the number of matches.
+ */
+public class DedicatedServer {
+
+  private final TickScheduler[] workers;
+  private final int[] load; // matches on each worker
+  private final HashMap<Match, Integer> hosted = new HashMap<>(); // the worker of each match
+
+  /**
+   * Creates the server and starts its workers
+   *
+   * @param workerCount The number of threads to run matches on
+   */
+  public DedicatedServer(int workerCount) {
+    if (workerCount < 1) {
+      throw new IllegalArgumentException("a server needs at least one worker: " + workerCount);
+    }
+    workers = new TickScheduler[workerCount];
+    load = new int[workerCount];
+    for (int i = 0; i < workerCount; i++) {
+      workers[i] = new TickScheduler();
+      workers[i].setName("MatchWorker-" + i);
+      workers[i].start();
+    }
+  }
+
+  /**
+   * Runs the given number of matches played only by AI, each on a new random map, and prints how
+   * the workers kept up once they have all finished. Started with {@code verify} it instead plays
+   * two matches from the same seed in lockstep and reports whether they stayed identical, and with
+   * {@code replay} it plays a recorded match back as fast as it can.
+   *
+   * @param args The number of matches, the number of workers which defaults to one per processor,
+   *     then a directory to record the matches to if they should be recorded. Or {@code verify},
+   *     then the seed, the number of ticks to play and the number of agents. Or {@code replay},
+   *     then the journal file.
+   */
+  public static void main(String[] args) throws InterruptedException, IOException {
+    if (args.length > 0 && args[0].equals("verify")) {
+      verify(args);
+      return;
+    }
+    if (args.length > 1 && args[0].equals("replay")) {
+      replay(Paths.get(args[1]));
+      return;
+    }
+    int matchCount = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+    int workerCount =
+        args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    Path journals = args.length > 2 ? Paths.get(args[2]) : null;
+    DedicatedServer server = new DedicatedServer(workerCount);
+    for (int i = 0; i < matchCount; i++) {
+      Match match = new Match(i, new Map(MapGenerator.newRandomMap(0, 0)));
+      if (journals != null) {
+        match.getTelemetry().record(new InputJournal(journals.resolve("match-" + i + ".journal")));
+      }
+      server.host(match);
+    }
+    System.out.println("Hosting " + matchCount + " matches on " + workerCount + " workers");
+    server.awaitMatches();
+    server.printReport();
+    server.shutdown();
+  }
+
+  /**
+   * Plays two matches from the same seed in lockstep with no inputs and prints the result
+   *
+   * @param args {@code verify}, then the seed, the number of ticks to play and the number of agents
+   */
+  private static void verify(String[] args) {
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : new Random().nextLong();
+    int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 15000;
+    int agents = args.length > 3 ? Integer.parseInt(args[3]) : Telemetry.AGENT_COUNT;
+    int[][] grid = MapGenerator.generateNewMap(14, 14, new Random(seed));
+    int diverged =
+        LockstepVerifier.verify(grid, seed, agents, ticks, LockstepVerifier.InputLog.NONE);
+    if (diverged == LockstepVerifier.IN_LOCKSTEP) {
+      System.out.println("Seed " + seed + " stayed in lockstep for " + ticks + " ticks");
+    } else {
+      System.out.println("Seed " + seed + " diverged after tick " + diverged);
+    }
+  }
+
+  /**
+   * Replays a recorded match and prints how fast it ran and whether it played out as recorded
+   *
+   * @param journal The journal of the match
+   * @throws IOException If the journal can't be read
+   */
+  private static void replay(Path journal) throws IOException {
+    ReplayEngine replay = new ReplayEngine(journal);
+    int desync = replay.run();
+    long millis = Math.max(1, replay.getElapsedNanos() / 1000000);
+    long gameMillis = replay.getTicks() * TickScheduler.DEFAULT_TICK_NANOS / 1000000;
+    System.out.println(
+        "Replayed "
+            + replay.getTicks()
+            + " ticks in "
+            + millis
+            + "ms, "
+            + gameMillis / millis
+            + " times the speed of the game");
+    if (desync == ReplayEngine.IN_SYNC) {
+      System.out.println("Every tick matched the recording");
+    } else {
+      System.out.println("Tick " + desync + " differs from the recording");
+    }
+  }
+
+  /**
+   * Starts a match on the worker running the fewest matches
+   *
+   * @param match The match to host
+   */
+  public synchronized void host(Match match) {
+    int worker = 0;
+    for (int i = 1; i < workers.length; i++) {
+      if (load[i] < load[worker]) {
+        worker = i;
+      }
+    }
+    load[worker]++;
+    hosted.put(match, worker);
+    match.start(workers[worker], this::finished);
+  }
+
+  /**
+   * Takes a finished match off its worker
+   *
+   * @param match The match that finished
+   */
+  private synchronized void finished(Match match) {
+    Integer worker = hosted.remove(match);
+    if (worker != null) {
+      load[worker]--;
+      System.out.println(
+          "Match " + match.getId() + (match.getFailure() == null ? " finished" : " failed"));
+    }
+    notifyAll();
+  }
+
+  /** @return The number of matches being played */
+  public synchronized int getMatchCount() {
+    return hosted.size();
+  }
+
+  /**
+   * Waits until every match hosted has finished
+   *
+   * @throws InterruptedException If interrupted while waiting
+   */
+  public synchronized void awaitMatches() throws InterruptedException {
+    while (!hosted.isEmpty()) {
+      wait();
+    }
+  }
+
+  /** Prints the tick count, overruns and slowest tick of each worker */
+  public void printReport() {
+    for (TickScheduler worker : workers) {
+      System.out.println(
+          worker.getName()
+              + ": ticks="
+              + worker.getTick()
+              + " overruns="
+              + worker.getOverruns()
+              + " dropped="
+              + worker.getDroppedTicks()
+              + " slowest="
+              + worker.getMaxTickNanos() / 1000
+              + "us");
+    }
+  }
+
+  /** Stops every match still being played and the workers */
+  public void shutdown() {
+    ArrayList<Match> running;
+    synchronized (this) {
+      running = new ArrayList<>(hosted.keySet());
+    }
+    for (Match match : running) {
+      match.stop();
+    }
+    for (TickScheduler worker : workers) {
+      worker.close();
+    }
+  }
+
+  /** @return The workers matches are run on */
+  public TickScheduler[] getWorkers() {
+    return workers;
+  }
+}
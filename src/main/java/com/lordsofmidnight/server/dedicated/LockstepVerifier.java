@@ -0,0 +1,82 @@
+package com.lordsofmidnight.server.dedicated;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.server.telemeters.Telemetry;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.TickScheduler;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks that the simulation is deterministic. Two matches are made from the same seed and map and
+ * given the same inputs, then stepped side by side, comparing their state hashes after every tick.
+ */
+public class LockstepVerifier {
+
+  /** Returned by {@link #verify} when the matches never diverged */
+  public static final int IN_LOCKSTEP = -1;
+
+  /** The inputs to give a match, tick by tick */
+  public interface InputLog {
+
+    /** A log with no inputs, leaving every agent to the AI */
+    InputLog NONE = tick -> Collections.emptyList();
+
+    /**
+     * @param tick A tick, starting from 1
+     * @return The inputs to give the match before the tick is run
+     */
+    List<Input> inputsAt(int tick);
+  }
+
+  /**
+   * Plays two matches made from the same seed and map in lockstep
+   *
+   * @param grid The map to play on
+   * @param seed The seed of both matches
+   * @param ticks The number of ticks to play, fewer if the matches finish first
+   * @param log The inputs to give both matches
+   * @return The first tick after which the state hashes differed, {@link #IN_LOCKSTEP} if they
+   *     never did
+   */
+  public static int verify(int[][] grid, long seed, int ticks, InputLog log) {
+    return verify(grid, seed, Telemetry.AGENT_COUNT, ticks, log);
+  }
+
+  /**
+   * Plays two matches made from the same seed and map with the given number of agents in lockstep
+   *
+   * @param grid The map to play on
+   * @param seed The seed of both matches
+   * @param agentCount The number of agents in both matches
+   * @param ticks The number of ticks to play, fewer if the matches finish first
+   * @param log The inputs to give both matches
+   * @return The first tick after which the state hashes differed, {@link #IN_LOCKSTEP} if they
+   *     never did
+   */
+  public static int verify(int[][] grid, long seed, int agentCount, int ticks, InputLog log) {
+    Match first = new Match(0, new Map(grid), seed, agentCount);
+    Match second = new Match(1, new Map(grid), seed, agentCount);
+    TickScheduler firstScheduler = new TickScheduler();
+    TickScheduler secondScheduler = new TickScheduler();
+    first.start(firstScheduler, match -> {});
+    second.start(secondScheduler, match -> {});
+    try {
+      for (int tick = 1; tick <= ticks && !first.isFinished(); tick++) {
+        for (Input input : log.inputsAt(tick)) {
+          first.addInput(input);
+          second.addInput(input);
+        }
+        firstScheduler.step();
+        secondScheduler.step();
+        if (first.getTelemetry().stateHash() != second.getTelemetry().stateHash()) {
+          return tick;
+        }
+      }
+      return IN_LOCKSTEP;
+    } finally {
+      first.stop();
+      second.stop();
+    }
+  }
+}
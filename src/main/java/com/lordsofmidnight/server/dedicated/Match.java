@@ -0,0 +1,185 @@
+package com.lordsofmidnight.server.dedicated;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.server.NetworkUtility;
+import com.lordsofmidnight.server.ServerGameplayHandler;
+import com.lordsofmidnight.server.snapshot.SnapshotAcks;
+import com.lordsofmidnight.server.telemeters.GameListener;
+import com.lordsofmidnight.server.telemeters.HostTelemetry;
+import com.lordsofmidnight.server.telemeters.Telemetry;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.TickScheduler;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A game hosted by a {@link DedicatedServer}. It runs the host's physics and AI with no client, so
+ * nothing is rendered, played or loaded, and runs on a tick scheduler shared with other matches.
+ */
+public class Match implements GameListener {
+
+  private final int id;
+  private final BlockingQueue<Input> inputs = new LinkedBlockingQueue<>();
+  private final BlockingQueue<byte[]> outputs = new LinkedBlockingQueue<>();
+  private final HostTelemetry telemetry;
+  private final ServerGameplayHandler gameplayHandler;
+  private final AtomicBoolean finished = new AtomicBoolean();
+  private Consumer<Match> onFinish = match -> {};
+  private volatile RuntimeException failure;
+
+  /**
+   * Creates a match played only by AI
+   *
+   * @param id The id of the match on its server
+   * @param map The map to play on
+   */
+  public Match(int id, Map map) {
+    this(id, map, new Random().nextLong());
+  }
+
+  /**
+   * Creates a match played only by AI, which plays out the same way every time for the same seed
+   * and map
+   *
+   * @param id The id of the match on its server
+   * @param map The map to play on
+   * @param seed The seed of every random choice made in the match
+   */
+  public Match(int id, Map map, long seed) {
+    this(id, map, seed, Telemetry.AGENT_COUNT);
+  }
+
+  /**
+   * Creates a match played only by AI with the given number of agents, which plays out the same
+   * way every time for the same seed, map and number of agents
+   *
+   * @param id The id of the match on its server
+   * @param map The map to play on
+   * @param seed The seed of every random choice made in the match
+   * @param agentCount The number of agents, at most {@link Telemetry#MAX_AGENT_COUNT}
+   */
+  public Match(int id, Map map, long seed, int agentCount) {
+    this.id = id;
+    this.gameplayHandler = null;
+    this.telemetry =
+        new HostTelemetry(map, agentCount, 0, inputs, outputs, new SnapshotAcks(0), this, seed);
+  }
+
+  /**
+   * Creates a match for players connecting over the network, the remaining agents are controlled
+   * by AI. Each match on a server needs its own pair of ports.
+   *
+   * @param id The id of the match on its server
+   * @param map The map to play on
+   * @param ips The addresses of the players, a player's id is their index
+   * @param serverPort The port to receive inputs on
+   * @param clientPort The port the players receive the game on
+   * @throws IOException If the gameplay handler can't bind its port
+   */
+  public Match(int id, Map map, ArrayList<InetAddress> ips, int serverPort, int clientPort)
+      throws IOException {
+    this.id = id;
+    this.gameplayHandler =
+        new ServerGameplayHandler(
+            ips,
+            ips.size(),
+            inputs,
+            outputs,
+            NetworkUtility.GAMEPLAY_THREADS,
+            serverPort,
+            clientPort);
+    this.telemetry =
+        new HostTelemetry(
+            map,
+            ips.size(),
+            inputs,
+            outputs,
+            gameplayHandler.getSnapshotAcks(),
+            this,
+            new Random().nextLong());
+  }
+
+  /**
+   * Starts the match on a worker shared with other matches. If the match throws during a tick it is
+   * stopped, the other matches on the worker play on.
+   *
+   * @param worker The running scheduler to play the match on
+   * @param onFinish Told when the match has finished, been stopped or failed
+   */
+  void start(TickScheduler worker, Consumer<Match> onFinish) {
+    this.onFinish = onFinish;
+    telemetry.startGame(worker, this::failed);
+  }
+
+  /**
+   * Stops the match after it threw during a tick
+   *
+   * @param e What the match threw
+   */
+  private void failed(RuntimeException e) {
+    failure = e;
+    System.out.println("Match " + id + " failed: " + e);
+    e.printStackTrace();
+    stop();
+  }
+
+  /**
+   * Gives the match an input as if a player had sent it, it is applied on the next tick
+   *
+   * @param input The input
+   */
+  public void addInput(Input input) {
+    telemetry.addInput(input);
+  }
+
+  /** Ends the match, telling the players and taking it off its worker */
+  public void stop() {
+    if (!finished.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      telemetry.stopGame();
+      if (gameplayHandler != null) {
+        gameplayHandler.close(); // flushes the stop frame
+      }
+    } finally {
+      onFinish.accept(this);
+    }
+  }
+
+  /** There is no animation to pause for on a server, the game plays straight on */
+  @Override
+  public void collisionDetected(Entity newMipsman) {}
+
+  @Override
+  public void finishGame() {
+    stop();
+  }
+
+  /** @return The id of the match on its server */
+  public int getId() {
+    return id;
+  }
+
+  /** @return The telemetry running the match */
+  public HostTelemetry getTelemetry() {
+    return telemetry;
+  }
+
+  /** @return What the match threw if it failed, otherwise null */
+  public RuntimeException getFailure() {
+    return failure;
+  }
+
+  /** @return If the match has finished or been stopped */
+  public boolean isFinished() {
+    return finished.get();
+  }
+}
@@ -0,0 +1,158 @@
+package com.lordsofmidnight.server.journal;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * An append-only record of a game run by a host: the seed, who started as MIPS man, the number of
+ * agents and the map, then every input the host applied on each tick and a hash of the state the
+ * tick left behind. Writes are gathered in a buffer and handed to the file a block at a time, so
+ * recording a tick doesn't wait on the disk. The tick the game is stopped on is not recorded.
+ *
+ * <p>After the header each tick is its inputs, a client id and direction byte and the sequence
+ * number as a varint, then {@link #END_OF_TICK} and the 8 byte state hash. Read with a {@link
+ * JournalReader}.
+ */
+public class InputJournal implements Closeable {
+
+  static final int MAGIC = 0x4C4F4D4A; // "LOMJ"
+  static final int VERSION = 2;
+  static final int END_OF_TICK = 0xFF; // never a client id
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private boolean begun;
+  private boolean closed;
+
+  /**
+   * Creates the journal, replacing any file already at the path
+   *
+   * @param path The file to write the journal to
+   * @throws IOException If the file can't be opened
+   */
+  public InputJournal(Path path) throws IOException {
+    channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING);
+  }
+
+  /**
+   * Writes the header, everything needed to set the game up again as it started
+   *
+   * @param seed The seed of the game
+   * @param mipID The id of the agent that started as MIPS man
+   * @param agentCount The number of agents in the game
+   * @param map The map the game is played on
+   */
+  public synchronized void begin(long seed, int mipID, int agentCount, Map map) {
+    if (closed || begun) {
+      return;
+    }
+    begun = true;
+    ensure(4 + 1 + 8 + 1 + 1 + 4 + 4);
+    buffer.putInt(MAGIC);
+    buffer.put((byte) VERSION);
+    buffer.putLong(seed);
+    buffer.put((byte) mipID);
+    buffer.put((byte) agentCount);
+    buffer.putInt(map.getMaxX());
+    buffer.putInt(map.getMaxY());
+    for (int[] column : map.raw()) {
+      for (int cell : column) {
+        ensure(1);
+        buffer.put((byte) cell);
+      }
+    }
+  }
+
+  /**
+   * Records an input applied on the current tick
+   *
+   * @param input The input, as the host applied it
+   */
+  public synchronized void record(Input input) {
+    if (closed) {
+      return;
+    }
+    ensure(7);
+    buffer.put((byte) input.getClientID());
+    buffer.put((byte) (input.isItemUsage() ? Direction.USE : input.getMove()).toInt());
+    putVarInt(input.getSequence());
+  }
+
+  /**
+   * Ends the current tick
+   *
+   * @param stateHash The hash of the game state the tick left behind
+   */
+  public synchronized void endTick(long stateHash) {
+    if (closed) {
+      return;
+    }
+    ensure(9);
+    buffer.put((byte) END_OF_TICK);
+    buffer.putLong(stateHash);
+  }
+
+  /** Writes out anything buffered and closes the file, anything recorded afterwards is ignored */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    flush();
+    closed = true;
+    try {
+      channel.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Makes room in the buffer, writing it out first if it is too full
+   *
+   * @param bytes The number of bytes about to be put
+   */
+  private void ensure(int bytes) {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  /** Writes the buffer to the file. If that fails the game carries on unrecorded. */
+  private void flush() {
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      System.out.println("Journal write failed, recording stopped: " + e.getMessage());
+      closed = true;
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Writes a non-negative number in as few bytes as it needs, 7 bits to a byte
+   *
+   * @param value The number
+   */
+  private void putVarInt(int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+}
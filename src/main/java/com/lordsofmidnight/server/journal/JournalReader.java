@@ -0,0 +1,131 @@
+package com.lordsofmidnight.server.journal;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Reads back a journal written by an {@link InputJournal}. The file is memory mapped, so ticks are
+ * read straight out of the page cache with no copying or system calls.
+ */
+public class JournalReader {
+
+  private final ByteBuffer journal;
+  private final long seed;
+  private final int mipID;
+  private final int agentCount;
+  private final int[][] grid;
+  private final ArrayList<Input> pending = new ArrayList<>();
+  private long tickHash;
+
+  /**
+   * Opens a journal and reads its header
+   *
+   * @param path The journal file
+   * @throws IOException If the file can't be read or isn't a journal
+   */
+  public JournalReader(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, READ)) {
+      journal = channel.map(MapMode.READ_ONLY, 0, channel.size());
+    }
+    try {
+      if (journal.getInt() != InputJournal.MAGIC) {
+        throw new IOException("not a journal: " + path);
+      }
+      int version = journal.get();
+      if (version != InputJournal.VERSION) {
+        throw new IOException("unsupported journal version " + version + ": " + path);
+      }
+      seed = journal.getLong();
+      mipID = journal.get() & 0xFF;
+      agentCount = journal.get() & 0xFF;
+      grid = new int[journal.getInt()][journal.getInt()];
+      for (int[] column : grid) {
+        for (int y = 0; y < column.length; y++) {
+          column[y] = journal.get();
+        }
+      }
+    } catch (BufferUnderflowException e) {
+      throw new IOException("journal header is cut short: " + path);
+    }
+  }
+
+  /**
+   * Reads the next tick
+   *
+   * @param inputs The collection to add the tick's inputs to, in the order they were applied
+   * @return False if there are no more complete ticks, in which case nothing is added
+   */
+  public boolean nextTick(Collection<Input> inputs) {
+    pending.clear();
+    try {
+      int id;
+      while ((id = journal.get() & 0xFF) != InputJournal.END_OF_TICK) {
+        Input input = new Input(id, Direction.fromInt(journal.get()));
+        input.setSequence(getVarInt());
+        pending.add(input);
+      }
+      tickHash = journal.getLong();
+    } catch (BufferUnderflowException e) {
+      return false; // the end, or a tick left half written when the host stopped
+    }
+    inputs.addAll(pending);
+    return true;
+  }
+
+  /** @return The state hash recorded at the end of the tick last read */
+  public long getTickHash() {
+    return tickHash;
+  }
+
+  /** @return The number of agents in the game */
+  public int getAgentCount() {
+    return agentCount;
+  }
+
+  /** @return The seed the game was played with */
+  public long getSeed() {
+    return seed;
+  }
+
+  /** @return The id of the agent that started as MIPS man */
+  public int getMipID() {
+    return mipID;
+  }
+
+  /** @return A new copy of the map the game was played on */
+  public Map getMap() {
+    int[][] copy = new int[grid.length][];
+    for (int x = 0; x < grid.length; x++) {
+      copy[x] = grid[x].clone();
+    }
+    return new Map(copy);
+  }
+
+  /**
+   * Reads a number written by {@link InputJournal}'s varint encoding
+   *
+   * @return The number
+   */
+  private int getVarInt() {
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = journal.get();
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+}
@@ -0,0 +1,101 @@
+package com.lordsofmidnight.server.journal;
+
+import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.server.telemeters.GameListener;
+import com.lordsofmidnight.server.telemeters.HostTelemetry;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.TickScheduler;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Plays a recorded game back from its journal with no client. Ticks are run back to back on the
+ * calling thread rather than at the speed of the game, and the state after each one is checked
+ * against the hash recorded, so a replay finds the first tick that no longer plays out the way it
+ * was recorded.
+ */
+public class ReplayEngine implements GameListener {
+
+  /** Returned by {@link #run()} when every tick matched its recording */
+  public static final int IN_SYNC = -1;
+
+  private final JournalReader reader;
+  private final BlockingQueue<Input> inputs = new LinkedBlockingQueue<>();
+  private final ArrayList<Input> tickInputs = new ArrayList<>();
+  private final TickScheduler scheduler = new TickScheduler(); // never started, stepped by run
+  private final HostTelemetry telemetry;
+  private int ticks;
+  private long elapsedNanos;
+  private boolean finished;
+
+  /**
+   * Sets the recorded game up as it started
+   *
+   * @param journal The journal of the game
+   * @throws IOException If the journal can't be read
+   */
+  public ReplayEngine(Path journal) throws IOException {
+    reader = new JournalReader(journal);
+    telemetry =
+        new HostTelemetry(
+            reader.getMap(),
+            reader.getSeed(),
+            reader.getAgentCount(),
+            reader.getMipID(),
+            inputs,
+            this);
+    telemetry.startGame(scheduler);
+  }
+
+  /**
+   * Plays every recorded tick, stopping early at the first one whose state differs from the
+   * recording
+   *
+   * @return The number of the tick that differed, counting from 1, or {@link #IN_SYNC}
+   */
+  public int run() {
+    long start = System.nanoTime();
+    try {
+      while (!finished && reader.nextTick(tickInputs)) {
+        inputs.addAll(tickInputs);
+        tickInputs.clear();
+        scheduler.step();
+        ticks++;
+        if (telemetry.stateHash() != reader.getTickHash()) {
+          return ticks;
+        }
+      }
+      return IN_SYNC;
+    } finally {
+      elapsedNanos = System.nanoTime() - start;
+      telemetry.stopGame();
+    }
+  }
+
+  /** Nothing to animate, the replay plays straight on */
+  @Override
+  public void collisionDetected(Entity newMipsman) {}
+
+  @Override
+  public void finishGame() {
+    finished = true;
+  }
+
+  /** @return The number of ticks played */
+  public int getTicks() {
+    return ticks;
+  }
+
+  /** @return How long {@link #run()} took in nanoseconds */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /** @return The telemetry the game is replayed on */
+  public HostTelemetry getTelemetry() {
+    return telemetry;
+  }
+}
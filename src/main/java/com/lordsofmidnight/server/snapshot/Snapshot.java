@@ -0,0 +1,335 @@
+package com.lordsofmidnight.server.snapshot;
+
+import com.lordsofmidnight.gamestate.WorldSnapshot;
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.objects.powerUps.PowerUp;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The replicated state of a game at one tick: the position, direction, score and inventory of every
+ * entity, the last input the host processed from each of them and which pellets are active.
+ * Positions are held as fixed point ints so that deltas between snapshots are exact. Snapshots are
+ * reused by a {@link SnapshotHistory} rather than created for every tick.
+ */
+public class Snapshot {
+
+  /** The tick of a snapshot that holds no state, ticks start from 1 */
+  public static final int NO_TICK = 0;
+  /** Fixed point steps per map square */
+  public static final int POSITION_SCALE = 512;
+  /** The packed inventory of an entity holding nothing */
+  public static final int EMPTY_INVENTORY = 0;
+
+  private final int[] x;
+  private final int[] y;
+  private final byte[] direction;
+  private final int[] score;
+  private final byte[] inventory;
+  private final int[] lastInput;
+  private final BitSet pellets;
+  private final int cellCount;
+  private final int maxY;
+  private int tick = NO_TICK;
+  private int mipID;
+  private int gameTime;
+
+  /**
+   * @param agentCount The number of entities in the game
+   * @param map The map being played on, used to give each pellet a cell id
+   */
+  public Snapshot(int agentCount, Map map) {
+    this.x = new int[agentCount];
+    this.y = new int[agentCount];
+    this.direction = new byte[agentCount];
+    this.score = new int[agentCount];
+    this.inventory = new byte[agentCount];
+    this.lastInput = new int[agentCount];
+    this.maxY = map.getMaxY();
+    this.cellCount = map.getMaxX() * maxY;
+    this.pellets = new BitSet(cellCount);
+  }
+
+  /**
+   * Records the state of the game published by a tick
+   *
+   * @param tick The tick of this snapshot
+   * @param world The state of the game, from the same map
+   * @param lastInputs The sequence number of the last input processed from each entity
+   */
+  public void capture(int tick, WorldSnapshot world, int[] lastInputs) {
+    this.tick = tick;
+    int mipsman = world.getMipID();
+    this.mipID = mipsman == WorldSnapshot.NO_AGENT ? 0 : mipsman; // clients default to the first
+    this.gameTime = world.getGameTime();
+    for (int i = 0; i < x.length; i++) {
+      x[i] = toFixed(world.getX(i));
+      y[i] = toFixed(world.getY(i));
+      Direction d = world.getDirection(i);
+      direction[i] = (byte) (d == null ? Direction.STOP : d).toInt();
+      score[i] = world.getScore(i);
+      inventory[i] = (byte) world.getInventory(i);
+      lastInput[i] = lastInputs[i];
+    }
+    world.getPellets(pellets);
+  }
+
+  /**
+   * Makes this snapshot a copy of another one from the same game
+   *
+   * @param other The snapshot to copy
+   */
+  public void copyFrom(Snapshot other) {
+    tick = other.tick;
+    mipID = other.mipID;
+    gameTime = other.gameTime;
+    System.arraycopy(other.x, 0, x, 0, x.length);
+    System.arraycopy(other.y, 0, y, 0, y.length);
+    System.arraycopy(other.direction, 0, direction, 0, direction.length);
+    System.arraycopy(other.score, 0, score, 0, score.length);
+    System.arraycopy(other.inventory, 0, inventory, 0, inventory.length);
+    System.arraycopy(other.lastInput, 0, lastInput, 0, lastInput.length);
+    pellets.clear();
+    pellets.or(other.pellets);
+  }
+
+  /** Resets this snapshot to hold no state, the baseline of a full snapshot */
+  public void clear() {
+    tick = NO_TICK;
+    mipID = 0;
+    gameTime = 0;
+    for (int i = 0; i < x.length; i++) {
+      x[i] = 0;
+      y[i] = 0;
+      direction[i] = 0;
+      score[i] = 0;
+      inventory[i] = EMPTY_INVENTORY;
+      lastInput[i] = 0;
+    }
+    pellets.clear();
+  }
+
+  /**
+   * Packs the first two items of an entity into a byte, the id of each item plus one in a nibble
+   *
+   * @param agent The entity
+   * @return The packed inventory, {@link #EMPTY_INVENTORY} if it holds nothing
+   */
+  public static int packInventory(Entity agent) {
+    List<PowerUp> items = agent.getItems(); // read by index, this is packed for every tick
+    int packed = EMPTY_INVENTORY;
+    if (!items.isEmpty()) {
+      packed |= (items.get(0).toInt() + 1) << 4;
+    }
+    if (items.size() > 1) {
+      packed |= items.get(1).toInt() + 1;
+    }
+    return packed;
+  }
+
+  /**
+   * Sets the items of an entity from a packed inventory
+   *
+   * @param agent The entity
+   * @param packed The inventory made by {@link #packInventory(Entity)}
+   */
+  public static void unpackInventory(Entity agent, int packed) {
+    int first = (packed >> 4) & 0xF;
+    int second = packed & 0xF;
+    if (first == 0) {
+      agent.setItems();
+    } else if (second == 0) {
+      agent.setItems(first - 1);
+    } else {
+      agent.setItems(first - 1, second - 1);
+    }
+  }
+
+  /**
+   * @param value A coordinate
+   * @return The coordinate in fixed point
+   */
+  public static int toFixed(double value) {
+    return (int) Math.round(value * POSITION_SCALE);
+  }
+
+  /**
+   * @param value A fixed point coordinate
+   * @return The coordinate
+   */
+  public static double fromFixed(int value) {
+    return value / (double) POSITION_SCALE;
+  }
+
+  /**
+   * @param location A point on the map
+   * @return The id of the cell the point is in
+   */
+  public int cellOf(Point location) {
+    return (int) location.getX() * maxY + (int) location.getY();
+  }
+
+  /**
+   * @param cell The id of a cell
+   * @return The x coordinate of the cell
+   */
+  public int cellX(int cell) {
+    return cell / maxY;
+  }
+
+  /**
+   * @param cell The id of a cell
+   * @return The y coordinate of the cell
+   */
+  public int cellY(int cell) {
+    return cell % maxY;
+  }
+
+  /** @return The number of entities */
+  public int getAgentCount() {
+    return x.length;
+  }
+
+  /** @return The width of the map */
+  public int getMaxX() {
+    return cellCount / maxY;
+  }
+
+  /** @return The height of the map */
+  public int getMaxY() {
+    return maxY;
+  }
+
+  /** @return The number of cells on the map */
+  public int getCellCount() {
+    return cellCount;
+  }
+
+  /** @return The tick of this snapshot, {@link #NO_TICK} if it holds no state */
+  public int getTick() {
+    return tick;
+  }
+
+  /** @param tick The tick of this snapshot */
+  public void setTick(int tick) {
+    this.tick = tick;
+  }
+
+  /** @return The id of the entity that is MIPS man */
+  public int getMipID() {
+    return mipID;
+  }
+
+  /** @param mipID The id of the entity that is MIPS man */
+  public void setMipID(int mipID) {
+    this.mipID = mipID;
+  }
+
+  /** @return The game timer */
+  public int getGameTime() {
+    return gameTime;
+  }
+
+  /** @param gameTime The game timer */
+  public void setGameTime(int gameTime) {
+    this.gameTime = gameTime;
+  }
+
+  /**
+   * @param id The id of an entity
+   * @return The fixed point x coordinate of the entity
+   */
+  public int getX(int id) {
+    return x[id];
+  }
+
+  /**
+   * @param id The id of an entity
+   * @return The fixed point y coordinate of the entity
+   */
+  public int getY(int id) {
+    return y[id];
+  }
+
+  /**
+   * @param id The id of an entity
+   * @param x The fixed point x coordinate of the entity
+   * @param y The fixed point y coordinate of the entity
+   */
+  public void setPosition(int id, int x, int y) {
+    this.x[id] = x;
+    this.y[id] = y;
+  }
+
+  /**
+   * @param id The id of an entity
+   * @return The id of the direction the entity is travelling in
+   */
+  public int getDirection(int id) {
+    return direction[id];
+  }
+
+  /**
+   * @param id The id of an entity
+   * @param direction The id of the direction the entity is travelling in
+   */
+  public void setDirection(int id, int direction) {
+    this.direction[id] = (byte) direction;
+  }
+
+  /**
+   * @param id The id of an entity
+   * @return The score of the entity
+   */
+  public int getScore(int id) {
+    return score[id];
+  }
+
+  /**
+   * @param id The id of an entity
+   * @param score The score of the entity
+   */
+  public void setScore(int id, int score) {
+    this.score[id] = score;
+  }
+
+  /**
+   * @param id The id of an entity
+   * @return The packed inventory of the entity
+   */
+  public int getInventory(int id) {
+    return inventory[id] & 0xFF;
+  }
+
+  /**
+   * @param id The id of an entity
+   * @param inventory The packed inventory of the entity
+   */
+  public void setInventory(int id, int inventory) {
+    this.inventory[id] = (byte) inventory;
+  }
+
+  /**
+   * @param id The id of an entity
+   * @return The sequence number of the last input the host processed from the entity
+   */
+  public int getLastInput(int id) {
+    return lastInput[id];
+  }
+
+  /**
+   * @param id The id of an entity
+   * @param sequence The sequence number of the last input the host processed from the entity
+   */
+  public void setLastInput(int id, int sequence) {
+    this.lastInput[id] = sequence;
+  }
+
+  /** @return The active pellets, by cell id */
+  public BitSet getPellets() {
+    return pellets;
+  }
+}
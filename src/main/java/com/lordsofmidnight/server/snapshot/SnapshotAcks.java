@@ -0,0 +1,59 @@
+package com.lordsofmidnight.server.snapshot;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The tick of the latest snapshot each client has acknowledged. Written by the network thread as
+ * acknowledgements arrive, and read by the host when choosing the baseline for the next snapshot.
+ */
+public class SnapshotAcks {
+
+  private final AtomicIntegerArray acked;
+
+  /** @param clientCount The number of client ids */
+  public SnapshotAcks(int clientCount) {
+    acked = new AtomicIntegerArray(clientCount);
+  }
+
+  /**
+   * Records that a client has a snapshot. Acknowledgements older than the latest one from the same
+   * client are ignored, as they may arrive out of order.
+   *
+   * @param id The id of the client
+   * @param tick The tick of the snapshot it has
+   */
+  public void acknowledge(int id, int tick) {
+    if (id < 0 || id >= acked.length()) {
+      return;
+    }
+    int current;
+    do {
+      current = acked.get(id);
+      if (tick <= current) {
+        return;
+      }
+    } while (!acked.compareAndSet(id, current, tick));
+  }
+
+  /**
+   * @param id The id of the client
+   * @return The tick of the latest snapshot the client has, {@link Snapshot#NO_TICK} if none
+   */
+  public int lastAcked(int id) {
+    return acked.get(id);
+  }
+
+  /**
+   * @param firstId The first client id to include
+   * @param lastId The last client id to include
+   * @return The oldest snapshot acknowledged by any of the clients, {@link Snapshot#NO_TICK} if one
+   *     of them has none
+   */
+  public int oldest(int firstId, int lastId) {
+    int oldest = Integer.MAX_VALUE;
+    for (int id = firstId; id <= lastId && id < acked.length(); id++) {
+      oldest = Math.min(oldest, acked.get(id));
+    }
+    return oldest == Integer.MAX_VALUE ? Snapshot.NO_TICK : oldest;
+  }
+}
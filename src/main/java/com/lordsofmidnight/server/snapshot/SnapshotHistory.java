@@ -0,0 +1,66 @@
+package com.lordsofmidnight.server.snapshot;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+
+/**
+ * A ring of the most recent snapshots, indexed by tick. The host keeps one to encode deltas from
+ * the snapshots clients have acknowledged, and clients keep one to apply those deltas to.
+ */
+public class SnapshotHistory {
+
+  /** The number of snapshots kept, 3.2 seconds of snapshots at 10 per second */
+  public static final int SIZE = 32;
+
+  private final Snapshot[] ring = new Snapshot[SIZE];
+  private int latestTick = Snapshot.NO_TICK;
+
+  /**
+   * @param agentCount The number of entities in the game
+   * @param map The map being played on
+   */
+  public SnapshotHistory(int agentCount, Map map) {
+    for (int i = 0; i < SIZE; i++) {
+      ring[i] = new Snapshot(agentCount, map);
+    }
+  }
+
+  /**
+   * Gets a recorded snapshot. Only the latest SIZE - 1 ticks are given out, so that the snapshot
+   * for the next tick never overwrites one being used as its baseline.
+   *
+   * @param tick The tick of a snapshot
+   * @return The snapshot, or null if it was never recorded or is too old
+   */
+  public Snapshot get(int tick) {
+    if (tick == Snapshot.NO_TICK || tick > latestTick || tick <= latestTick + 1 - SIZE) {
+      return null;
+    }
+    Snapshot snapshot = ring[tick % SIZE];
+    return snapshot.getTick() == tick ? snapshot : null;
+  }
+
+  /**
+   * Gives the snapshot to record a tick into, overwriting the oldest one held, and makes it the
+   * latest tick. A baseline for the delta must be read before this is called.
+   *
+   * @param tick The tick being recorded, newer than the latest tick
+   * @return The snapshot to record the tick into
+   */
+  public Snapshot record(int tick) {
+    if (tick <= latestTick) {
+      throw new IllegalArgumentException("Tick " + tick + " is not after " + latestTick);
+    }
+    latestTick = tick;
+    return ring[tick % SIZE];
+  }
+
+  /** @return The latest snapshot recorded, or null if there is none */
+  public Snapshot latest() {
+    return get(latestTick);
+  }
+
+  /** @return The tick of the latest snapshot recorded */
+  public int getLatestTick() {
+    return latestTick;
+  }
+}
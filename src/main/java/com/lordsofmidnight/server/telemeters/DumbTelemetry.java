@@ -1,32 +1,124 @@
 package com.lordsofmidnight.server.telemeters;
 
 import com.lordsofmidnight.audio.AudioController;
+import com.lordsofmidnight.gamestate.maps.Map;
 import com.lordsofmidnight.gamestate.points.Point;
 import com.lordsofmidnight.gamestate.points.PointMap;
 import com.lordsofmidnight.main.Client;
+import com.lordsofmidnight.server.NetworkUtility;
 import com.lordsofmidnight.objects.EmptyPowerUpBox;
 import com.lordsofmidnight.objects.Entity;
 import com.lordsofmidnight.objects.Pellet;
 import com.lordsofmidnight.objects.powerUps.PowerUp;
-import com.lordsofmidnight.server.NetworkUtility;
-import com.lordsofmidnight.utils.GameLoop;
+import com.lordsofmidnight.server.codec.BinaryPacketCodec;
+import com.lordsofmidnight.server.codec.PacketListener;
+import com.lordsofmidnight.server.snapshot.Snapshot;
+import com.lordsofmidnight.server.snapshot.SnapshotHistory;
+import com.lordsofmidnight.utils.GameRandom;
 import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.Methods;
+import com.lordsofmidnight.utils.TickScheduler;
 import com.lordsofmidnight.utils.enums.Direction;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Behaves similar to Host Telemetry but relies on input from the server exclusively to know what is
  * happening with the other game entities, and for the usage or collection of powerups.
+ *
+ * <p>In prediction mode the client's own inputs move its entity straight away and are kept until
+ * the server has processed them. Each snapshot rewinds the entity to where the server had it and
+ * replays the inputs the server has not processed yet, while the other entities are interpolated
+ * between the two latest snapshots.
  */
-public class DumbTelemetry extends Telemetry {
+public class DumbTelemetry extends Telemetry implements PacketListener {
 
-  private BlockingQueue<String> inputs;
+  static final int MAX_REPLAY = 100; // ticks, past which the clock is resynchronised
+  private static final double SNAP_DISTANCE = 2; // squares moved that are placed not interpolated
+  private static final long TICK_NANOS = TickScheduler.DEFAULT_TICK_NANOS;
+
+  private final int ownId;
+  private final Client client;
+  private BlockingQueue<byte[]> inputs;
+  private Queue<byte[]> outputs;
   private Queue<Input> clientQueue;
+  private BinaryPacketCodec codec = new BinaryPacketCodec();
+  private final ByteBuffer frame = ByteBuffer.allocate(NetworkUtility.FRAME_LIMIT); // reused
+  private SnapshotHistory snapshots;
+  private Snapshot applied; // the state last applied to the entities and pellets
+  private BitSet changedPellets = new BitSet();
+  private boolean prediction = true;
+  private AtomicInteger inputSequence = new AtomicInteger();
+  private Queue<Input> localInputs = new ConcurrentLinkedQueue<>();
+  private ArrayDeque<PredictedInput> pending = new ArrayDeque<>();
+  private Snapshot previous; // the snapshot before applied, remote agents move from it
+  private long appliedTime; // when applied arrived, from System.nanoTime()
+
+  /** An input of the client that has been applied locally but not yet by the server */
+  private static class PredictedInput {
 
-  public DumbTelemetry(Queue<String> inputQueue, Client client, AudioController audioController) {
+    private final int sequence;
+    private final Direction move;
+    private int appliedAt; // the game timer when it was applied
+
+    /**
+     * @param sequence The sequence number of the input
+     * @param move The direction of the input
+     * @param appliedAt The game timer when it was applied
+     */
+    PredictedInput(int sequence, Direction move, int appliedAt) {
+      this.sequence = sequence;
+      this.move = move;
+      this.appliedAt = appliedAt;
+    }
+  }
+
+  /**
+   * @param inputQueue The frames received from the server
+   * @param outputQueue The frames to send to the server, used to acknowledge snapshots
+   * @param client The client it belongs to
+   * @param audioController The Audio Controller for the client
+   */
+  public DumbTelemetry(
+      Queue<byte[]> inputQueue,
+      Queue<byte[]> outputQueue,
+      Client client,
+      AudioController audioController) {
     super(client, audioController);
-    inputs = (BlockingQueue<String>) inputQueue;
+    this.client = client;
+    inputs = (BlockingQueue<byte[]>) inputQueue;
+    outputs = outputQueue;
+    ownId = client.getId();
+    initialise();
+  }
+
+  /**
+   * The constructor for a client with no window, nothing is rendered or played
+   *
+   * @param map The map the game is played on
+   * @param ownId The id of the client's own agent
+   * @param inputQueue The frames received from the server
+   * @param outputQueue The frames to send to the server, used to acknowledge snapshots
+   * @param listener Told about collisions and the end of the game
+   */
+  DumbTelemetry(
+      Map map,
+      int ownId,
+      Queue<byte[]> inputQueue,
+      Queue<byte[]> outputQueue,
+      GameListener listener) {
+    super(map, null, listener, AudioController.silent(), new GameRandom());
+    this.client = null;
+    inputs = (BlockingQueue<byte[]>) inputQueue;
+    outputs = outputQueue;
+    this.ownId = ownId;
     initialise();
   }
 
@@ -36,6 +128,9 @@ public class DumbTelemetry extends Telemetry {
   private void initialise() {
     initialiseEntities();
     initialisePellets();
+    snapshots = new SnapshotHistory(AGENT_COUNT, map);
+    applied = new Snapshot(AGENT_COUNT, map);
+    previous = new Snapshot(AGENT_COUNT, map);
   }
 
   /**
@@ -50,214 +145,346 @@ public class DumbTelemetry extends Telemetry {
         Point point = new Point(i + 0.5, j + 0.5);
         if (!map.isWall(point)) {
           pellet = new Pellet(point);
-          pellet.updateImages(resourceLoader);
+          if (resourceLoader != null) { // not rendered without a window
+            pellet.updateImages(resourceLoader);
+          }
           pellets.put(new Point(i, j), pellet);
         }
       }
     }
+    respawns = new RespawnWheel(map);
+    respawns.watchAll(pellets);
   }
 
   /**
-   * Not needed as the only input received is from server and not from client.
+   * Numbers an input from the client before it is sent to the server and, in prediction mode,
+   * queues movement inputs to be applied on the next tick.
    *
-   * @param in Erroneous input
+   * @param in The input from the client
    */
   public void addInput(Input in) {
-    System.err.println("DumbTelemetry receiving inputs");
+    in.setSequence(inputSequence.incrementAndGet());
+    if (prediction && in.getMove() != null && in.getMove().isMovementDirection()) {
+      localInputs.add(in);
+    }
+  }
+
+  /**
+   * Sets whether the client's own entity is predicted, or every entity is placed where the server
+   * last said it was
+   *
+   * @param prediction If prediction mode should be used
+   */
+  public void setPrediction(boolean prediction) {
+    this.prediction = prediction;
   }
 
   /** Starts the main game loop for the client and processing of inputs. */
   public void startGame() {
     System.out.println("Started dumb telemetry");
     gameTimer = GAME_TIME;
-    final long DELAY = (long) Math.pow(10, 7);
-    inputProcessor =
-        new GameLoop(DELAY) {
-          @Override
-          public void handle() {
-            processInputs();
-            processPhysics(agents, map, resourceLoader, pellets, activePowerUps);
-          }
-        };
-    inputProcessor.start();
+    scheduler = new TickScheduler();
+    scheduler.register(
+        1,
+        () -> {
+          processInputs();
+          processPhysics(agents, map, resourceLoader, pellets, activePowerUps);
+          publishWorld();
+        });
+    scheduler.start();
   }
 
   /**
-   * Removes each of the inputs in the queue and performs the appropriate action based on the
-   * contents.
+   * Removes each of the frames in the queue and performs the appropriate action based on the
+   * contents. Malformed frames are dropped.
    */
   void processInputs() {
-    while (!inputs.isEmpty()) {
-      String input = inputs.poll();
-
-      switch (input.substring(0, 4)) { // looks at first 4 characters
-        case "POS1":
-          setEntityMovement(input.substring(4));
-          break;
-        case "POS3":
-          setEntityPositions(input.substring(4));
-          break;
-        case "POW0":
-          updateInventory(input.substring(5));
-          break;
-        case "POW1":
-          activatePowerup(input.substring(4));
-          break;
-        case "POW2":
-          setPowerupBox(input.substring(4));
-          break;
-        case "SCOR":
-          setScore(input.substring(5));
-          break;
-        case NetworkUtility.STOP_CODE:
-          // set client flag that server has left
-          client.setHostGone(true);
-          stopGame();
-          break;
-        default:
-          throw new IllegalArgumentException();
+    byte[] received;
+    while ((received = inputs.poll()) != null) {
+      frame.clear();
+      frame.put(received).flip();
+      try {
+        codec.decode(frame, this);
+      } catch (IllegalArgumentException | BufferUnderflowException e) {
+        System.out.println("Dropped malformed packet");
       }
     }
+    Input input;
+    while ((input = localInputs.poll()) != null) {
+      applyInput(agents[ownId], input.getMove());
+      pending.add(new PredictedInput(input.getSequence(), input.getMove(), gameTimer));
+    }
+    if (prediction) {
+      interpolateRemoteAgents();
+    }
   }
 
-  /** Called when the server informs the client that the game needs to end. */
+  /**
+   * @param id The id of an agent
+   * @return If the agent is moved by the local physics, only the client's own in prediction mode
+   */
   @Override
-  public void stopGame() {
-    inputProcessor.close();
+  boolean movesLocally(int id) {
+    return !prediction || id == ownId;
   }
 
   /**
-   * Updates the positions each of the entities
+   * Turns an agent the way the host would when processing an input
    *
-   * @param s Packet containing the positions of each of the entities as defined by
-   *     NetworkUtility.makeEntitiesPositionPacket(Entity[])
+   * @param agent The agent
+   * @param move The direction of the input
    */
-  private void setEntityPositions(String s) {
-    String[] positions = s.split("\\|");
-    int mipID = Integer.parseInt(positions[positions.length - 2]);
-    int gameTime = Integer.parseInt(positions[positions.length - 1]);
-    setTime(gameTime);
-    for (Entity ent : agents) {
-      if (ent.getClientId() == mipID) {
-        ent.setMipsman(true);
+  private void applyInput(Entity agent, Direction move) {
+    if (Methods.validateDirection(move, agent.getLocation(), map)) {
+      agent.setDirection(move);
+    }
+  }
+
+  /**
+   * Rewinds the client's own agent to where the snapshot has it, then replays the inputs that the
+   * server had not processed, moving the agent for each tick between the snapshot and now.
+   *
+   * @param snapshot The snapshot being applied
+   */
+  private void reconcile(Snapshot snapshot) {
+    Entity self = agents[ownId];
+    int processed = snapshot.getLastInput(ownId);
+    while (!pending.isEmpty() && pending.peek().sequence <= processed) {
+      pending.poll();
+    }
+    self.setLocation(
+        Snapshot.fromFixed(snapshot.getX(ownId)), Snapshot.fromFixed(snapshot.getY(ownId)));
+    self.setDirection(Direction.fromInt(snapshot.getDirection(ownId)));
+
+    int ticks = snapshot.getGameTime() - gameTimer;
+    if (ticks < 0 || ticks > MAX_REPLAY) {
+      // the host is ahead, or too far behind to replay, so take its clock
+      gameTimer = snapshot.getGameTime();
+      for (PredictedInput input : pending) {
+        applyInput(self, input.move);
+        input.appliedAt = gameTimer + 1;
+      }
+      return;
+    }
+    Iterator<PredictedInput> replay = pending.iterator();
+    PredictedInput next = replay.hasNext() ? replay.next() : null;
+    for (int time = snapshot.getGameTime(); time > gameTimer; time--) {
+      while (next != null && next.appliedAt >= time) {
+        applyInput(self, next.move);
+        next = replay.hasNext() ? replay.next() : null;
+      }
+      moveAgent(self, map, face);
+    }
+    while (next != null) {
+      applyInput(self, next.move);
+      next = replay.hasNext() ? replay.next() : null;
+    }
+  }
+
+  /**
+   * Places the other agents between where the two latest snapshots have them, by how far through
+   * the gap between those snapshots the time since the latest one arrived is. Agents that moved
+   * further than walking allows, such as by respawning, are placed where the latest one has them.
+   */
+  private void interpolateRemoteAgents() {
+    if (previous.getTick() == Snapshot.NO_TICK) {
+      return;
+    }
+    long interval = (previous.getGameTime() - applied.getGameTime()) * TICK_NANOS;
+    double alpha = 1;
+    if (interval > 0) {
+      alpha = Math.min(1, (System.nanoTime() - appliedTime) / (double) interval);
+    }
+    for (int id = 0; id < agents.length; id++) {
+      if (id == ownId) {
+        continue;
+      }
+      double fromX = Snapshot.fromFixed(previous.getX(id));
+      double fromY = Snapshot.fromFixed(previous.getY(id));
+      double toX = Snapshot.fromFixed(applied.getX(id));
+      double toY = Snapshot.fromFixed(applied.getY(id));
+      if (Math.abs(toX - fromX) > SNAP_DISTANCE || Math.abs(toY - fromY) > SNAP_DISTANCE) {
+        agents[id].setLocation(toX, toY);
       } else {
-        ent.setMipsman(false);
+        agents[id].setLocation(fromX + (toX - fromX) * alpha, fromY + (toY - fromY) * alpha);
       }
     }
+  }
 
-    for (int i = 0; i < positions.length - 2; i++) {
-      String[] ls = positions[i].split(":");
-      int id = Integer.parseInt(ls[0]);
-      int direction = Integer.parseInt(ls[1]);
-      Double x = Double.valueOf(ls[2]);
-      Double y = Double.valueOf(ls[3]);
-      agents[id].setLocation(x, y);
-      agents[id].setDirection(Direction.fromInt(direction));
+  /** Called when the server informs the client that the game needs to end. */
+  @Override
+  public void stopGame() {
+    scheduler.close();
+  }
+
+  /**
+   * Finds the snapshot a frame should be applied to, dropping it if a newer one has already been
+   * applied or its baseline is no longer held
+   *
+   * @param tick The tick of the snapshot
+   * @param baselineTick The tick the changes are from
+   * @return A copy of the baseline to apply the changes to, or null to drop the frame
+   */
+  @Override
+  public Snapshot onSnapshotStart(int tick, int baselineTick) {
+    if (tick <= snapshots.getLatestTick()) {
+      return null; // stale, arrived out of order
+    }
+    Snapshot baseline = snapshots.get(baselineTick);
+    if (baseline == null && baselineTick != Snapshot.NO_TICK) {
+      return null; // the server will fall back to an older baseline or a whole snapshot
     }
+    Snapshot snapshot = snapshots.record(tick);
+    if (baseline == null) {
+      snapshot.clear();
+    } else {
+      snapshot.copyFrom(baseline);
+    }
+    return snapshot;
   }
 
   /**
-   * Updates the client od current movement status of a given entity
+   * Applies a snapshot to the entities and pellets, then acknowledges it so the server can send
+   * later snapshots as changes from it
    *
-   * @param s String containing packet about where each of the entities are moving.
+   * @param snapshot The state of the game at its tick
    */
-  private void setEntityMovement(String s) {
-    String[] ls = s.split("\\|");
-    Input input = Input.fromString(ls[0]);
-    int id = input.getClientID();
-    double x = Double.valueOf(ls[1]);
-    double y = Double.valueOf(ls[2]);
-    agents[id].setLocation(x, y);
-    agents[id].setDirection(input.getMove());
-    int MIPID = Integer.parseInt(ls[3]);
-    for (Entity ent : agents) {
-      if (ent.getClientId() == MIPID) {
-        ent.setMipsman(true);
-      } else {
-        ent.setMipsman(false);
+  @Override
+  public void onSnapshot(Snapshot snapshot) {
+    boolean first = applied.getTick() == Snapshot.NO_TICK;
+    if (first || snapshot.getMipID() != applied.getMipID()) {
+      setMipsman(snapshot.getMipID());
+    }
+    for (int id = 0; id < agents.length; id++) {
+      if (!prediction) {
+        agents[id].setLocation(
+            Snapshot.fromFixed(snapshot.getX(id)), Snapshot.fromFixed(snapshot.getY(id)));
+      }
+      if (!prediction || id != ownId) {
+        agents[id].setDirection(Direction.fromInt(snapshot.getDirection(id)));
+      }
+      agents[id].setScore(snapshot.getScore(id));
+      if (first || snapshot.getInventory(id) != applied.getInventory(id)) {
+        Snapshot.unpackInventory(agents[id], snapshot.getInventory(id));
       }
     }
+    applyPellets(snapshot, first);
+    previous.copyFrom(first ? snapshot : applied);
+    applied.copyFrom(snapshot);
+    appliedTime = System.nanoTime();
+    if (prediction) {
+      reconcile(snapshot);
+    } else {
+      setTime(snapshot.getGameTime());
+    }
+    outputs.add(codec.snapshotAck(ownId, snapshot.getTick()));
   }
 
   /**
-   * Sets the scores for each client to maintain consistency
+   * Sets the pellets that were eaten or respawned since the last snapshot applied
    *
-   * @param scores Packet containing scores of each client
+   * @param snapshot The snapshot being applied
+   * @param all If every pellet should be set, for the first snapshot
    */
-  private void setScore(String scores) {
-    try {
-      String[] ls = scores.split("\\|");
-      for (int i = 0; i < ls.length; i++) {
-        int score = Integer.parseInt(ls[i]);
-        agents[i].setScore(score);
+  private void applyPellets(Snapshot snapshot, boolean all) {
+    BitSet active = snapshot.getPellets();
+    if (all) {
+      for (Pellet pellet : pellets.values()) {
+        respawns.sync(pellet);
+        pellet.setActive(active.get(snapshot.cellOf(pellet.getLocation())));
+        respawns.watch(pellet);
+      }
+      return;
+    }
+    changedPellets.clear();
+    changedPellets.or(active);
+    changedPellets.xor(applied.getPellets());
+    for (int cell = changedPellets.nextSetBit(0);
+        cell >= 0;
+        cell = changedPellets.nextSetBit(cell + 1)) {
+      Pellet pellet = pellets.get(new Point(snapshot.cellX(cell), snapshot.cellY(cell)));
+      if (pellet != null) {
+        respawns.sync(pellet);
+        pellet.setActive(active.get(cell));
+        respawns.watch(pellet);
       }
-    } catch (NumberFormatException e) {
-      System.out.println("ERROR: INVALID SCORE");
     }
   }
 
   /**
-   * Updates the inventories of all clients
+   * Updates the client od current movement status of a given entity
    *
-   * @param s Packet containing the inventories of each of the clients
+   * @param input The input that moved the entity
+   * @param x The x coordinate the input took place at
+   * @param y The y coordinate the input took place at
+   * @param mipID The id of the entity that is MIPS man
    */
-  private void updateInventory(String s) {
-    String[] inventories = s.split("\\|");
-    for (String inventory : inventories) {
-      String[] ls = inventory.split(":");
-      int id = Integer.parseInt(ls[0]);
-      switch (ls.length) {
-        case 1:
-          agents[id].setItems();
-          break;
-        case 2:
-          agents[id].setItems(Integer.parseInt(ls[1]));
-          break;
-        case 3:
-          agents[id].setItems(Integer.parseInt(ls[1]), Integer.parseInt(ls[2]));
-          break;
-        default:
-          throw new IndexOutOfBoundsException();
-      }
+  @Override
+  public void onEntityMovement(Input input, double x, double y, int mipID) {
+    if (!prediction) { // otherwise snapshots place every agent
+      int id = input.getClientID();
+      agents[id].setLocation(x, y);
+      agents[id].setDirection(input.getMove());
     }
+    setMipsman(mipID);
   }
 
   /**
    * Adds a power up box to the pellets
    *
-   * @param s The packet used to relay the power up information
+   * @param x The x coordinate of the box
+   * @param y The y coordinate of the box
    */
-  private void setPowerupBox(String s) {
-    String[] ls = s.split("\\|");
-    double x = Double.valueOf(ls[0]);
-    double y = Double.valueOf(ls[1]);
+  @Override
+  public void onPowerUpBox(double x, double y) {
     Point point = new Point(x, y);
     pellets.remove(point);
     EmptyPowerUpBox pellet = new EmptyPowerUpBox(point);
-    pellet.updateImages(resourceLoader);
+    if (resourceLoader != null) {
+      pellet.updateImages(resourceLoader);
+    }
     pellets.put(point, pellet);
+    respawns.watch(pellet);
   }
 
   /**
    * Handles activation of a power up for a client
    *
-   * @param s Packet String as defined in NetworkUtility.makePowerUPPacket(Input, Point)
+   * @param id The id of the client who used the powerup
+   * @param powerUp The id of the powerup used
+   * @param x The x coordinate it was used at
+   * @param y The y coordinate it was used at
    */
-  private void activatePowerup(String s) {
-    String[] ls = s.split("\\|");
-
-    int id = Integer.parseInt(ls[0]);
-    int powerint = Integer.parseInt(ls[1]);
-    double x = Double.valueOf(ls[2]);
-    double y = Double.valueOf(ls[3]);
-
+  @Override
+  public void onPowerUpUsed(int id, int powerUp, double x, double y) {
     agents[id].setLocation(x, y);
-    PowerUp powerup = PowerUp.fromInt(powerint);
+    PowerUp powerup = PowerUp.fromInt(powerUp);
     powerup.use(agents[id], activePowerUps, pellets, agents, audioController);
+    respawns.watchAll(pellets); // it may have put a pellet down
+  }
+
+  /** Called when the host has left the game */
+  @Override
+  public void onStop() {
+    // set client flag that server has left
+    if (client != null) {
+      client.setHostGone(true);
+    }
+    stopGame();
   }
 
   /**
-   * Redundant method for a dumb telemeter as it doesn't control the AI
+   * Sets which entity is MIPS man
+   *
+   * @param mipID The id of the entity that is MIPS man
    */
-  public void startAI() {}
+  private void setMipsman(int mipID) {
+    for (Entity ent : agents) {
+      if (ent.getClientId() == mipID) {
+        ent.setMipsman(true);
+      } else {
+        ent.setMipsman(false);
+      }
+    }
+  }
 }
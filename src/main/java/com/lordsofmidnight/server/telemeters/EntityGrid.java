@@ -0,0 +1,160 @@
+package com.lordsofmidnight.server.telemeters;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.objects.EntityStore;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Arrays;
+
+/**
+ * A spatial hash of the agents of a game, bucketing them by the square of the map they are in so
+ * that finding the agents near one only looks at its own and the eight neighbouring squares,
+ * wrapping round the edges of the map. Each square's agents are a linked list held in arrays, so
+ * an agent moving square is relinked without allocating, and agents that stay in their square
+ * aren't touched.
+ */
+class EntityGrid {
+
+  private static final int NONE = -1;
+
+  private final Map map;
+  private final int[] head; // by cell, the first agent in the square
+  private final int[] next; // by agent, the next agent in its square
+  private final int[] previous; // by agent, the previous agent in its square
+  private final int[] cellOf; // by agent, the square it is listed in
+
+  /**
+   * Creates an empty grid
+   *
+   * @param map The map being played on
+   * @param agentCount The number of agents
+   */
+  EntityGrid(Map map, int agentCount) {
+    this.map = map;
+    head = new int[map.getMaxX() * map.getMaxY()];
+    next = new int[agentCount];
+    previous = new int[agentCount];
+    cellOf = new int[agentCount];
+    Arrays.fill(head, NONE);
+    Arrays.fill(cellOf, NONE);
+  }
+
+  /**
+   * @param map The map being played on
+   * @param agentCount The number of agents
+   * @return If the grid was made for the map and number of agents
+   */
+  boolean fits(Map map, int agentCount) {
+    return this.map == map && cellOf.length == agentCount;
+  }
+
+  /**
+   * Moves the agents that have changed square since the last update into their new squares
+   *
+   * @param agents The store of the agents, each in the slot of its id
+   */
+  void update(EntityStore agents) {
+    for (int i = 0; i < cellOf.length; i++) {
+      int cell = map.cell(agents.getX(i), agents.getY(i));
+      if (cell != cellOf[i]) {
+        unlink(i);
+        link(i, cell);
+      }
+    }
+  }
+
+  /**
+   * Finds the agents with a higher id than the given one in its square and the squares around it
+   *
+   * @param agent The id of the agent
+   * @param into The array to put the ids found into, as long as the number of agents
+   * @return The number of ids found, which are in ascending order at the start of the array
+   */
+  int nearby(int agent, int[] into) {
+    int centre = cellOf[agent];
+    int count = collectRow(agent, map.step(centre, Direction.UP), into, 0);
+    count = collectRow(agent, centre, into, count);
+    return collectRow(agent, map.step(centre, Direction.DOWN), into, count);
+  }
+
+  /**
+   * Adds the agents in a square and the squares either side of it
+   *
+   * @param agent The id of the agent the search is for
+   * @param cell The middle square of the row
+   * @param into The ids found so far
+   * @param count The number of ids found so far
+   * @return The number of ids found now
+   * @see #collect(int, int, int[], int)
+   */
+  private int collectRow(int agent, int cell, int[] into, int count) {
+    count = collect(agent, map.step(cell, Direction.LEFT), into, count);
+    count = collect(agent, cell, into, count);
+    return collect(agent, map.step(cell, Direction.RIGHT), into, count);
+  }
+
+  /**
+   * Adds the agents in a square with a higher id than the given one, keeping the ids sorted and
+   * skipping those already found, as a small map lists a square as more than one neighbour
+   *
+   * @param agent The id of the agent the search is for
+   * @param cell The square
+   * @param into The ids found so far
+   * @param count The number of ids found so far
+   * @return The number of ids found now
+   */
+  private int collect(int agent, int cell, int[] into, int count) {
+    for (int j = head[cell]; j != NONE; j = next[j]) {
+      if (j <= agent) {
+        continue;
+      }
+      int k = count;
+      while (k > 0 && into[k - 1] > j) {
+        k--;
+      }
+      if (k > 0 && into[k - 1] == j) {
+        continue;
+      }
+      System.arraycopy(into, k, into, k + 1, count - k);
+      into[k] = j;
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Adds an agent to the front of a square's list
+   *
+   * @param agent The id of the agent
+   * @param cell The square
+   */
+  private void link(int agent, int cell) {
+    cellOf[agent] = cell;
+    previous[agent] = NONE;
+    next[agent] = head[cell];
+    if (head[cell] != NONE) {
+      previous[head[cell]] = agent;
+    }
+    head[cell] = agent;
+  }
+
+  /**
+   * Takes an agent out of the list of the square it is in, if it is in one
+   *
+   * @param agent The id of the agent
+   */
+  private void unlink(int agent) {
+    int cell = cellOf[agent];
+    if (cell == NONE) {
+      return;
+    }
+    if (previous[agent] != NONE) {
+      next[previous[agent]] = next[agent];
+    } else {
+      head[cell] = next[agent];
+    }
+    if (next[agent] != NONE) {
+      previous[next[agent]] = previous[agent];
+    }
+    cellOf[agent] = NONE;
+  }
+}
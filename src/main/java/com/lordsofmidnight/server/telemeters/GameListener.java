@@ -0,0 +1,20 @@
+package com.lordsofmidnight.server.telemeters;
+
+import com.lordsofmidnight.objects.Entity;
+
+/**
+ * Told by a telemetry about the events in its game that whatever is running the game has to act
+ * on, a {@link com.lordsofmidnight.main.Client} or a headless match on a dedicated server.
+ */
+public interface GameListener {
+
+  /**
+   * Called when MIPS man is caught
+   *
+   * @param newMipsman The entity that caught MIPS man
+   */
+  void collisionDetected(Entity newMipsman);
+
+  /** Called when the game timer runs out */
+  void finishGame();
+}
@@ -2,6 +2,7 @@ package com.lordsofmidnight.server.telemeters;
 
 import com.lordsofmidnight.ai.AILoopControl;
 import com.lordsofmidnight.audio.AudioController;
+import com.lordsofmidnight.gamestate.maps.Map;
 import com.lordsofmidnight.gamestate.points.Point;
 import com.lordsofmidnight.gamestate.points.PointMap;
 import com.lordsofmidnight.main.Client;
@@ -10,14 +11,21 @@ import com.lordsofmidnight.objects.Pellet;
 import com.lordsofmidnight.objects.PowerUpBox;
 import com.lordsofmidnight.objects.powerUps.PowerUp;
 import com.lordsofmidnight.server.NetworkUtility;
-import com.lordsofmidnight.utils.GameLoop;
+import com.lordsofmidnight.server.codec.BinaryPacketCodec;
+import com.lordsofmidnight.server.codec.PacketEncoder;
+import com.lordsofmidnight.server.journal.InputJournal;
+import com.lordsofmidnight.server.snapshot.Snapshot;
+import com.lordsofmidnight.server.snapshot.SnapshotAcks;
+import com.lordsofmidnight.server.snapshot.SnapshotHistory;
+import com.lordsofmidnight.utils.GameRandom;
 import com.lordsofmidnight.utils.Input;
 import com.lordsofmidnight.utils.Methods;
+import com.lordsofmidnight.utils.TickScheduler;
 import com.lordsofmidnight.utils.enums.Direction;
 import java.util.Queue;
-import java.util.Random;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
 
 /**
  * This acts as the telemetry for the host of a multiplayer game, or for the user in a singleplayer
@@ -25,13 +33,39 @@ import java.util.concurrent.LinkedBlockingQueue;
  */
 public class HostTelemetry extends Telemetry {
 
+  private static final int SNAPSHOT_PERIOD = 10; // ticks between snapshots sent to clients
+
   private final int playerCount;
+  private final int firstRemoteId; // players below this id play on the host itself
   private BlockingQueue<Input> inputs;
-  private BlockingQueue<String> outputs;
+  private BlockingQueue<byte[]> outputs;
+  private PacketEncoder encoder = new BinaryPacketCodec();
   private boolean singlePlayer;
   private AILoopControl ai;
-  private boolean aiRunning;
-  private GameLoop inventoryUpdater;
+  private SnapshotHistory snapshots;
+  private SnapshotAcks snapshotAcks;
+  private int tick = Snapshot.NO_TICK;
+  private int[] lastInputs; // sequence of the last input from each agent
+  private boolean ownsScheduler; // false when the scheduler is shared with other games
+  private boolean replaying; // every agent is driven by recorded inputs, so no AI is ever started
+  private GameRandom aiRandom; // kept apart so the physics draws the same with or without the AI
+  private InputJournal journal;
+  private final Runnable physicsTask =
+      () -> {
+        processInputs();
+        processPhysics(agents, map, resourceLoader, pellets, activePowerUps);
+        publishWorld();
+        if (journal != null) {
+          journal.endTick(stateHash());
+        }
+      };
+  private final Runnable aiTask =
+      () -> {
+        if (ai != null) {
+          ai.step(getWorld());
+        }
+      };
+  private final Runnable replicationTask = this::updateClients;
 
   /**
    * The constructor for multiplayer
@@ -39,24 +73,117 @@ public class HostTelemetry extends Telemetry {
    * @param playerCount The number of players
    * @param inputQueue The Input queue
    * @param outputQueue The output queue
+   * @param snapshotAcks The snapshots acknowledged by each client
    * @param client The Client controlling the telemetry
    * @param audioController The Clients Audio Controller
    */
   public HostTelemetry(
       int playerCount,
       Queue<Input> inputQueue,
-      Queue<String> outputQueue,
+      Queue<byte[]> outputQueue,
+      SnapshotAcks snapshotAcks,
       Client client,
       AudioController audioController) {
     super(client, audioController);
     inputs = (BlockingQueue<Input>) inputQueue;
-    outputs = (BlockingQueue<String>) outputQueue;
+    outputs = (BlockingQueue<byte[]>) outputQueue;
+    this.snapshotAcks = snapshotAcks;
     this.playerCount = playerCount;
+    this.firstRemoteId = 1;
     this.singlePlayer = false;
     initialise();
     //    startGame();
   }
 
+  /**
+   * The constructor for a game run without a client, such as a match on a dedicated server. Nothing
+   * is rendered or played, collisions and the end of the game are passed to the listener.
+   *
+   * @param map The map to play on
+   * @param playerCount The number of players, the rest of the agents are controlled by AI
+   * @param inputQueue The Input queue
+   * @param outputQueue The output queue
+   * @param snapshotAcks The snapshots acknowledged by each client
+   * @param listener Told about collisions and the end of the game
+   * @param seed The seed of every random choice made in the game
+   */
+  public HostTelemetry(
+      Map map,
+      int playerCount,
+      Queue<Input> inputQueue,
+      Queue<byte[]> outputQueue,
+      SnapshotAcks snapshotAcks,
+      GameListener listener,
+      long seed) {
+    this(map, AGENT_COUNT, playerCount, inputQueue, outputQueue, snapshotAcks, listener, seed);
+  }
+
+  /**
+   * The constructor for a game run without a client with a number of agents other than the
+   * standard, for large games on a dedicated server. Every snapshot sent to remote players has to
+   * fit in one frame, so a game with remote players is limited to as many agents as that allows.
+   *
+   * @param map The map to play on
+   * @param agentCount The number of agents, at most {@link #MAX_AGENT_COUNT}
+   * @param playerCount The number of players, the rest of the agents are controlled by AI
+   * @param inputQueue The Input queue
+   * @param outputQueue The output queue
+   * @param snapshotAcks The snapshots acknowledged by each client
+   * @param listener Told about collisions and the end of the game
+   * @param seed The seed of every random choice made in the game
+   * @throws IllegalArgumentException If there are remote players and a snapshot of this many
+   *     agents on this map may not fit in a frame
+   */
+  public HostTelemetry(
+      Map map,
+      int agentCount,
+      int playerCount,
+      Queue<Input> inputQueue,
+      Queue<byte[]> outputQueue,
+      SnapshotAcks snapshotAcks,
+      GameListener listener,
+      long seed) {
+    super(map, null, listener, AudioController.silent(), new GameRandom(seed));
+    setAgentCount(agentCount);
+    inputs = (BlockingQueue<Input>) inputQueue;
+    outputs = (BlockingQueue<byte[]>) outputQueue;
+    this.snapshotAcks = snapshotAcks;
+    this.playerCount = playerCount;
+    this.firstRemoteId = 0;
+    this.singlePlayer = false;
+    initialise();
+  }
+
+  /**
+   * The constructor for replaying a recorded game. Every agent is driven by the inputs given, so no
+   * AI is run and nothing is sent.
+   *
+   * @param map The map the game was played on
+   * @param seed The seed the game was played with
+   * @param agentCount The number of agents in the game
+   * @param mipID The id of the agent that started as MIPS man
+   * @param inputQueue The queue the recorded inputs are given through
+   * @param listener Told about collisions and the end of the game
+   */
+  public HostTelemetry(
+      Map map,
+      long seed,
+      int agentCount,
+      int mipID,
+      Queue<Input> inputQueue,
+      GameListener listener) {
+    super(map, null, listener, AudioController.silent(), new GameRandom(seed));
+    setAgentCount(agentCount);
+    inputs = (BlockingQueue<Input>) inputQueue;
+    outputs = new LinkedBlockingQueue<>();
+    this.playerCount = agentCount;
+    this.firstRemoteId = agentCount;
+    this.singlePlayer = false;
+    this.replaying = true;
+    initialise();
+    setMipID(mipID);
+  }
+
   /**
    * The constructor for single player
    *
@@ -69,6 +196,7 @@ public class HostTelemetry extends Telemetry {
     inputs = (BlockingQueue<Input>) clientQueue;
     outputs = new LinkedBlockingQueue<>();
     this.playerCount = 1;
+    this.firstRemoteId = 1;
     singlePlayer = true;
     initialise();
   }
@@ -79,27 +207,36 @@ public class HostTelemetry extends Telemetry {
    * @author Matthew Jones
    */
   private void initialise() {
+    if (playerCount > firstRemoteId
+        && BinaryPacketCodec.maxSnapshotSize(agentCount, map.getMaxX(), map.getMaxY())
+            > NetworkUtility.FRAME_LIMIT) {
+      throw new IllegalArgumentException(
+          "a snapshot of " + agentCount + " agents on this map does not fit in a frame");
+    }
 
     initialiseEntities();
+    snapshots = new SnapshotHistory(agentCount, map);
+    lastInputs = new int[agentCount];
 
-    if (singlePlayer) {
-      agents[(new Random()).nextInt(AGENT_COUNT)].setMipsman(true);
+    int mipID = random.nextInt(agentCount); // drawn in every game so they all draw alike
+    if (singlePlayer || firstRemoteId == 0) { // no lobby to choose MIPS man
+      agents[mipID].setMipsman(true);
     }
 
     initialisePellets();
+    aiRandom = new GameRandom(random.nextLong());
 
-    int aiCount = AGENT_COUNT - playerCount;
+    int aiCount = agentCount - playerCount;
     if (aiCount > 0) {
       int[] aiControlled = new int[aiCount];
-      int highestId = AGENT_COUNT - 1;
+      int highestId = agentCount - 1;
       //      String[] names = Methods.getRandomNames(aiCount);
       for (int i = 0; i < aiCount; i++) {
         aiControlled[i] = highestId;
         //        agents[highestId].setName(names[i]);
         highestId--;
       }
-      aiRunning = false;
-      ai = new AILoopControl(agents, aiControlled, map, inputs, pellets);
+      ai = new AILoopControl(agents, aiControlled, map, inputs, pellets, aiRandom);
     }
   }
 
@@ -113,60 +250,76 @@ public class HostTelemetry extends Telemetry {
   }
 
   /**
-   * Handles starting the game for the host
+   * Records the game from its first tick, call before it is started. The journal is closed when
+   * the game is stopped.
+   *
+   * @param journal The journal to write the game to
+   */
+  public void record(InputJournal journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * Handles starting the game for the host, on a scheduler of its own
    */
   public void startGame() {
-    updateClients(agents); // set starting positions
-    startAI();
+    ownsScheduler = true;
     audioController.gameIntro();
-    gameTimer = GAME_TIME;
-    final long DELAY = (long) Math.pow(10, 7);
-    final long positionDELAY = (long) Math.pow(10, 8);
-    final long scoreDELAY = (long) Math.pow(10, 9);
-    inputProcessor =
-        new GameLoop(DELAY) {
-          @Override
-          public void handle() {
-            processInputs();
-            processPhysics(agents, map, resourceLoader, pellets, activePowerUps);
-          }
-        };
-    inputProcessor.start();
+    schedule(new TickScheduler(), this::failed);
+    scheduler.start();
+  }
 
-    positionUpdater =
-        new GameLoop(positionDELAY) {
-          @Override
-          public void handle() {
-            updateClients(agents);
-          }
-        };
-    positionUpdater.start();
+  /**
+   * Starts the game on a scheduler shared with other games, so the game adds no threads. If the
+   * game throws it is stopped, and the other games on the scheduler play on.
+   *
+   * @param shared The running scheduler to add the game to
+   */
+  public void startGame(TickScheduler shared) {
+    startGame(shared, this::failed);
+  }
 
-    inventoryUpdater =
-        new GameLoop(positionDELAY) {
-          @Override
-          public void handle() {
-            updateInventories(agents);
-          }
-        };
-    inventoryUpdater.start();
+  /**
+   * Starts the game on a scheduler shared with other games, so the game adds no threads. If the
+   * game throws its work is taken off the scheduler, and the other games on it play on.
+   *
+   * @param shared The running scheduler to add the game to
+   * @param onFailure Told what the game threw, it should stop the game
+   */
+  public void startGame(TickScheduler shared, Consumer<RuntimeException> onFailure) {
+    ownsScheduler = false;
+    schedule(shared, onFailure);
+  }
 
-    scoreUpdater =
-        new GameLoop(scoreDELAY) {
-          @Override
-          public void handle() {
-            updateScores(agents);
-          }
-        };
-    scoreUpdater.start();
+  /**
+   * Stops a game that threw during a tick
+   *
+   * @param e What the game threw
+   */
+  private void failed(RuntimeException e) {
+    e.printStackTrace();
+    stopGame();
   }
 
   /**
-   * Starts the AI-controlled agents
+   * Registers the work of the game with a scheduler, physics every tick and a snapshot every {@link
+   * #SNAPSHOT_PERIOD} ticks
+   *
+   * @param scheduler The scheduler to run the game on
+   * @param onFailure Told if any of the work throws
    */
-  public void startAI() {
-    if (!aiRunning && ai != null) {
-      ai.start();
+  private void schedule(TickScheduler scheduler, Consumer<RuntimeException> onFailure) {
+    this.scheduler = scheduler;
+    gameTimer = GAME_TIME;
+    publishWorld(); // the state before the first tick
+    if (journal != null) {
+      journal.begin(random.getSeed(), getMipID(), agentCount, map);
+    }
+    scheduler.register(1, physicsTask, onFailure);
+    scheduler.register(1, aiTask, onFailure);
+    if (playerCount > firstRemoteId) { // nobody to replicate to without remote players
+      updateClients(); // set starting positions
+      scheduler.register(SNAPSHOT_PERIOD, replicationTask, onFailure);
     }
   }
 
@@ -178,8 +331,12 @@ public class HostTelemetry extends Telemetry {
   void processInputs() {
     while (!inputs.isEmpty()) {
       Input input = inputs.poll();
+      if (journal != null) {
+        journal.record(input);
+      }
       int id = input.getClientID();
       Direction d = input.getMove();
+      lastInputs[id] = Math.max(lastInputs[id], input.getSequence());
       if (d.equals(Direction.USE)) {
         if (agents[id].isDead()) {
           agents[id].setPowerUpUsedFlag(false);
@@ -188,9 +345,12 @@ public class HostTelemetry extends Telemetry {
         usePowerUp(id);
         agents[id].setPowerUpUsedFlag(false);
       } else if (d.equals(Direction.STOP)) {
+        if (replaying) { // the bot's inputs were recorded with the rest
+          agents[id].setDirectionSetFlag(false);
+          continue;
+        }
         if (ai == null) {
-          ai = new AILoopControl(agents, new int[0], map, inputs, pellets);
-          startAI();
+          ai = new AILoopControl(agents, new int[0], map, inputs, pellets, aiRandom);
         }
         if (ai.addClient(id)) {
           agents[id].setName("Bot" + agents[id].getName());
@@ -198,11 +358,9 @@ public class HostTelemetry extends Telemetry {
       } else {
         if (Methods.validateDirection(d, agents[id].getLocation(), map)) {
           agents[id].setDirection(d);
-          if (!singlePlayer) {
-            // this is currently what's set to update on other clients' systems. they'll get valid
-            // inputs
-            informClients(input, agents[id].getLocation()); // Inputs sent to the other clients
-          }
+          // this is currently what's set to update on other clients' systems. they'll get valid
+          // inputs
+          informClients(input, agents[id].getLocation()); // Inputs sent to the other clients
         }
       }
       agents[id].setDirectionSetFlag(false);
@@ -212,23 +370,26 @@ public class HostTelemetry extends Telemetry {
   @Override
   void initialisePellets() {
     Pellet pellet;
-    Random r = new Random();
     pellets = new PointMap<>(map);
     for (int i = 0; i < map.getMaxX(); i++) {
       for (int j = 0; j < map.getMaxY(); j++) {
         Point point = new Point(i + 0.5, j + 0.5);
         if (!map.isWall(point)) {
-          if (r.nextInt(30) == 1) {
-            pellet = new PowerUpBox(point);
+          if (random.nextInt(30) == 1) {
+            pellet = new PowerUpBox(point, random);
             informPowerupBox(point);
           } else {
-            pellet = new Pellet(point);
+            pellet = new Pellet(point, random);
+          }
+          if (resourceLoader != null) { // not rendered on a dedicated server
+            pellet.updateImages(resourceLoader);
           }
-          pellet.updateImages(resourceLoader);
           pellets.put(new Point(i, j), pellet);
         }
       }
     }
+    respawns = new RespawnWheel(map);
+    respawns.watchAll(pellets);
   }
 
   /**
@@ -240,6 +401,7 @@ public class HostTelemetry extends Telemetry {
     PowerUp item;
     if ((item = agents[id].getFirstItem()) != null) {
       item.use(agents[id], activePowerUps, pellets, agents, audioController);
+      respawns.watchAll(pellets); // it may have put a pellet down
       informPowerup(id, item, agents[id].getLocation());
     }
   }
@@ -256,12 +418,20 @@ public class HostTelemetry extends Telemetry {
 
   @Override
   public void stopGame() {
-    outputs.add(NetworkUtility.STOP_CODE);
-    inputProcessor.close();
-    positionUpdater.close();
-    scoreUpdater.close();
-    inventoryUpdater.close();
-    ai.killAI();
+    send(encoder.stop());
+    if (ownsScheduler) {
+      scheduler.close();
+    } else {
+      scheduler.unregister(physicsTask);
+      scheduler.unregister(aiTask);
+      scheduler.unregister(replicationTask);
+    }
+    if (ai != null) {
+      ai.killAI();
+    }
+    if (journal != null) {
+      journal.close();
+    }
   }
 
   /**
@@ -272,7 +442,7 @@ public class HostTelemetry extends Telemetry {
    * @param location The location it was used at
    */
   private void informPowerup(int id, PowerUp powerup, Point location) {
-    outputs.add(NetworkUtility.makePowerUpPacket(id, powerup, location));
+    send(encoder.powerUpUsed(id, powerup, location));
   }
 
   /**
@@ -281,43 +451,39 @@ public class HostTelemetry extends Telemetry {
    * @param point The point where it is.
    */
   private void informPowerupBox(Point point) {
-    outputs.add(NetworkUtility.makePowerUpBoxPacket(point));
+    send(encoder.powerUpBox(point));
   }
 
   /**
-   * Informs clients of the updated inventory of each of the agents.
-   *
-   * @param agents The game agents
+   * Records a snapshot of the game and sends clients what changed since the oldest snapshot any
+   * remote client has acknowledged. When a client hosts the game it is client 0 and reads the game
+   * directly, so it never acknowledges snapshots.
    */
-  private void updateInventories(Entity[] agents) {
-    outputs.add(NetworkUtility.makeInventoryPacket(agents));
+  private void updateClients() {
+    Snapshot baseline = snapshots.get(snapshotAcks.oldest(firstRemoteId, playerCount - 1));
+    Snapshot current = snapshots.record(++tick);
+    current.capture(tick, getWorld(), lastInputs);
+    send(encoder.snapshot(baseline, current));
   }
 
   /**
-   * Informs clients of the scores of each of the agents
-   *
-   * @param agents The game agents
-   */
-  private void updateScores(Entity[] agents) {
-    outputs.add(NetworkUtility.makeScorePacket(agents));
-  }
-
-  /**
-   * Informs clients of where each agent is and their direction
+   * Inform clients that a client changed direction
    *
-   * @param agents The game agents
+   * @param input The input to broadcast
+   * @param location The location which the input took place.
    */
-  private void updateClients(Entity[] agents) {
-    outputs.add(NetworkUtility.makeEntitiesPositionPacket(agents) + getMipID() + "|" + gameTimer);
+  private void informClients(Input input, Point location) {
+    send(encoder.entityMovement(input, location, getMipID()));
   }
 
   /**
-   * Inform clients that a client changed direction
+   * Queues a frame to be sent to the clients, dropped if there are no remote clients to send it to
    *
-   * @param input The input to broadcast
-   * @param location The location which the input took place.
+   * @param frame The encoded frame
    */
-  private void informClients(Input input, Point location) {
-    outputs.add(NetworkUtility.makeEntitiyMovementPacket(input, location, getMipID()));
+  private void send(byte[] frame) {
+    if (playerCount > firstRemoteId) {
+      outputs.add(frame);
+    }
   }
 }
@@ -0,0 +1,173 @@
+package com.lordsofmidnight.server.telemeters;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.gamestate.points.PointMap;
+import com.lordsofmidnight.objects.Pellet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Counts down the respawns of a game's pellets as a timer wheel. Only pellets that counting would
+ * change, such as eaten pellets, mines yet to hide and sprung traps, are held, each in the slot of
+ * the tick it is next due, so a physics update only touches the pellets due on it rather than
+ * every pellet on the map. A pellet's count is brought up to date when it is due, or before
+ * anything else happens to it.
+ *
+ * <p>Squares are numbered in the order the pellets iterate in, and the pellets due on a tick are
+ * handled in that order, so replacements draw from the game's random source in the same order as
+ * counting down every pellet would.
+ */
+class RespawnWheel {
+
+  private static final int SLOTS = 1024; // a power of two, pellets due further off go round again
+  private static final int NONE = -1;
+
+  private final int maxX;
+  private final Pellet[] watched; // by square, the pellet last seen there
+  private final int[] due; // by square, the tick its pellet is next due, NONE if it isn't waiting
+  private final int[] synced; // by square, the tick its pellet has been counted up to
+  private final int[] next; // by square, the next square in its slot
+  private final int[] previous; // by square, the previous square in its slot
+  private final int[] slots = new int[SLOTS]; // the first square in each slot
+  private final BitSet firing = new BitSet(); // the squares due on the current tick
+  private int tick; // the number of physics updates counted
+
+  /**
+   * Creates an empty wheel
+   *
+   * @param map The map the pellets are on
+   */
+  RespawnWheel(Map map) {
+    maxX = map.getMaxX();
+    int cells = maxX * map.getMaxY();
+    watched = new Pellet[cells];
+    due = new int[cells];
+    synced = new int[cells];
+    next = new int[cells];
+    previous = new int[cells];
+    Arrays.fill(due, NONE);
+    Arrays.fill(slots, NONE);
+  }
+
+  /**
+   * Watches every pellet not already watched, for when pellets may have been put on the map
+   * without being watched, such as by a power up
+   *
+   * @param pellets The pellets of the game
+   */
+  void watchAll(PointMap<Pellet> pellets) {
+    for (Pellet pellet : pellets.values()) {
+      if (watched[keyOf(pellet)] != pellet) {
+        watch(pellet);
+      }
+    }
+  }
+
+  /**
+   * Starts or stops waiting on a pellet after something has happened to it, from the number of
+   * updates it says it needs. Call {@link #sync(Pellet)} before changing a watched pellet.
+   *
+   * @param pellet The pellet
+   */
+  void watch(Pellet pellet) {
+    int key = keyOf(pellet);
+    unlink(key);
+    watched[key] = pellet;
+    synced[key] = tick;
+    int updates = pellet.getUpdatesUntilChange();
+    if (updates >= 0) {
+      link(key, tick + Math.max(updates, 1));
+    }
+  }
+
+  /**
+   * Brings the count of a pellet up to the last physics update, before something happens to it
+   *
+   * @param pellet The pellet
+   */
+  void sync(Pellet pellet) {
+    int key = keyOf(pellet);
+    if (watched[key] == pellet && due[key] != NONE) {
+      pellet.incrementRespawn(tick - synced[key]);
+      synced[key] = tick;
+    }
+  }
+
+  /**
+   * Counts one physics update, respawning or replacing the pellets due on it
+   *
+   * @param pellets The pellets of the game
+   * @param random The source replacement pellets draw from
+   */
+  void advance(PointMap<Pellet> pellets, Random random) {
+    tick++;
+    int slot = tick & (SLOTS - 1);
+    for (int key = slots[slot]; key != NONE; key = next[key]) {
+      if (due[key] == tick) {
+        firing.set(key);
+      }
+    }
+    for (int key = firing.nextSetBit(0); key >= 0; key = firing.nextSetBit(key + 1)) {
+      Pellet pellet = watched[key];
+      unlink(key);
+      if (pellets.get(pellet.getLocation()) != pellet) {
+        continue; // taken off the map without being watched since
+      }
+      pellet.incrementRespawn(tick - synced[key]);
+      if (pellet.replace()) {
+        pellet = new Pellet(pellet.getLocation(), random);
+        pellets.put(pellet.getLocation(), pellet);
+      }
+      watch(pellet);
+    }
+    firing.clear();
+  }
+
+  /**
+   * @param pellet A pellet on the map
+   * @return The number of the pellet's square
+   */
+  private int keyOf(Pellet pellet) {
+    Point location = pellet.getLocation();
+    return (int) location.getY() * maxX + (int) location.getX();
+  }
+
+  /**
+   * Adds a square to the slot of the tick it is due
+   *
+   * @param key The square
+   * @param tick The tick it is due
+   */
+  private void link(int key, int tick) {
+    int slot = tick & (SLOTS - 1);
+    due[key] = tick;
+    previous[key] = NONE;
+    next[key] = slots[slot];
+    if (slots[slot] != NONE) {
+      previous[slots[slot]] = key;
+    }
+    slots[slot] = key;
+  }
+
+  /**
+   * Takes a square out of its slot, if it is in one
+   *
+   * @param key The square
+   */
+  private void unlink(int key) {
+    if (due[key] == NONE) {
+      return;
+    }
+    if (previous[key] != NONE) {
+      next[previous[key]] = next[key];
+    } else {
+      slots[due[key] & (SLOTS - 1)] = next[key];
+    }
+    if (next[key] != NONE) {
+      previous[next[key]] = previous[key];
+    }
+    due[key] = NONE;
+  }
+}
@@ -1,19 +1,23 @@
 package com.lordsofmidnight.server.telemeters;
 
 import com.lordsofmidnight.audio.AudioController;
+import com.lordsofmidnight.gamestate.WorldSnapshot;
 import com.lordsofmidnight.gamestate.maps.Map;
 import com.lordsofmidnight.gamestate.points.Point;
 import com.lordsofmidnight.gamestate.points.PointMap;
 import com.lordsofmidnight.main.Client;
 import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.objects.EntityStore;
 import com.lordsofmidnight.objects.Pellet;
 import com.lordsofmidnight.objects.powerUps.PowerUp;
 import com.lordsofmidnight.renderer.ResourceLoader;
-import com.lordsofmidnight.utils.GameLoop;
+import com.lordsofmidnight.server.snapshot.Snapshot;
+import com.lordsofmidnight.utils.GameRandom;
 import com.lordsofmidnight.utils.Input;
 import com.lordsofmidnight.utils.Methods;
+import com.lordsofmidnight.utils.TickScheduler;
 import com.lordsofmidnight.utils.enums.Direction;
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -23,72 +27,100 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public abstract class Telemetry {
 
-  static final int AGENT_COUNT = 5;
+  /** The number of agents in a standard game */
+  public static final int AGENT_COUNT = 5;
+  /** The most agents a game can have, ids are sent and journaled as a byte */
+  public static final int MAX_AGENT_COUNT = 128;
   static final int GAME_TIME = 150 * 100; // Number of seconds *100
-  static Client client;
   protected int gameTimer = GAME_TIME;
   protected int clientID;
   protected Map map;
-  protected GameLoop inputProcessor;
-  protected GameLoop positionUpdater;
-  protected GameLoop scoreUpdater;
+  protected TickScheduler scheduler;
   protected AudioController audioController;
+  protected GameListener listener;
+  protected GameRandom random; // every random choice the game makes comes from here
+  protected int agentCount = AGENT_COUNT;
   Entity[] agents;
   PointMap<Pellet> pellets;
+  RespawnWheel respawns; // the pellets whose respawn is being counted down
   ResourceLoader resourceLoader;
   ConcurrentHashMap<UUID, PowerUp> activePowerUps = new ConcurrentHashMap<>();
+  final Point face = new Point(0, 0); // reused for face locations, the physics runs on one thread
+  private EntityGrid entityGrid;
+  private int[] nearby; // the agents near the one being checked for collisions
+  private WorldSnapshot.Recorder worldRecorder;
+  private volatile WorldSnapshot world; // the state of the game as of the last tick
 
   /**
    * @param client The client it belongs to
    * @param audioController The Audio Controller for the client
    */
   Telemetry(Client client, AudioController audioController) {
-    this.map = client.getMap();
-    Telemetry.client = client;
-    this.resourceLoader = client.getResourceLoader();
+    this(client.getMap(), client.getResourceLoader(), client, audioController, new GameRandom());
     this.agents = client.getAgents();
+  }
+
+  /**
+   * @param map The map the game is played on
+   * @param resourceLoader The resource loader for images, null if the game is not rendered
+   * @param listener Told about collisions and the end of the game
+   * @param audioController The Audio Controller for the game
+   * @param random The random source of the game
+   */
+  Telemetry(
+      Map map,
+      ResourceLoader resourceLoader,
+      GameListener listener,
+      AudioController audioController,
+      GameRandom random) {
+    this.map = map;
+    this.random = random;
+    this.resourceLoader = resourceLoader;
+    this.listener = listener;
     this.audioController = audioController;
   }
 
   /**
-   * Static method to detect if the mipsman entity will eat a pellet
+   * Method to detect if the mipsman entity will eat a pellet. Each pellet interacted with has its
+   * respawn brought up to date first and is watched again after, as eating it starts the count.
    *
    * @param agents The entities
    * @param pellets The pellets
    * @author Matthew Jones
    */
-  private static void pelletCollision(
+  void pelletCollision(
       Entity[] agents,
       PointMap<Pellet> pellets,
-      ConcurrentHashMap<UUID, PowerUp> activePowerUps,
-      AudioController audioController) {
+      ConcurrentHashMap<UUID, PowerUp> activePowerUps) {
     for (Entity agent : agents) {
       Point p = agent.getLocation();
       Pellet pellet = pellets.get(p);
       if (pellet != null) {
+        respawns.sync(pellet);
         pellet.interact(agent, agents, activePowerUps, audioController);
+        respawns.watch(pellet);
       }
     }
   }
   // abstract methods
 
   /**
-   * Static method for 'swapping' a mipsman and ghoul if they occupy the same area.
+   * Method for 'swapping' a mipsman and ghoul if they occupy the same area.
    *
    * @param mipsman Entity currently acting as mipsman
    * @param ghoul Entity currently running as ghoul
    * @author Alex Banks, Matthew Jones
    */
-  private static void detectEntityCollision(
+  private void detectEntityCollision(
       Entity mipsman, Entity ghoul, AudioController audioController) {
     if (mipsman.isDead() || ghoul.isDead()) {
       return;
     }
     Point mipsmanCenter = mipsman.getLocation();
-    Point ghoulFace = ghoul.getFaceLocation();
+    Point ghoulFace = ghoul.getFaceLocation(face);
     if (mipsmanCenter.inRange(ghoulFace)) { // check temporary invincibility here
       if (mipsman.isMipsman()) {
-        client.collisionDetected(ghoul);
+        listener.collisionDetected(ghoul);
       }
       /*mipsman.setMipsman(false);
       ghoul.setMipsman(true);
@@ -105,11 +137,6 @@ public abstract class Telemetry {
     return gameTimer;
   }
 
-  /**
-   * Starts the AI controller
-   */
-  abstract void startAI();
-
   /**
    * Adds an input to the queue
    *
@@ -133,6 +160,23 @@ public abstract class Telemetry {
   /** Stops the game */
   public abstract void stopGame();
 
+  /**
+   * Sets the number of agents the game is made with, call before the entities are created
+   *
+   * @param agentCount The number of agents
+   */
+  void setAgentCount(int agentCount) {
+    if (agentCount < 1 || agentCount > MAX_AGENT_COUNT) {
+      throw new IllegalArgumentException("a game has 1 to " + MAX_AGENT_COUNT + " agents");
+    }
+    this.agentCount = agentCount;
+  }
+
+  /** @return The number of agents in the game */
+  public int getAgentCount() {
+    return agentCount;
+  }
+
   /** @return The agents array */
   public Entity[] getAgents() {
     return agents;
@@ -150,6 +194,24 @@ public abstract class Telemetry {
     return pellets;
   }
 
+  /**
+   * The state of the game as of the last tick, which never changes, so it can be read from any
+   * thread while the next tick is run.
+   *
+   * @return The state of the game, null before the game has started
+   */
+  public WorldSnapshot getWorld() {
+    return world;
+  }
+
+  /** Records the state of the game as it is now and publishes it, called at the end of a tick */
+  void publishWorld() {
+    if (worldRecorder == null) {
+      worldRecorder = new WorldSnapshot.Recorder(map);
+    }
+    world = worldRecorder.record(getStore(), agents, pellets, gameTimer);
+  }
+
   // physics engine
 
   /**
@@ -161,27 +223,24 @@ public abstract class Telemetry {
     this.agents[ID].setMipsman(true);
   }
 
-  /** Creates all the entities */
+  /**
+   * @return The store holding the state of the agents, each in the slot of its id, or null before
+   *     the agents are made
+   */
+  public EntityStore getStore() {
+    return agents == null || agents.length == 0 ? null : agents[0].getStore();
+  }
+
+  /**
+   * Creates all the entities, from the highest id down, each away from those already placed. They
+   * are all held in one {@link EntityStore}, each in the slot of its id.
+   */
   void initialiseEntities() {
 
-    agents = new Entity[AGENT_COUNT];
-    switch (AGENT_COUNT) {
-      default:
-        {
-          for (int i = AGENT_COUNT - 1; i >= 5; i--) {
-            agents[i] = new Entity(false, i, new Point(1.5, 1.5));
-          }
-        }
-      case 5:
-        agents[4] = new Entity(false, 4, map.getRandomSpawnPoint(agents));
-      case 4:
-        agents[3] = new Entity(false, 3, map.getRandomSpawnPoint(agents));
-      case 3:
-        agents[2] = new Entity(false, 2, map.getRandomSpawnPoint(agents));
-      case 2:
-        agents[1] = new Entity(false, 1, map.getRandomSpawnPoint(agents));
-      case 1:
-        agents[0] = new Entity(false, 0, map.getRandomSpawnPoint(agents));
+    agents = new Entity[agentCount];
+    EntityStore store = new EntityStore(agentCount);
+    for (int i = agentCount - 1; i >= 0; i--) {
+      agents[i] = new Entity(store, i, false, i, map.getRandomSpawnPoint(agents, random));
     }
 
     // Methods.updateImages(agents, resourceLoader);
@@ -201,33 +260,61 @@ public abstract class Telemetry {
       ResourceLoader resourceLoader,
       PointMap<Pellet> pellets,
       ConcurrentHashMap<UUID, PowerUp> activePowerUps) {
+    moveAgents(agents, m);
+    detectEntityCollisions(agents);
+    pelletCollision(agents, pellets, activePowerUps);
+    respawnPellets(pellets);
+    updatePowerUps(activePowerUps);
+    gameTimer--;
+    if (Math.round(gameTimer / (double) 100) == 0) {
+      listener.finishGame();
+    }
+  }
 
-    for (int i = 0; i < AGENT_COUNT; i++) {
-      if (agents[i].getDirection() != Direction.STOP) {
-        Point prevLocation = agents[i].getLocation();
-        agents[i].move();
-        Point faceLocation = agents[i].getFaceLocation();
-
-        if (m.isWall(faceLocation)) {
-          // System.out.println("~Player" + i + " drove into a wall");
-          agents[i].setLocation(prevLocation.centralise());
-          agents[i].setDirection(Direction.STOP);
-          agents[i].setDirectionSetFlag(false);
-        }
+  /**
+   * The first stage of the physics, moves every agent and counts down the respawn of dead ones
+   *
+   * @param agents The agents
+   * @param m The map being played on
+   */
+  void moveAgents(Entity[] agents, Map m) {
+    for (int i = 0; i < agents.length; i++) {
+      if (movesLocally(i)) {
+        moveAgent(agents[i], m, face);
       }
       if (agents[i].isDead()) {
         agents[i].countRespawn();
         int deathCounter = agents[i].getDeathCounter();
         if (deathCounter == 20) {
-          agents[i].setLocation(map.getRandomSpawnPoint(agents));
+          agents[i].setLocation(map.getRandomSpawnPoint(agents, random));
         }
       }
     }
+  }
 
-    // separate loop for checking collision after iteration
-
-    for (int i = 0; i < AGENT_COUNT; i++) {
-      for (int j = (i + 1); j < AGENT_COUNT; j++) {
+  /**
+   * Checks every pair of agents for a capture, after all of them have moved. Only agents in the
+   * same or neighbouring squares can touch, so each agent is only paired with those found near it
+   * in the {@link EntityGrid}. Pairs are checked in the same order as checking every pair would,
+   * so the same captures happen.
+   *
+   * @param agents The agents
+   */
+  void detectEntityCollisions(Entity[] agents) {
+    if (entityGrid == null || !entityGrid.fits(map, agents.length)) {
+      for (int i = 0; i < agents.length; i++) {
+        if (agents[i].getStore() != agents[0].getStore() || agents[i].getSlot() != i) {
+          throw new IllegalStateException("The agents must share a store, each in its own slot");
+        }
+      }
+      entityGrid = new EntityGrid(map, agents.length);
+      nearby = new int[agents.length];
+    }
+    entityGrid.update(agents[0].getStore());
+    for (int i = 0; i < agents.length; i++) {
+      int count = entityGrid.nearby(i, nearby);
+      for (int n = 0; n < count; n++) {
+        int j = nearby[n];
 
         if (agents[i].isMipsman() && !agents[j].isMipsman() && !agents[i].isInvincible()) {
           detectEntityCollision(agents[i], agents[j], audioController);
@@ -241,31 +328,64 @@ public abstract class Telemetry {
         }
       }
     }
+  }
+
+  /**
+   * Counts down the respawn of eaten pellets, replacing those that are due. Only the pellets due
+   * on this update are touched, see {@link RespawnWheel}.
+   *
+   * @param pellets The pellets
+   */
+  void respawnPellets(PointMap<Pellet> pellets) {
+    respawns.advance(pellets, random);
+  }
 
-    pelletCollision(agents, pellets, activePowerUps, audioController);
-    ArrayList<Point> replace = new ArrayList<>();
-    for (Pellet p : pellets.values()) {
-      p.incrementRespawn();
-      if (p.replace()) {
-        replace.add(p.getLocation());
+  /**
+   * Counts down the power ups in use, removing those that have run out
+   *
+   * @param activePowerUps The power ups in use
+   */
+  void updatePowerUps(ConcurrentHashMap<UUID, PowerUp> activePowerUps) {
+    Iterator<PowerUp> powerUps = activePowerUps.values().iterator();
+    while (powerUps.hasNext()) {
+      if (powerUps.next().incrementTime(audioController)) {
+        powerUps.remove();
       }
     }
-    for (Point p : replace) {
-      pellets.put(p, new Pellet(p));
-    }
-    ArrayList<UUID> toRemove = new ArrayList<>();
-    for (PowerUp p : activePowerUps.values()) {
-      if (p.incrementTime(audioController)) {
-        toRemove.add(p.id);
+  }
+
+  /**
+   * Moves an agent one physics step in its direction, stopping it in the centre of its square if
+   * it drives into a wall
+   *
+   * @param agent The agent to move
+   * @param m The map being played on
+   * @param face A point to work out the agent's face location in
+   */
+  static void moveAgent(Entity agent, Map m, Point face) {
+    if (agent.getDirection() != Direction.STOP) {
+      double prevX = agent.getLocation().getX();
+      double prevY = agent.getLocation().getY();
+      agent.move();
+      Point faceLocation = agent.getFaceLocation(face);
+
+      if (m.isWall(faceLocation)) {
+        // System.out.println("~Player" + i + " drove into a wall");
+        agent.setLocation(prevX, prevY);
+        agent.centralise();
+        agent.setDirection(Direction.STOP);
+        agent.setDirectionSetFlag(false);
       }
     }
-    for (UUID id : toRemove) {
-      activePowerUps.remove(id);
-    }
-    gameTimer--;
-    if (Math.round(gameTimer / (double) 100) == 0) {
-      client.finishGame();
-    }
+  }
+
+  /**
+   * @param id The id of an agent
+   * @return If the physics step should move the agent, rather than its position being set from
+   *     elsewhere
+   */
+  boolean movesLocally(int id) {
+    return true;
   }
 
   /**
@@ -277,9 +397,40 @@ public abstract class Telemetry {
     this.gameTimer = t;
   }
 
-  /** @return the input processor */
-  public GameLoop getInputProcessor() {
-    return inputProcessor;
+  /** @return the scheduler running the game's ticks */
+  public TickScheduler getScheduler() {
+    return scheduler;
+  }
+
+  /** @return The random source of the game */
+  public GameRandom getRandom() {
+    return random;
+  }
+
+  /**
+   * Hashes the state of the game: the timer, every agent and which pellets are active. Two games
+   * made from the same seed and given the same inputs have the same hash after every tick.
+   *
+   * @return The hash of the current state
+   */
+  public long stateHash() {
+    long hash = gameTimer;
+    EntityStore store = getStore();
+    for (int i = 0; i < agents.length; i++) {
+      Direction direction = store.getDirection(i);
+      hash = 31 * hash + Double.doubleToLongBits(store.getX(i));
+      hash = 31 * hash + Double.doubleToLongBits(store.getY(i));
+      hash = 31 * hash + (direction == null ? -1 : direction.toInt());
+      hash = 31 * hash + store.getScore(i);
+      hash = 31 * hash + Snapshot.packInventory(agents[i]);
+      hash = 31 * hash
+          + (store.hasFlag(i, EntityStore.MIPSMAN) ? 1 : 0)
+          + (store.hasFlag(i, EntityStore.DEAD) ? 2 : 0);
+    }
+    for (Pellet pellet : pellets.values()) {
+      hash = 31 * hash + (pellet.isActive() ? 1 : 0);
+    }
+    return 31 * hash + activePowerUps.size();
   }
 
   /** @return The hashmap of the active powerups */
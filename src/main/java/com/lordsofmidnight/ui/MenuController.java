@@ -1188,14 +1188,19 @@ public class MenuController {
     Button selectThemeBtn =
         ButtonGenerator.generate(true, themesContainer, "Select", UIColours.GREEN, 30);
     selectThemeBtn.setOnAction(
-        event -> {
-          client.updateTheme(currentTheme);
-          bg.setImage(resourceLoader.getBackground());
-          for (int i = 0; i < validMaps.size(); i++) {
-            mapImages.add(i, mapPreview.getMapPreview(validMaps.get(i)));
-          }
-          mapView.setImage(mapImages.get(mapsIndex));
-        });
+        event ->
+            client
+                .updateTheme(currentTheme)
+                .thenRun(
+                    () ->
+                        Platform.runLater(
+                            () -> {
+                              bg.setImage(resourceLoader.getBackground());
+                              for (int i = 0; i < validMaps.size(); i++) {
+                                mapImages.add(i, mapPreview.getMapPreview(validMaps.get(i)));
+                              }
+                              mapView.setImage(mapImages.get(mapsIndex));
+                            })));
 
     themesContainer.setVisible(true);
     themesTabLayout.getChildren().add(themesContainer);
@@ -0,0 +1,40 @@
+package com.lordsofmidnight.utils;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * The source of every random choice made in one game: spawn points, pellet respawn times, power up
+ * boxes and the AI. A game made from the same seed and given the same inputs plays out the same
+ * way, so games can be replayed and two simulations compared tick by tick.
+ */
+public class GameRandom extends Random {
+
+  private static final long serialVersionUID = 1L;
+
+  private final long seed;
+
+  /** Creates a source with a seed of its own */
+  public GameRandom() {
+    this(new Random().nextLong());
+  }
+
+  /** @param seed The seed of the game */
+  public GameRandom(long seed) {
+    super(seed);
+    this.seed = seed;
+  }
+
+  /** @return The seed the game was created with */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * @param random The random source of a game
+   * @return A random id, the same for every game made from the same seed
+   */
+  public static UUID nextUUID(Random random) {
+    return new UUID(random.nextLong(), random.nextLong());
+  }
+}
@@ -10,6 +10,7 @@ public class Input {
   private int clientID;
   private Direction move;
   private Boolean useItem;
+  private int sequence; // 0 if the input was not numbered by the client
 
   /**
    * Creates a new input
@@ -64,6 +65,16 @@ public class Input {
     return move;
   }
 
+  /** @return the number of the input among those sent by its client */
+  public int getSequence() {
+    return sequence;
+  }
+
+  /** @param sequence the number of the input among those sent by its client */
+  public void setSequence(int sequence) {
+    this.sequence = sequence;
+  }
+
   /**
    * Converts the Input into a string
    *
@@ -53,8 +53,41 @@ public class Methods {
    * @author Alex Banks, Matty Jones
    */
   public static boolean validateDirection(Direction d, Point p, Map m) {
-    Point movedPoint = p.getCopy().moveInDirection(1, d);
-    return !m.isWall(movedPoint) && p.isCentered();
+    if (!p.isCentered()) {
+      return false;
+    }
+    int x = (int) Point.wrap(p.getX(), m.getMaxX());
+    int y = (int) Point.wrap(p.getY(), m.getMaxY());
+    return validateDirection(d, x, y, m);
+  }
+
+  /**
+   * checks if moving in the given direction from the centre of a grid square is valid
+   *
+   * @param d direction of desired movement
+   * @param x the x coordinate of the square
+   * @param y the y coordinate of the square
+   * @param m map
+   * @return true if the square moved into is not a wall
+   */
+  public static boolean validateDirection(Direction d, int x, int y, Map m) {
+    int cell = m.cell(x, y);
+    if (d != null && d.isMovementDirection()) {
+      return (m.exits(cell) & Map.exit(d)) != 0;
+    }
+    return m.isWalkable(cell);
+  }
+
+  /**
+   * checks if moving in the given direction from the centre of a grid square is valid
+   *
+   * @param d direction of desired movement
+   * @param cell the square, packed by {@link Point#pack(int, int)}
+   * @param m map
+   * @return true if the square moved into is not a wall
+   */
+  public static boolean validateDirection(Direction d, long cell, Map m) {
+    return validateDirection(d, Point.unpackX(cell), Point.unpackY(cell), m);
   }
 
   /**
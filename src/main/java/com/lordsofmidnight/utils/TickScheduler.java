@@ -0,0 +1,221 @@
+package com.lordsofmidnight.utils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Runs the game on a fixed timestep. Time since the last wake up is added to an accumulator and a
+ * tick is run for every tick length it holds, so the tick count doesn't drift from the wall clock
+ * however long the thread oversleeps. Subsystems register work to be run every so many ticks, so a
+ * match needs only one thread however many things it updates. A task that throws is taken off the
+ * scheduler and its failure handed to whoever registered it, so it can't stop the other tasks.
+ */
+public class TickScheduler extends Thread {
+
+  /** The default length of a tick, 100 ticks a second */
+  public static final long DEFAULT_TICK_NANOS = (long) Math.pow(10, 7);
+  /** The default most ticks run back to back after a late wake up */
+  public static final int DEFAULT_MAX_CATCH_UP = 5;
+
+  private final long tickNanos;
+  private final int maxCatchUp;
+  private final List<Task> tasks = new CopyOnWriteArrayList<>();
+  private volatile boolean running = true;
+  private volatile boolean paused;
+  private volatile long tick;
+  private volatile long overruns;
+  private volatile long failures;
+  private volatile long droppedTicks;
+  private volatile long lastTickNanos;
+  private volatile long maxTickNanos;
+
+  /** Creates a scheduler running {@link #DEFAULT_TICK_NANOS} ticks */
+  public TickScheduler() {
+    this(DEFAULT_TICK_NANOS, DEFAULT_MAX_CATCH_UP);
+  }
+
+  /**
+   * @param tickNanos The length of a tick in nanoseconds
+   * @param maxCatchUp The most ticks to run back to back when the thread wakes up late, any more
+   *     are dropped so that a long stall doesn't leave the game running at full speed to catch up
+   */
+  public TickScheduler(long tickNanos, int maxCatchUp) {
+    super("TickScheduler");
+    if (tickNanos <= 0 || maxCatchUp < 1) {
+      throw new IllegalArgumentException("tick length and catch up limit must be positive");
+    }
+    this.tickNanos = tickNanos;
+    this.maxCatchUp = maxCatchUp;
+    setDaemon(true);
+  }
+
+  /**
+   * Registers work to be run every so many ticks, tasks due on the same tick are run in the order
+   * they were registered
+   *
+   * @param period The number of ticks between each run, 1 to run every tick
+   * @param task The work to run
+   */
+  public void register(int period, Runnable task) {
+    register(period, task, Throwable::printStackTrace);
+  }
+
+  /**
+   * Registers work to be run every so many ticks, tasks due on the same tick are run in the order
+   * they were registered. If the work throws it is unregistered and never run again.
+   *
+   * @param period The number of ticks between each run, 1 to run every tick
+   * @param task The work to run
+   * @param onFailure Told what the work threw, on the scheduler's thread
+   */
+  public void register(int period, Runnable task, Consumer<RuntimeException> onFailure) {
+    if (period < 1) {
+      throw new IllegalArgumentException("period must be at least 1 tick: " + period);
+    }
+    tasks.add(new Task(period, task, onFailure));
+  }
+
+  /**
+   * Removes work so it is no longer run, a tick already running may still run it once
+   *
+   * @param task The work, as it was registered
+   */
+  public void unregister(Runnable task) {
+    tasks.removeIf(registered -> registered.work == task);
+  }
+
+  /** @return The number of tasks registered */
+  public int getTaskCount() {
+    return tasks.size();
+  }
+
+  @Override
+  public void run() {
+    long previous = System.nanoTime();
+    long accumulator = 0;
+    while (running) {
+      long now = System.nanoTime();
+      if (paused) {
+        previous = now;
+        accumulator = 0;
+        LockSupport.parkNanos(this, tickNanos);
+        continue;
+      }
+      accumulator += now - previous;
+      previous = now;
+      int ran = 0;
+      while (accumulator >= tickNanos && ran < maxCatchUp && running && !paused) {
+        step();
+        accumulator -= tickNanos;
+        ran++;
+      }
+      if (accumulator >= tickNanos) {
+        droppedTicks += accumulator / tickNanos;
+        accumulator %= tickNanos;
+      }
+      if (running && !paused) {
+        LockSupport.parkNanos(this, tickNanos - accumulator);
+      }
+    }
+  }
+
+  /**
+   * Runs the next tick on the calling thread and records how long it took. The scheduler thread
+   * calls this itself, call it directly only when the scheduler isn't started
+   */
+  public void step() {
+    long start = System.nanoTime();
+    long next = tick + 1;
+    boolean failed = false;
+    for (Task task : tasks) {
+      if (next % task.period != 0 || (failed && !tasks.contains(task))) {
+        continue; // a failure handler may have unregistered tasks later in this tick
+      }
+      try {
+        task.work.run();
+      } catch (RuntimeException e) {
+        failed = true;
+        failures++;
+        tasks.remove(task);
+        task.onFailure.accept(e);
+      }
+    }
+    tick = next;
+    long took = System.nanoTime() - start;
+    lastTickNanos = took;
+    if (took > maxTickNanos) {
+      maxTickNanos = took;
+    }
+    if (took > tickNanos) {
+      overruns++;
+    }
+  }
+
+  /** pauses the scheduler - no ticks run until it is unpaused */
+  public void pause() {
+    paused = true;
+  }
+
+  /** unpauses the scheduler, time spent paused is not caught up */
+  public void unpause() {
+    paused = false;
+    LockSupport.unpark(this);
+  }
+
+  /** stops the scheduler after the current tick */
+  public void close() {
+    running = false;
+    LockSupport.unpark(this);
+  }
+
+  /** @return The length of a tick in nanoseconds */
+  public long getTickNanos() {
+    return tickNanos;
+  }
+
+  /** @return The number of ticks run */
+  public long getTick() {
+    return tick;
+  }
+
+  /** @return The number of ticks that took longer than a tick length to run */
+  public long getOverruns() {
+    return overruns;
+  }
+
+  /** @return The number of tasks that threw and were unregistered */
+  public long getFailures() {
+    return failures;
+  }
+
+  /** @return The number of ticks skipped because they were beyond the catch up limit */
+  public long getDroppedTicks() {
+    return droppedTicks;
+  }
+
+  /** @return How long the last tick took to run in nanoseconds */
+  public long getLastTickNanos() {
+    return lastTickNanos;
+  }
+
+  /** @return How long the slowest tick took to run in nanoseconds */
+  public long getMaxTickNanos() {
+    return maxTickNanos;
+  }
+
+  /** Work registered to run every {@code period} ticks */
+  private static class Task {
+
+    private final int period;
+    private final Runnable work;
+    private final Consumer<RuntimeException> onFailure;
+
+    private Task(int period, Runnable work, Consumer<RuntimeException> onFailure) {
+      this.period = period;
+      this.work = work;
+      this.onFailure = onFailure;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.lordsofmidnight.ai.mapping;
+
+import com.lordsofmidnight.ai.mapping.InfluenceMap.Layer;
+import com.lordsofmidnight.gamestate.WorldSnapshot;
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.gamestate.points.PointMap;
+import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.objects.EntityStore;
+import com.lordsofmidnight.objects.Pellet;
+import com.lordsofmidnight.objects.PowerUpBox;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InfluenceMapTest {
+
+  private static final Map testMap = new Map(new int[][] {
+      {1, 1, 1, 1, 1, 1},
+      {1, 0, 0, 0, 0, 1},
+      {1, 0, 1, 1, 0, 1},
+      {1, 0, 0, 0, 0, 1},
+      {1, 1, 1, 1, 1, 1},
+      {1, 1, 1, 1, 1, 1},
+      {1, 1, 0, 0, 1, 1},
+      {1, 1, 1, 1, 1, 1}
+  });
+
+  private final EntityStore store = new EntityStore(2);
+  private final Entity mipsman = new Entity(store, 0, true, 0, new Point(1.5, 1.5, testMap));
+  private final Entity ghoul = new Entity(store, 1, false, 1, new Point(3.5, 4.5, testMap));
+  private final PointMap<Pellet> pellets = new PointMap<>(testMap);
+  private final Entity[] agents = {mipsman, ghoul};
+  private final WorldSnapshot.Recorder recorder = new WorldSnapshot.Recorder(testMap);
+  private final InfluenceMap influence = new InfluenceMap(testMap);
+
+  @Test
+  void distancesFromEverySource() {
+    pellets.put(new Point(1, 3), new PowerUpBox(new Point(1.5, 3.5)));
+    pellets.put(new Point(3, 1), new Pellet(new Point(3.5, 1.5)));
+    influence.nextTick(recorder.record(store, agents, pellets, 0), 0);
+
+    InfluenceMap.Field ghouls = influence.get(Layer.GHOULS);
+    assertTrue(ghouls.contains(new Point(3.5, 4.5, testMap)));
+    assertFalse(ghouls.contains(new Point(1.5, 1.5, testMap)));
+    assertEquals(0, ghouls.getDistance(new Point(3.5, 4.5, testMap)));
+    assertEquals(5, ghouls.getDistance(new Point(1.5, 1.5, testMap)));
+    assertEquals(3, ghouls.getDistance(new Point(3.5, 1.5, testMap)));
+
+    InfluenceMap.Field boxes = influence.get(Layer.POWER_UP_BOXES);
+    assertTrue(boxes.contains(testMap.cell(1, 3)));
+    assertFalse(boxes.contains(testMap.cell(3, 1)));
+    assertEquals(2, boxes.getDistance(testMap.cell(1, 1)));
+    assertEquals(4, boxes.getDistance(testMap.cell(3, 1)));
+
+    assertEquals(0, influence.get(Layer.MIPSMAN).getDistance(testMap.cell(1, 1)));
+    assertEquals(
+        InfluenceMap.UNREACHABLE, influence.get(Layer.MIPSMAN).getDistance(testMap.cell(6, 2)));
+    assertFalse(influence.get(Layer.INVINCIBLE).contains(testMap.cell(1, 1)));
+    assertEquals(
+        InfluenceMap.UNREACHABLE, influence.get(Layer.INVINCIBLE).getDistance(testMap.cell(1, 1)));
+  }
+
+  @Test
+  void workedOutOncePerTick() {
+    influence.nextTick(recorder.record(store, agents, pellets, 0), 0);
+    InfluenceMap.Field invincible = influence.get(Layer.INVINCIBLE);
+    mipsman.setInvincible(true);
+    assertSame(invincible, influence.get(Layer.INVINCIBLE));
+    assertFalse(invincible.contains(testMap.cell(1, 1)));
+
+    influence.nextTick(recorder.record(store, agents, pellets, 0), WorldSnapshot.NO_AGENT);
+    assertTrue(influence.get(Layer.INVINCIBLE).contains(testMap.cell(1, 1)));
+    assertEquals(2, influence.get(Layer.INVINCIBLE).getDistance(testMap.cell(3, 1)));
+    assertEquals(
+        InfluenceMap.UNREACHABLE, influence.get(Layer.MIPSMAN).getDistance(testMap.cell(1, 1)));
+  }
+}
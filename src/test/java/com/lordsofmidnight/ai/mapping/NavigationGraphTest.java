@@ -0,0 +1,79 @@
+package com.lordsofmidnight.ai.mapping;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.maps.MapGenerator;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.gamestate.points.PointMap;
+import com.lordsofmidnight.gamestate.points.PointSet;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NavigationGraphTest {
+
+  private static final Map testMap = new Map(new int[][] {
+      {1, 1, 1, 1, 1, 1},
+      {1, 0, 0, 0, 0, 1},
+      {1, 0, 1, 1, 0, 1},
+      {1, 0, 0, 0, 0, 1},
+      {1, 1, 1, 1, 1, 1}
+  });
+
+  @Test
+  void sharedPerMap() {
+    assertSame(NavigationGraph.of(testMap), NavigationGraph.of(testMap));
+  }
+
+  @Test
+  void junctionsAndEdges() {
+    NavigationGraph graph = NavigationGraph.of(testMap);
+    PointSet junctions = Mapping.getJunctions(testMap);
+    PointMap<PointSet> edges = Mapping.getEdges(testMap, junctions);
+    assertEquals(junctions.size(), graph.getJunctionCount());
+    int id = 0;
+    for (Point junction : junctions) {
+      assertEquals(id, graph.getJunction(junction));
+      assertEquals(junction, new Point(graph.getJunctionX(id), graph.getJunctionY(id)));
+      PointSet targets = new PointSet(testMap);
+      for (int edge = graph.getEdgeStart(id); edge < graph.getEdgeEnd(id); edge++) {
+        int target = graph.getEdgeTarget(edge);
+        Point targetPoint = new Point(graph.getJunctionX(target), graph.getJunctionY(target));
+        targets.add(targetPoint);
+        assertEquals(junction.distance(targetPoint), graph.getEdgeLength(edge));
+        assertEquals(
+            Mapping.directionBetweenPoints(junction, targetPoint), graph.getEdgeDirection(edge));
+      }
+      assertEquals(edges.get(junction), targets);
+      id++;
+    }
+    assertEquals(NavigationGraph.NONE, graph.getJunction(2, 1));
+    assertFalse(graph.isJunction(new Point(0.5, 0.5)));
+  }
+
+  @Test
+  void findsJunctionsAsMappingDoes() {
+    for (int seed = 0; seed < 3; seed++) {
+      Map map = new Map(MapGenerator.generateNewMap(14, 14, new Random(seed)));
+      NavigationGraph graph = NavigationGraph.of(map);
+      PointSet junctions = Mapping.getJunctions(map);
+      for (int x = 0; x < map.getMaxX(); x++) {
+        for (int y = 0; y < map.getMaxY(); y++) {
+          if (map.isWall(x, y)) {
+            continue;
+          }
+          Point position = new Point(x + 0.5, y + 0.5, map);
+          assertEquals(
+              Mapping.findNearestJunction(position, map, junctions),
+              graph.findNearestJunction(position));
+          for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
+            assertEquals(
+                Mapping.findNextJunction(position, d, map, junctions).getGridCoord(),
+                graph.findNextJunction(position, d));
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.lordsofmidnight.ai.mapping;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.maps.MapGenerator;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteTableTest {
+
+  private static final long UNREACHABLE = Long.MAX_VALUE / 4;
+
+  /** @return The shortest distance between every pair of junctions, by Floyd-Warshall */
+  private static long[][] floydWarshall(NavigationGraph graph) {
+    int count = graph.getJunctionCount();
+    long[][] distance = new long[count][count];
+    for (int i = 0; i < count; i++) {
+      for (int j = 0; j < count; j++) {
+        distance[i][j] = i == j ? 0 : UNREACHABLE;
+      }
+      for (int edge = graph.getEdgeStart(i); edge < graph.getEdgeEnd(i); edge++) {
+        distance[i][graph.getEdgeTarget(edge)] = graph.getEdgeLength(edge);
+      }
+    }
+    for (int k = 0; k < count; k++) {
+      for (int i = 0; i < count; i++) {
+        for (int j = 0; j < count; j++) {
+          distance[i][j] = Math.min(distance[i][j], distance[i][k] + distance[k][j]);
+        }
+      }
+    }
+    return distance;
+  }
+
+  @Test
+  void shortestDistancesAndNextJunctions() {
+    for (int seed = 0; seed < 3; seed++) {
+      Map map = new Map(MapGenerator.generateNewMap(14, 14, new Random(seed)));
+      NavigationGraph graph = NavigationGraph.of(map);
+      RouteTable table = RouteTable.of(map);
+      long[][] expected = floydWarshall(graph);
+      for (int source = 0; source < graph.getJunctionCount(); source++) {
+        for (int target = 0; target < graph.getJunctionCount(); target++) {
+          int distance = table.getDistance(source, target);
+          int next = table.getNextJunction(source, target);
+          if (expected[source][target] == UNREACHABLE) {
+            assertEquals(RouteTable.UNREACHABLE, distance);
+            assertEquals(NavigationGraph.NONE, next);
+            continue;
+          }
+          assertEquals(expected[source][target], distance);
+          if (source == target) {
+            assertEquals(NavigationGraph.NONE, next);
+            assertEquals(Direction.STOP, table.getDirection(source, target));
+            continue;
+          }
+          int step = -1;
+          for (int edge = graph.getEdgeStart(source); edge < graph.getEdgeEnd(source); edge++) {
+            if (graph.getEdgeTarget(edge) == next) {
+              step = edge;
+            }
+          }
+          assertNotEquals(-1, step);
+          assertEquals(graph.getEdgeDirection(step), table.getDirection(source, target));
+          assertEquals(distance, graph.getEdgeLength(step) + table.getDistance(next, target));
+        }
+      }
+    }
+  }
+
+  @Test
+  void sharedPerMap() {
+    Map map = new Map(MapGenerator.generateNewMap(14, 14, new Random(7)));
+    assertSame(RouteTable.of(map), RouteTable.of(map));
+  }
+}
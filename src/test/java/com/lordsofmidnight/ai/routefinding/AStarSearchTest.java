@@ -0,0 +1,73 @@
+package com.lordsofmidnight.ai.routefinding;
+
+import com.lordsofmidnight.ai.mapping.NavigationGraph;
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.maps.MapGenerator;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AStarSearchTest {
+
+  private static final int UNREACHABLE = Integer.MAX_VALUE / 2;
+
+  /** @return The shortest distance between every pair of junctions, by Floyd-Warshall */
+  private static int[][] distances(NavigationGraph graph) {
+    int count = graph.getJunctionCount();
+    int[][] distance = new int[count][count];
+    for (int i = 0; i < count; i++) {
+      Arrays.fill(distance[i], UNREACHABLE);
+      distance[i][i] = 0;
+      for (int edge = graph.getEdgeStart(i); edge < graph.getEdgeEnd(i); edge++) {
+        distance[i][graph.getEdgeTarget(edge)] = graph.getEdgeLength(edge);
+      }
+    }
+    for (int k = 0; k < count; k++) {
+      for (int i = 0; i < count; i++) {
+        for (int j = 0; j < count; j++) {
+          distance[i][j] = Math.min(distance[i][j], distance[i][k] + distance[k][j]);
+        }
+      }
+    }
+    return distance;
+  }
+
+  @Test
+  void firstStepIsOnAShortestRoute() {
+    for (int seed = 0; seed < 3; seed++) {
+      Map map = new Map(MapGenerator.generateNewMap(14, 14, new Random(seed)));
+      NavigationGraph graph = NavigationGraph.of(map);
+      AStarSearch search = AStarSearch.of(map);
+      int[][] distance = distances(graph);
+      for (int source = 0; source < graph.getJunctionCount(); source++) {
+        for (int target = 0; target < graph.getJunctionCount(); target++) {
+          int x = graph.getJunctionX(target);
+          int y = graph.getJunctionY(target);
+          Direction direction = search.getDirection(source, x, y);
+          if (source == target || distance[source][target] == UNREACHABLE) {
+            assertEquals(RouteFinder.DEFAULT, direction);
+            continue;
+          }
+          boolean onShortestRoute = false;
+          for (int edge = graph.getEdgeStart(source); edge < graph.getEdgeEnd(source); edge++) {
+            if (graph.getEdgeDirection(edge) == direction) {
+              int rest = distance[graph.getEdgeTarget(edge)][target];
+              onShortestRoute = graph.getEdgeLength(edge) + rest == distance[source][target];
+            }
+          }
+          assertTrue(onShortestRoute, source + " to " + target + " went " + direction);
+          assertEquals(direction, search.getDirection(source, x, y));
+        }
+      }
+    }
+  }
+
+  @Test
+  void sharedPerMap() {
+    Map map = new Map(MapGenerator.generateNewMap(14, 14, new Random(7)));
+    assertSame(AStarSearch.of(map), AStarSearch.of(map));
+  }
+}
@@ -1,12 +1,124 @@
 package com.lordsofmidnight.ai.routefinding;
 
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.maps.MapGenerator;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class SampleSearchTest {
 
+  private static final Map testMap = new Map(new int[][] {
+      {1, 1, 1, 1, 1, 1},
+      {1, 0, 0, 0, 0, 1},
+      {1, 0, 1, 1, 0, 1},
+      {1, 0, 0, 0, 0, 1},
+      {1, 1, 1, 1, 1, 1}
+  });
+
+  /** @return The distance to every cell from a start, without passing through the blocked cell */
+  private static int[] distances(Map map, int start, int blocked) {
+    int[] distance = new int[map.getMaxX() * map.getMaxY()];
+    Arrays.fill(distance, Integer.MAX_VALUE);
+    distance[start] = 0;
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    queue.add(start);
+    while (!queue.isEmpty()) {
+      int cell = queue.poll();
+      for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
+        int next = map.step(cell, d);
+        if (next != blocked && map.isWalkable(next) && distance[next] == Integer.MAX_VALUE) {
+          distance[next] = distance[cell] + 1;
+          queue.add(next);
+        }
+      }
+    }
+    return distance;
+  }
+
   @Test
   void getDirectionCounts() {
+    SampleSearch search = SampleSearch.of(testMap);
+    Point start = new Point(1.5, 1.5, testMap);
+    int[] counts = search.getDirectionCounts(start, 5, p -> p.equals(new Point(3, 4)));
+    // the square opposite is 5 away both ways round the loop
+    assertArrayEquals(new int[] {0, 1, 0, 1}, counts);
+    counts = search.getDirectionCounts(start, 5, p -> p.equals(new Point(1, 2)));
+    assertArrayEquals(new int[] {0, 5, 0, 0}, counts);
+    counts = search.getDirectionCounts(start, 4, p -> p.equals(new Point(3, 4)));
+    assertArrayEquals(new int[] {0, 0, 0, 0}, counts);
+  }
+
+  @Test
+  void samplesMatchSeparateSearches() {
+    for (int seed = 0; seed < 3; seed++) {
+      Map map = new Map(MapGenerator.generateNewMap(14, 14, new Random(seed)));
+      SampleSearch search = SampleSearch.of(map);
+      Random random = new Random(seed);
+      boolean[][] marked = new boolean[2][map.getMaxX() * map.getMaxY()];
+      for (boolean[] row : marked) {
+        for (int i = 0; i < row.length; i++) {
+          row[i] = random.nextInt(6) == 0;
+        }
+      }
+      SampleSearch.Sample[] samples = {
+          new SampleSearch.Sample(p -> marked[0][map.cell(p)], 25, -2),
+          new SampleSearch.Sample(p -> marked[1][map.cell(p)], 8, 1)
+      };
+      int[] depths = {25, 8};
+      int[] weights = {-2, 1};
+      int[][] counts = new int[2][4];
+      for (int start = 0; start < marked[0].length; start++) {
+        if (!map.isWalkable(start)) {
+          continue;
+        }
+        Point position = new Point(map.cellX(start) + 0.5, map.cellY(start) + 0.5, map);
+        search.getDirectionCounts(position, samples, counts);
+        int[] fromStart = distances(map, start, -1);
+        for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
+          int first = map.step(start, d);
+          int[] fromFirst = map.isWalkable(first) ? distances(map, first, start) : null;
+          for (int i = 0; i < samples.length; i++) {
+            int expected = 0;
+            for (int cell = 0; cell < marked[i].length; cell++) {
+              if (fromFirst == null || !marked[i][cell] || cell == start
+                  || fromFirst[cell] == Integer.MAX_VALUE) {
+                continue;
+              }
+              int distance = fromFirst[cell] + 1;
+              if (distance == fromStart[cell] && distance <= depths[i]) {
+                expected += weights[i] * (depths[i] + 1 - distance);
+              }
+            }
+            assertEquals(expected, counts[i][d.toInt()], "from " + start + " " + d);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void sharedPerMap() {
+    assertSame(SampleSearch.of(testMap), SampleSearch.of(testMap));
+  }
+
+  @Test
+  void cachedSearchDoesNotKeepItsMapAlive() throws InterruptedException {
+    Map map = new Map(MapGenerator.generateNewMap(17, 17, new Random(3)));
+    SampleSearch.of(map).getDirectionCounts(map.getRandomSpawnPoint(new Entity[0]), 3, p -> true);
+    WeakReference<Map> collected = new WeakReference<>(map);
+    map = null;
+    for (int i = 0; i < 50 && collected.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(collected.get());
   }
-}
\ No newline at end of file
+}
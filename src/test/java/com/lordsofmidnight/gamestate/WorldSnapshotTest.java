@@ -0,0 +1,95 @@
+package com.lordsofmidnight.gamestate;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.gamestate.points.PointMap;
+import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.objects.EntityStore;
+import com.lordsofmidnight.objects.Pellet;
+import com.lordsofmidnight.objects.PowerUpBox;
+import com.lordsofmidnight.utils.enums.Direction;
+import com.lordsofmidnight.utils.enums.PowerUps;
+import java.util.BitSet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldSnapshotTest {
+
+  private static final Map testMap = new Map(new int[6][5]);
+
+  private final EntityStore store = new EntityStore(2);
+  private final Entity mipsman = new Entity(store, 0, true, 0, new Point(1.5, 1.5, testMap));
+  private final Entity ghoul = new Entity(store, 1, false, 1, new Point(3.5, 2.5, testMap));
+  private final Entity[] agents = {mipsman, ghoul};
+  private final PointMap<Pellet> pellets = new PointMap<>(testMap);
+  private final WorldSnapshot.Recorder recorder = new WorldSnapshot.Recorder(testMap);
+
+  @Test
+  void recordsTheGame() {
+    pellets.put(new Point(2, 3), new Pellet(new Point(2.5, 3.5)));
+    pellets.put(new Point(4, 1), new PowerUpBox(new Point(4.5, 1.5)));
+    pellets.get(4, 1).setActive(false);
+    ghoul.setDirection(Direction.LEFT);
+    ghoul.setInvincible(true);
+    ghoul.setScore(7);
+    ghoul.setItems(PowerUps.SPEED.toInt());
+
+    WorldSnapshot world = recorder.record(store, agents, pellets, 1234);
+    assertEquals(2, world.getAgentCount());
+    assertEquals(1234, world.getGameTime());
+    assertEquals(0, world.getMipID());
+    assertEquals(new Point(3.5, 2.5, testMap), world.getLocation(1));
+    assertEquals(testMap.cell(3, 2), world.getCell(1));
+    assertEquals(Direction.LEFT, world.getDirection(1));
+    assertTrue(world.isMipsman(0));
+    assertFalse(world.isMipsman(1));
+    assertTrue(world.isInvincible(1));
+    assertEquals(7, world.getScore(1));
+    assertEquals(PowerUps.SPEED.toInt(), world.getFirstItem(1));
+    assertEquals(WorldSnapshot.NO_ITEM, world.getFirstItem(0));
+    assertTrue(world.hasPellet(testMap.cell(2, 3)));
+    assertFalse(world.hasPellet(testMap.cell(4, 1)));
+    assertTrue(world.hasPowerUpBox(testMap.cell(4, 1)));
+    BitSet active = new BitSet();
+    world.getPellets(active);
+    assertEquals(1, active.cardinality());
+  }
+
+  @Test
+  void flagsAreThoseOfTheStore() {
+    ghoul.setStunned(true);
+    ghoul.setDead(true);
+    WorldSnapshot world = recorder.record(store, agents, pellets, 0);
+    assertEquals(store.getFlags(1), world.getFlags(1));
+    assertEquals(WorldSnapshot.STUNNED | WorldSnapshot.DEAD, world.getFlags(1));
+    assertFalse(world.isInvincible(1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> recorder.record(new EntityStore(3), agents, pellets, 0));
+  }
+
+  @Test
+  void unchangedByLaterTicks() {
+    Pellet pellet = new Pellet(new Point(2.5, 3.5));
+    pellets.put(new Point(2, 3), pellet);
+    WorldSnapshot first = recorder.record(store, agents, pellets, 10);
+
+    mipsman.setMipsman(false);
+    ghoul.setLocation(new Point(4.5, 2.5, testMap));
+    ghoul.setDead(true);
+    pellet.setActive(false);
+    WorldSnapshot second = recorder.record(store, agents, pellets, 9);
+
+    assertEquals(0, first.getMipID());
+    assertEquals(testMap.cell(3, 2), first.getCell(1));
+    assertFalse(first.isDead(1));
+    assertTrue(first.hasPellet(testMap.cell(2, 3)));
+    assertEquals(first.getTick() + 1, second.getTick());
+    assertEquals(WorldSnapshot.NO_AGENT, second.getMipID());
+    assertEquals(testMap.cell(4, 2), second.getCell(1));
+    assertTrue(second.isDead(1));
+    assertFalse(second.hasPellet(testMap.cell(2, 3)));
+    assertSame(second, recorder.getLast());
+  }
+}
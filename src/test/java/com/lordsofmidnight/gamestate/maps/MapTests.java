@@ -1,8 +1,12 @@
 package com.lordsofmidnight.gamestate.maps;
 
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.utils.enums.Direction;
 import java.util.Arrays;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 public class MapTests {
 
   @Test
@@ -40,4 +44,51 @@ public class MapTests {
 
     assert (map.equals(recievedMap));
   }
+
+  @Test
+  void walkabilityMatchesRaw() {
+    int[][] mapArr = {{1, 0, 1}, {1, 0, 1}, {0, 0, 0}, {1, 1, 1}};
+    Map map = new Map(mapArr);
+    for (int x = 0; x < 4; x++) {
+      for (int y = 0; y < 3; y++) {
+        boolean wall = mapArr[x][y] == 1;
+        int cell = map.cell(x, y);
+        assertEquals(wall, map.isWall(x, y));
+        assertEquals(wall, map.isWall(new Point(x + 0.5, y + 0.5)));
+        assertEquals(!wall, map.isWalkable(cell));
+        assertEquals(x, map.cellX(cell));
+        assertEquals(y, map.cellY(cell));
+      }
+    }
+    assertEquals(map.isWall(2, 0), map.isWall(6, -3)); // off the edge wraps round
+  }
+
+  @Test
+  void stepsWrapRoundTheEdges() {
+    Map map = new Map(new int[4][3]);
+    int corner = map.cell(0, 0);
+    assertEquals(map.cell(0, 2), map.step(corner, Direction.UP));
+    assertEquals(map.cell(0, 1), map.step(corner, Direction.DOWN));
+    assertEquals(map.cell(3, 0), map.step(corner, Direction.LEFT));
+    assertEquals(map.cell(1, 0), map.step(corner, Direction.RIGHT));
+    assertEquals(corner, map.step(corner, Direction.STOP));
+  }
+
+  @Test
+  void exitsAreWalkableNeighbours() {
+    int[][] mapArr = {{1, 0, 1}, {1, 0, 1}, {0, 0, 0}, {1, 1, 1}};
+    Map map = new Map(mapArr);
+    int middle = map.cell(2, 1);
+    assertEquals(
+        Map.exit(Direction.UP) | Map.exit(Direction.DOWN) | Map.exit(Direction.LEFT),
+        map.exits(middle));
+    int tunnel = map.cell(2, 0); // its up neighbour is across the edge, at (2, 2)
+    assertEquals(Map.exit(Direction.UP) | Map.exit(Direction.DOWN), map.exits(tunnel));
+    for (int cell = 0; cell < 12; cell++) {
+      for (Direction d : Direction.MOVEMENT_DIRECTIONS) {
+        assertEquals(
+            map.isWalkable(map.step(cell, d)), (map.exits(cell) & Map.exit(d)) != 0);
+      }
+    }
+  }
 }
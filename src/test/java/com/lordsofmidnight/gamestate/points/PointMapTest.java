@@ -1,60 +1,126 @@
 package com.lordsofmidnight.gamestate.points;
 
+import com.lordsofmidnight.gamestate.maps.Map;
+import java.util.ArrayList;
+import java.util.Iterator;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class PointMapTest {
 
+  private static final Map MAP = new Map(new int[5][4]);
+
+  private static PointMap<String> filled() {
+    PointMap<String> map = new PointMap<>(MAP);
+    map.put(new Point(3.5, 2.5), "a");
+    map.put(new Point(1.2, 0.7), "b");
+    map.put(new Point(4.5, 3.5), "c");
+    return map;
+  }
+
   @Test
   void getShallowClone() {
+    PointMap<String> clone = filled().getShallowClone();
+    assertTrue(clone.isEmpty());
+    clone.put(new Point(4.5, 3.5), "d");
+    assertEquals("d", clone.get(4, 3));
   }
 
   @Test
   void clear() {
+    PointMap<String> map = filled();
+    map.clear();
+    assertEquals(0, map.size());
+    assertNull(map.get(new Point(3.5, 2.5)));
   }
 
   @Test
   void containsKey() {
+    PointMap<String> map = filled();
+    assertTrue(map.containsKey(new Point(3.9, 2.1)));
+    assertTrue(map.containsKey(1, 0));
+    assertFalse(map.containsKey(new Point(0.5, 0.5)));
+    assertFalse(map.containsKey(-1, 0));
+    assertFalse(map.containsKey(5, 0));
+    assertFalse(map.containsKey("not a point"));
   }
 
   @Test
   void containsValue() {
+    assertTrue(filled().containsValue("b"));
+    assertFalse(filled().containsValue("z"));
   }
 
   @Test
   void get() {
+    PointMap<String> map = filled();
+    assertEquals("a", map.get(new Point(3.1, 2.9)));
+    assertEquals("b", map.get(1, 0));
+    assertNull(map.get(0, 0));
+    assertNull(map.get(0, 4));
   }
 
   @Test
   void getOrDefault() {
+    assertEquals("a", filled().getOrDefault(new Point(3.5, 2.5), "z"));
+    assertEquals("z", filled().getOrDefault(new Point(0.5, 0.5), "z"));
   }
 
   @Test
   void isEmpty() {
+    assertTrue(new PointMap<String>(MAP).isEmpty());
+    assertFalse(filled().isEmpty());
   }
 
   @Test
   void keySet() {
+    PointMap<String> map = filled();
+    ArrayList<Point> keys = new ArrayList<>(map.keySet());
+    assertEquals(new Point(1.2, 0.7), keys.get(0)); // grid order, row by row
+    assertEquals(new Point(3.5, 2.5), keys.get(1));
+    assertEquals(new Point(4.5, 3.5), keys.get(2));
+    Iterator<Point> iterator = map.keySet().iterator();
+    iterator.next();
+    iterator.remove();
+    assertFalse(map.containsKey(1, 0));
+    assertEquals(2, map.size());
   }
 
   @Test
   void put() {
+    PointMap<String> map = filled();
+    assertEquals("a", map.put(new Point(3.0, 2.0), "d"));
+    assertEquals(3, map.size());
+    assertEquals("d", map.get(3, 2));
+    assertThrows(IllegalArgumentException.class, () -> map.put(new Point(7, 1), "e"));
   }
 
   @Test
   void remove() {
+    PointMap<String> map = filled();
+    assertEquals("a", map.remove(new Point(3.5, 2.5)));
+    assertNull(map.remove(new Point(3.5, 2.5)));
+    assertEquals(2, map.size());
   }
 
   @Test
   void size() {
+    assertEquals(3, filled().size());
   }
 
   @Test
   void values() {
+    assertArrayEquals(new Object[] {"b", "a", "c"}, filled().values().toArray());
   }
 
   @Test
   void entrySet() {
+    PointMap<String> map = filled();
+    for (java.util.Map.Entry<Point, String> entry : map.entrySet()) {
+      entry.setValue(entry.getValue() + "!");
+    }
+    assertEquals("a!", map.get(3, 2));
+    assertEquals(3, map.entrySet().size());
   }
-}
\ No newline at end of file
+}
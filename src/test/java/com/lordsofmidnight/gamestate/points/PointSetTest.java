@@ -1,68 +1,140 @@
 package com.lordsofmidnight.gamestate.points;
 
+import com.lordsofmidnight.gamestate.maps.Map;
+import java.util.Iterator;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class PointSetTest {
 
+  private static final Map MAP = new Map(new int[5][4]);
+
+  private static PointSet filled() {
+    PointSet set = new PointSet(MAP);
+    set.add(new Point(3.5, 2.5));
+    set.add(new Point(1.2, 0.7));
+    set.add(new Point(4.5, 3.5));
+    return set;
+  }
+
   @Test
   void getShallowClone() {
+    assertTrue(filled().getShallowClone().isEmpty());
   }
 
   @Test
   void contains() {
+    PointSet set = filled();
+    assertTrue(set.contains(new Point(3.9, 2.1)));
+    assertTrue(set.contains(4, 3));
+    assertFalse(set.contains(0, 0));
+    assertFalse(set.contains(0, -1));
+    assertFalse(set.contains("not a point"));
   }
 
   @Test
   void add() {
+    PointSet set = filled();
+    assertFalse(set.add(new Point(3.1, 2.1)));
+    assertTrue(set.add(new Point(0.5, 0.5)));
+    assertEquals(4, set.size());
+    assertThrows(IllegalArgumentException.class, () -> set.add(new Point(1, 9)));
   }
 
   @Test
   void remove() {
+    PointSet set = filled();
+    assertTrue(set.remove(new Point(3.5, 2.5)));
+    assertFalse(set.remove(new Point(3.5, 2.5)));
+    assertEquals(2, set.size());
   }
 
   @Test
   void addAll() {
+    PointSet set = new PointSet(MAP);
+    assertTrue(set.addAll(filled()));
+    assertEquals(3, set.size());
   }
 
   @Test
   void removeAll() {
+    PointSet set = filled();
+    PointSet remove = new PointSet(MAP);
+    remove.add(new Point(1.5, 0.5));
+    assertTrue(set.removeAll(remove));
+    assertFalse(set.contains(1, 0));
   }
 
   @Test
   void retainAll() {
+    PointSet set = filled();
+    PointSet keep = new PointSet(MAP);
+    keep.add(new Point(1.5, 0.5));
+    assertTrue(set.retainAll(keep));
+    assertEquals(1, set.size());
+    assertTrue(set.contains(1, 0));
   }
 
   @Test
   void containsAll() {
+    PointSet set = filled();
+    assertTrue(set.containsAll(set.clone()));
+    PointSet other = new PointSet(MAP);
+    other.add(new Point(0.5, 0.5));
+    assertFalse(set.containsAll(other));
   }
 
   @Test
   void toArray() {
+    Point[] points = filled().toArray();
+    assertEquals(3, points.length);
+    assertEquals(new Point(1.2, 0.7), points[0]); // grid order, row by row
   }
 
   @Test
   void toArray1() {
+    assertEquals(3, filled().toArray(new Point[0]).length);
+    assertThrows(ArrayStoreException.class, () -> filled().toArray(new String[0]));
   }
 
   @Test
   void size() {
+    assertEquals(3, filled().size());
   }
 
   @Test
   void clear() {
+    PointSet set = filled();
+    set.clear();
+    assertEquals(0, set.size());
+    assertFalse(set.contains(4, 3));
   }
 
   @Test
   void isEmpty() {
+    assertTrue(new PointSet(MAP).isEmpty());
+    assertFalse(filled().isEmpty());
   }
 
   @Test
   void cloneTest() {
+    PointSet set = filled();
+    PointSet clone = set.clone();
+    clone.remove(new Point(3.5, 2.5));
+    assertTrue(set.contains(3, 2));
+    assertEquals(2, clone.size());
   }
 
   @Test
   void iterator() {
+    PointSet set = filled();
+    Iterator<Point> iterator = set.iterator();
+    assertEquals(new Point(1.2, 0.7), iterator.next());
+    iterator.remove();
+    assertEquals(new Point(3.5, 2.5), iterator.next());
+    assertEquals(new Point(4.5, 3.5), iterator.next());
+    assertFalse(iterator.hasNext());
+    assertEquals(2, set.size());
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.lordsofmidnight.gamestate.points;
+
+import com.lordsofmidnight.utils.enums.Direction;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PointTest {
+
+  @Test
+  void pack() {
+    long cell = Point.pack(7, 3);
+    assertEquals(7, Point.unpackX(cell));
+    assertEquals(3, Point.unpackY(cell));
+    assertEquals(cell, new Point(7.5, 3.2).pack());
+    assertEquals(-2, Point.unpackX(Point.pack(-2, -5)));
+    assertEquals(-5, Point.unpackY(Point.pack(-2, -5)));
+  }
+
+  @Test
+  void wrap() {
+    assertEquals(2.5, Point.wrap(2.5, 4));
+    assertEquals(0.5, Point.wrap(4.5, 4));
+    assertEquals(3.5, Point.wrap(-0.5, 4));
+    assertEquals(1.0, Point.wrap(-7.0, 4));
+  }
+
+  @Test
+  void set() {
+    Point original = new Point(1.5, 2.5, 4, 4);
+    Point reused = new Point(0, 0).set(original);
+    assertEquals(original, reused);
+    assertNotSame(original, reused);
+    reused.moveInDirection(1, Direction.LEFT).moveInDirection(1, Direction.LEFT);
+    assertEquals(new Point(3.5, 2.5), reused); // wraps like the original would
+    assertEquals(new Point(1.5, 2.5), original);
+  }
+
+  @Test
+  void inRange() {
+    Point p = new Point(2.5, 0.5, 10, 10);
+    assertTrue(p.inRange(new Point(2.1, 0.5, 10, 10)));
+    assertTrue(p.inRange(new Point(2.5, 0.5, 10, 10)));
+    assertFalse(p.inRange(new Point(1.5, 0.5, 10, 10)));
+    assertFalse(p.inRange(new Point(5.5, 0.5, 10, 10)));
+  }
+}
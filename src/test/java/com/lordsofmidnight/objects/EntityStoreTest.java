@@ -0,0 +1,58 @@
+package com.lordsofmidnight.objects;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.utils.enums.Direction;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityStoreTest {
+
+  private static final Map MAP = new Map(new int[6][4]);
+
+  @Test
+  void entitiesAreViewsOfTheirSlots() {
+    EntityStore store = new EntityStore(2);
+    Entity mipsman = new Entity(store, 0, true, 0, new Point(1.5, 1.5, MAP));
+    Entity ghoul = new Entity(store, 1, false, 1, new Point(3.5, 2.5, MAP));
+
+    assertTrue(store.hasFlag(0, EntityStore.MIPSMAN));
+    assertFalse(store.hasFlag(1, EntityStore.MIPSMAN));
+    assertEquals(Direction.UP, store.getDirection(1));
+    ghoul.setDirection(null);
+    assertNull(store.getDirection(1));
+    ghoul.setDirection(Direction.LEFT);
+    ghoul.incrementScore(4);
+    ghoul.setStunned(true);
+    assertEquals(Direction.LEFT, store.getDirection(1));
+    assertEquals(4, store.getScore(1));
+    assertTrue(store.hasFlag(1, EntityStore.STUNNED));
+    assertEquals(0, store.getVelocity(1));
+
+    mipsman.setLocation(2.5, 3.5);
+    assertEquals(2.5, store.getX(0));
+    assertEquals(3.5, store.getY(0));
+    assertEquals(new Point(2.5, 3.5, MAP), mipsman.getLocation());
+  }
+
+  @Test
+  void movesWrapRoundTheMap() {
+    EntityStore store = new EntityStore(1);
+    Entity agent = new Entity(store, 0, false, 0, new Point(0.5, 1.5, MAP));
+    agent.setDirection(Direction.LEFT);
+    agent.setVelocity(1);
+    store.move(0);
+    assertEquals(5.5, store.getX(0));
+    assertEquals(5.5, agent.getLocation().getX());
+    agent.setDead(true);
+    store.move(0);
+    assertEquals(5.5, store.getX(0));
+    agent.setDead(false);
+    agent.setVelocity(0.25);
+    agent.move();
+    assertEquals(5.25, store.getX(0));
+    agent.centralise();
+    assertEquals(5.5, store.getX(0));
+  }
+}
@@ -0,0 +1,53 @@
+package com.lordsofmidnight.renderer;
+
+import com.lordsofmidnight.renderer.AssetTimings.Stage;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetTimingsTest {
+
+  @Test
+  void stagesAddUpTheirWork() {
+    AssetTimings timings = new AssetTimings();
+    long start = System.nanoTime();
+    timings.add(Stage.RESIZE, start);
+    timings.add(Stage.RESIZE, start);
+    timings.add(Stage.DECODE, System.nanoTime());
+
+    assertEquals(2, timings.getCount(Stage.RESIZE));
+    assertEquals(1, timings.getCount(Stage.DECODE));
+    assertEquals(0, timings.getCount(Stage.ATLAS));
+    assertEquals(0, timings.getNanos(Stage.ATLAS));
+    assertTrue(timings.getNanos(Stage.RESIZE) >= 0);
+  }
+
+  @Test
+  void totalStopsOnceFinished() throws InterruptedException {
+    AssetTimings timings = new AssetTimings();
+    Thread.sleep(2);
+    assertTrue(timings.getTotalNanos() > 0);
+    timings.finish();
+    long total = timings.getTotalNanos();
+    Thread.sleep(2);
+    assertEquals(total, timings.getTotalNanos());
+  }
+
+  @Test
+  void reportListsOnlyStagesThatDidWork() {
+    AssetTimings timings = new AssetTimings();
+    timings.add(Stage.RECOLOUR, System.nanoTime());
+    timings.add(Stage.SPLIT, System.nanoTime());
+    timings.add(Stage.SPLIT, System.nanoTime());
+    timings.finish();
+
+    String report = timings.toString();
+    assertTrue(report.startsWith("Assets loaded in "));
+    assertTrue(report.contains("recolour"));
+    assertTrue(report.contains("over 1 task"));
+    assertTrue(report.contains("split sheet"));
+    assertTrue(report.contains("over 2 tasks"));
+    assertFalse(report.contains("decode"));
+    assertFalse(report.contains("atlas cache"));
+  }
+}
@@ -3,18 +3,50 @@ package com.lordsofmidnight.renderer;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
 import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import com.lordsofmidnight.utils.enums.MapElement;
+import com.lordsofmidnight.utils.enums.RenderingMode;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ResourceLoaderTests {
 
+  private final List<File> temporaryDirectories = new ArrayList<>();
+
+  /**
+   * @param prefix The start of the name of the directory
+   * @return A new directory, deleted with everything in it after the test
+   * @throws IOException If the directory can't be made
+   */
+  private File temporaryDirectory(String prefix) throws IOException {
+    File directory = Files.createTempDirectory(prefix).toFile();
+    temporaryDirectories.add(directory);
+    return directory;
+  }
+
+  @AfterEach
+  void deleteTemporaryDirectories() throws IOException {
+    for (File directory : temporaryDirectories) {
+      try (Stream<Path> walk = Files.walk(directory.toPath())) {
+        for (Path path : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
   // MAP TESTS
 
   @Test
@@ -68,6 +100,28 @@ public class ResourceLoaderTests {
     assert (map[7][7] == gameMap[7][7]);
   }
 
+  @Test
+  void parallelLoadBakesTheSameFramesAsSequentialLoad() throws IOException {
+    for (RenderingMode mode :
+        new RenderingMode[] {RenderingMode.SMOOTH_SCALING, RenderingMode.STANDARD_SCALING}) {
+      File sequentialCache = temporaryDirectory("atlas");
+      File parallelCache = temporaryDirectory("atlas");
+      new ResourceLoader("src/test/resources/", new SpriteAtlasCache(sequentialCache, 1), false)
+          .refreshSettings(1366, 768, mode, "default");
+      new ResourceLoader("src/test/resources/", new SpriteAtlasCache(parallelCache, 1), true)
+          .refreshSettings(1366, 768, mode, "default");
+
+      // every frame is baked into the atlas, so the same frames make the same file
+      File[] sequential = sequentialCache.listFiles();
+      File[] parallel = parallelCache.listFiles();
+      assertEquals(1, sequential.length);
+      assertEquals(1, parallel.length);
+      assertEquals(sequential[0].getName(), parallel[0].getName());
+      assertArrayEquals(
+          Files.readAllBytes(sequential[0].toPath()), Files.readAllBytes(parallel[0].toPath()));
+    }
+  }
+
   @Test
   void correctMipNumLoaded() {
     ResourceLoader resourceLoader = new ResourceLoader("src/test/resources/");
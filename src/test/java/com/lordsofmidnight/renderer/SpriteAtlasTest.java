@@ -0,0 +1,124 @@
+package com.lordsofmidnight.renderer;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpriteAtlasTest {
+
+  private final List<File> temporaryDirectories = new ArrayList<>();
+
+  /**
+   * @param prefix The start of the name of the directory
+   * @return A new directory, deleted with everything in it after the test
+   * @throws IOException If the directory can't be made
+   */
+  private File temporaryDirectory(String prefix) throws IOException {
+    File directory = Files.createTempDirectory(prefix).toFile();
+    temporaryDirectories.add(directory);
+    return directory;
+  }
+
+  @AfterEach
+  void deleteTemporaryDirectories() throws IOException {
+    for (File directory : temporaryDirectories) {
+      try (Stream<Path> walk = Files.walk(directory.toPath())) {
+        for (Path path : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
+  private static BufferedImage frame(int width, int height, int seed) {
+    BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        frame.setRGB(x, y, (x * 31 + y * 17 + seed) * 0x01030507 | 0xFF000000);
+      }
+    }
+    return frame;
+  }
+
+  private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int x = 0; x < expected.getWidth(); x++) {
+      for (int y = 0; y < expected.getHeight(); y++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  void framesComeBackAfterBeingWrittenAndRead() throws IOException {
+    ArrayList<BufferedImage> tiles =
+        new ArrayList<>(Arrays.asList(frame(3000, 4, 1), frame(2000, 6, 2)));
+    BufferedImage marker = frame(5, 7, 3);
+    SpriteAtlas atlas =
+        new SpriteAtlas.Builder()
+            .add("tiles", tiles)
+            .add("marker", Collections.singletonList(marker))
+            .build();
+    assertEquals(3000, atlas.getWidth());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new SpriteAtlas.Builder().add("tiles", tiles).add("tiles", tiles));
+
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    atlas.write(written);
+    SpriteAtlas read = SpriteAtlas.read(written.toByteArray());
+    assertEquals(2, read.get("tiles").size());
+    assertSamePixels(tiles.get(0), read.get("tiles").get(0));
+    assertSamePixels(tiles.get(1), read.get("tiles").get(1));
+    assertSamePixels(marker, read.get("marker").get(0));
+    assertNull(read.get("mine"));
+    assertThrows(IOException.class, () -> SpriteAtlas.read(new byte[] {1, 2, 3}));
+  }
+
+  @Test
+  void cacheIsKeyedByTheSpritesAndSettings() throws IOException {
+    File sources = temporaryDirectory("sprites");
+    File cached = temporaryDirectory("atlas");
+    File sheet = new File(sources, "SHEET_DATA.txt");
+    Files.write(sheet.toPath(), "PLAYABLE_SPRITE_WIDTH 39".getBytes());
+    SpriteAtlasCache cache = new SpriteAtlasCache(cached, 1);
+
+    String key = SpriteAtlasCache.keyOf(sources, "default", 1366, 768);
+    assertEquals(key, SpriteAtlasCache.keyOf(sources, "default", 1366, 768));
+    assertNotEquals(key, SpriteAtlasCache.keyOf(sources, "default", 1920, 1080));
+    Files.write(new File(sources, "unused.txt").toPath(), new byte[0]);
+    assertNotEquals(key, SpriteAtlasCache.keyOf(sources, "default", 1366, 768));
+    new File(sources, "unused.txt").delete();
+    assertEquals(key, SpriteAtlasCache.keyOf(sources, "default", 1366, 768));
+    assertNull(cache.load(key));
+
+    BufferedImage marker = frame(5, 7, 3);
+    cache.store(
+        key, new SpriteAtlas.Builder().add("marker", Collections.singletonList(marker)).build());
+    assertSamePixels(marker, cache.load(key).get("marker").get(0));
+
+    long saved = sheet.lastModified();
+    Files.write(sheet.toPath(), "PLAYABLE_SPRITE_WIDTH 40".getBytes());
+    sheet.setLastModified(saved + 2000); // as it would be when edited later on
+    String changed = SpriteAtlasCache.keyOf(sources, "default", 1366, 768);
+    assertNotEquals(key, changed);
+    cache.store(changed, new SpriteAtlas.Builder().build());
+    assertNull(cache.load(key));
+    assertNotNull(cache.load(changed));
+  }
+}
@@ -0,0 +1,105 @@
+package com.lordsofmidnight.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.lordsofmidnight.server.codec.BinaryPacketCodec;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class DatagramTransportTest {
+
+  private static final int PORT_A = 43210;
+  private static final int PORT_B = 43211;
+  // a transport closes its channel as its receiver stops, so each test binds its own ports
+  private static final int PORT_C = 43212;
+  private static final int PORT_D = 43213;
+
+  @Test
+  void framesArriveAtOtherEndpoint() throws Exception {
+    List<InetAddress> local = Collections.singletonList(InetAddress.getLoopbackAddress());
+    BlockingQueue<byte[]> outA = new LinkedBlockingQueue<>();
+    List<byte[]> received = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch arrived = new CountDownLatch(2);
+
+    DatagramTransport a = new DatagramTransport(PORT_A, PORT_B, local, outA, frame -> {}, 2);
+    DatagramTransport b =
+        new DatagramTransport(
+            PORT_B,
+            PORT_A,
+            local,
+            new LinkedBlockingQueue<>(),
+            frame -> {
+              byte[] data = new byte[frame.remaining()];
+              frame.get(data);
+              received.add(data);
+              arrived.countDown();
+            },
+            2);
+    a.start();
+    b.start();
+
+    BinaryPacketCodec codec = new BinaryPacketCodec();
+    byte[] input = codec.input(new Input(2, Direction.LEFT));
+    outA.add(input);
+    outA.add(codec.stop());
+    try {
+      assertTrue(arrived.await(5, TimeUnit.SECONDS));
+      assertArrayEquals(input, received.get(0));
+    } finally {
+      a.shutdown();
+      b.shutdown();
+    }
+  }
+
+  @Test
+  void framesTheHandlerThrowsOnAreDropped() throws Exception {
+    List<InetAddress> local = Collections.singletonList(InetAddress.getLoopbackAddress());
+    BlockingQueue<byte[]> outA = new LinkedBlockingQueue<>();
+    CountDownLatch arrived = new CountDownLatch(2);
+
+    DatagramTransport a = new DatagramTransport(PORT_C, PORT_D, local, outA, frame -> {}, 2);
+    DatagramTransport b =
+        new DatagramTransport(
+            PORT_D,
+            PORT_C,
+            local,
+            new LinkedBlockingQueue<>(),
+            frame -> {
+              arrived.countDown();
+              throw new IllegalStateException("thrown by the handler");
+            },
+            2);
+    a.start();
+    b.start();
+
+    BinaryPacketCodec codec = new BinaryPacketCodec();
+    outA.add(codec.stop());
+    outA.add(codec.stop());
+    try {
+      assertTrue(arrived.await(5, TimeUnit.SECONDS));
+    } finally {
+      a.shutdown();
+      b.shutdown();
+    }
+  }
+
+  @Test
+  void rejectsTooFewThreads() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new DatagramTransport(
+                PORT_A, PORT_B, new ArrayList<>(), new LinkedBlockingQueue<>(), frame -> {}, 1));
+  }
+}
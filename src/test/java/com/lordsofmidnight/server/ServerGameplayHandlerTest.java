@@ -0,0 +1,57 @@
+package com.lordsofmidnight.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.lordsofmidnight.server.codec.BinaryPacketCodec;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ServerGameplayHandlerTest {
+
+  private static final int SERVER_PORT = 43220;
+  private static final int CLIENT_PORT = 43221;
+
+  @Test
+  void dropsInputsForIdsThatAreNotPlayers() throws Exception {
+    ArrayList<InetAddress> ips = new ArrayList<>();
+    ips.add(InetAddress.getLoopbackAddress());
+    ips.add(InetAddress.getLoopbackAddress());
+    BlockingQueue<Input> inputs = new LinkedBlockingQueue<>();
+    ServerGameplayHandler handler =
+        new ServerGameplayHandler(
+            ips, 2, inputs, new LinkedBlockingQueue<>(), 2, SERVER_PORT, CLIENT_PORT);
+    BlockingQueue<byte[]> sent = new LinkedBlockingQueue<>();
+    DatagramTransport client =
+        new DatagramTransport(
+            CLIENT_PORT,
+            SERVER_PORT,
+            Collections.singletonList(InetAddress.getLoopbackAddress()),
+            sent,
+            frame -> {},
+            2);
+    client.start();
+
+    BinaryPacketCodec codec = new BinaryPacketCodec();
+    sent.add(codec.input(new Input(2, Direction.UP))); // an AI agent
+    sent.add(codec.input(new Input(200, Direction.UP)));
+    sent.add(codec.input(new Input(1, Direction.LEFT)));
+    try {
+      Input received = inputs.poll(5, TimeUnit.SECONDS);
+      assertNotNull(received);
+      assertEquals(1, received.getClientID());
+      assertEquals(Direction.LEFT, received.getMove());
+      assertEquals(0, inputs.size());
+    } finally {
+      client.shutdown();
+      handler.close();
+    }
+  }
+}
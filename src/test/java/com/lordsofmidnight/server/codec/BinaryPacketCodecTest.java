@@ -0,0 +1,251 @@
+package com.lordsofmidnight.server.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.server.NetworkUtility;
+import com.lordsofmidnight.server.snapshot.Snapshot;
+import com.lordsofmidnight.server.telemeters.Telemetry;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class BinaryPacketCodecTest {
+
+  private final BinaryPacketCodec codec = new BinaryPacketCodec();
+
+  private static final Map MAP = new Map(new int[20][20]);
+
+  private static Snapshot makeSnapshot(int tick) {
+    Snapshot snapshot = new Snapshot(5, MAP);
+    snapshot.setTick(tick);
+    snapshot.setMipID(3);
+    snapshot.setGameTime(14999);
+    for (int i = 0; i < 5; i++) {
+      snapshot.setPosition(i, Snapshot.toFixed(i + 1.5), Snapshot.toFixed(2.25 + i * 0.08));
+      snapshot.setDirection(i, i % 4);
+      snapshot.setScore(i, i * 100 - 5);
+      snapshot.setInventory(i, i == 2 ? 0x32 : Snapshot.EMPTY_INVENTORY);
+      snapshot.setLastInput(i, i * 3);
+    }
+    for (int cell = 0; cell < snapshot.getCellCount(); cell += 3) {
+      snapshot.getPellets().set(cell);
+    }
+    return snapshot;
+  }
+
+  /**
+   * @param agentCount The number of agents
+   * @return A snapshot as large as one can be encoded, with every field of every agent as far from
+   *     zero as it can be and the pellets alternating so they can only be sent as a bitmap
+   */
+  private static Snapshot makeWorstCaseSnapshot(int agentCount) {
+    Snapshot snapshot = new Snapshot(agentCount, MAP);
+    snapshot.setTick(Integer.MAX_VALUE);
+    snapshot.setMipID(agentCount - 1);
+    snapshot.setGameTime(Integer.MIN_VALUE);
+    int edge = MAP.getMaxX() * Snapshot.POSITION_SCALE;
+    for (int i = 0; i < agentCount; i++) {
+      snapshot.setPosition(i, edge, edge);
+      snapshot.setDirection(i, Direction.USE.toInt());
+      snapshot.setScore(i, Integer.MIN_VALUE);
+      snapshot.setInventory(i, 0xFF);
+      snapshot.setLastInput(i, Integer.MIN_VALUE);
+    }
+    for (int cell = 0; cell < snapshot.getCellCount(); cell += 2) {
+      snapshot.getPellets().set(cell);
+    }
+    return snapshot;
+  }
+
+  private static void assertSameState(Snapshot expected, Snapshot actual) {
+    assertEquals(expected.getTick(), actual.getTick());
+    assertEquals(expected.getMipID(), actual.getMipID());
+    assertEquals(expected.getGameTime(), actual.getGameTime());
+    for (int i = 0; i < expected.getAgentCount(); i++) {
+      assertEquals(expected.getX(i), actual.getX(i));
+      assertEquals(expected.getY(i), actual.getY(i));
+      assertEquals(expected.getDirection(i), actual.getDirection(i));
+      assertEquals(expected.getScore(i), actual.getScore(i));
+      assertEquals(expected.getInventory(i), actual.getInventory(i));
+      assertEquals(expected.getLastInput(i), actual.getLastInput(i));
+    }
+    assertEquals(expected.getPellets(), actual.getPellets());
+  }
+
+  /**
+   * Decodes a snapshot frame onto a copy of the baseline
+   *
+   * @param frame The frame
+   * @param baseline The baseline the frame was encoded from, or null
+   * @return The decoded snapshot
+   */
+  private Snapshot decodeSnapshot(byte[] frame, Snapshot baseline) {
+    return decodeSnapshot(frame, baseline, 5);
+  }
+
+  /**
+   * Decodes a snapshot frame onto a copy of the baseline
+   *
+   * @param frame The frame
+   * @param baseline The baseline the frame was encoded from, or null
+   * @param agentCount The number of agents in the snapshot
+   * @return The decoded snapshot
+   */
+  private Snapshot decodeSnapshot(byte[] frame, Snapshot baseline, int agentCount) {
+    Snapshot decoded = new Snapshot(agentCount, MAP);
+    if (baseline != null) {
+      decoded.copyFrom(baseline);
+    }
+    codec.decode(
+        ByteBuffer.wrap(frame),
+        new PacketListener() {
+          @Override
+          public Snapshot onSnapshotStart(int tick, int baselineTick) {
+            assertEquals(baseline == null ? Snapshot.NO_TICK : baseline.getTick(), baselineTick);
+            return decoded;
+          }
+        });
+    return decoded;
+  }
+
+  @Test
+  void wholeSnapshotRoundTrip() {
+    Snapshot current = makeSnapshot(1);
+    byte[] frame = codec.snapshot(null, current);
+    assertEquals(PacketType.SNAPSHOT, codec.typeOf(ByteBuffer.wrap(frame)));
+    assertTrue(frame.length <= NetworkUtility.FRAME_LIMIT);
+    assertSameState(current, decodeSnapshot(frame, null));
+  }
+
+  @Test
+  void worstCaseSnapshotAtMaxAgentCountIsRefusedBeforeWriting() {
+    assertTrue(
+        BinaryPacketCodec.maxSnapshotSize(Telemetry.MAX_AGENT_COUNT, 20, 20)
+            > NetworkUtility.FRAME_LIMIT);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> codec.snapshot(null, makeWorstCaseSnapshot(Telemetry.MAX_AGENT_COUNT)));
+    // nothing was left half written
+    Snapshot current = makeSnapshot(1);
+    assertSameState(current, decodeSnapshot(codec.snapshot(null, current), null));
+  }
+
+  @Test
+  void worstCaseSnapshotAtTheLargestCountThatFitsRoundTrips() {
+    int fitting = 1;
+    while (BinaryPacketCodec.maxSnapshotSize(fitting + 1, 20, 20) <= NetworkUtility.FRAME_LIMIT) {
+      fitting++;
+    }
+    int count = fitting;
+    assertTrue(count >= Telemetry.AGENT_COUNT);
+    Snapshot current = makeWorstCaseSnapshot(count);
+    byte[] frame = codec.snapshot(null, current);
+    assertTrue(frame.length <= BinaryPacketCodec.maxSnapshotSize(count, 20, 20));
+    assertSameState(current, decodeSnapshot(frame, null, count));
+
+    Snapshot swung = makeWorstCaseSnapshot(count);
+    for (int i = 0; i < count; i++) {
+      swung.setPosition(i, 0, 0);
+      swung.setScore(i, Integer.MAX_VALUE);
+      swung.setLastInput(i, Integer.MAX_VALUE);
+    }
+    swung.getPellets().flip(0, swung.getCellCount());
+    frame = codec.snapshot(current, swung);
+    assertTrue(frame.length <= BinaryPacketCodec.maxSnapshotSize(count, 20, 20));
+    assertSameState(swung, decodeSnapshot(frame, current, count));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> codec.snapshot(null, makeWorstCaseSnapshot(count + 1)));
+  }
+
+  @Test
+  void deltaOnlyHoldsChanges() {
+    Snapshot baseline = makeSnapshot(4);
+    Snapshot current = makeSnapshot(7);
+    current.setPosition(1, current.getX(1) + 5, current.getY(1));
+    current.setScore(0, current.getScore(0) + 20);
+    current.setInventory(4, 0x10);
+    current.setLastInput(1, 300);
+    current.getPellets().clear(3);
+    current.getPellets().set(4);
+
+    byte[] unchanged = codec.snapshot(baseline, makeSnapshot(5));
+    byte[] delta = codec.snapshot(baseline, current);
+    assertTrue(unchanged.length <= 16);
+    assertTrue(delta.length < codec.snapshot(null, current).length / 2);
+    assertSameState(current, decodeSnapshot(delta, baseline));
+  }
+
+  @Test
+  void skippedSnapshotIsNotApplied() {
+    boolean[] applied = new boolean[1];
+    codec.decode(
+        ByteBuffer.wrap(codec.snapshot(null, makeSnapshot(2))),
+        new PacketListener() {
+          @Override
+          public void onSnapshot(Snapshot snapshot) {
+            applied[0] = true;
+          }
+        });
+    assertFalse(applied[0]);
+  }
+
+  @Test
+  void snapshotAckRoundTrip() {
+    int[] decoded = new int[2];
+    codec.decode(
+        ByteBuffer.wrap(codec.snapshotAck(3, 70000)),
+        new PacketListener() {
+          @Override
+          public void onSnapshotAck(int id, int tick) {
+            decoded[0] = id;
+            decoded[1] = tick;
+          }
+        });
+    assertEquals(3, decoded[0]);
+    assertEquals(70000, decoded[1]);
+  }
+
+  @Test
+  void inputRoundTrip() {
+    Input[] decoded = new Input[1];
+    Input input = new Input(4, Direction.USE);
+    input.setSequence(1234);
+    codec.decode(
+        ByteBuffer.wrap(codec.input(input)),
+        new PacketListener() {
+          @Override
+          public void onInput(Input input) {
+            decoded[0] = input;
+          }
+        });
+    assertEquals(4, decoded[0].getClientID());
+    assertEquals(Direction.USE, decoded[0].getMove());
+    assertEquals(1234, decoded[0].getSequence());
+  }
+
+  @Test
+  void rejectsUnknownDirections() {
+    byte[] frame = codec.input(new Input(1, Direction.UP));
+    frame[3] = 9; // after the header and the id
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> codec.decode(ByteBuffer.wrap(frame), new PacketListener() {}));
+  }
+
+  @Test
+  void rejectsOtherVersions() {
+    byte[] frame = codec.stop();
+    frame[0] = BinaryPacketCodec.VERSION + 1;
+    assertNull(codec.typeOf(ByteBuffer.wrap(frame)));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> codec.decode(ByteBuffer.wrap(frame), new PacketListener() {}));
+  }
+}
@@ -0,0 +1,67 @@
+package com.lordsofmidnight.server.dedicated;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.maps.MapGenerator;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.TickScheduler;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Collections;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LockstepVerifierTest {
+
+  private static final long SEED = 20190321L;
+
+  @Test
+  void seededMapsAreIdentical() {
+    assertArrayEquals(
+        MapGenerator.generateNewMap(14, 14, new Random(SEED)),
+        MapGenerator.generateNewMap(14, 14, new Random(SEED)));
+  }
+
+  @Test
+  void sameSeedStaysInLockstep() {
+    int[][] grid = MapGenerator.generateNewMap(14, 14, new Random(SEED));
+    assertEquals(
+        LockstepVerifier.IN_LOCKSTEP,
+        LockstepVerifier.verify(grid, SEED, 3000, LockstepVerifier.InputLog.NONE));
+  }
+
+  @Test
+  void botsDecidingTogetherStayInLockstep() {
+    int[][] grid = MapGenerator.generateNewMap(14, 14, new Random(SEED));
+    assertEquals(
+        LockstepVerifier.IN_LOCKSTEP,
+        LockstepVerifier.verify(grid, SEED, 16, 3000, LockstepVerifier.InputLog.NONE));
+  }
+
+  @Test
+  void inputsAreReplayedToBoth() {
+    int[][] grid = MapGenerator.generateNewMap(14, 14, new Random(SEED));
+    LockstepVerifier.InputLog log =
+        tick ->
+            tick % 50 == 0
+                ? Collections.singletonList(new Input(0, Direction.fromInt(tick / 50 % 4)))
+                : Collections.emptyList();
+    assertEquals(LockstepVerifier.IN_LOCKSTEP, LockstepVerifier.verify(grid, SEED, 3000, log));
+  }
+
+  @Test
+  void differentSeedsDiverge() {
+    int[][] grid = MapGenerator.generateNewMap(14, 14, new Random(SEED));
+    Match first = new Match(0, new Map(grid), SEED);
+    Match second = new Match(1, new Map(grid), SEED + 1);
+    TickScheduler scheduler = new TickScheduler();
+    first.start(scheduler, match -> {});
+    second.start(scheduler, match -> {});
+    for (int i = 0; i < 500; i++) {
+      scheduler.step();
+    }
+    assertNotEquals(first.getTelemetry().stateHash(), second.getTelemetry().stateHash());
+  }
+}
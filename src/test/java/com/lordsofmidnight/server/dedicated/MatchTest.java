@@ -0,0 +1,94 @@
+package com.lordsofmidnight.server.dedicated;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.maps.MapGenerator;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.TickScheduler;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MatchTest {
+
+  private static Map newMap() {
+    return new Map(MapGenerator.newRandomMap(0, 0));
+  }
+
+  @Test
+  void matchesShareOneScheduler() {
+    TickScheduler worker = new TickScheduler();
+    List<Match> finished = new ArrayList<>();
+    Match first = new Match(0, newMap());
+    Match second = new Match(1, newMap());
+    first.start(worker, finished::add);
+    second.start(worker, finished::add);
+    int start = first.getTelemetry().getGameTimer();
+    for (int i = 0; i < 200; i++) {
+      worker.step();
+    }
+    assertEquals(start - 200, first.getTelemetry().getGameTimer());
+    assertEquals(start - 200, second.getTelemetry().getGameTimer());
+
+    first.stop();
+    assertTrue(first.isFinished());
+    assertFalse(second.isFinished());
+    assertEquals(1, finished.size());
+    int timer = first.getTelemetry().getGameTimer();
+    worker.step();
+    assertEquals(timer, first.getTelemetry().getGameTimer());
+
+    second.stop();
+    second.stop();
+    assertEquals(2, finished.size());
+    assertEquals(0, worker.getTaskCount());
+  }
+
+  @Test
+  void aFailingMatchStopsAloneAndIsFinished() {
+    TickScheduler worker = new TickScheduler();
+    List<Match> finished = new ArrayList<>();
+    Match broken = new Match(0, newMap());
+    Match neighbour = new Match(1, newMap());
+    broken.start(worker, finished::add);
+    neighbour.start(worker, finished::add);
+    worker.step();
+    broken.addInput(new Input(99, Direction.UP)); // no such agent, physics throws
+    int start = neighbour.getTelemetry().getGameTimer();
+    for (int i = 0; i < 100; i++) {
+      worker.step();
+    }
+    assertTrue(broken.isFinished());
+    assertNotNull(broken.getFailure());
+    assertEquals(1, finished.size());
+    assertEquals(broken, finished.get(0));
+    assertEquals(1, worker.getFailures());
+    assertEquals(2, worker.getTaskCount());
+
+    assertFalse(neighbour.isFinished());
+    assertNull(neighbour.getFailure());
+    assertEquals(start - 100, neighbour.getTelemetry().getGameTimer());
+    neighbour.stop();
+    assertEquals(2, finished.size());
+  }
+
+  @Test
+  void serverSpreadsMatchesOverWorkers() {
+    DedicatedServer server = new DedicatedServer(2);
+    for (int i = 0; i < 4; i++) {
+      server.host(new Match(i, newMap()));
+    }
+    assertEquals(4, server.getMatchCount());
+    for (TickScheduler worker : server.getWorkers()) {
+      assertEquals(4, worker.getTaskCount()); // physics and AI for two matches
+    }
+    server.shutdown();
+    assertEquals(0, server.getMatchCount());
+  }
+}
@@ -0,0 +1,69 @@
+package com.lordsofmidnight.server.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.maps.MapGenerator;
+import com.lordsofmidnight.server.dedicated.Match;
+import com.lordsofmidnight.utils.TickScheduler;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ReplayEngineTest {
+
+  private static final int TICKS = 2000;
+
+  private Path journal;
+
+  @AfterEach
+  void deleteJournal() throws IOException {
+    Files.deleteIfExists(journal);
+  }
+
+  /** Plays a bot match for {@link #TICKS} ticks, recording it */
+  private Path record(long seed) throws IOException {
+    journal = Files.createTempFile("match", ".journal");
+    Map map = new Map(MapGenerator.generateNewMap(14, 14, new Random(seed)));
+    Match match = new Match(0, map, seed);
+    match.getTelemetry().record(new InputJournal(journal));
+    TickScheduler worker = new TickScheduler();
+    match.getTelemetry().startGame(worker);
+    for (int i = 0; i < TICKS; i++) {
+      worker.step();
+    }
+    match.stop();
+    return journal;
+  }
+
+  @Test
+  void replayMatchesRecording() throws IOException {
+    ReplayEngine replay = new ReplayEngine(record(5));
+    assertEquals(ReplayEngine.IN_SYNC, replay.run());
+    assertEquals(TICKS, replay.getTicks());
+  }
+
+  @Test
+  void halfWrittenTickIsIgnored() throws IOException {
+    record(6);
+    byte[] bytes = Files.readAllBytes(journal);
+    Files.write(journal, Arrays.copyOf(bytes, bytes.length - 3));
+    ReplayEngine replay = new ReplayEngine(journal);
+    assertEquals(ReplayEngine.IN_SYNC, replay.run());
+    assertEquals(TICKS - 1, replay.getTicks());
+  }
+
+  @Test
+  void wrongSeedIsCaught() throws IOException {
+    record(7);
+    byte[] bytes = Files.readAllBytes(journal);
+    bytes[12] ^= 1; // the low byte of the seed
+    Files.write(journal, bytes);
+    assertNotEquals(ReplayEngine.IN_SYNC, new ReplayEngine(journal).run());
+  }
+}
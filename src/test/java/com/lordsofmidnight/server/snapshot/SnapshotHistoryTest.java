@@ -0,0 +1,58 @@
+package com.lordsofmidnight.server.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import org.junit.jupiter.api.Test;
+
+class SnapshotHistoryTest {
+
+  private final SnapshotHistory history = new SnapshotHistory(5, new Map(new int[10][10]));
+
+  private Snapshot record(int tick) {
+    Snapshot snapshot = history.record(tick);
+    snapshot.setTick(tick);
+    return snapshot;
+  }
+
+  @Test
+  void recordedSnapshotsCanBeFound() {
+    Snapshot first = record(1);
+    Snapshot second = record(2);
+    assertSame(first, history.get(1));
+    assertSame(second, history.latest());
+    assertNull(history.get(Snapshot.NO_TICK));
+    assertNull(history.get(3));
+  }
+
+  @Test
+  void nextTickNeverOverwritesAHeldBaseline() {
+    for (int tick = 1; tick <= 40; tick++) {
+      record(tick);
+    }
+    assertNull(history.get(40 - SnapshotHistory.SIZE + 1));
+    Snapshot oldest = history.get(40 - SnapshotHistory.SIZE + 2);
+    assertNotSame(oldest, history.record(41));
+  }
+
+  @Test
+  void ticksMustIncrease() {
+    record(5);
+    assertThrows(IllegalArgumentException.class, () -> history.record(5));
+  }
+
+  @Test
+  void acksOnlyMoveForward() {
+    SnapshotAcks acks = new SnapshotAcks(3);
+    acks.acknowledge(1, 10);
+    acks.acknowledge(1, 8);
+    acks.acknowledge(2, 12);
+    assertEquals(10, acks.lastAcked(1));
+    assertEquals(10, acks.oldest(1, 2));
+    assertEquals(Snapshot.NO_TICK, acks.oldest(0, 2));
+  }
+}
@@ -0,0 +1,171 @@
+package com.lordsofmidnight.server.telemeters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.server.codec.BinaryPacketCodec;
+import com.lordsofmidnight.server.snapshot.Snapshot;
+import com.lordsofmidnight.utils.Input;
+import com.lordsofmidnight.utils.enums.Direction;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.junit.jupiter.api.Test;
+
+class DumbTelemetryTest {
+
+  private static final Map MAP = new Map(new int[10][10]);
+  private static final int SELF = 0;
+  private static final double EPSILON = 1e-9;
+
+  private final Queue<byte[]> frames = new LinkedBlockingQueue<>();
+  private final Queue<byte[]> acks = new LinkedBlockingQueue<>();
+  private final DumbTelemetry telemetry =
+      new DumbTelemetry(
+          MAP,
+          SELF,
+          frames,
+          acks,
+          new GameListener() {
+            @Override
+            public void collisionDetected(Entity newMipsman) {}
+
+            @Override
+            public void finishGame() {}
+          });
+  private int tick = Snapshot.NO_TICK;
+
+  /**
+   * @param gameTime The game time of the snapshot
+   * @return The next snapshot, with every agent stopped in the middle of its own square
+   */
+  private Snapshot snapshot(int gameTime) {
+    Snapshot snapshot = new Snapshot(Telemetry.AGENT_COUNT, MAP);
+    snapshot.setTick(++tick);
+    snapshot.setGameTime(gameTime);
+    for (int id = 0; id < Telemetry.AGENT_COUNT; id++) {
+      snapshot.setPosition(id, Snapshot.toFixed(id * 2 + 0.5), Snapshot.toFixed(2.5));
+      snapshot.setDirection(id, Direction.STOP.toInt());
+    }
+    return snapshot;
+  }
+
+  private Entity self() {
+    return telemetry.agents[SELF];
+  }
+
+  @Test
+  void replaysOnlyTheInputsTheServerHasNotProcessed() {
+    int start = telemetry.getGameTimer();
+    telemetry.onSnapshot(snapshot(start));
+    telemetry.addInput(new Input(SELF, Direction.RIGHT)); // sequence 1
+    telemetry.addInput(new Input(SELF, Direction.DOWN)); // sequence 2
+    telemetry.processInputs();
+    assertEquals(Direction.DOWN, self().getDirection());
+
+    telemetry.setTime(start - 4); // four ticks played locally
+    Snapshot first = snapshot(start - 1);
+    first.setLastInput(SELF, 1);
+    telemetry.onSnapshot(first);
+    double step = self().getVelocity();
+    assertTrue(step > 0);
+    // rewound to the server's square, then the turn it hadn't seen replayed for three ticks
+    assertEquals(Direction.DOWN, self().getDirection());
+    assertEquals(0.5, self().getLocation().getX(), EPSILON);
+    assertEquals(2.5 + 3 * step, self().getLocation().getY(), EPSILON);
+    assertEquals(start - 4, telemetry.getGameTimer());
+
+    Snapshot both = snapshot(start - 4);
+    both.setLastInput(SELF, 2);
+    both.setDirection(SELF, Direction.LEFT.toInt());
+    telemetry.onSnapshot(both);
+    // nothing is left to replay, so the server's direction stands
+    assertEquals(Direction.LEFT, self().getDirection());
+    assertEquals(0.5, self().getLocation().getX(), EPSILON);
+    assertEquals(2.5, self().getLocation().getY(), EPSILON);
+    assertEquals(3, acks.size());
+  }
+
+  @Test
+  void decodesEveryFrameQueued() {
+    BinaryPacketCodec codec = new BinaryPacketCodec();
+    int start = telemetry.getGameTimer();
+    Snapshot whole = snapshot(start);
+    Snapshot changes = snapshot(start);
+    changes.setScore(1, 300);
+    frames.add(codec.snapshot(null, whole));
+    frames.add(codec.snapshot(whole, changes)); // shorter than the frame before it
+    telemetry.processInputs();
+    assertEquals(300, telemetry.agents[1].getScore());
+    assertEquals(2, acks.size());
+  }
+
+  @Test
+  void dropsMalformedFramesAndDecodesTheRest() {
+    BinaryPacketCodec codec = new BinaryPacketCodec();
+    int start = telemetry.getGameTimer();
+    byte[] cut = codec.snapshot(null, snapshot(start));
+    frames.add(Arrays.copyOf(cut, cut.length / 2));
+    byte[] unknownVersion = codec.stop();
+    unknownVersion[0] = BinaryPacketCodec.VERSION + 1;
+    frames.add(unknownVersion);
+    Snapshot whole = snapshot(start);
+    whole.setScore(1, 300);
+    frames.add(codec.snapshot(null, whole));
+    telemetry.processInputs();
+    assertEquals(300, telemetry.agents[1].getScore());
+    assertEquals(1, acks.size());
+  }
+
+  @Test
+  void takesTheHostClockWhenAheadOrTooFarBehind() {
+    int start = telemetry.getGameTimer();
+    telemetry.onSnapshot(snapshot(start));
+    telemetry.addInput(new Input(SELF, Direction.DOWN));
+    telemetry.processInputs();
+
+    // the host has counted down further, there are no local ticks to replay over
+    telemetry.onSnapshot(snapshot(start - 5));
+    assertEquals(start - 5, telemetry.getGameTimer());
+    assertEquals(Direction.DOWN, self().getDirection());
+    assertEquals(2.5, self().getLocation().getY(), EPSILON);
+
+    // too far behind the local clock to replay
+    telemetry.setTime(start - 5 - DumbTelemetry.MAX_REPLAY - 1);
+    telemetry.onSnapshot(snapshot(start - 5));
+    assertEquals(start - 5, telemetry.getGameTimer());
+    assertEquals(Direction.DOWN, self().getDirection());
+    assertEquals(2.5, self().getLocation().getY(), EPSILON);
+
+    // as far behind as can be replayed keeps the local clock
+    telemetry.setTime(start - 5 - DumbTelemetry.MAX_REPLAY);
+    telemetry.onSnapshot(snapshot(start - 5));
+    assertEquals(start - 5 - DumbTelemetry.MAX_REPLAY, telemetry.getGameTimer());
+  }
+
+  @Test
+  void remoteAgentsSnapAcrossRespawnsAndTunnels() {
+    int start = telemetry.getGameTimer();
+    Snapshot from = snapshot(start);
+    from.setPosition(1, Snapshot.toFixed(2.5), Snapshot.toFixed(4.5));
+    from.setPosition(2, Snapshot.toFixed(4.5), Snapshot.toFixed(4.5));
+    from.setPosition(3, Snapshot.toFixed(0.25), Snapshot.toFixed(6.5));
+    telemetry.onSnapshot(from);
+    Snapshot to = snapshot(start - 1000); // a long gap, so barely any of it passes in the test
+    to.setPosition(1, Snapshot.toFixed(3.5), Snapshot.toFixed(4.5)); // walks a square
+    to.setPosition(2, Snapshot.toFixed(8.5), Snapshot.toFixed(8.5)); // respawns
+    to.setPosition(3, Snapshot.toFixed(9.75), Snapshot.toFixed(6.5)); // wraps through the tunnel
+    telemetry.onSnapshot(to);
+    telemetry.processInputs();
+
+    Entity[] agents = telemetry.agents;
+    assertEquals(2.5, agents[1].getLocation().getX(), 0.1);
+    assertEquals(4.5, agents[1].getLocation().getY(), EPSILON);
+    assertEquals(8.5, agents[2].getLocation().getX(), EPSILON);
+    assertEquals(8.5, agents[2].getLocation().getY(), EPSILON);
+    assertEquals(9.75, agents[3].getLocation().getX(), EPSILON);
+    assertEquals(6.5, agents[3].getLocation().getY(), EPSILON);
+  }
+}
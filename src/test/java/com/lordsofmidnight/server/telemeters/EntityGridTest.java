@@ -0,0 +1,99 @@
+package com.lordsofmidnight.server.telemeters;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.objects.EntityStore;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class EntityGridTest {
+
+  private static final Map MAP = new Map(new int[10][8]);
+
+  private static Entity[] agentsAt(double... coordinates) {
+    Entity[] agents = new Entity[coordinates.length / 2];
+    EntityStore store = new EntityStore(agents.length);
+    for (int i = 0; i < agents.length; i++) {
+      Point location = new Point(coordinates[i * 2], coordinates[i * 2 + 1], MAP);
+      agents[i] = new Entity(store, i, false, i, location);
+    }
+    return agents;
+  }
+
+  private static int[] nearby(EntityGrid grid, int agent, int agentCount) {
+    int[] into = new int[agentCount];
+    return Arrays.copyOf(into, grid.nearby(agent, into));
+  }
+
+  @Test
+  void findsHigherIdsInNeighbouringSquares() {
+    Entity[] agents = agentsAt(4.5, 4.5, 5.5, 5.5, 4.5, 6.5, 3.2, 3.9, 4.5, 4.5);
+    EntityGrid grid = new EntityGrid(MAP, agents.length);
+    grid.update(agents[0].getStore());
+    assertArrayEquals(new int[] {1, 3, 4}, nearby(grid, 0, agents.length));
+    assertArrayEquals(new int[] {2, 4}, nearby(grid, 1, agents.length));
+    assertArrayEquals(new int[] {}, nearby(grid, 4, agents.length));
+  }
+
+  @Test
+  void neighboursWrapRoundTheEdges() {
+    Entity[] agents = agentsAt(0.5, 0.5, 9.5, 7.5, 9.5, 0.5, 5.5, 0.5);
+    EntityGrid grid = new EntityGrid(MAP, agents.length);
+    grid.update(agents[0].getStore());
+    assertArrayEquals(new int[] {1, 2}, nearby(grid, 0, agents.length));
+  }
+
+  @Test
+  void followsAgentsThatMove() {
+    Entity[] agents = agentsAt(1.5, 1.5, 6.5, 6.5);
+    EntityGrid grid = new EntityGrid(MAP, agents.length);
+    grid.update(agents[0].getStore());
+    assertEquals(0, grid.nearby(0, new int[2]));
+    agents[1].setLocation(2.5, 2.5);
+    grid.update(agents[0].getStore());
+    assertArrayEquals(new int[] {1}, nearby(grid, 0, agents.length));
+    agents[1].setLocation(3.5, 2.5);
+    grid.update(agents[0].getStore());
+    assertEquals(0, grid.nearby(0, new int[2]));
+  }
+
+  @Test
+  void findsEveryPairThatCouldTouch() {
+    Random random = new Random(3);
+    Entity[] agents = new Entity[40];
+    EntityStore store = new EntityStore(agents.length);
+    for (int i = 0; i < agents.length; i++) {
+      agents[i] = new Entity(store, i, false, i, new Point(0.5, 0.5, MAP));
+    }
+    EntityGrid grid = new EntityGrid(MAP, agents.length);
+    for (int round = 0; round < 50; round++) {
+      for (Entity agent : agents) {
+        agent.setLocation(random.nextDouble() * 10, random.nextDouble() * 8);
+      }
+      grid.update(agents[0].getStore());
+      for (int i = 0; i < agents.length; i++) {
+        int[] found = nearby(grid, i, agents.length);
+        for (int j = i + 1; j < agents.length; j++) {
+          boolean close =
+              withinOne(agents[i].getLocation().getX(), agents[j].getLocation().getX(), 10)
+                  && withinOne(agents[i].getLocation().getY(), agents[j].getLocation().getY(), 8);
+          if (close) {
+            assertTrue(Arrays.binarySearch(found, j) >= 0, i + " should find " + j);
+          }
+        }
+      }
+    }
+  }
+
+  /** @return If two coordinates are at most one apart, round the edge of the map or not */
+  private static boolean withinOne(double a, double b, int max) {
+    double distance = Math.abs(a - b);
+    return Math.min(distance, max - distance) <= 1;
+  }
+}
@@ -0,0 +1,44 @@
+package com.lordsofmidnight.server.telemeters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.objects.Entity;
+import com.lordsofmidnight.server.snapshot.SnapshotAcks;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.junit.jupiter.api.Test;
+
+class HostTelemetryTest {
+
+  private static final Map MAP = new Map(new int[20][20]);
+
+  private static final GameListener LISTENER =
+      new GameListener() {
+        @Override
+        public void collisionDetected(Entity newMipsman) {}
+
+        @Override
+        public void finishGame() {}
+      };
+
+  private static HostTelemetry newGame(int agentCount, int playerCount) {
+    return new HostTelemetry(
+        MAP,
+        agentCount,
+        playerCount,
+        new LinkedBlockingQueue<>(),
+        new LinkedBlockingQueue<>(),
+        new SnapshotAcks(playerCount),
+        LISTENER,
+        0);
+  }
+
+  @Test
+  void gamesWithRemotePlayersAreLimitedToSnapshotsThatFitInAFrame() {
+    assertThrows(IllegalArgumentException.class, () -> newGame(Telemetry.MAX_AGENT_COUNT, 2));
+    assertEquals(Telemetry.AGENT_COUNT, newGame(Telemetry.AGENT_COUNT, 2).getAgentCount());
+    // nothing is sent without remote players, so a game of them all is still allowed
+    assertEquals(Telemetry.MAX_AGENT_COUNT, newGame(Telemetry.MAX_AGENT_COUNT, 0).getAgentCount());
+  }
+}
@@ -0,0 +1,96 @@
+package com.lordsofmidnight.server.telemeters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.lordsofmidnight.gamestate.maps.Map;
+import com.lordsofmidnight.gamestate.points.Point;
+import com.lordsofmidnight.gamestate.points.PointMap;
+import com.lordsofmidnight.objects.MinePellet;
+import com.lordsofmidnight.objects.Pellet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RespawnWheelTest {
+
+  private static final Map MAP = new Map(new int[6][5]);
+
+  private static PointMap<Pellet> pelletsFrom(Random random) {
+    PointMap<Pellet> pellets = new PointMap<>(MAP);
+    for (int x = 0; x < MAP.getMaxX(); x++) {
+      for (int y = 0; y < MAP.getMaxY(); y++) {
+        pellets.put(new Point(x, y), new Pellet(new Point(x + 0.5, y + 0.5), random));
+      }
+    }
+    return pellets;
+  }
+
+  @Test
+  void countsLikeEveryPelletEveryUpdate() {
+    Random counted = new Random(5);
+    Random wheeled = new Random(5);
+    PointMap<Pellet> expected = pelletsFrom(counted);
+    PointMap<Pellet> actual = pelletsFrom(wheeled);
+    RespawnWheel wheel = new RespawnWheel(MAP);
+    wheel.watchAll(actual);
+    Random eating = new Random(9);
+    for (int update = 0; update < 6000; update++) {
+      if (eating.nextInt(20) == 0) {
+        Point square = new Point(eating.nextInt(6), eating.nextInt(5));
+        expected.get(square).setActive(false);
+        Pellet pellet = actual.get(square);
+        wheel.sync(pellet);
+        pellet.setActive(false);
+        wheel.watch(pellet);
+      }
+      for (Pellet pellet : expected.values()) {
+        pellet.incrementRespawn();
+      }
+      wheel.advance(actual, wheeled);
+      for (Pellet pellet : expected.values()) {
+        assertEquals(pellet.isActive(), actual.get(pellet.getLocation()).isActive());
+      }
+    }
+    assertEquals(counted.nextLong(), wheeled.nextLong());
+  }
+
+  @Test
+  void hidesMinesPutDownLater() {
+    PointMap<Pellet> pellets = pelletsFrom(new Random(1));
+    RespawnWheel wheel = new RespawnWheel(MAP);
+    wheel.watchAll(pellets);
+    for (int update = 0; update < 1500; update++) {
+      wheel.advance(pellets, new Random(2));
+    }
+    MinePellet mine = new MinePellet(2.5, 3.5, null);
+    pellets.put(mine.getLocation(), mine);
+    wheel.watchAll(pellets);
+    for (int update = 0; update < 299; update++) {
+      wheel.advance(pellets, new Random(2));
+    }
+    assertFalse(mine.isHidden());
+    wheel.advance(pellets, new Random(2));
+    assertTrue(mine.isHidden());
+  }
+
+  @Test
+  void countsManyUpdatesAtOnce() {
+    Pellet once = new Pellet(new Point(0.5, 0.5), new Random(4));
+    Pellet stepped = new Pellet(new Point(0.5, 0.5), new Random(4));
+    once.setActive(false);
+    stepped.setActive(false);
+    int updates = once.getUpdatesUntilChange();
+    once.incrementRespawn(updates - 1);
+    for (int update = 0; update < updates - 1; update++) {
+      stepped.incrementRespawn();
+    }
+    assertFalse(once.isActive());
+    assertFalse(stepped.isActive());
+    once.incrementRespawn(5);
+    stepped.incrementRespawn();
+    assertTrue(once.isActive());
+    assertTrue(stepped.isActive());
+    assertEquals(-1, once.getUpdatesUntilChange());
+  }
+}
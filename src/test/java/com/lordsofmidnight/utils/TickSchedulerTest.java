@@ -0,0 +1,92 @@
+package com.lordsofmidnight.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class TickSchedulerTest {
+
+  @Test
+  void tasksRunAtTheirTickMultiples() {
+    TickScheduler scheduler = new TickScheduler();
+    List<String> runs = new ArrayList<>();
+    scheduler.register(1, () -> runs.add("physics"));
+    scheduler.register(3, () -> runs.add("replication"));
+    for (int i = 0; i < 6; i++) {
+      scheduler.step();
+    }
+    assertEquals(6, scheduler.getTick());
+    assertEquals(8, runs.size());
+    assertEquals("physics", runs.get(2));
+    assertEquals("replication", runs.get(3));
+    assertEquals("replication", runs.get(7));
+  }
+
+  @Test
+  void slowTicksAreCountedAsOverruns() {
+    TickScheduler scheduler = new TickScheduler(1, 1);
+    scheduler.register(
+        1,
+        () -> {
+          long start = System.nanoTime();
+          while (System.nanoTime() - start < 1000) {
+            // busy wait past the tick length
+          }
+        });
+    scheduler.step();
+    scheduler.step();
+    assertEquals(2, scheduler.getOverruns());
+    assertTrue(scheduler.getMaxTickNanos() >= scheduler.getLastTickNanos());
+  }
+
+  @Test
+  void runsTicksOnItsOwnThread() throws InterruptedException {
+    TickScheduler scheduler = new TickScheduler((long) Math.pow(10, 6), 5);
+    AtomicInteger ticks = new AtomicInteger();
+    scheduler.register(1, ticks::incrementAndGet);
+    scheduler.start();
+    Thread.sleep(100);
+    scheduler.close();
+    scheduler.join(1000);
+    assertTrue(ticks.get() > 10);
+    assertEquals(ticks.get(), scheduler.getTick());
+  }
+
+  @Test
+  void aTaskThatThrowsIsDroppedAndTheOthersRunOn() {
+    TickScheduler scheduler = new TickScheduler();
+    List<RuntimeException> failures = new ArrayList<>();
+    AtomicInteger before = new AtomicInteger();
+    AtomicInteger after = new AtomicInteger();
+    scheduler.register(1, before::incrementAndGet);
+    scheduler.register(
+        1,
+        () -> {
+          if (scheduler.getTick() == 2) {
+            throw new IllegalStateException("broken");
+          }
+        },
+        failures::add);
+    scheduler.register(1, after::incrementAndGet);
+    for (int i = 0; i < 5; i++) {
+      scheduler.step();
+    }
+    assertEquals(1, failures.size());
+    assertEquals("broken", failures.get(0).getMessage());
+    assertEquals(1, scheduler.getFailures());
+    assertEquals(2, scheduler.getTaskCount());
+    assertEquals(5, before.get());
+    assertEquals(5, after.get());
+  }
+
+  @Test
+  void rejectsNonPositivePeriods() {
+    TickScheduler scheduler = new TickScheduler();
+    assertThrows(IllegalArgumentException.class, () -> scheduler.register(0, () -> {}));
+  }
+}